@@ -0,0 +1,45 @@
+package de.raysha.lib.dbc.benchmark;
+
+import java.io.File;
+
+import de.raysha.lib.dbc.beans.ConnectionInfo;
+
+/**
+ * Verbindungsinformationen für die unterschiedlichen Datenbank-Modi der Benchmarks.
+ * 
+ * @author rainu
+ */
+public final class Backends {
+	/**
+	 * Eingebettete H2-Datenbank in einer Datei im temporären Verzeichnis.
+	 */
+	public static final String FILE = "file";
+	/**
+	 * H2-Datenbank, die nur im Speicher existiert.
+	 */
+	public static final String MEMORY = "memory";
+	
+	private Backends(){
+	}
+	
+	/**
+	 * @param mode {@link #FILE} oder {@link #MEMORY}
+	 * @return Die Verbindungsinformationen für den gegebenen Modus.
+	 */
+	public static ConnectionInfo info(String mode){
+		final String url;
+		switch(mode){
+		case FILE:
+			url = "jdbc:h2:" + new File(System.getProperty("java.io.tmpdir"), "dbc-benchmark").getAbsolutePath();
+			break;
+		case MEMORY:
+			//die Datenbank soll nicht mit der letzten Verbindung verschwinden
+			url = "jdbc:h2:mem:dbc-benchmark;DB_CLOSE_DELAY=-1";
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown mode: " + mode);
+		}
+		
+		return new ConnectionInfo("org.h2.Driver", url, "sa", "");
+	}
+}
@@ -0,0 +1,41 @@
+package de.raysha.lib.dbc.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Startet die Benchmarks. Es werden die selben Argumente wie von {@link org.openjdk.jmh.Main}
+ * verstanden. Sofern nicht anders angegeben, werden die Ergebnisse zusätzlich als JSON in
+ * {@value #DEFAULT_RESULT_FILE} geschrieben, damit sie zwischen mehreren Läufen verglichen
+ * werden können.
+ * 
+ * @author rainu
+ */
+public class BenchmarkMain {
+	public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+	
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions cmdOptions = new CommandLineOptions(args);
+		if(cmdOptions.shouldHelp()){
+			cmdOptions.showHelp();
+			return;
+		}
+		if(cmdOptions.shouldList()){
+			new Runner(cmdOptions).list();
+			return;
+		}
+		
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(cmdOptions);
+		if(!cmdOptions.getResultFormat().hasValue()){
+			options.resultFormat(ResultFormatType.JSON);
+		}
+		if(!cmdOptions.getResult().hasValue()){
+			options.result(DEFAULT_RESULT_FILE);
+		}
+		
+		new Runner(options.build()).run();
+	}
+}
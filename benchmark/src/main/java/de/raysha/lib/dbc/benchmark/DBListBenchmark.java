@@ -0,0 +1,128 @@
+package de.raysha.lib.dbc.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.raysha.lib.dbc.DBList;
+
+/**
+ * Benchmarks der {@link DBList}. Als Vergleichswert dient eine {@link ArrayList} mit den
+ * selben Daten (Parameter <i>implementation</i>). Streams werden nicht als Elemente verwendet,
+ * da sie kein sinnvolles equals besitzen und {@link #retainAll()} die Liste sonst leeren würde.
+ * 
+ * @author rainu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DBListBenchmark {
+	@Param({"DBList", "ArrayList"})
+	public String implementation;
+	
+	@Param({"String", "Integer", "Long", "Double", "Float", "Character", "Byte", "Boolean", "Object"})
+	public String valueType;
+	
+	@Param({"1000", "10000"})
+	public int size;
+	
+	@Param({Backends.MEMORY, Backends.FILE})
+	public String mode;
+	
+	private List<Object> list;
+	private Object[] values;
+	private Set<Object> allValues;
+	private int cursor;
+	
+	@Setup(Level.Trial)
+	public void setup(){
+		if("DBList".equals(implementation)){
+			list = new DBList<Object>(Backends.info(mode), "benchmark_list", true);
+		}else{
+			list = new ArrayList<Object>();
+		}
+		
+		values = Values.create(valueType, size, 0);
+		list.addAll(Arrays.asList(values));
+		allValues = new HashSet<Object>(Arrays.asList(values));
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown(){
+		if(list instanceof DBList){
+			((DBList<?>)list).close();
+		}
+	}
+	
+	/**
+	 * @return Der nächste (gültige) Index.
+	 */
+	private int next(){
+		if(++cursor >= size) cursor = 0;
+		return cursor;
+	}
+	
+	@Benchmark
+	public Object get(){
+		return list.get(next());
+	}
+	
+	/**
+	 * Fügt ein Element am Anfang ein und entfernt es wieder. Dabei müssen alle
+	 * Elemente verschoben werden.
+	 */
+	@Benchmark
+	public Object addAndRemoveFirst(){
+		list.add(0, values[next()]);
+		return list.remove(0);
+	}
+	
+	@Benchmark
+	public Object addAndRemoveMiddle(){
+		int index = size / 2;
+		list.add(index, values[next()]);
+		return list.remove(index);
+	}
+	
+	@Benchmark
+	public Object addAndRemoveLast(){
+		list.add(values[next()]);
+		return list.remove(size);
+	}
+	
+	/**
+	 * Behält alle Elemente, prüft aber jedes.
+	 */
+	@Benchmark
+	public boolean retainAll(){
+		return list.retainAll(allValues);
+	}
+	
+	@Benchmark
+	public void iterate(Blackhole blackhole){
+		for(Object value : list){
+			blackhole.consume(value);
+		}
+	}
+}
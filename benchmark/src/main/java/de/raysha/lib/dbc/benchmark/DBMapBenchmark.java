@@ -0,0 +1,175 @@
+package de.raysha.lib.dbc.benchmark;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.raysha.lib.dbc.DBMap;
+
+/**
+ * Benchmarks der {@link DBMap}. Als Vergleichswert dient eine {@link HashMap} mit den selben
+ * Daten (Parameter <i>implementation</i>). Alle schreibenden Benchmarks lassen die Größe
+ * der Map unverändert, damit die Messungen einer Iteration vergleichbar bleiben.
+ * 
+ * @author rainu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DBMapBenchmark {
+	/**
+	 * Anzahl der Einträge, die bei einem {@link #putAll()} überschrieben werden.
+	 */
+	private static final int BATCH_SIZE = 100;
+	
+	@Param({"DBMap", "HashMap"})
+	public String implementation;
+	
+	@Param({"String", "Integer", "Long", "Double", "Float", "Character", "Object"})
+	public String keyType;
+	
+	@Param({"String", "Integer", "Long", "Double", "Float", "Character", "Byte", "Boolean", "Stream", "Object"})
+	public String valueType;
+	
+	@Param({"1000", "10000"})
+	public int size;
+	
+	@Param({Backends.MEMORY, Backends.FILE})
+	public String mode;
+	
+	private Map<Object, Object> map;
+	private Object[] keys;
+	private Object[] values;
+	private Map<Object, Object> batch;
+	private Set<Object> allKeys;
+	private int cursor;
+	
+	@Setup(Level.Trial)
+	public void setup(){
+		if("DBMap".equals(implementation)){
+			map = new DBMap<Object, Object>(Backends.info(mode), "benchmark_map", true);
+		}else{
+			map = new HashMap<Object, Object>();
+		}
+		
+		keys = Values.create(keyType, size, 0);
+		values = Values.create(valueType, size, 0);
+		for(int i=0; i < size; i++){
+			map.put(keys[i], values[i]);
+		}
+		
+		batch = new LinkedHashMap<Object, Object>();
+		for(int i=0; i < BATCH_SIZE && i < size; i++){
+			batch.put(keys[i], values[i]);
+		}
+		allKeys = new HashSet<Object>(Arrays.asList(keys));
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown(){
+		if(map instanceof DBMap){
+			((DBMap<?, ?>)map).close();
+		}
+	}
+	
+	/**
+	 * @return Der Index des nächsten (bestehenden) Schlüssels.
+	 */
+	private int next(){
+		if(++cursor >= size) cursor = 0;
+		return cursor;
+	}
+	
+	@Benchmark
+	public Object get(){
+		return map.get(keys[next()]);
+	}
+	
+	@Benchmark
+	public boolean containsKey(){
+		return map.containsKey(keys[next()]);
+	}
+	
+	@Benchmark
+	public boolean containsMissingKey(){
+		return map.containsKey(Values.create(keyType, size + next()));
+	}
+	
+	/**
+	 * Überschreibt einen bestehenden Eintrag.
+	 */
+	@Benchmark
+	public Object put(){
+		int i = next();
+		return map.put(keys[i], Values.create(valueType, i));
+	}
+	
+	/**
+	 * Entfernt einen Eintrag und fügt ihn anschließend wieder hinzu.
+	 */
+	@Benchmark
+	public Object removeAndPut(){
+		int i = next();
+		Object value = map.remove(keys[i]);
+		map.put(keys[i], Values.create(valueType, i));
+		
+		return value;
+	}
+	
+	@Benchmark
+	public void putAll(){
+		map.putAll(batch);
+	}
+	
+	/**
+	 * Behält alle Schlüssel, prüft aber jeden Eintrag.
+	 */
+	@Benchmark
+	public boolean retainAll(){
+		return map.keySet().retainAll(allKeys);
+	}
+	
+	@Benchmark
+	public void iterateKeys(Blackhole blackhole){
+		for(Object key : map.keySet()){
+			blackhole.consume(key);
+		}
+	}
+	
+	@Benchmark
+	public void iterateValues(Blackhole blackhole){
+		for(Object value : map.values()){
+			blackhole.consume(value);
+		}
+	}
+	
+	@Benchmark
+	public void iterateEntries(Blackhole blackhole){
+		for(Map.Entry<Object, Object> entry : map.entrySet()){
+			blackhole.consume(entry.getKey());
+			blackhole.consume(entry.getValue());
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package de.raysha.lib.dbc.benchmark;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.raysha.lib.dbc.DBSet;
+
+/**
+ * Benchmarks des {@link DBSet}. Als Vergleichswert dient ein {@link HashSet} mit den
+ * selben Daten (Parameter <i>implementation</i>).
+ * 
+ * @author rainu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DBSetBenchmark {
+	@Param({"DBSet", "HashSet"})
+	public String implementation;
+	
+	@Param({"String", "Integer", "Long", "Double", "Float", "Character", "Object"})
+	public String elementType;
+	
+	@Param({"1000", "10000"})
+	public int size;
+	
+	@Param({Backends.MEMORY, Backends.FILE})
+	public String mode;
+	
+	private Set<Object> set;
+	private Object[] elements;
+	private Set<Object> allElements;
+	private int cursor;
+	
+	@Setup(Level.Trial)
+	public void setup(){
+		if("DBSet".equals(implementation)){
+			set = new DBSet<Object>(Backends.info(mode), "benchmark_set", true);
+		}else{
+			set = new HashSet<Object>();
+		}
+		
+		elements = Values.create(elementType, size, 0);
+		set.addAll(Arrays.asList(elements));
+		allElements = new HashSet<Object>(Arrays.asList(elements));
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown(){
+		if(set instanceof DBSet){
+			((DBSet<?>)set).close();
+		}
+	}
+	
+	/**
+	 * @return Der Index des nächsten (enthaltenen) Elements.
+	 */
+	private int next(){
+		if(++cursor >= size) cursor = 0;
+		return cursor;
+	}
+	
+	/**
+	 * Fügt ein bereits enthaltenes Element hinzu.
+	 */
+	@Benchmark
+	public boolean add(){
+		return set.add(elements[next()]);
+	}
+	
+	@Benchmark
+	public boolean contains(){
+		return set.contains(elements[next()]);
+	}
+	
+	@Benchmark
+	public boolean containsMissing(){
+		return set.contains(Values.create(elementType, size + next()));
+	}
+	
+	/**
+	 * Entfernt ein Element und fügt es anschließend wieder hinzu.
+	 */
+	@Benchmark
+	public boolean removeAndAdd(){
+		Object element = elements[next()];
+		set.remove(element);
+		return set.add(element);
+	}
+	
+	/**
+	 * Behält alle Elemente, prüft aber jedes.
+	 */
+	@Benchmark
+	public boolean retainAll(){
+		return set.retainAll(allElements);
+	}
+	
+	@Benchmark
+	public void iterate(Blackhole blackhole){
+		for(Object element : set){
+			blackhole.consume(element);
+		}
+	}
+}
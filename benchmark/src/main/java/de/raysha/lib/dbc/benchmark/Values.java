@@ -0,0 +1,87 @@
+package de.raysha.lib.dbc.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.Serializable;
+
+import de.raysha.lib.dbc.map.interpreter.Interpreter;
+
+/**
+ * Erzeugt die Schlüssel und Werte der Benchmarks. Für jeden {@link Interpreter} gibt es
+ * einen Typ-Namen, über den die Benchmarks parametrisiert werden. Als Schlüssel (bzw.
+ * Elemente einer Menge) eignen sich nicht alle Typen: {@link Boolean} und {@link Byte}
+ * haben zu wenige unterschiedliche Werte und Streams kein sinnvolles equals.
+ * 
+ * @author rainu
+ */
+public final class Values {
+	private static final byte[] STREAM_CONTENT = new byte[256];
+	
+	private Values(){
+	}
+	
+	/**
+	 * @param type Name des Typs (z.B. "Integer")
+	 * @param i Laufende Nummer. Unterschiedliche Nummern ergeben unterschiedliche Werte, sofern
+	 * der Typ genügend Werte besitzt.
+	 * @return Der i-te Wert des gegebenen Typs.
+	 */
+	public static Object create(String type, int i){
+		switch(type){
+		case "String":		return "value-" + i;
+		case "Integer":		return i;
+		case "Long":		return (long)i << 32 | i;
+		case "Double":		return i + 0.5d;
+		case "Float":		return i + 0.5f;
+		case "Character":	return (char)i;
+		case "Byte":		return (byte)i;
+		case "Boolean":		return (i & 1) == 0;
+		case "Stream":		return new ByteArrayInputStream(STREAM_CONTENT);
+		case "Object":		return new Payload(i);
+		default:
+			throw new IllegalArgumentException("Unknown type: " + type);
+		}
+	}
+	
+	/**
+	 * @return Die <i>count</i> Werte des gegebenen Typs ab der Nummer <i>offset</i>.
+	 */
+	public static Object[] create(String type, int count, int offset){
+		Object[] values = new Object[count];
+		for(int i=0; i < count; i++){
+			values[i] = create(type, offset + i);
+		}
+		
+		return values;
+	}
+	
+	/**
+	 * Ein serialisierbares Objekt, welches von keinem speziellen {@link Interpreter}
+	 * behandelt wird.
+	 */
+	public static class Payload implements Serializable {
+		private static final long serialVersionUID = 1L;
+		
+		private final int id;
+		private final String name;
+		
+		public Payload(int id) {
+			this.id = id;
+			this.name = "payload-" + id;
+		}
+		
+		@Override
+		public int hashCode() {
+			return id;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Payload && ((Payload)obj).id == id;
+		}
+		
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+}
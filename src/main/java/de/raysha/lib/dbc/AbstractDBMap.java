@@ -3,26 +3,96 @@ package de.raysha.lib.dbc;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import de.raysha.lib.dbc.beans.ConnectionInfo;
+import de.raysha.lib.dbc.connection.ConnectionPool;
+import de.raysha.lib.dbc.connection.ConnectionProvider;
+import de.raysha.lib.dbc.connection.DataSourceConnectionProvider;
 import de.raysha.lib.dbc.exception.BackendException;
+import de.raysha.lib.dbc.lifecycle.CloseableResources;
+import de.raysha.lib.dbc.lifecycle.LeakDetector;
 
-public abstract class AbstractDBMap<K, V> implements Map<K, V>{
-	private static final Map<Class<?>, Integer> RUNNING_INSTANCE_COUNT = new HashMap<Class<?>, Integer>();
+/**
+ * Basis-Klasse der Datenbank-Maps. Eine Map hält eine eigene Verbindung und muss daher
+ * nach der Verwendung über {@link #close()} freigegeben werden (siehe {@link LeakDetector}).
+ * 
+ * @author rainu
+ */
+public abstract class AbstractDBMap<K, V> implements Map<K, V>, AutoCloseable{
+	private static final Map<Class<?>, Integer> RUNNING_INSTANCE_COUNT = new ConcurrentHashMap<Class<?>, Integer>();
 	protected final String tableName;
 	protected final Connection connection;
+	/**
+	 * Liefert die Verbindungen für einzelne Operationen, wenn die Verbindungsdaten
+	 * einen Pool vorsehen (siehe {@link ConnectionInfo#isPooled()}). Andernfalls <b>null</b>.
+	 */
+	protected final ConnectionProvider connectionProvider;
+	private final CloseableResources resources = new CloseableResources();
+	private final LeakDetector.Registration registration;
 	private String jdbcUrl;
 	
+	/**
+	 * Sehen die Verbindungsdaten einen Pool vor (siehe {@link ConnectionInfo#isPooled()}),
+	 * wird auch die eigene Verbindung aus dem Pool ausgeliehen und erst bei der Freigabe
+	 * der Map zurückgegeben. Andernfalls wird sie über den {@link DriverManager} aufgebaut.
+	 * 
+	 * @param info Verbindungsinformationen
+	 * @param tableName Name der Tabelle
+	 */
 	protected AbstractDBMap(
 			ConnectionInfo info,
 			String tableName){
 		
 		loadClass(info.getClassName());
-		this.connection = establisConnection(info);
+		this.connectionProvider = info.isPooled() ? 
+				ConnectionPool.getPool(info) : null;
+		if(connectionProvider != null){
+			this.connection = borrowConnection(connectionProvider);
+			resources.add(releaseTo(connectionProvider, connection));
+		}else{
+			this.connection = establisConnection(info);
+			resources.add(connection);
+		}
 		this.tableName = tableName == null ? 
 				constructTableName() : tableName;
+		
+		this.registration = LeakDetector.register(this, resources);
+	}
+	
+	/**
+	 * Die eigene Verbindung wird vom gegebenen Provider ausgeliehen (z.B. aus dem
+	 * Connection-Pool der Anwendung, siehe {@link DataSourceConnectionProvider}) und
+	 * erst bei der Freigabe der Map zurückgegeben. Alle Operationen verwenden diese
+	 * eine Verbindung.
+	 * 
+	 * @param provider Provider, von dem die Verbindung ausgeliehen wird.
+	 * @param tableName Name der Tabelle
+	 */
+	protected AbstractDBMap(
+			ConnectionProvider provider,
+			String tableName){
+		
+		this.connection = borrowConnection(provider);
+		this.connectionProvider = null;
+		this.tableName = tableName == null ? 
+				constructTableName() : tableName;
+		
+		resources.add(releaseTo(provider, connection));
+		this.registration = LeakDetector.register(this, resources);
+	}
+	
+	private static AutoCloseable releaseTo(final ConnectionProvider provider, final Connection connection){
+		return () -> provider.releaseConnection(connection);
+	}
+	
+	private Connection borrowConnection(ConnectionProvider provider) {
+		try {
+			return provider.getConnection();
+		} catch (SQLException e) {
+			throw new BackendException("Could not get connection from " + provider, e);
+		}
 	}
 	
 	private void loadClass(String className){
@@ -44,36 +114,41 @@ public abstract class AbstractDBMap<K, V> implements Map<K, V>{
 	}
 	
 	private int getInstanceCount() {
-		//initialisierung
-		if(!RUNNING_INSTANCE_COUNT.containsKey(getClass())){
-			RUNNING_INSTANCE_COUNT.put(getClass(), 0);
-		}
-		
-		int count = RUNNING_INSTANCE_COUNT.get(getClass());
-		count++;
-		RUNNING_INSTANCE_COUNT.put(getClass(), count);
-		
-		return count;
+		//die Maps können von mehreren Threads gleichzeitig angelegt werden
+		return RUNNING_INSTANCE_COUNT.merge(getClass(), 1, Integer::sum);
 	}
 	
 	private String constructTableName(){
 		int iCount = getInstanceCount();
 		return getClass().getSimpleName() + "_" + iCount;
 	}
-		
+	
+	/**
+	 * Registriert eine Ressource, die zusammen mit der Map freigegeben werden soll. 
+	 * Ressourcen werden vor der Verbindung der Map freigegeben. Die Ressource darf die
+	 * Map selbst nicht referenzieren (siehe {@link LeakDetector#register(Object, AutoCloseable)}).
+	 */
+	protected <T extends AutoCloseable> T addResource(T resource) {
+		return resources.add(resource);
+	}
+	
+	/**
+	 * Gibt die Verbindung sowie alle weiteren Ressourcen der Map frei. Anschließend
+	 * kann die Map nicht mehr verwendet werden. Wiederholte Aufrufe haben keine Wirkung.
+	 */
 	@Override
-	protected void finalize() throws Throwable {
-		if(connection != null){
-			connection.close();
-		}
-		
-		super.finalize();
+	public void close() {
+		registration.close();
+	}
+	
+	public boolean isClosed() {
+		return registration.isClosed();
 	}
 	
 	public boolean isEmpty() {
 		return size() <= 0;
 	}
-
+	
 	protected String getJdbcUrl() {
 		if(jdbcUrl == null){
 			jdbcUrl = "unknown";
@@ -0,0 +1,612 @@
+package de.raysha.lib.dbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.raysha.lib.dbc.beans.ConnectionInfo;
+import de.raysha.lib.dbc.exception.BackendException;
+import de.raysha.lib.dbc.lifecycle.CloseableResources;
+import de.raysha.lib.dbc.lifecycle.LeakDetector;
+import de.raysha.lib.dbc.list.BlockDirectory;
+import de.raysha.lib.dbc.metrics.StatementListener;
+
+/**
+ * Diese {@link List} Implementierung basiert (wie die {@link DBList}) auf einer
+ * {@link DBMap}. Die Elemente werden jedoch in Blöcken von höchstens
+ * {@link #BLOCK_CAPACITY} Elementen abgelegt. Der Schlüssel eines Elementes setzt
+ * sich aus der Id seines Blockes und seiner Position innerhalb des Blockes zusammen.
+ * <br/><br/>
+ * Beim Einfügen bzw. Entfernen an beliebiger Stelle müssen somit nur die Elemente
+ * des betroffenen Blockes verschoben werden und nicht (wie bei der {@link DBList})
+ * alle nachfolgenden Elemente der Liste. Läuft ein Block über, wird er geteilt. Die
+ * Ids der Blöcke besitzen Lücken, sodass ein neuer Block dazwischen passt. Sind
+ * keine Lücken mehr vorhanden, werden die Ids der umliegenden Blöcke neu verteilt.
+ * Kleine benachbarte Blöcke werden beim Entfernen zusammengelegt.
+ * <br/><br/>
+ * Welcher Block welche Positionen enthält, wird im Speicher gehalten (siehe
+ * {@link BlockDirectory}) und beim Erzeugen der Liste aus der Datenbank gelesen.
+ * {@link #get(int)} bleibt somit ein einfacher Zugriff über den Schlüssel. Es
+ * wird daher vorausgesetzt, dass die Tabelle nicht von anderer Stelle aus verändert
+ * wird. Eine bestehende Tabelle einer {@link DBList} kann weiterverwendet werden,
+ * umgekehrt jedoch nicht. Die Liste ist (wie die {@link DBList}) synchronisiert.
+ * 
+ * @author rainu
+ * 
+ * @param <E> Eine serialisierbare Klasse
+ */
+public class BlockDBList<E> extends AbstractList<E> implements List<E>, ColumnNames, AutoCloseable{
+	/**
+	 * Maximale Anzahl der Elemente eines Blockes.
+	 */
+	public static final int BLOCK_CAPACITY = 64;
+	
+	/**
+	 * Abstand der Ids beim Anhängen eines neuen Blockes.
+	 */
+	private static final int BLOCK_GAP = 16;
+	private static final int MAX_BLOCK_ID = Integer.MAX_VALUE / BLOCK_CAPACITY - 1;
+	
+	protected DBMap<Integer, E> backend;
+	/**
+	 * Wurde die {@link DBMap} von der Liste selbst angelegt, wird sie zusammen mit
+	 * der Liste geschlossen.
+	 */
+	private final boolean ownsBackend;
+	private final CloseableResources resources = new CloseableResources();
+	private final LeakDetector.Registration registration;
+	private final BlockDirectory directory = new BlockDirectory();
+	
+	private Connection statementConnection;
+	private StatementListener preparedFor;
+	private PreparedStatement moveStatement;
+	private PreparedStatement directoryStatement;
+	private PreparedStatement keysByValueAscStatement;
+	private PreparedStatement keysByValueDescStatement;
+	private PreparedStatement keysByNullValueAscStatement;
+	private PreparedStatement keysByNullValueDescStatement;
+	
+	public BlockDBList(DBMap<Integer, E> backend) {
+		this(backend, false);
+	}
+	
+	protected BlockDBList(DBMap<Integer, E> backend, boolean ownsBackend) {
+		this.backend = backend;
+		this.ownsBackend = ownsBackend;
+		this.registration = LeakDetector.register(this, resources);
+		
+		try{
+			init();
+			loadDirectory();
+		}catch(SQLException e){
+			throw new BackendException("Could not initialise list.", e);
+		}
+	}
+	
+	public BlockDBList(ConnectionInfo info, String tableName, boolean dropIfExist, boolean debugMode){
+		this(new DBMap<Integer, E>(info, tableName, dropIfExist, debugMode), true);
+	}
+	
+	public BlockDBList(ConnectionInfo info, String tableName, boolean dropIfExist){
+		this(new DBMap<Integer, E>(info, tableName, dropIfExist), true);
+	}
+	
+	public BlockDBList(ConnectionInfo info, String tableName){
+		this(new DBMap<Integer, E>(info, tableName), true);
+	}
+	
+	public BlockDBList(ConnectionInfo info){
+		this(new DBMap<Integer, E>(info), true);
+	}
+	
+	/**
+	 * Schließt alle Statements der Liste. Wurde die {@link DBMap} von der Liste
+	 * angelegt, wird diese ebenfalls geschlossen.
+	 */
+	@Override
+	public void close() {
+		registration.close();
+		if(ownsBackend){
+			backend.close();
+		}
+	}
+	
+	private PreparedStatement prepare(String sql) throws SQLException{
+		return resources.add(statementConnection.prepareStatement(sql));
+	}
+	
+	/**
+	 * Erzeugt die Statements neu, wenn seit ihrer Erzeugung Metriken bzw. das Protokoll 
+	 * der Map ein- oder ausgeschaltet wurden (siehe {@link DBMap#trace(de.raysha.lib.dbc.metrics.SqlTracer)}).
+	 */
+	private void checkStatements() throws SQLException{
+		StatementListener listener = backend.statementListener();
+		if(listener == preparedFor) return;
+		
+		closeStatements();
+		init();
+	}
+	
+	private void closeStatements(){
+		for(PreparedStatement statement : new PreparedStatement[]{
+				moveStatement, directoryStatement, 
+				keysByValueAscStatement, keysByValueDescStatement, 
+				keysByNullValueAscStatement, keysByNullValueDescStatement}){
+			
+			try{ statement.close(); }catch(SQLException e){}
+		}
+	}
+	
+	private void init() throws SQLException{
+		preparedFor = backend.statementListener();
+		statementConnection = backend.jdbc();
+		
+		//der Hash-Wert eines Integers ist der Wert selbst, daher
+		//muss dieser ebenfalls verschoben werden
+		moveStatement = prepare(
+				"UPDATE " + backend.tableName +
+				" SET " + COL_INT_KEY + " = " + COL_INT_KEY + " + ?," +
+					" " + COL_ID + " = " + COL_ID + " + ?" +
+				" WHERE " + COL_INT_KEY + " BETWEEN ? AND ?");
+		directoryStatement = prepare(
+				"SELECT " + COL_INT_KEY + " / " + BLOCK_CAPACITY + ", count(*)" +
+				" FROM " + backend.tableName +
+				" GROUP BY " + COL_INT_KEY + " / " + BLOCK_CAPACITY +
+				" ORDER BY 1");
+		keysByValueAscStatement = prepare(
+				"SELECT " + COL_INT_KEY +
+				" FROM " + backend.tableName +
+				" WHERE " + COL_VALUE_HASH + " = ? AND " + COL_VALUE_TYPE + " = ?" +
+				" ORDER BY " + COL_INT_KEY + " ASC");
+		keysByValueDescStatement = prepare(
+				"SELECT " + COL_INT_KEY +
+				" FROM " + backend.tableName +
+				" WHERE " + COL_VALUE_HASH + " = ? AND " + COL_VALUE_TYPE + " = ?" +
+				" ORDER BY " + COL_INT_KEY + " DESC");
+		keysByNullValueAscStatement = prepare(
+				"SELECT " + COL_INT_KEY +
+				" FROM " + backend.tableName +
+				" WHERE " + COL_VALUE_TYPE + " IS NULL" +
+				" ORDER BY " + COL_INT_KEY + " ASC");
+		keysByNullValueDescStatement = prepare(
+				"SELECT " + COL_INT_KEY +
+				" FROM " + backend.tableName +
+				" WHERE " + COL_VALUE_TYPE + " IS NULL" +
+				" ORDER BY " + COL_INT_KEY + " DESC");
+	}
+	
+	private void loadDirectory() throws SQLException{
+		backend.flush();
+		directory.clear();
+		
+		checkStatements();
+		ResultSet result = directoryStatement.executeQuery();
+		while(result.next()){
+			directory.addBlock(directory.getBlockCount(), result.getInt(1), result.getInt(2));
+		}
+	}
+	
+	private static int key(int blockId, int slot){
+		return blockId * BLOCK_CAPACITY + slot;
+	}
+	
+	@Override
+	public synchronized int size() {
+		return directory.size();
+	}
+	
+	@Override
+	public synchronized boolean isEmpty() {
+		return size() == 0;
+	}
+	
+	@Override
+	public synchronized boolean contains(Object o) {
+		return indexOf(o) >= 0;
+	}
+	
+	@Override
+	public synchronized E get(int index) {
+		checkIndex(index);
+		
+		int block = directory.findBlock(index);
+		int slot = index - directory.getStart(block);
+		
+		return backend.get(key(directory.getId(block), slot));
+	}
+	
+	@Override
+	public synchronized E set(int index, E element) {
+		checkIndex(index);
+		
+		int block = directory.findBlock(index);
+		int slot = index - directory.getStart(block);
+		
+		return backend.put(key(directory.getId(block), slot), element);
+	}
+	
+	@Override
+	public synchronized boolean add(E e) {
+		int blocks = directory.getBlockCount();
+		
+		if(blocks == 0 || directory.getCount(blocks - 1) >= BLOCK_CAPACITY){
+			directory.addBlock(blocks, nextAppendId(), 0);
+			blocks++;
+		}
+		
+		int block = blocks - 1;
+		int count = directory.getCount(block);
+		
+		backend.fastPut(key(directory.getId(block), count), e);
+		directory.setCount(block, count + 1);
+		
+		return true;
+	}
+	
+	private int nextAppendId(){
+		int blocks = directory.getBlockCount();
+		if(blocks == 0) return 0;
+		
+		int lastId = directory.getId(blocks - 1);
+		if(lastId >= MAX_BLOCK_ID){
+			relabel(blocks - 1);
+			lastId = directory.getId(blocks - 1);
+		}
+		
+		return Math.min(lastId + BLOCK_GAP, MAX_BLOCK_ID);
+	}
+	
+	@Override
+	public synchronized void add(int index, E element) {
+		if(index < 0 || index > size()){
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		}
+		if(index == size()){
+			add(element);
+			return;
+		}
+		
+		int block = directory.findBlock(index);
+		if(directory.getCount(block) >= BLOCK_CAPACITY){
+			split(block);
+			block = directory.findBlock(index);
+		}
+		
+		int slot = index - directory.getStart(block);
+		int id = directory.getId(block);
+		int count = directory.getCount(block);
+		
+		//nur die nachfolgenden Elemente dieses Blockes rücken auf
+		move(key(id, slot), key(id, count - 1), 1);
+		backend.fastPut(key(id, slot), element);
+		directory.setCount(block, count + 1);
+	}
+	
+	@Override
+	public synchronized boolean addAll(Collection<? extends E> c) {
+		if(c == null) throw new NullPointerException();
+		
+		//Die Elemente müssen vorher gesammelt werden, da die übergebene
+		//Collection auch diese Liste selbst sein könnte.
+		Object[] elements = c.toArray();
+		if(elements.length == 0) return false;
+		
+		Map<Integer, Object> toAdd = new LinkedHashMap<Integer, Object>();
+		int blocks = directory.getBlockCount();
+		for(Object curElement : elements){
+			if(blocks == 0 || directory.getCount(blocks - 1) >= BLOCK_CAPACITY){
+				directory.addBlock(blocks, nextAppendId(), 0);
+				blocks++;
+			}
+			
+			int count = directory.getCount(blocks - 1);
+			toAdd.put(key(directory.getId(blocks - 1), count), curElement);
+			directory.setCount(blocks - 1, count + 1);
+		}
+		
+		backend.batchPut(toAdd);
+		return true;
+	}
+	
+	@Override
+	public synchronized boolean addAll(int index, Collection<? extends E> c) {
+		if(index == size()) return addAll(c);
+		
+		return super.addAll(index, c);
+	}
+	
+	@Override
+	public synchronized E remove(int index) {
+		checkIndex(index);
+		
+		int block = directory.findBlock(index);
+		int slot = index - directory.getStart(block);
+		int id = directory.getId(block);
+		int count = directory.getCount(block);
+		
+		E element = backend.remove(key(id, slot));
+		move(key(id, slot + 1), key(id, count - 1), -1);
+		
+		if(count == 1){
+			directory.removeBlock(block);
+		}else{
+			directory.setCount(block, count - 1);
+			mergeWithNext(block);
+		}
+		
+		return element;
+	}
+	
+	@Override
+	public synchronized void clear() {
+		backend.clear();
+		directory.clear();
+	}
+	
+	@Override
+	public synchronized int indexOf(Object o) {
+		return findIndex(o, true);
+	}
+	
+	@Override
+	public synchronized int lastIndexOf(Object o) {
+		return findIndex(o, false);
+	}
+	
+	private int findIndex(Object o, boolean ascending){
+		try{
+			backend.flush();
+			
+			checkStatements();
+			PreparedStatement statement = o == null ?
+					(ascending ? keysByNullValueAscStatement : keysByNullValueDescStatement) :
+					(ascending ? keysByValueAscStatement : keysByValueDescStatement);
+			if(o != null){
+				statement.setInt(1, o.hashCode());
+				statement.setShort(2, backend.typeDictionary.findId(o.getClass()));
+			}
+			
+			ResultSet result = statement.executeQuery();
+			while(result.next()){
+				int key = result.getInt(1);
+				
+				//gleicher Hash-Wert bedeutet nicht zwingend gleiches Element
+				if(o == null || o.equals(backend.get(key))){
+					int block = directory.findBlockById(key / BLOCK_CAPACITY);
+					return directory.getStart(block) + key % BLOCK_CAPACITY;
+				}
+			}
+			
+			return -1;
+		}catch(SQLException e){
+			throw new BackendException("Could not search element in backend!", e);
+		}
+	}
+	
+	/**
+	 * Fasst alle Blöcke möglichst dicht zusammen und verteilt anschließend die Ids
+	 * der Blöcke gleichmäßig. Dies geschieht beim Einfügen bzw. Entfernen bereits
+	 * schrittweise für die betroffenen Blöcke. Nach vielen Änderungen kann es aber
+	 * sinnvoll sein, diese Methode (z.B. regelmäßig) aufzurufen.
+	 */
+	public synchronized void rebalance(){
+		int block = 0;
+		while(block < directory.getBlockCount() - 1){
+			int count = directory.getCount(block);
+			int nextCount = directory.getCount(block + 1);
+			
+			if(count + nextCount <= BLOCK_CAPACITY){
+				merge(block);
+			}else{
+				if(count < BLOCK_CAPACITY){
+					//mit dem Anfang des nächsten Blockes auffüllen
+					int toMove = BLOCK_CAPACITY - count;
+					int id = directory.getId(block);
+					int nextId = directory.getId(block + 1);
+					
+					move(key(nextId, 0), key(nextId, toMove - 1), key(id, count) - key(nextId, 0));
+					move(key(nextId, toMove), key(nextId, nextCount - 1), -toMove);
+					directory.setCount(block, BLOCK_CAPACITY);
+					directory.setCount(block + 1, nextCount - toMove);
+				}
+				block++;
+			}
+		}
+		
+		if(directory.getBlockCount() > 0){
+			relabel(0, directory.getBlockCount() - 1);
+		}
+	}
+	
+	/**
+	 * Teilt den gegebenen Block in zwei Hälften.
+	 */
+	private void split(int block){
+		int newId = freeIdAfter(block);
+		int id = directory.getId(block);
+		int count = directory.getCount(block);
+		int half = count / 2;
+		
+		move(key(id, half), key(id, count - 1), key(newId, 0) - key(id, half));
+		directory.setCount(block, half);
+		directory.addBlock(block + 1, newId, count - half);
+	}
+	
+	private int freeIdAfter(int block){
+		int blocks = directory.getBlockCount();
+		int id = directory.getId(block);
+		
+		if(block == blocks - 1){
+			if(id < MAX_BLOCK_ID) return Math.min(id + BLOCK_GAP, MAX_BLOCK_ID);
+		}else if(directory.getId(block + 1) - id >= 2){
+			return id + (directory.getId(block + 1) - id) / 2;
+		}
+		
+		//es ist kein Platz mehr zwischen den Blöcken
+		relabel(block);
+		return freeIdAfter(block);
+	}
+	
+	/**
+	 * Legt den gegebenen Block mit seinem Nachfolger zusammen, wenn beide
+	 * zusammen höchstens halb voll sind.
+	 */
+	private void mergeWithNext(int block){
+		if(block + 1 >= directory.getBlockCount()) return;
+		
+		if(directory.getCount(block) + directory.getCount(block + 1) <= BLOCK_CAPACITY / 2){
+			merge(block);
+		}
+	}
+	
+	private void merge(int block){
+		int id = directory.getId(block);
+		int count = directory.getCount(block);
+		int nextId = directory.getId(block + 1);
+		int nextCount = directory.getCount(block + 1);
+		
+		move(key(nextId, 0), key(nextId, nextCount - 1), key(id, count) - key(nextId, 0));
+		directory.setCount(block, count + nextCount);
+		directory.removeBlock(block + 1);
+	}
+	
+	/**
+	 * Verteilt die Ids der Blöcke um den gegebenen Block neu. Dabei wird das
+	 * kleinste (an Zweierpotenzen ausgerichtete) Fenster gesucht, dessen Blöcke
+	 * nach der Neuverteilung genügend Abstand zueinander haben. Je größer das
+	 * Fenster, desto geringer darf dieser Abstand ausfallen.
+	 */
+	private void relabel(int block){
+		int blocks = directory.getBlockCount();
+		
+		for(int width = 2, level = 1; ; width *= 2, level++){
+			int from = (block / width) * width;
+			int to = Math.min(from + width, blocks) - 1;
+			
+			int lower = from > 0 ? directory.getId(from - 1) + 1 : 0;
+			int upper = to + 1 < blocks ? directory.getId(to + 1) - 1 : MAX_BLOCK_ID;
+			long spacing = ((long)upper - lower + 1) / (to - from + 1);
+			
+			if(spacing >= Math.max(2, BLOCK_GAP >> level)){
+				relabel(from, to);
+				return;
+			}
+			if(from == 0 && to == blocks - 1){
+				throw new BackendException("The list has reached its maximum size!");
+			}
+		}
+	}
+	
+	/**
+	 * Verteilt die Ids der gegebenen Blöcke gleichmäßig auf den Bereich zwischen
+	 * dem Vorgänger und dem Nachfolger.
+	 */
+	private void relabel(int from, int to){
+		int blocks = directory.getBlockCount();
+		int lower = from > 0 ? directory.getId(from - 1) + 1 : 0;
+		int upper = to + 1 < blocks ? directory.getId(to + 1) - 1 : MAX_BLOCK_ID;
+		
+		int count = to - from + 1;
+		long spacing = ((long)upper - lower + 1) / count;
+		if(to + 1 == blocks){
+			//am Ende der Liste genügt der übliche Abstand
+			spacing = Math.min(spacing, BLOCK_GAP);
+		}
+		
+		int[] newIds = new int[count];
+		for(int i=0; i < count; i++){
+			newIds[i] = (int)(lower + i * spacing);
+		}
+		
+		//Blöcke die nach vorne wandern von vorne nach hinten verschieben und
+		//umgekehrt. Dadurch landet nie ein Block im Bereich eines anderen Blockes,
+		//der noch nicht verschoben wurde.
+		for(int i=0; i < count; i++){
+			if(newIds[i] < directory.getId(from + i)) moveBlock(from + i, newIds[i]);
+		}
+		for(int i=count - 1; i >= 0; i--){
+			if(newIds[i] > directory.getId(from + i)) moveBlock(from + i, newIds[i]);
+		}
+	}
+	
+	private void moveBlock(int block, int newId){
+		int id = directory.getId(block);
+		
+		move(key(id, 0), key(id, directory.getCount(block) - 1), key(newId, 0) - key(id, 0));
+		directory.setId(block, newId);
+	}
+	
+	/**
+	 * Verschiebt die Schlüssel aller Elemente im gegebenen Bereich.
+	 * 
+	 * @param fromKey Erster Schlüssel des Bereiches.
+	 * @param toKey Letzter Schlüssel des Bereiches (inklusive).
+	 * @param delta Wert um den die Schlüssel verschoben werden.
+	 */
+	private void move(int fromKey, int toKey, int delta){
+		if(fromKey > toKey || delta == 0) return;
+		
+		try{
+			backend.flush();
+			
+			checkStatements();
+			moveStatement.setInt(1, delta);
+			moveStatement.setInt(2, delta);
+			moveStatement.setInt(3, fromKey);
+			moveStatement.setInt(4, toKey);
+			moveStatement.executeUpdate();
+			
+			//alle verschobenen Elemente haben nun einen anderen Schlüssel
+			backend.invalidateCachedValues();
+		}catch(SQLException e){
+			throw new BackendException(
+					"Could not order indices in backend." +
+					"AT THIS MOMENT THIS LIST COULD BE INCONSISTENT!",
+					e);
+		}
+	}
+	
+	private void checkIndex(int index){
+		if(index < 0 || index >= size()){
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		}
+	}
+	
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = getClass().hashCode();
+		result = prime * result + ((backend == null) ? 0 : backend.hashCode());
+		return result;
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!super.equals(obj))
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		@SuppressWarnings("rawtypes")
+		BlockDBList other = (BlockDBList) obj;
+		if (backend == null) {
+			if (other.backend != null)
+				return false;
+		} else if (!backend.equals(other.backend))
+			return false;
+		return true;
+	}
+	
+	@Override
+	public String toString() {
+		return "[" + getClass().getSimpleName() + "]\n" +
+				"Backend: " + backend != null ? backend.toString() : "-";
+	}
+}
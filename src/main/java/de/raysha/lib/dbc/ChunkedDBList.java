@@ -0,0 +1,611 @@
+package de.raysha.lib.dbc;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import de.raysha.lib.dbc.beans.ConnectionInfo;
+import de.raysha.lib.dbc.exception.BackendException;
+import de.raysha.lib.dbc.lifecycle.CloseableResources;
+import de.raysha.lib.dbc.lifecycle.LeakDetector;
+import de.raysha.lib.dbc.list.BlockDirectory;
+import de.raysha.lib.dbc.meta.MetadataManager;
+import de.raysha.lib.dbc.meta.TableMetadata;
+
+/**
+ * Diese {@link List} Implementierung legt ihre Elemente nicht (wie die {@link DBList})
+ * einzeln in einer {@link DBMap} ab. Stattdessen werden bis zu <i>chunkSize</i>
+ * aufeinanderfolgende Elemente gemeinsam serialisiert und als ein Abschnitt (Chunk)
+ * in einer eigenen Tabelle gespeichert. Jede Zeile enthält die Position des
+ * Abschnittes, die Anzahl seiner Elemente sowie die Elemente selbst.
+ * <br/><br/>
+ * Dadurch besitzt die Tabelle deutlich weniger Zeilen (und Index-Einträge). Beim
+ * sequenziellen Lesen (z.B. über den {@link #iterator()} oder eine {@link #subList(int, int)})
+ * wird nur eine Zeile je Abschnitt gelesen, da der zuletzt verwendete Abschnitt im
+ * Speicher gehalten wird. Angehängt wird stets an den letzten Abschnitt. Läuft ein
+ * Abschnitt beim Einfügen über, wird er geteilt.
+ * <br/><br/>
+ * Im Gegenzug muss beim Ändern eines Elementes immer der gesamte Abschnitt neu
+ * geschrieben werden. Diese Liste eignet sich daher vor allem für kleine Elemente,
+ * die überwiegend angehängt und sequenziell gelesen werden. Wie bei der
+ * {@link BlockDBList} wird vorausgesetzt, dass die Tabelle nicht von anderer Stelle
+ * aus verändert wird.
+ * <br/><br/>
+ * Die Liste hält eine eigene Verbindung und muss daher nach der Verwendung über
+ * {@link #close()} geschlossen werden.
+ * 
+ * @author rainu
+ * 
+ * @param <E> Eine serialisierbare Klasse
+ */
+public class ChunkedDBList<E> extends AbstractList<E> implements List<E>, ColumnNames, AutoCloseable{
+	public static final String TABLE_VERSION = "1.0";
+	public static final int DEFAULT_CHUNK_SIZE = 128;
+	
+	/**
+	 * Name der Eigenschaft in den Metadaten, unter der die Größe der Abschnitte
+	 * vermerkt ist. Eine bestehende Tabelle behält somit ihre Abschnitts-Größe.
+	 */
+	public static final String METADATA_CHUNK_SIZE = "chunkSize";
+	
+	protected final Connection connection;
+	protected final String tableName;
+	protected final int chunkSize;
+	protected final MetadataManager metadataManager;
+	
+	private final BlockDirectory directory = new BlockDirectory();
+	private final CloseableResources resources = new CloseableResources();
+	private final LeakDetector.Registration registration;
+	
+	/**
+	 * Der zuletzt verwendete Abschnitt.
+	 */
+	private int cachedChunk = -1;
+	private List<Object> cachedElements;
+	
+	private PreparedStatement directoryStatement;
+	private PreparedStatement selectStatement;
+	private PreparedStatement insertStatement;
+	private PreparedStatement updateStatement;
+	private PreparedStatement deleteStatement;
+	private PreparedStatement shiftStatement;
+	private PreparedStatement clearStatement;
+	
+	public ChunkedDBList(ConnectionInfo info, String tableName, boolean dropIfExist, int chunkSize){
+		if(tableName == null) throw new NullPointerException("Table name must not be null!");
+		if(chunkSize < 2) throw new IllegalArgumentException("Chunk size must be at least 2!");
+		
+		this.connection = resources.add(establishConnection(info));
+		this.tableName = tableName;
+		this.registration = LeakDetector.register(this, resources);
+		
+		try{
+			this.metadataManager = resources.add(new MetadataManager(connection));
+		}catch(SQLException e){
+			throw new BackendException("Could not create metadata manager.", e);
+		}
+		
+		boolean created = createTable(dropIfExist);
+		this.chunkSize = checkMetadata(created, chunkSize);
+		
+		try{
+			createPreparedStatements();
+			loadDirectory();
+		}catch(SQLException e){
+			throw new BackendException("Could not initialise list.", e);
+		}
+	}
+	
+	public ChunkedDBList(ConnectionInfo info, String tableName, boolean dropIfExist){
+		this(info, tableName, dropIfExist, DEFAULT_CHUNK_SIZE);
+	}
+	
+	public ChunkedDBList(ConnectionInfo info, String tableName){
+		this(info, tableName, false);
+	}
+	
+	/**
+	 * Schließt alle Statements sowie die Verbindung der Liste.
+	 */
+	@Override
+	public void close() {
+		registration.close();
+	}
+	
+	private PreparedStatement prepare(String sql) throws SQLException{
+		return resources.add(connection.prepareStatement(sql));
+	}
+	
+	private static Connection establishConnection(ConnectionInfo info) {
+		try {
+			Class.forName(info.getClassName());
+		} catch (Exception e) {
+			throw new BackendException("Could not load drive " + info.getClassName(), e);
+		}
+		
+		try {
+			return DriverManager
+					.getConnection(info.getJdbcUrl(),
+							info.getUser(), info.getPw());
+		} catch (SQLException e) {
+			throw new BackendException("Could not get connection: " + info, e);
+		}
+	}
+	
+	/**
+	 * @return True, wenn die Tabelle neu angelegt wurde.
+	 */
+	private boolean createTable(boolean dropIfExist){
+		try{
+			//die Position ist bewusst nicht eindeutig: beim Verschieben der
+			//Abschnitte würden sich sonst kurzzeitig Positionen überschneiden
+			connection.createStatement()
+				.execute("CREATE TABLE " + tableName + " (" +
+						COL_CHUNK_INDEX + " INT NOT NULL," +
+						COL_ELEMENT_COUNT + " INT NOT NULL," +
+						COL_CHUNK + " BLOB" +
+						")");
+			connection.createStatement()
+				.execute("CREATE INDEX " + tableName + "_CHUNK_IDX" +
+						" ON " + tableName + " (" + COL_CHUNK_INDEX + ")");
+			
+			return true;
+		}catch(SQLException e){
+			//Möglicherweise ist die Tabelle schon vorhanden
+			if(dropIfExist) {
+				try{
+					connection.createStatement().execute("TRUNCATE TABLE " + tableName);
+				}catch (SQLException e1) {
+					throw new BackendException("Could not truncate existing table!", e1);
+				}
+			}
+			
+			return false;
+		}
+	}
+	
+	/**
+	 * @return Die zu verwendende Größe der Abschnitte.
+	 */
+	private int checkMetadata(boolean created, int chunkSize){
+		TableMetadata metadata = metadataManager.getTableMetadata(tableName);
+		
+		if(metadata == null && !created){
+			throw new BackendException("The table " + tableName + " is not a chunked list!");
+		}
+		if(created){
+			if(metadata == null) metadataManager.insertMetadata(tableName, TABLE_VERSION);
+			metadataManager.setProperty(tableName, METADATA_CHUNK_SIZE, String.valueOf(chunkSize));
+			
+			return chunkSize;
+		}
+		
+		String stored = metadataManager.getProperties(tableName).getProperty(METADATA_CHUNK_SIZE);
+		if(!TABLE_VERSION.equals(metadata.getVersion()) || stored == null){
+			throw new BackendException("The table " + tableName + " is not a chunked list!");
+		}
+		
+		return Integer.parseInt(stored);
+	}
+	
+	private void createPreparedStatements() throws SQLException{
+		directoryStatement = prepare(
+				"SELECT " + COL_CHUNK_INDEX + ", " + COL_ELEMENT_COUNT +
+				" FROM " + tableName +
+				" ORDER BY " + COL_CHUNK_INDEX);
+		selectStatement = prepare(
+				"SELECT " + COL_CHUNK +
+				" FROM " + tableName +
+				" WHERE " + COL_CHUNK_INDEX + " = ?");
+		insertStatement = prepare(
+				"INSERT INTO " + tableName +
+				" (" + COL_CHUNK_INDEX + ", " + COL_ELEMENT_COUNT + ", " + COL_CHUNK + ")" +
+				" VALUES (?, ?, ?)");
+		updateStatement = prepare(
+				"UPDATE " + tableName +
+				" SET " + COL_ELEMENT_COUNT + " = ?, " + COL_CHUNK + " = ?" +
+				" WHERE " + COL_CHUNK_INDEX + " = ?");
+		deleteStatement = prepare(
+				"DELETE FROM " + tableName +
+				" WHERE " + COL_CHUNK_INDEX + " = ?");
+		shiftStatement = prepare(
+				"UPDATE " + tableName +
+				" SET " + COL_CHUNK_INDEX + " = " + COL_CHUNK_INDEX + " + ?" +
+				" WHERE " + COL_CHUNK_INDEX + " > ?");
+		clearStatement = prepare(
+				"TRUNCATE TABLE " + tableName);
+	}
+	
+	private void loadDirectory() throws SQLException{
+		directory.clear();
+		
+		ResultSet result = directoryStatement.executeQuery();
+		while(result.next()){
+			int chunk = directory.getBlockCount();
+			if(result.getInt(1) != chunk){
+				throw new BackendException("The chunks of table " + tableName + " are inconsistent!");
+			}
+			
+			directory.addBlock(chunk, chunk, result.getInt(2));
+		}
+	}
+	
+	/**
+	 * @return Die Anzahl der Elemente, die maximal in einem Abschnitt abgelegt werden.
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+	
+	@Override
+	public int size() {
+		return directory.size();
+	}
+	
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public E get(int index) {
+		checkIndex(index);
+		
+		int chunk = directory.findBlock(index);
+		return (E)readChunk(chunk).get(index - directory.getStart(chunk));
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public E set(int index, E element) {
+		checkIndex(index);
+		
+		int chunk = directory.findBlock(index);
+		List<Object> elements = readChunk(chunk);
+		
+		E preElement = (E)elements.set(index - directory.getStart(chunk), element);
+		writeChunk(chunk, elements);
+		
+		return preElement;
+	}
+	
+	@Override
+	public boolean add(E e) {
+		int chunks = directory.getBlockCount();
+		
+		if(chunks == 0 || directory.getCount(chunks - 1) >= chunkSize){
+			List<Object> elements = new ArrayList<Object>(chunkSize);
+			elements.add(e);
+			
+			insertChunk(chunks, elements);
+		}else{
+			List<Object> elements = readChunk(chunks - 1);
+			elements.add(e);
+			
+			writeChunk(chunks - 1, elements);
+		}
+		
+		modCount++;
+		return true;
+	}
+	
+	@Override
+	public void add(int index, E element) {
+		if(index < 0 || index > size()){
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		}
+		if(index == size()){
+			add(element);
+			return;
+		}
+		
+		int chunk = directory.findBlock(index);
+		List<Object> elements = readChunk(chunk);
+		elements.add(index - directory.getStart(chunk), element);
+		
+		if(elements.size() > chunkSize){
+			//Abschnitt teilen: die obere Hälfte wandert in einen neuen Abschnitt
+			int half = elements.size() / 2;
+			List<Object> upper = new ArrayList<Object>(elements.subList(half, elements.size()));
+			List<Object> lower = new ArrayList<Object>(elements.subList(0, half));
+			
+			inTransaction(() -> {
+			writeChunk(chunk, lower);
+			shiftChunks(chunk, 1);
+			insertChunk(chunk + 1, upper);
+			});
+		}else{
+			writeChunk(chunk, elements);
+		}
+		
+		modCount++;
+	}
+	
+	@Override
+	public boolean addAll(Collection<? extends E> c) {
+		if(c == null) throw new NullPointerException();
+		
+		//Die Elemente müssen vorher gesammelt werden, da die übergebene
+		//Collection auch diese Liste selbst sein könnte.
+		Object[] toAdd = c.toArray();
+		if(toAdd.length == 0) return false;
+		
+		int offset = 0;
+		int chunks = directory.getBlockCount();
+		
+		//zuerst den letzten Abschnitt auffüllen
+		if(chunks > 0 && directory.getCount(chunks - 1) < chunkSize){
+			List<Object> elements = readChunk(chunks - 1);
+			offset = Math.min(chunkSize - elements.size(), toAdd.length);
+			elements.addAll(Arrays.asList(toAdd).subList(0, offset));
+			
+			writeChunk(chunks - 1, elements);
+		}
+		
+		//anschließend alle neuen Abschnitte in einem Batch schreiben
+		if(offset < toAdd.length){
+			try{
+				boolean autoCommit = connection.getAutoCommit();
+				connection.setAutoCommit(false);
+				try{
+					for(; offset < toAdd.length; offset += chunkSize){
+						List<Object> elements = new ArrayList<Object>(chunkSize);
+						elements.addAll(Arrays.asList(toAdd).subList(offset, Math.min(offset + chunkSize, toAdd.length)));
+						
+						setChunkParameter(insertStatement, directory.getBlockCount(), elements);
+						insertStatement.addBatch();
+						
+						directory.addBlock(directory.getBlockCount(), directory.getBlockCount(), elements.size());
+					}
+					
+					insertStatement.executeBatch();
+					connection.commit();
+				}catch(Exception e){
+					connection.rollback();
+					loadDirectory();
+					
+					throw e;
+				}finally{
+					connection.setAutoCommit(autoCommit);
+				}
+			}catch(Exception e){
+				throw new BackendException("Could not write chunks into backend!", e);
+			}
+		}
+		
+		modCount++;
+		return true;
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public E remove(int index) {
+		checkIndex(index);
+		
+		int chunk = directory.findBlock(index);
+		List<Object> elements = readChunk(chunk);
+		E element = (E)elements.remove(index - directory.getStart(chunk));
+		
+		if(elements.isEmpty()){
+			inTransaction(() -> deleteChunk(chunk));
+		}else if(chunk + 1 < directory.getBlockCount() &&
+				elements.size() + directory.getCount(chunk + 1) <= chunkSize / 2){
+			
+			//kleine benachbarte Abschnitte zusammenlegen
+			List<Object> merged = new ArrayList<Object>(elements);
+			merged.addAll(readChunk(chunk + 1));
+			
+			inTransaction(() -> {
+			deleteChunk(chunk + 1);
+			writeChunk(chunk, merged);
+			});
+		}else{
+			writeChunk(chunk, elements);
+		}
+		
+		modCount++;
+		return element;
+	}
+	
+	@Override
+	public void clear() {
+		try {
+			clearStatement.execute();
+		} catch (SQLException e) {
+			throw new BackendException("Could not clear the list!", e);
+		}
+		
+		directory.clear();
+		cachedChunk = -1;
+		cachedElements = null;
+		modCount++;
+	}
+	
+	/**
+	 * Führt eine Änderung, die aus mehreren Statements besteht (z.B. das Teilen eines
+	 * Abschnittes), in einer Transaktion aus. Schlägt sie fehl, wird die Transaktion
+	 * zurückgerollt und das Verzeichnis der Abschnitte neu geladen.
+	 */
+	private void inTransaction(Runnable change){
+		try{
+			boolean autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+			try{
+				change.run();
+				connection.commit();
+			}catch(Exception e){
+				connection.rollback();
+				loadDirectory();
+				cachedChunk = -1;
+				cachedElements = null;
+				
+				throw e;
+			}finally{
+				connection.setAutoCommit(autoCommit);
+			}
+		}catch(BackendException e){
+			throw e;
+		}catch(Exception e){
+			throw new BackendException("Could not change the chunks of the list!", e);
+		}
+	}
+	
+	/**
+	 * Liest die Elemente eines Abschnittes. Der zuletzt gelesene Abschnitt wird
+	 * im Speicher gehalten.
+	 */
+	@SuppressWarnings("unchecked")
+	private List<Object> readChunk(int chunk){
+		if(chunk == cachedChunk) return cachedElements;
+		
+		try{
+			selectStatement.setInt(1, chunk);
+			ResultSet result = selectStatement.executeQuery();
+			if(!result.next()){
+				throw new BackendException("The chunk " + chunk + " of table " + tableName + " is missing!");
+			}
+			
+			Object[] elements = (Object[])ConvertHelper.convertByteArrayToObject(result.getBytes(1));
+			
+			cachedChunk = chunk;
+			cachedElements = new ArrayList<Object>(Arrays.asList(elements));
+			
+			return cachedElements;
+		}catch(BackendException e){
+			throw e;
+		}catch(Exception e){
+			throw new BackendException("Could not read chunk from backend!", e);
+		}
+	}
+	
+	private void writeChunk(int chunk, List<Object> elements){
+		try{
+			updateStatement.setInt(1, elements.size());
+			updateStatement.setBytes(2, ConvertHelper.convertObjectToByteArray(elements.toArray()));
+			updateStatement.setInt(3, chunk);
+			updateStatement.executeUpdate();
+		}catch(Exception e){
+			cachedChunk = -1;
+			throw new BackendException("Could not write chunk into backend!", e);
+		}
+		
+		directory.setCount(chunk, elements.size());
+		cachedChunk = chunk;
+		cachedElements = elements;
+	}
+	
+	private void insertChunk(int chunk, List<Object> elements){
+		try{
+			setChunkParameter(insertStatement, chunk, elements);
+			insertStatement.executeUpdate();
+		}catch(Exception e){
+			throw new BackendException("Could not write chunk into backend!", e);
+		}
+		
+		directory.addBlock(chunk, chunk, elements.size());
+		renumber(chunk + 1);
+		cachedChunk = chunk;
+		cachedElements = elements;
+	}
+	
+	private void setChunkParameter(PreparedStatement stmt, int chunk, List<Object> elements) throws Exception{
+		stmt.setInt(1, chunk);
+		stmt.setInt(2, elements.size());
+		stmt.setBytes(3, ConvertHelper.convertObjectToByteArray(elements.toArray()));
+	}
+	
+	private void deleteChunk(int chunk){
+		try{
+			deleteStatement.setInt(1, chunk);
+			deleteStatement.executeUpdate();
+		}catch(SQLException e){
+			throw new BackendException("Could not remove chunk from backend!", e);
+		}
+		
+		directory.removeBlock(chunk);
+		renumber(chunk);
+		cachedChunk = -1;
+		cachedElements = null;
+		
+		shiftChunks(chunk - 1, -1);
+	}
+	
+	/**
+	 * Verschiebt die Positionen aller Abschnitte hinter dem gegebenen Abschnitt.
+	 */
+	private void shiftChunks(int chunk, int delta){
+		if(chunk + 1 >= directory.getBlockCount()) return;
+		
+		try{
+			shiftStatement.setInt(1, delta);
+			shiftStatement.setInt(2, chunk);
+			shiftStatement.executeUpdate();
+		}catch(SQLException e){
+			throw new BackendException(
+					"Could not order chunks in backend." +
+					"AT THIS MOMENT THIS LIST COULD BE INCONSISTENT!",
+					e);
+		}
+		
+		if(cachedChunk > chunk){
+			cachedChunk = -1;
+			cachedElements = null;
+		}
+	}
+	
+	/**
+	 * Die Id eines Abschnittes entspricht stets seiner Position.
+	 */
+	private void renumber(int fromChunk){
+		for(int i = fromChunk; i < directory.getBlockCount(); i++){
+			directory.setId(i, i);
+		}
+	}
+	
+	private void checkIndex(int index){
+		if(index < 0 || index >= size()){
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		}
+	}
+	
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = getClass().hashCode();
+		result = prime * result + ((tableName == null) ? 0 : tableName.hashCode());
+		return result;
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!super.equals(obj))
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		@SuppressWarnings("rawtypes")
+		ChunkedDBList other = (ChunkedDBList) obj;
+		if (tableName == null) {
+			if (other.tableName != null)
+				return false;
+		} else if (!tableName.equals(other.tableName))
+			return false;
+		return true;
+	}
+	
+	@Override
+	public String toString() {
+		return "[" + getClass().getSimpleName() + "]\n" +
+				"Table-Name: " + tableName + "\n" +
+				"Chunk-Size: " + chunkSize;
+	}
+}
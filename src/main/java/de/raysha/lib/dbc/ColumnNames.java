@@ -6,6 +6,7 @@ package de.raysha.lib.dbc;
  * @author rainu
  */
 public interface ColumnNames {
+	public static final String COL_ROW_ID			=	"ROW_ID";
 	public static final String COL_ID				=	"ID_HASH";
 	public static final String COL_VALUE_HASH		=	"VALUE_HASH";
 	
@@ -35,4 +36,8 @@ public interface ColumnNames {
 	public static final String COL_BOOLEAN_VALUE	=	"VALUE_BOOLEAN";
 	public static final String COL_STRING_VALUE		=	"VALUE_STRING";
 	
+	public static final String COL_CHUNK_INDEX		=	"CHUNK_INDEX";
+	public static final String COL_ELEMENT_COUNT	=	"ELEMENT_COUNT";
+	public static final String COL_CHUNK			=	"CHUNK";
+	
 }
@@ -0,0 +1,251 @@
+package de.raysha.lib.dbc;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import de.raysha.lib.dbc.beans.ConnectionInfo;
+
+/**
+ * Eine {@link DBMap}, die zusätzlich die atomaren Operationen einer {@link ConcurrentMap}
+ * bereitstellt. Bei einer normalen {@link DBMap} können sich gleichzeitige Schreib-Zugriffe
+ * auf den selben Schlüssel überschneiden (z.B. zwischen der Abfrage des vorherigen Wertes
+ * und dem Schreiben des neuen Wertes).
+ * <br/><br/>
+ * Daher werden alle schreibenden Operationen über eine Sperre geschützt. Damit Operationen
+ * auf unterschiedliche Schlüssel dennoch parallel ausgeführt werden können (siehe
+ * {@link ConnectionInfo#isPooled()}), gibt es mehrere Sperren, von denen anhand des
+ * Hash-Wertes des Schlüssels eine gewählt wird. Die Sperren gelten für alle Instanzen, die
+ * innerhalb dieser JVM auf die selbe Tabelle zugreifen. Jede zusammengesetzte Operation
+ * wird außerdem innerhalb einer Transaktion ausgeführt.
+ * <br/><br/>
+ * Wie bei der {@link java.util.concurrent.ConcurrentHashMap} sind <b>null</b>-Schlüssel bei
+ * den atomaren Operationen nicht erlaubt. Ein Eintrag mit dem Wert <b>null</b> gilt für
+ * {@link #computeIfAbsent(Object, Function)} und Co. als nicht vorhanden.
+ * 
+ * @author rainu
+ * 
+ * @param <K> Typ des Schlüssels
+ * @param <V> Typ des Wertes
+ */
+public class ConcurrentDBMap<K, V> extends DBMap<K, V> implements ConcurrentMap<K, V> {
+	public static final int DEFAULT_CONCURRENCY_LEVEL = 64;
+	
+	private static final Map<String, ReentrantLock[]> STRIPES = new HashMap<String, ReentrantLock[]>();
+	
+	private final ReentrantLock[] locks;
+	
+	/**
+	 * 
+	 * @param info Verbindungsinformationen
+	 * @param tableName Name der Tabelle
+	 * @param dropIfExist Soll die Tabelle geleert werden, falls sie schon existiert?
+	 * @param debugMode Sollen zusätzlich die String-Repräsentationen gespeichert werden?
+	 * @param concurrencyLevel Anzahl der Sperren. Wird auf die nächste Zweierpotenz aufgerundet.
+	 * Greift bereits eine andere Instanz auf die Tabelle zu, werden deren Sperren verwendet.
+	 */
+	public ConcurrentDBMap(ConnectionInfo info, String tableName, boolean dropIfExist,
+			boolean debugMode, int concurrencyLevel){
+		
+		super(info, tableName, dropIfExist, debugMode);
+		
+		if(concurrencyLevel <= 0) throw new IllegalArgumentException("Concurrency-level must be greater then 0!");
+		
+		this.locks = getStripes(getJdbcUrl() + this.tableName, concurrencyLevel);
+	}
+	
+	public ConcurrentDBMap(ConnectionInfo info, String tableName, boolean dropIfExist){
+		this(info, tableName, dropIfExist, false, DEFAULT_CONCURRENCY_LEVEL);
+	}
+	
+	public ConcurrentDBMap(ConnectionInfo info, String tableName){
+		this(info, tableName, false);
+	}
+	
+	public ConcurrentDBMap(ConnectionInfo info){
+		this(info, null, true);
+	}
+	
+	private static synchronized ReentrantLock[] getStripes(String table, int concurrencyLevel){
+		ReentrantLock[] stripes = STRIPES.get(table);
+		if(stripes == null){
+			int count = Integer.highestOneBit(concurrencyLevel);
+			if(count < concurrencyLevel) count <<= 1;
+			
+			stripes = new ReentrantLock[count];
+			for(int i=0; i < count; i++){
+				stripes[i] = new ReentrantLock();
+			}
+			STRIPES.put(table, stripes);
+		}
+		
+		return stripes;
+	}
+	
+	/**
+	 * Führt die gegebene Operation atomar aus (siehe {@link #executeAtomically(Callable)}).
+	 * Die Sperre des Schlüssels wird erst innerhalb der Sitzung genommen, also in der
+	 * selben Reihenfolge wie bei einer Operation innerhalb einer {@link Transaction}.
+	 */
+	private <T> T atomically(Object key, Callable<T> operation){
+		return executeAtomically(() -> {
+			ReentrantLock lock = lockFor(key);
+			try{
+				return operation.call();
+			}finally{
+				lock.unlock();
+			}
+		});
+	}
+	
+	private ReentrantLock lockFor(Object key){
+		//die oberen Bits mit einbeziehen, da nur die unteren für die Auswahl verwendet werden
+		int hash = key.hashCode();
+		hash ^= (hash >>> 16);
+		
+		ReentrantLock lock = locks[hash & (locks.length - 1)];
+		lock.lock();
+		return lock;
+	}
+	
+	@Override
+	public V put(K key, V value) {
+		if(key == null) return null;
+		
+		return atomically(key, () -> ConcurrentDBMap.super.put(key, value));
+	}
+	
+	@Override
+	public void fastPut(K key, V value) {
+		if(key == null) return;
+		
+		atomically(key, () -> {
+			ConcurrentDBMap.super.fastPut(key, value);
+			return null;
+		});
+	}
+	
+	@Override
+	public V remove(Object key) {
+		if(key == null) return null;
+		
+		return atomically(key, () -> ConcurrentDBMap.super.remove(key));
+	}
+	
+	@Override
+	public V putIfAbsent(K key, V value) {
+		if(key == null || value == null) throw new NullPointerException();
+		
+		return atomically(key, () -> {
+				V current = get(key);
+				if(current == null){
+					super.fastPut(key, value);
+				}
+				
+				return current;
+			});
+	}
+	
+	@Override
+	public boolean remove(Object key, Object value) {
+		if(key == null) throw new NullPointerException();
+		if(value == null) return false;
+		
+		return atomically(key, () -> {
+				if(!value.equals(get(key))) return false;
+				
+				ConcurrentDBMap.super.remove(key);
+				return true;
+			});
+	}
+	
+	@Override
+	public boolean replace(K key, V oldValue, V newValue) {
+		if(key == null || oldValue == null || newValue == null) throw new NullPointerException();
+		
+		return atomically(key, () -> {
+				if(!oldValue.equals(get(key))) return false;
+				
+				super.fastPut(key, newValue);
+				return true;
+			});
+	}
+	
+	@Override
+	public V replace(K key, V value) {
+		if(key == null || value == null) throw new NullPointerException();
+		
+		return atomically(key, () -> {
+				V current = get(key);
+				if(current != null){
+					super.fastPut(key, value);
+				}
+				
+				return current;
+			});
+	}
+	
+	@Override
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+		if(key == null || mappingFunction == null) throw new NullPointerException();
+		
+		return atomically(key, () -> {
+				V current = get(key);
+				if(current != null) return current;
+				
+				V value = mappingFunction.apply(key);
+				if(value != null){
+					super.fastPut(key, value);
+				}
+				
+				return value;
+			});
+	}
+	
+	@Override
+	public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		if(key == null || remappingFunction == null) throw new NullPointerException();
+		
+		return atomically(key, () -> {
+				V current = get(key);
+				if(current == null) return null;
+				
+				return store(key, remappingFunction.apply(key, current));
+			});
+	}
+	
+	@Override
+	public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		if(key == null || remappingFunction == null) throw new NullPointerException();
+		
+		return atomically(key, () -> store(key, remappingFunction.apply(key, get(key))));
+	}
+	
+	@Override
+	public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+		if(key == null || value == null || remappingFunction == null) throw new NullPointerException();
+		
+		return atomically(key, () -> {
+				V current = get(key);
+				
+				return store(key, current == null ? value : remappingFunction.apply(current, value));
+			});
+	}
+	
+	/**
+	 * Hinterlegt den neu berechneten Wert. Ist dieser <b>null</b>, wird der Eintrag entfernt.
+	 */
+	private V store(K key, V value){
+		if(value != null){
+			super.fastPut(key, value);
+		}else{
+			super.remove(key);
+		}
+		
+		return value;
+	}
+}
@@ -2,30 +2,98 @@ package de.raysha.lib.dbc;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.PushbackInputStream;
+
+import de.raysha.lib.dbc.map.codec.Codec;
+import de.raysha.lib.dbc.map.codec.JavaSerializationCodec;
+import de.raysha.lib.dbc.map.interpreter.InterpreterProvider;
+import de.raysha.lib.dbc.metrics.MapMetrics;
 
 /**
  * Stellt Hilfsmethoden bereit die zur Konvertierung von Daten verwendet werden können.
+ * <br/><br/>
+ * Objekte werden über den {@link Codec} umgewandelt, der im {@link InterpreterProvider}
+ * für ihre Klasse hinterlegt ist. Die Daten der Java-Serialisierung werden unverändert
+ * geschrieben (sie beginnen immer mit dem Byte 0xAC). Die Daten aller anderen Codecs
+ * beginnen mit {@link #CODEC_MARKER} gefolgt von der Kennung des Codecs.
  * 
  * @author rainu
  */
 public class ConvertHelper {
-
+	private static final int CODEC_MARKER = 0x01;
+	private static final Codec JAVA_SERIALIZATION = new JavaSerializationCodec();
+	
+	/**
+	 * Puffer, die größer sind, werden nach der Verwendung nicht weiter vorgehalten.
+	 */
+	private static final int MAX_RETAINED_BUFFER = 1024 * 1024;
+	
+	/**
+	 * Je Thread ein wiederverwendbarer Puffer. Wird ein Objekt innerhalb eines
+	 * Codecs geschrieben (verschachtelte Objekte), ist der Puffer belegt und es
+	 * wird ein neuer angelegt.
+	 */
+	private static final ThreadLocal<Buffer> BUFFER = new ThreadLocal<Buffer>(){
+		@Override
+		protected Buffer initialValue() {
+			return new Buffer();
+		}
+	};
+	
+	private static class Buffer extends ByteArrayOutputStream {
+		final DataOutputStream data = new DataOutputStream(this);
+		boolean inUse = false;
+		
+		Buffer() {
+			super(256);
+		}
+		
+		int capacity(){
+			return buf.length;
+		}
+	}
+	
 	/**
 	 * Konvertiert ein beliebiges Objekt in ein byte-Array.
 	 * @param o Objekt welches konvertiert werden soll.
 	 * @return byte-Array-Representation des Objektes
-	 * @throws IOException 
+	 * @throws IOException
 	 */
 	public static byte[] convertObjectToByteArray(Object o) throws IOException{
-		ByteArrayOutputStream bos = new ByteArrayOutputStream();
-		ObjectOutputStream oos = new ObjectOutputStream(bos);
-		oos.writeObject(o);
+		Codec codec = o != null ? 
+				InterpreterProvider.getInstance().getCodec(o.getClass()) : JAVA_SERIALIZATION;
+		
+		Buffer buffer = BUFFER.get();
+		if(buffer.inUse){
+			buffer = new Buffer();
+		}else if(buffer.capacity() > MAX_RETAINED_BUFFER){
+			buffer = new Buffer();
+			BUFFER.set(buffer);
+		}
 		
-		return bos.toByteArray();
+		buffer.inUse = true;
+		try{
+			buffer.reset();
+			
+			if(codec.getId() == JavaSerializationCodec.ID){
+				JAVA_SERIALIZATION.write(o, buffer.data);
+			}else{
+				buffer.data.writeByte(CODEC_MARKER);
+				buffer.data.writeByte(codec.getId());
+				codec.write(o, buffer.data);
+			}
+			buffer.data.flush();
+			
+			byte[] bytes = buffer.toByteArray();
+			MapMetrics.bytesSerialized(bytes.length);
+			return bytes;
+		}finally{
+			buffer.inUse = false;
+		}
 	}
 	
 	/**
@@ -39,6 +107,18 @@ public class ConvertHelper {
 		return new ByteArrayInputStream(bObject);
 	}
 	
+	/**
+	 * Liest ein Object aus einem byte-Array aus.
+	 * 
+	 * @param bytes
+	 * @return
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	public static Object convertByteArrayToObject(byte[] bytes) throws IOException, ClassNotFoundException{
+		return convertInputStreamToObject(new ByteArrayInputStream(bytes));
+	}
+	
 	/**
 	 * Liest aus einen Inputstream ein Object aus.
 	 * 
@@ -48,7 +128,22 @@ public class ConvertHelper {
 	 * @throws ClassNotFoundException
 	 */
 	public static Object convertInputStreamToObject(InputStream is) throws IOException, ClassNotFoundException{
-		ObjectInputStream ois = new ObjectInputStream(is);
-		return ois.readObject();
+		PushbackInputStream in = new PushbackInputStream(is);
+		int first = in.read();
+		
+		if(first == CODEC_MARKER){
+			DataInputStream data = new DataInputStream(in);
+			byte codecId = data.readByte();
+			
+			Codec codec = InterpreterProvider.getInstance().getCodec(codecId);
+			if(codec == null){
+				throw new IOException("There is no codec registered with id " + codecId);
+			}
+			
+			return codec.read(data);
+		}
+		
+		if(first != -1) in.unread(first);
+		return JAVA_SERIALIZATION.read(new DataInputStream(in));
 	}
 }
@@ -1,26 +1,46 @@
 package de.raysha.lib.dbc;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.AbstractList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
 
 import de.raysha.lib.dbc.beans.ConnectionInfo;
 import de.raysha.lib.dbc.exception.BackendException;
+import de.raysha.lib.dbc.lifecycle.CloseableResources;
+import de.raysha.lib.dbc.lifecycle.LeakDetector;
+import de.raysha.lib.dbc.metrics.SqlTracer;
+import de.raysha.lib.dbc.metrics.StatementListener;
 
 /**
  * Das DB(Database)-List ist eine {@link List} Implementierung.
  * Sie basiert auf der {@link DBMap} und deligiert entsprechend
  * alle Anfragen an diese weiter. 
- *
+ * Die einzelnen Operationen sind synchronisiert. Iteratoren dürfen
+ * dagegen nicht von mehreren Threads gleichzeitig verwendet werden.
+ * 
  * @author rainu
- *
+ * 
  * @param <E> Eine serialisierbare Klasse
  */
-public class DBList<E> extends AbstractList<E> implements List<E>, ColumnNames{
+public class DBList<E> extends AbstractList<E> implements List<E>, ColumnNames, AutoCloseable{
 	protected DBMap<Integer, E> backend;
+	/**
+	 * Wurde die {@link DBMap} von der Liste selbst angelegt, wird sie zusammen mit
+	 * der Liste geschlossen.
+	 */
+	private final boolean ownsBackend;
+	private final CloseableResources resources = new CloseableResources();
+	private final LeakDetector.Registration registration;
 	private PreparedStatement indicesByValueAscStatement;
 	private PreparedStatement indicesByValueDescStatement;
 	private PreparedStatement indicesByNullValueAscStatement;
@@ -28,9 +48,21 @@ public class DBList<E> extends AbstractList<E> implements List<E>, ColumnNames{
 	private PreparedStatement incrementIndexStatement;
 	private PreparedStatement decrementIndexStatement;
 	private PreparedStatement removeRangeStatement;
+	/**
+	 * Die Verbindung der Statements sowie der Listener, für den sie erzeugt wurden 
+	 * (siehe {@link DBMap#statementListener()}).
+	 */
+	private Connection statementConnection;
+	private StatementListener preparedFor;
 	
 	public DBList(DBMap<Integer, E> backend) {
+		this(backend, false);
+	}
+	
+	protected DBList(DBMap<Integer, E> backend, boolean ownsBackend) {
 		this.backend = backend;
+		this.ownsBackend = ownsBackend;
+		this.registration = LeakDetector.register(this, resources);
 		
 		try{
 			init();
@@ -40,94 +72,214 @@ public class DBList<E> extends AbstractList<E> implements List<E>, ColumnNames{
 	}
 	
 	public DBList(ConnectionInfo info, String tableName, boolean dropIfExist, boolean debugMode){
-		this(new DBMap<Integer, E>(info, tableName, dropIfExist, debugMode));
+		this(new DBMap<Integer, E>(info, tableName, dropIfExist, debugMode), true);
 	}
 	
 	public DBList(ConnectionInfo info, String tableName, boolean dropIfExist){
-		this(new DBMap<Integer, E>(info, tableName, dropIfExist));
+		this(new DBMap<Integer, E>(info, tableName, dropIfExist), true);
 	}
 	
 	public DBList(ConnectionInfo info, String tableName){
-		this(new DBMap<Integer, E>(info, tableName));
+		this(new DBMap<Integer, E>(info, tableName), true);
 	}
 	
 	public DBList(ConnectionInfo info){
-		this(new DBMap<Integer, E>(info));
+		this(new DBMap<Integer, E>(info), true);
+	}
+	
+	public DBList(DataSource dataSource, String tableName, boolean dropIfExist, boolean debugMode){
+		this(new DBMap<Integer, E>(dataSource, tableName, dropIfExist, debugMode), true);
+	}
+	
+	public DBList(DataSource dataSource, String tableName, boolean dropIfExist){
+		this(new DBMap<Integer, E>(dataSource, tableName, dropIfExist), true);
+	}
+	
+	public DBList(DataSource dataSource, String tableName){
+		this(new DBMap<Integer, E>(dataSource, tableName), true);
+	}
+	
+	public DBList(DataSource dataSource){
+		this(new DBMap<Integer, E>(dataSource), true);
 	}
 		
+	/**
+	 * Schließt alle Statements der Liste. Wurde die {@link DBMap} von der Liste
+	 * angelegt, wird diese ebenfalls geschlossen.
+	 */
 	@Override
-	protected void finalize() throws Throwable {
-		try{indicesByValueAscStatement.close();}catch(SQLException e){}
-		try{indicesByValueDescStatement.close();}catch(SQLException e){}
-		try{indicesByNullValueAscStatement.close();}catch(SQLException e){}
-		try{indicesByNullValueDescStatement.close();}catch(SQLException e){}
-		try{incrementIndexStatement.close();}catch(SQLException e){}
-		try{decrementIndexStatement.close();}catch(SQLException e){}
-		try{removeRangeStatement.close();}catch(SQLException e){}
+	public void close() {
+		registration.close();
+		if(ownsBackend){
+			backend.close();
+		}
+	}
+	
+	/**
+	 * @see DBMap#beginBatch()
+	 * @throws UnsupportedOperationException Wenn die Map einen Pool verwendet. Die Liste 
+	 * arbeitet teilweise direkt auf der Verbindung der Map, die dann nicht an der 
+	 * Transaktion teilnehmen würde.
+	 * <br/>
+	 * Solange die Transaktion offen ist, darf die Liste nicht von anderen Threads 
+	 * verwendet werden. Andernfalls sollte {@link #transaction(Consumer)} verwendet werden.
+	 */
+	public Transaction beginBatch(){
+		if(backend.connectionProvider != null){
+			throw new UnsupportedOperationException("Transactions are not supported by pooled lists!");
+		}
 		
-		super.finalize();
+		return backend.beginBatch();
+	}
+	
+	/**
+	 * @see DBMap#transaction(Consumer)
+	 * @throws UnsupportedOperationException Wenn die Map einen Pool verwendet.
+	 */
+	public synchronized void transaction(Consumer<? super Transaction> work){
+		try(Transaction transaction = beginBatch()){
+			work.accept(transaction);
+			
+			transaction.commit();
+		}
+	}
+	
+	/**
+	 * @see DBMap#trace(SqlTracer)
+	 */
+	public void trace(SqlTracer tracer){
+		backend.trace(tracer);
+	}
+	
+	private PreparedStatement prepare(String sql) throws SQLException{
+		return resources.add(statementConnection.prepareStatement(sql));
+	}
+	
+	/**
+	 * Erzeugt die Statements neu, wenn seit ihrer Erzeugung Metriken bzw. das Protokoll 
+	 * der Map ein- oder ausgeschaltet wurden (siehe {@link DBMap#trace(de.raysha.lib.dbc.metrics.SqlTracer)}).
+	 */
+	private void checkStatements() throws SQLException{
+		StatementListener listener = backend.statementListener();
+		if(listener == preparedFor) return;
+		
+		closeStatements();
+		init();
+	}
+	
+	private void closeStatements(){
+		for(PreparedStatement statement : new PreparedStatement[]{
+				indicesByValueAscStatement, indicesByValueDescStatement, 
+				indicesByNullValueAscStatement, indicesByNullValueDescStatement, 
+				incrementIndexStatement, decrementIndexStatement, removeRangeStatement}){
+			
+			try{ statement.close(); }catch(SQLException e){}
+		}
 	}
 	
 	private void init() throws SQLException{
-		indicesByValueAscStatement = backend.connection.prepareStatement(
+		preparedFor = backend.statementListener();
+		statementConnection = backend.jdbc();
+		
+		indicesByValueAscStatement = prepare(
 				"SELECT " + COL_INT_KEY + 
 				" FROM " + backend.tableName +
 				" WHERE " + COL_VALUE_HASH + " = ?" +
 				" ORDER BY " + COL_INT_KEY + " ASC");
-		indicesByValueDescStatement = backend.connection.prepareStatement(
+		indicesByValueDescStatement = prepare(
 				"SELECT " + COL_INT_KEY + 
 				" FROM " + backend.tableName +
 				" WHERE " + COL_VALUE_HASH + " = ?" +
 				" ORDER BY " + COL_INT_KEY + " DESC");
-		indicesByNullValueAscStatement = backend.connection.prepareStatement(
+		indicesByNullValueAscStatement = prepare(
 				"SELECT " + COL_INT_KEY + 
 				" FROM " + backend.tableName +
 				" WHERE " + COL_VALUE_HASH + " IS NULL" +
 				" ORDER BY " + COL_INT_KEY + " ASC");
-		indicesByNullValueDescStatement = backend.connection.prepareStatement(
+		indicesByNullValueDescStatement = prepare(
 				"SELECT " + COL_INT_KEY + 
 				" FROM " + backend.tableName +
 				" WHERE " + COL_VALUE_HASH + " IS NULL" +
 				" ORDER BY " + COL_INT_KEY + " DESC");
-		incrementIndexStatement = backend.connection.prepareStatement(
+		incrementIndexStatement = prepare(
 				"UPDATE " + backend.tableName + 
 				" SET " + COL_INT_KEY + " = " + COL_INT_KEY + " + ?," +
 					" " + COL_ID + " = " + COL_ID + " + ? " +
 				" WHERE " + COL_INT_KEY + " >= ?");
-		decrementIndexStatement = backend.connection.prepareStatement(
+		decrementIndexStatement = prepare(
 				"UPDATE " + backend.tableName + 
 				" SET " + COL_INT_KEY + " = " + COL_INT_KEY + " - ?," +
 					" " + COL_ID + " = " + COL_ID + " - ? " +
 				" WHERE " + COL_INT_KEY + " >= ?");
-		removeRangeStatement = backend.connection.prepareStatement(
+		removeRangeStatement = prepare(
 				"DELETE FROM " + backend.tableName + 
 				" WHERE " + COL_ID + " BETWEEN ? AND ?");
 	}
 	
 	
 	@Override
-	public int size() {
+	public synchronized int size() {
 		return backend.size();
 	}
-
+	
 	@Override
-	public boolean isEmpty() {
+	public synchronized boolean isEmpty() {
 		return backend.isEmpty();
 	}
-
+	
 	@Override
-	public boolean contains(Object o) {
+	public synchronized boolean contains(Object o) {
 		return backend.containsValue(o);
 	}
-
+	
 	@Override
-	public boolean add(E e) {
+	public synchronized boolean add(E e) {
 		backend.put(size(), e);
 		return true;
 	}
-
+	
+	@Override
+	public synchronized boolean addAll(Collection<? extends E> c) {
+		//die Ziel-Indizes werden einmalig berechnet, anstatt
+		//für jedes Element erneut die Größe abzufragen
+		return addAll(size(), c);
+	}
+	
+	@Override
+	public synchronized boolean addAll(int index, Collection<? extends E> c) {
+		if(c == null) throw new NullPointerException();
+		
+		int size = size();
+		if(index < 0 || index > size){
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		
+		//Die Elemente müssen vorher gesammelt werden, da die übergebene
+		//Collection auch diese Liste selbst sein könnte.
+		Map<Integer, E> toAdd = new LinkedHashMap<Integer, E>();
+		int curIndex = index;
+		for(E curElement : c){
+			toAdd.put(curIndex++, curElement);
+		}
+		if(toAdd.isEmpty()) return false;
+		
+		if(index < size){
+			try{
+				incrementIndex(index, toAdd.size());
+			}catch(SQLException e){
+				throw new BackendException(
+						"Could not order indices in backend." +
+						"AT THIS MOMENT THIS LIST COULD BE INCONSISTENT!",
+						e);
+			}
+		}
+		
+		backend.batchPut(toAdd);
+		return true;
+	}
+	
 	@Override
-	public void clear() {
+	public synchronized void clear() {
 		backend.clear();
 	}
 	
@@ -140,30 +292,48 @@ public class DBList<E> extends AbstractList<E> implements List<E>, ColumnNames{
 		//wird. Diesen Schritt kann (und muss) man sich sparen.
 		
 		try {
+			backend.flush();
+			checkStatements();
+			
 			removeRangeStatement.setInt(1, fromIndex);
 			removeRangeStatement.setInt(2, toIndex);
 			removeRangeStatement.executeUpdate();
 			
 			decrementIndex(fromIndex, toIndex - fromIndex + 1);
 			backend.resetCachedSize();
+			backend.invalidateCachedValues();
 		} catch (SQLException e) {
 			throw new BackendException(
 					"Could not remove range " + fromIndex + " - " + toIndex + ".",
 					e);
 		}
 	}
-
-
+	
+	
 	@Override
-	public E get(int index) {
+	public synchronized E get(int index) {
 		checkIndex(index);
 		
 		return backend.get(index);
 	}
-
-
+	
+	/**
+	 * Liefert einen {@link DBMapSpliterator}, der anhand der Indizes geteilt wird. Die 
+	 * Teile eines parallelen Streams werden dabei unabhängig voneinander seitenweise gelesen.
+	 */
 	@Override
-	public E set(int index, E element) {
+	public synchronized Spliterator<E> spliterator() {
+		backend.flush();
+		
+		int size = size();
+		return new DBMapSpliterator<Integer, E, E>(backend, COL_INT_KEY, 0, size - 1, null, size, 
+				true, (index, element) -> element,
+				Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED);
+	}
+	
+	
+	@Override
+	public synchronized E set(int index, E element) {
 		checkIndex(index);
 		
 		E lastValue = backend.get(index);
@@ -171,10 +341,10 @@ public class DBList<E> extends AbstractList<E> implements List<E>, ColumnNames{
 		backend.put(index, element);
 		return lastValue;
 	}
-
-
+	
+	
 	@Override
-	public void add(int index, E element) {
+	public synchronized void add(int index, E element) {
 		checkIndex(index);
 		
 		try{
@@ -188,10 +358,10 @@ public class DBList<E> extends AbstractList<E> implements List<E>, ColumnNames{
 		
 		backend.put(index, element);
 	}
-
-
+	
+	
 	@Override
-	public E remove(int index) {
+	public synchronized E remove(int index) {
 		checkIndex(index);
 		
 		E element = backend.get(index);
@@ -208,9 +378,9 @@ public class DBList<E> extends AbstractList<E> implements List<E>, ColumnNames{
 					e);
 		}
 	}
-
+	
 	@Override
-	public boolean removeAll(Collection<?> c) {
+	public synchronized boolean removeAll(Collection<?> c) {
 		if(c == this){
 			boolean change = !isEmpty();
 			
@@ -225,9 +395,9 @@ public class DBList<E> extends AbstractList<E> implements List<E>, ColumnNames{
 		
 		return modified;
 	}
-
+	
 	@Override
-	public int indexOf(Object o) {
+	public synchronized int indexOf(Object o) {
 		boolean contains = backend.containsValue(o);
 		if(!contains) return -1;
 		
@@ -242,10 +412,10 @@ public class DBList<E> extends AbstractList<E> implements List<E>, ColumnNames{
 			return -1;
 		}
 	}
-
-
+	
+	
 	@Override
-	public int lastIndexOf(Object o) {
+	public synchronized int lastIndexOf(Object o) {
 		boolean contains = backend.containsValue(o);
 		if(!contains) return -1;
 		
@@ -261,6 +431,7 @@ public class DBList<E> extends AbstractList<E> implements List<E>, ColumnNames{
 	}
 		
 	private Integer getFirstIndexForValue(Object value) throws SQLException{
+		checkStatements();
 		indicesByValueAscStatement.setInt(1, value.hashCode());
 		
 		ResultSet result = indicesByValueAscStatement.executeQuery();
@@ -270,6 +441,7 @@ public class DBList<E> extends AbstractList<E> implements List<E>, ColumnNames{
 	}
 	
 	private Integer getFirstIndexForNullValue() throws SQLException{
+		checkStatements();
 		ResultSet result = indicesByNullValueAscStatement.executeQuery();
 		if(!result.first()) return null;	//kein element gefunden!
 		
@@ -277,6 +449,7 @@ public class DBList<E> extends AbstractList<E> implements List<E>, ColumnNames{
 	}
 	
 	private Integer getLastIndexForValue(Object value) throws SQLException{
+		checkStatements();
 		indicesByValueDescStatement.setInt(1, value.hashCode());
 		
 		ResultSet result = indicesByValueDescStatement.executeQuery();
@@ -286,6 +459,7 @@ public class DBList<E> extends AbstractList<E> implements List<E>, ColumnNames{
 	}
 	
 	private Integer getLastIndexForNullValue() throws SQLException{
+		checkStatements();
 		ResultSet result = indicesByNullValueDescStatement.executeQuery();
 		if(!result.first()) return null;	//kein element gefunden!
 		
@@ -307,10 +481,16 @@ public class DBList<E> extends AbstractList<E> implements List<E>, ColumnNames{
 		//Tatsache, das der Hashcode eines Integers gleich der eigentliche
 		//Wert ist. Somit müssen wir also nur darauf auchten, dass der Hashcode
 		//auch etsprechend des Indizes verändert wird!
+		backend.flush();
+		checkStatements();
+		
 		incrementIndexStatement.setInt(1, toIncrement);
 		incrementIndexStatement.setInt(2, toIncrement);
 		incrementIndexStatement.setInt(3, fromIndex);
 		incrementIndexStatement.executeUpdate();
+		
+		//alle verschobenen Elemente haben nun einen anderen Schlüssel
+		backend.invalidateCachedValues();
 	}
 	
 	private void decrementIndex(int fromIndex, int toDecrement) throws SQLException{
@@ -319,10 +499,16 @@ public class DBList<E> extends AbstractList<E> implements List<E>, ColumnNames{
 		//Tatsache, das der Hashcode eines Integers gleich der eigentliche
 		//Wert ist. Somit müssen wir also nur darauf auchten, dass der Hashcode
 		//auch etsprechend des Indizes verändert wird!
+		backend.flush();
+		checkStatements();
+		
 		decrementIndexStatement.setInt(1, toDecrement);
 		decrementIndexStatement.setInt(2, toDecrement);
 		decrementIndexStatement.setInt(3, fromIndex);
 		decrementIndexStatement.executeUpdate();
+		
+		//alle verschobenen Elemente haben nun einen anderen Schlüssel
+		backend.invalidateCachedValues();
 	}
 	
 	@Override
@@ -332,7 +518,7 @@ public class DBList<E> extends AbstractList<E> implements List<E>, ColumnNames{
 		result = prime * result + ((backend == null) ? 0 : backend.hashCode());
 		return result;
 	}
-
+	
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj)
@@ -350,7 +536,7 @@ public class DBList<E> extends AbstractList<E> implements List<E>, ColumnNames{
 			return false;
 		return true;
 	}
-
+	
 	@Override
 	public String toString() {
 		return "[" + getClass().getSimpleName() + "]\n" +
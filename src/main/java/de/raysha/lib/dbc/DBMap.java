@@ -1,56 +1,187 @@
 package de.raysha.lib.dbc;
 
-import java.io.Serializable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
 
 import de.raysha.lib.dbc.beans.ConnectionInfo;
 import de.raysha.lib.dbc.beans.KeyValueClassPair;
+import de.raysha.lib.dbc.cache.CacheKey;
+import de.raysha.lib.dbc.cache.ValueCache;
+import de.raysha.lib.dbc.connection.ConnectionProvider;
+import de.raysha.lib.dbc.connection.DataSourceConnectionProvider;
 import de.raysha.lib.dbc.exception.BackendException;
+import de.raysha.lib.dbc.lifecycle.LeakDetector;
 import de.raysha.lib.dbc.map.access.Access;
 import de.raysha.lib.dbc.map.access.GeneralAccess;
+import de.raysha.lib.dbc.map.access.KeyAccess;
 import de.raysha.lib.dbc.map.access.NullAccess;
 import de.raysha.lib.dbc.map.interpreter.Interpreter;
 import de.raysha.lib.dbc.map.interpreter.InterpreterProvider;
 import de.raysha.lib.dbc.meta.MetadataManager;
+import de.raysha.lib.dbc.meta.TableMetadata;
+import de.raysha.lib.dbc.meta.TypeDictionary;
+import de.raysha.lib.dbc.metrics.JdbcInstrumentation;
+import de.raysha.lib.dbc.metrics.MapMetrics;
+import de.raysha.lib.dbc.metrics.MapMetrics.Recording;
+import de.raysha.lib.dbc.metrics.Operation;
+import de.raysha.lib.dbc.metrics.SqlTracer;
+import de.raysha.lib.dbc.metrics.StatementListener;
 
 /**
  * Die DB(Database)-Map ist eine {@link Map} Implementierung.
  * Daten werden nicht in den Hauptspeicher sondern direkt in eine Datenbank 
  * hinterlegt. Bei dem Schlüssel ist zu beachten, dass der Hash-Wert
- * als Schlüssel zur Suche des Wertes verwendet wird. Außerdem werden die Objekte
+ * zur (indizierten) Suche des Wertes verwendet wird. Ob ein gefundener Eintrag
+ * tatsächlich zum Schlüssel gehört, wird anschließend über den gespeicherten
+ * Schlüssel selbst entschieden (siehe {@link KeyAccess}). Außerdem werden die Objekte
  * (Schlüssel sowie als auch Wert) als MOMENT-AUFNAHME gespeichert. Das heißt, 
  * dass Änderungen am Objekt nicht automatisch in die Datenbank aktualisiert werden. 
  * Änderungen müssen manuell über den Put-Aufruf getätigt werden.
+ * <br/><br/>
+ * Die Map kann von mehreren Threads gleichzeitig verwendet werden. Standardmäßig
+ * teilen sich alle Threads die eine Verbindung der Map, sodass die Operationen 
+ * nacheinander ausgeführt werden. Sehen die Verbindungsdaten einen Pool vor 
+ * (siehe {@link ConnectionInfo#isPooled()}), leiht sich jede Operation eine eigene
+ * Verbindung aus dem Pool. Iteratoren und Sichten (z.B. {@link #keySet()}) dürfen
+ * nicht von mehreren Threads gleichzeitig verwendet werden.
  * 
  * @author rainu
- *
+ * 
  * @param <K> Typ des Schlüssels (Muss serialisierbar sein)
  * @param <V> Typ des Wertes (Muss serialisierbar sein)
  */
 public class DBMap<K, V> extends AbstractDBMap<K, V> implements ColumnNames{
-	private static final Map<String, Integer> cachedSizes = new HashMap<String, Integer>();
+	/**
+	 * Aktuelle Version des Tabellen-Schemas. Tabellen der Version 1.0 
+	 * identifizieren ihre Einträge allein über Hash-Wert und Schlüssel-Klasse.
+	 * Tabellen der Version 2.0 speichern die Klassen-Namen anstelle der Kennungen
+	 * aus dem {@link TypeDictionary}. Beide werden beim Öffnen automatisch migriert.
+	 */
+	public static final String TABLE_VERSION = "3.0";
+	private static final String TABLE_VERSION_1 = "1.0";
+	private static final String TABLE_VERSION_2 = "2.0";
+	
+	/**
+	 * Name der Eigenschaft in den Metadaten (siehe {@link MetadataManager#getProperties(String)}),
+	 * unter der die Indizes der Tabelle vermerkt sind.
+	 */
+	public static final String METADATA_INDEXES = "indexes";
+	
+	/**
+	 * Alle Indizes, die eine Tabelle besitzen muss. Der Name eines Index setzt sich 
+	 * aus dem Tabellennamen und dem hier hinterlegten Suffix zusammen.
+	 */
+	private static final Map<String, String> INDEXES = new LinkedHashMap<String, String>();
+	static{
+		//Suche des Eimers eines Schlüssels
+		INDEXES.put("_KEY_IDX", COL_ID + ", " + COL_KEY_TYPE);
+		//containsValue() sowie DBList.indexOf()
+		INDEXES.put("_VALUE_IDX", COL_VALUE_HASH + ", " + COL_VALUE_TYPE);
+		//Reihenfolge (und Verschiebung) der Elemente einer DBList
+		INDEXES.put("_ORDER_IDX", COL_INT_KEY);
+	}
+	
+	/**
+	 * Alle Spalten, in denen ein Schlüssel abgelegt sein kann.
+	 */
+	private static final String[] KEY_COLUMNS = new String[]{
+		COL_KEY, COL_BYTE_KEY, COL_BOOLEAN_KEY, COL_CHAR_KEY, COL_DOUBLE_KEY, 
+		COL_FLOAT_KEY, COL_INT_KEY, COL_LONG_KEY, COL_STRING_KEY
+	};
+	
+	/**
+	 * Alle Spalten, die zu einem Eintrag gehören (also alle außer {@link ColumnNames#COL_ROW_ID}).
+	 */
+	private static final String DATA_COLUMNS = 
+			COL_ID + ", " + COL_KEY + ", " + COL_KEY_STRING + ", " + COL_VALUE + ", " +
+			COL_VALUE_STRING + ", " + COL_KEY_TYPE + ", " + COL_VALUE_TYPE + ", " + COL_VALUE_HASH + ", " +
+			COL_INT_KEY + ", " + COL_LONG_KEY + ", " + COL_FLOAT_KEY + ", " + COL_DOUBLE_KEY + ", " +
+			COL_BYTE_KEY + ", " + COL_CHAR_KEY + ", " + COL_BOOLEAN_KEY + ", " + COL_STRING_KEY + ", " +
+			COL_INT_VALUE + ", " + COL_LONG_VALUE + ", " + COL_FLOAT_VALUE + ", " + COL_DOUBLE_VALUE + ", " +
+			COL_BYTE_VALUE + ", " + COL_CHAR_VALUE + ", " + COL_BOOLEAN_VALUE + ", " + COL_STRING_VALUE;
 	
-	private PreparedStatement containsKeyStatement;
-	private PreparedStatement valueClassByKeyStatement;
-	private PreparedStatement countStatement;
-	private PreparedStatement containsValueStatement;
-	private PreparedStatement containsNullStatement;
-	private PreparedStatement clearStatement;
-	private PreparedStatement removeStatement;
+	private static final Map<String, Integer> cachedSizes = 
+			Collections.synchronizedMap(new HashMap<String, Integer>());
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+	public static final int DEFAULT_FETCH_SIZE = 500;
+	private static final int CONTAINS_CHUNK_SIZE = 100;
+	/**
+	 * Steht im {@link ValueCache} für einen gespeicherten <b>null</b>-Wert.
+	 */
+	private static final Object NULL_VALUE = new Object();
+	private static final int CACHE_GENERATION_STRIPES = 64;
 	
-	private Map<KeyValueClassPair, Access> cachedAccess = new HashMap<KeyValueClassPair, Access>();
+	/**
+	 * Die Sitzung der eigenen Verbindung ({@link AbstractDBMap#connection}). Ohne Pool wird
+	 * sie für alle Operationen verwendet und ist über {@link #primaryLock} geschützt.
+	 */
+	private Session primarySession;
+	private final ReentrantLock primaryLock = new ReentrantLock();
+	private final Map<Connection, Session> pooledSessions = new ConcurrentHashMap<Connection, Session>();
+	private final ThreadLocal<Session> currentSession = new ThreadLocal<Session>();
+	/**
+	 * Die Metriken der Map (siehe {@link #enableMetrics()}). Enthält <b>null</b>, solange 
+	 * keine erfasst werden.
+	 */
+	private final AtomicReference<MapMetrics> metrics = new AtomicReference<MapMetrics>();
+	private volatile SqlTracer tracer;
+	/**
+	 * Wird über alle Statements benachrichtigt (siehe {@link #updateStatementListener()}).
+	 */
+	private volatile StatementListener statementListener;
 	
+	/**
+	 * Werden zusätzlich die String-Repräsentationen gespeichert? Dies verlangsamt jedes
+	 * Schreiben. Zur Fehlersuche eignet sich {@link #trace(SqlTracer)} besser.
+	 */
 	protected final boolean debugMode;
 	protected final boolean dropIfExists;
 	protected boolean cacheSize;
+	protected int batchSize = DEFAULT_BATCH_SIZE;
+	protected int fetchSize = DEFAULT_FETCH_SIZE;
+	protected ValueCache valueCache;
+	/**
+	 * Werden bei jeder Invalidierung des {@link ValueCache} erhöht (siehe {@link #cacheGeneration(Object)}).
+	 * Die Schlüssel sind über ihren Hash-Wert auf die Streifen verteilt.
+	 */
+	private final AtomicLongArray cacheGenerations = new AtomicLongArray(CACHE_GENERATION_STRIPES);
+	private final AtomicLong cacheGeneration = new AtomicLong();
 	
 	protected final MetadataManager metadataManager;
+	/**
+	 * Vergibt die Kennungen der Spalten {@link ColumnNames#COL_KEY_TYPE} und 
+	 * {@link ColumnNames#COL_VALUE_TYPE}.
+	 */
+	protected final TypeDictionary typeDictionary;
 	
 	public DBMap(ConnectionInfo info, String tableName, boolean dropIfExist, boolean debugMode){
 		super(info, tableName);
@@ -58,11 +189,12 @@ public class DBMap<K, V> extends AbstractDBMap<K, V> implements ColumnNames{
 		this.dropIfExists = dropIfExist;
 		this.debugMode = debugMode;
 		cacheSize(false);
-
+		
 		this.metadataManager = initMetadataManager();
+		this.typeDictionary = initTypeDictionary();
 		init();
 	}
-
+	
 	private MetadataManager initMetadataManager() {
 		try {
 			return new MetadataManager(connection);
@@ -71,6 +203,14 @@ public class DBMap<K, V> extends AbstractDBMap<K, V> implements ColumnNames{
 		}
 	}
 	
+	private TypeDictionary initTypeDictionary() {
+		try {
+			return new TypeDictionary(connection, metadataManager);
+		} catch (SQLException e) {
+			throw new BackendException("Could not initialise type-dictionary.", e);
+		}
+	}
+	
 	public DBMap(ConnectionInfo info, String tableName, boolean dropIfExist){
 		this(info, tableName, dropIfExist, false);
 	}
@@ -86,28 +226,82 @@ public class DBMap<K, V> extends AbstractDBMap<K, V> implements ColumnNames{
 		this(info, null, true, false);
 	}
 	
+	/**
+	 * Die Map verwendet eine vom gegebenen Provider ausgeliehene Verbindung, anstatt
+	 * selbst eine Verbindung aufzubauen.
+	 * 
+	 * @param provider Provider, von dem die Verbindung der Map ausgeliehen wird.
+	 * @param tableName Name der Tabelle
+	 * @param dropIfExist Soll die Tabelle geleert werden, falls sie schon existiert?
+	 * @param debugMode Sollen zusätzlich die String-Repräsentationen gespeichert werden?
+	 */
+	public DBMap(ConnectionProvider provider, String tableName, boolean dropIfExist, boolean debugMode){
+		super(provider, tableName);
+		
+		this.dropIfExists = dropIfExist;
+		this.debugMode = debugMode;
+		cacheSize(false);
+		
+		this.metadataManager = initMetadataManager();
+		this.typeDictionary = initTypeDictionary();
+		init();
+	}
+	
+	public DBMap(DataSource dataSource, String tableName, boolean dropIfExist, boolean debugMode){
+		this(new DataSourceConnectionProvider(dataSource), tableName, dropIfExist, debugMode);
+	}
+	
+	public DBMap(DataSource dataSource, String tableName, boolean dropIfExist){
+		this(dataSource, tableName, dropIfExist, false);
+	}
+	
+	public DBMap(DataSource dataSource, String tableName){
+		this(dataSource, tableName, false);
+	}
+	
+	public DBMap(DataSource dataSource){
+		this(dataSource, null, true, false);
+	}
+	
 	private void init(){
-		createTable();
-		checkMetadata();
+		boolean created = createTable();
+		checkMetadata(created);
+		checkIndexes();
 		
-		try{
-			createPreparedStatements();
-		}catch(SQLException e){
-			throw new BackendException("Could not create prepared statments!", e);
-		}
+		addResource(metadataManager);
+		addResource(typeDictionary);
+		primarySession = addResource(createSession(connection));
+		
+		//die Verbindungen des Pools werden nicht geschlossen, nur deren Statements
+		final Map<Connection, Session> sessions = pooledSessions;
+		addResource(() -> {
+			for(Session session : sessions.values()){
+				session.close();
+			}
+		});
+		
+		final AtomicReference<MapMetrics> metrics = this.metrics;
+		addResource(() -> {
+			MapMetrics current = metrics.getAndSet(null);
+			if(current != null) current.close();
+		});
 	}
 	
-	private void createTable(){
+	/**
+	 * @return True, wenn die Tabelle neu angelegt wurde.
+	 */
+	private boolean createTable(){
 		try{
 			connection.createStatement()
 				.execute("CREATE TABLE " + tableName + " (" +
+						COL_ROW_ID + " BIGINT AUTO_INCREMENT," +
 						COL_ID + " INT," +
 						COL_KEY + " BLOB," +
 						COL_KEY_STRING + " CLOB," +
 						COL_VALUE + " BLOB," +
 						COL_VALUE_STRING + " CLOB," +
-						COL_KEY_TYPE + " NVARCHAR(MAX)," +
-						COL_VALUE_TYPE + " NVARCHAR(MAX)," +
+						COL_KEY_TYPE + " SMALLINT," +
+						COL_VALUE_TYPE + " SMALLINT," +
 						COL_VALUE_HASH + " INT," +
 						
 						COL_INT_KEY + " INT," +
@@ -128,8 +322,10 @@ public class DBMap<K, V> extends AbstractDBMap<K, V> implements ColumnNames{
 						COL_BOOLEAN_VALUE +	" BOOLEAN," +
 						COL_STRING_VALUE + " CLOB," +
 						
-						"PRIMARY KEY (" + COL_ID + ", " + COL_KEY_TYPE +")" +
+						"PRIMARY KEY (" + COL_ROW_ID + ")" +
 						")");
+			
+			return true;
 		}catch(SQLException e){
 			//Möglicherweise ist die Tabelle schon vorhanden
 			//darf aber nur geleert werden, wenn die Tabelle eigentlich
@@ -141,36 +337,472 @@ public class DBMap<K, V> extends AbstractDBMap<K, V> implements ColumnNames{
 					throw new BackendException("Could not truncate existing table!", e1);
 				}
 			}
+			
+			return false;
 		}
 	}
-
-	private void checkMetadata(){
-		if(metadataManager.getTableMetadata(tableName) != null){
-			metadataManager.removeMetadata(tableName);
+	
+	/**
+	 * Stellt sicher, dass alle benötigten Indizes vorhanden sind. Fehlende Indizes
+	 * werden angelegt. Anschließend werden die Indizes in den Metadaten der Tabelle
+	 * vermerkt (siehe {@link #METADATA_INDEXES}).
+	 */
+	private void checkIndexes(){
+		try{
+			Set<String> existing = getExistingIndexes();
+			StringBuilder description = new StringBuilder();
+			
+			for(Entry<String, String> index : INDEXES.entrySet()){
+				String indexName = tableName + index.getKey();
+				
+				if(!existing.contains(indexName.toUpperCase())){
+					connection.createStatement().execute(
+							"CREATE INDEX " + indexName + 
+							" ON " + tableName + " (" + index.getValue() + ")");
+				}
+				
+				if(description.length() > 0) description.append(";");
+				description.append(indexName + "(" + index.getValue() + ")");
+			}
+			
+			String recorded = metadataManager.getProperties(tableName)
+					.getProperty(METADATA_INDEXES);
+			if(!description.toString().equals(recorded)){
+				metadataManager.setProperty(tableName, METADATA_INDEXES, description.toString());
+			}
+		}catch(SQLException e){
+			throw new BackendException("Could not create indexes for table " + tableName, e);
+		}
+	}
+	
+	private Set<String> getExistingIndexes() throws SQLException{
+		DatabaseMetaData metaData = connection.getMetaData();
+		
+		String table = tableName;
+		if(metaData.storesUpperCaseIdentifiers()) table = table.toUpperCase();
+		else if(metaData.storesLowerCaseIdentifiers()) table = table.toLowerCase();
+		
+		Set<String> indexes = new HashSet<String>();
+		ResultSet result = metaData.getIndexInfo(null, null, table, false, true);
+		try{
+			while(result.next()){
+				String indexName = result.getString("INDEX_NAME");
+				if(indexName != null) indexes.add(indexName.toUpperCase());
+			}
+		}finally{
+			result.close();
+		}
+		
+		return indexes;
+	}
+	
+	private void checkMetadata(boolean created){
+		TableMetadata metadata = metadataManager.getTableMetadata(tableName);
+		
+		if(metadata == null){
+			//bestehende Tabellen ohne Metadaten stammen aus der ersten Version
+			if(!created) migrate(TABLE_VERSION_1);
+			
+			metadataManager.insertMetadata(tableName, TABLE_VERSION);
+		}else if(!TABLE_VERSION.equals(metadata.getVersion())){
+			migrate(metadata.getVersion());
+			
+			metadataManager.updateVersion(tableName, TABLE_VERSION);
+		}
+	}
+	
+	private void migrate(String fromVersion){
+		if(!TABLE_VERSION_1.equals(fromVersion) && !TABLE_VERSION_2.equals(fromVersion)){
+			throw new BackendException("Unsupported version '" + fromVersion + "' of table " + tableName);
+		}
+		
+		try{
+			//die Versionen werden nacheinander migriert
+			if(TABLE_VERSION_1.equals(fromVersion)){
+				migrateFromVersion1();
+			}
+			migrateFromVersion2();
+		}catch(SQLException e){
+			throw new BackendException("Could not migrate table " + tableName + 
+					" from version " + fromVersion + " to " + TABLE_VERSION, e);
+		}
+	}
+	
+	private void migrateFromVersion1() throws SQLException{
+		//Bisher war (Hash-Wert, Schlüssel-Klasse) der Primärschlüssel. Nun bekommt
+		//jeder Eintrag eine eigene Id, damit kollidierende Schlüssel Platz haben.
+		Statement stmt = connection.createStatement();
+		stmt.execute("ALTER TABLE " + tableName + " DROP PRIMARY KEY");
+		stmt.execute("ALTER TABLE " + tableName + " ADD COLUMN " + COL_ROW_ID + " BIGINT AUTO_INCREMENT");
+		stmt.execute("ALTER TABLE " + tableName + " ADD PRIMARY KEY (" + COL_ROW_ID + ")");
+	}
+	
+	private void migrateFromVersion2() throws SQLException{
+		//Bisher standen die Klassen-Namen in jeder Zeile. Nun werden sie durch ihre
+		//Kennung aus dem Typ-Verzeichnis ersetzt. Die betroffenen Indizes werden 
+		//anschließend (siehe checkIndexes()) neu angelegt. Bricht die Migration ab, 
+		//wird sie beim nächsten Start fortgesetzt: bereits umgestellte Spalten und 
+		//Kennungen (ein Klassen-Name beginnt nie mit einer Ziffer) werden übersprungen.
+		Statement stmt = connection.createStatement();
+		try{
+			for(String index : INDEXES.keySet()){
+				stmt.execute("DROP INDEX IF EXISTS " + tableName + index);
+			}
+			
+			List<String> columns = new ArrayList<String>();
+			for(String column : new String[]{COL_KEY_TYPE, COL_VALUE_TYPE}){
+				if(!isSmallintColumn(stmt, column)) columns.add(column);
+			}
+			
+			//erst alle Werte, dann die Spalten umstellen
+			for(String column : columns){
+				replaceTypeNames(stmt, column);
+			}
+			for(String column : columns){
+				stmt.execute("ALTER TABLE " + tableName + " ALTER COLUMN " + column + " SMALLINT");
+			}
+		}finally{
+			stmt.close();
+		}
+	}
+	
+	private boolean isSmallintColumn(Statement stmt, String column) throws SQLException{
+		ResultSet result = stmt.executeQuery("SELECT " + column + " FROM " + tableName + " WHERE 1 = 0");
+		try{
+			return result.getMetaData().getColumnType(1) == Types.SMALLINT;
+		}finally{
+			result.close();
+		}
+	}
+	
+	private void replaceTypeNames(Statement stmt, String column) throws SQLException{
+		//die Klassen werden dabei nicht geladen
+		List<String> typeNames = new ArrayList<String>();
+		ResultSet result = stmt.executeQuery(
+				"SELECT DISTINCT " + column + " FROM " + tableName + 
+				" WHERE " + column + " IS NOT NULL");
+		try{
+			while(result.next()){
+				String typeName = result.getString(1);
+				if(!typeName.isEmpty() && !Character.isDigit(typeName.charAt(0))) typeNames.add(typeName);
+			}
+		}finally{
+			result.close();
+		}
+		
+		PreparedStatement update = connection.prepareStatement(
+				"UPDATE " + tableName + " SET " + column + " = ? WHERE " + column + " = ?");
+		try{
+			for(String typeName : typeNames){
+				update.setShort(1, typeDictionary.getId(typeName));
+				update.setString(2, typeName);
+				update.addBatch();
+			}
+			update.executeBatch();
+		}finally{
+			update.close();
+		}
+	}
+	
+	/**
+	 * Alle Statements und {@link Access}-Objekte sind an eine Verbindung gebunden. Diese
+	 * Klasse fasst sie für eine Verbindung zusammen. Eine Sitzung wird immer nur von
+	 * einem Thread gleichzeitig verwendet (siehe {@link DBMap#openSession()}).
+	 */
+	private static class Session implements AutoCloseable {
+		final Connection connection;
+		/**
+		 * Über diese Verbindung werden alle Statements der Sitzung erzeugt. Werden Metriken erfasst
+		 * oder SQL-Statements protokolliert, ist sie instrumentiert (siehe {@link JdbcInstrumentation}), 
+		 * ansonsten ist sie die {@link #connection} selbst.
+		 */
+		Connection jdbc;
+		/**
+		 * Der Listener, für den die Statements der Sitzung erzeugt wurden.
+		 */
+		StatementListener listener;
+		/**
+		 * Die Aufzeichnungen der Metriken. Für jede Ebene (siehe {@link #depth}) gibt es einen
+		 * Eintrag, der <b>null</b> ist, wenn die Ebene nicht aufgezeichnet wird.
+		 */
+		final List<Recording> recordings = new ArrayList<Recording>();
+		final Map<KeyValueClassPair, Access> cachedAccess = new HashMap<KeyValueClassPair, Access>();
+		final Map<Class<?>, KeyAccess> cachedKeyAccess = new HashMap<Class<?>, KeyAccess>();
+		
+		PreparedStatement countStatement;
+		PreparedStatement containsValueStatement;
+		PreparedStatement containsNullStatement;
+		PreparedStatement clearStatement;
+		
+		/**
+		 * Wie oft die Sitzung vom aktuellen Thread geöffnet wurde.
+		 */
+		int depth = 0;
+		/**
+		 * Wurde die Verbindung für diese Sitzung aus dem Pool ausgeliehen? Andernfalls
+		 * gehört sie einer offenen {@link Transaction} des Threads.
+		 */
+		boolean borrowed = false;
+		
+		Session(Connection connection) {
+			this.connection = connection;
+			this.jdbc = connection;
+		}
+		
+		@Override
+		public void close() {
+			for(Access access : cachedAccess.values()){
+				access.close();
+			}
+			for(KeyAccess keyAccess : cachedKeyAccess.values()){
+				keyAccess.close();
+			}
+			cachedAccess.clear();
+			cachedKeyAccess.clear();
+			
+			try{countStatement.close();}catch(SQLException e){}
+			try{containsValueStatement.close();}catch(SQLException e){}
+			try{containsNullStatement.close();}catch(SQLException e){}
+			try{clearStatement.close();}catch(SQLException e){}
+		}
+	}
+	
+	/**
+	 * Schreibt alle ausstehenden Änderungen (siehe {@link #flush()}) und gibt anschließend
+	 * alle Statements sowie die Verbindung der Map frei.
+	 */
+	@Override
+	public void close() {
+		if(isClosed()) return;
+		
+		try{
+			flush();
+		}finally{
+			super.close();
+		}
+	}
+	
+	private Session createSession(Connection connection){
+		Session session = new Session(connection);
+		prepareSession(session, statementListener);
+		
+		return session;
+	}
+	
+	/**
+	 * Erzeugt alle Statements der Sitzung (neu), sodass sie den gegebenen Listener benachrichtigen.
+	 */
+	private void prepareSession(Session session, StatementListener listener){
+		session.jdbc = jdbc(session.connection, listener);
+		
+		try{
+			createPreparedStatements(session);
+		}catch(SQLException e){
+			throw new BackendException("Could not create prepared statments!", e);
+		}
+		
+		session.listener = listener;
+	}
+	
+	/**
+	 * Öffnet eine Sitzung für den aktuellen Thread. Ist bereits eine Sitzung geöffnet,
+	 * wird diese wiederverwendet. Ohne Pool ist dies immer die Sitzung der eigenen 
+	 * Verbindung, welche so lange für andere Threads gesperrt ist. Mit Pool wird eine
+	 * Verbindung ausgeliehen. Jede Sitzung <b>muss</b> über {@link #closeSession(Session)}
+	 * wieder geschlossen werden.
+	 */
+	private Session openSession(){
+		return openSession(null);
+	}
+	
+	/**
+	 * Wie {@link #openSession()}. Bis die Sitzung wieder geschlossen wird, werden dabei
+	 * die Metriken der gegebenen Operation erfasst (sofern {@link #enableMetrics()}).
+	 * 
+	 * @param operation Die aufzuzeichnende Operation. Kann <b>null</b> sein.
+	 */
+	private Session openSession(Operation operation){
+		Recording recording = operation != null ? MapMetrics.begin(metrics.get(), operation) : null;
+		
+		Session session = currentSession.get();
+		if(session == null){
+			try{
+				session = acquireSession();
+			}catch(RuntimeException e){
+				MapMetrics.end(recording);
+				throw e;
+			}
+			
+			currentSession.set(session);
+		}
+		
+		Transaction transaction = Transaction.getActive(session.connection);
+		if(transaction != null) transaction.participate(this);
+		
+		session.depth++;
+		session.recordings.add(recording);
+		return session;
+	}
+	
+	private Session acquireSession(){
+		if(isClosed()) throw new IllegalStateException("This map is already closed!");
+		
+		Session session;
+		if(connectionProvider == null){
+			primaryLock.lock();
+			session = primarySession;
+		}else{
+			session = borrowSession();
+		}
+		
+		//Metriken oder Protokoll wurden seit der letzten Verwendung der Sitzung ein- oder ausgeschaltet
+		StatementListener current = statementListener;
+		if(session.listener != current){
+			try{
+				session.close();
+				prepareSession(session, current);
+			}catch(RuntimeException e){
+				releaseSession(session);
+				throw e;
+			}
+		}
+		
+		return session;
+	}
+	
+	/**
+	 * Hat der aktuelle Thread eine {@link Transaction} auf einer Verbindung des selben Pools
+	 * offen, wird deren Verbindung verwendet.
+	 */
+	private Session borrowSession(){
+		try{
+			Connection pooled = Transaction.getActiveConnection(connectionProvider);
+			boolean borrowed = pooled == null;
+			if(borrowed) pooled = connectionProvider.getConnection();
+			
+			Session session = pooledSessions.get(pooled);
+			if(session == null){
+				try{
+					session = createSession(pooled);
+				}catch(RuntimeException e){
+					if(borrowed) connectionProvider.releaseConnection(pooled);
+					throw e;
+				}
+				pooledSessions.put(pooled, session);
+			}
+			
+			session.borrowed = borrowed;
+			return session;
+		}catch(SQLException e){
+			throw new BackendException("Could not get connection from pool!", e);
 		}
+	}
+	
+	private void closeSession(Session session){
+		MapMetrics.end(session.recordings.remove(session.recordings.size() - 1));
+		if(--session.depth > 0) return;
+		
+		currentSession.remove();
+		releaseSession(session);
+	}
+	
+	private void releaseSession(Session session){
+		if(session == primarySession){
+			primaryLock.unlock();
+		}else if(session.borrowed){
+			connectionProvider.releaseConnection(session.connection);
+		}
+	}
+	
+	/**
+	 * @return Die Sitzung des aktuellen Threads. Ist keine geöffnet, die Sitzung der
+	 * eigenen Verbindung.
+	 */
+	private Session currentSession(){
+		Session session = currentSession.get();
 		
-		metadataManager.insertMetadata(tableName, "1.0");
+		return session != null ? session : primarySession;
+	}
+	
+	/**
+	 * Beginnt eine {@link Transaction}, die alle folgenden Operationen des aktuellen Threads
+	 * zusammenfasst, bis sie geschlossen wird. Sie verwendet die selbe Verbindung wie
+	 * diese Map. Bis dahin ist die Verbindung (ohne Pool) für andere Threads gesperrt.
+	 * Die Transaktion <b>muss</b> geschlossen werden:
+	 * <pre>
+	 * try(Transaction tx = map.beginBatch()){
+	 *     ...
+	 *     tx.commit();
+	 * }
+	 * </pre>
+	 * 
+	 * @return Die offene Transaktion.
+	 */
+	public Transaction beginBatch(){
+		final Session session = openSession();
+		try{
+			return new Transaction(session.connection, 
+					session.borrowed ? connectionProvider : null, 
+					() -> closeSession(session));
+		}catch(SQLException e){
+			closeSession(session);
+			throw new BackendException("Could not begin transaction!", e);
+		}catch(RuntimeException e){
+			closeSession(session);
+			throw e;
+		}
+	}
+	
+	/**
+	 * Führt die gegebene Arbeit innerhalb einer {@link Transaction} aus (siehe {@link #beginBatch()}).
+	 * Endet sie ohne Fehler, wird die Transaktion committet, andernfalls zurückgerollt.
+	 * 
+	 * @param work Die auszuführende Arbeit.
+	 */
+	public void transaction(Consumer<? super Transaction> work){
+		try(Transaction transaction = beginBatch()){
+			work.accept(transaction);
+			
+			transaction.commit();
+		}
+	}
+	
+	/**
+	 * Führt die gegebene Operation innerhalb einer Sitzung und einer Transaktion aus. 
+	 * Alle Zugriffe der Operation auf diese Map verwenden dabei die selbe Verbindung. 
+	 * Läuft auf dieser bereits eine Transaktion, wird keine neue begonnen und das 
+	 * Committen bleibt dem Aufrufer überlassen.
+	 * 
+	 * @param operation Die auszuführende Operation.
+	 * @return Das Ergebnis der Operation.
+	 * @throws RuntimeException Alle {@link RuntimeException}s der Operation werden unverändert
+	 * weitergereicht. In diesem Fall wird die Transaktion zurückgerollt.
+	 */
+	protected <T> T executeAtomically(Callable<T> operation){
+		try(Transaction transaction = beginBatch()){
+			T result = operation.call();
+			
+			transaction.commit();
+			return result;
+		}catch(RuntimeException e){
+			throw e;
+		}catch(Exception e){
+			throw new BackendException("Could not execute operation!", e);
+		}
 	}
 	
-	private void createPreparedStatements() throws SQLException{
-		containsKeyStatement = connection.prepareStatement(
-				"SELECT count(*) " +
-				" FROM " + tableName + 
-				" WHERE " + COL_ID + " = ? and " + COL_KEY_TYPE + " = ?");
-		valueClassByKeyStatement = connection.prepareStatement(
-				"SELECT " + COL_VALUE_TYPE + 
-				" FROM " + tableName + 
-				" WHERE " + COL_ID + " = ? and " +
-					COL_KEY_TYPE + " = ?");
-		countStatement = connection.prepareStatement(
+	private void createPreparedStatements(Session session) throws SQLException{
+		Connection connection = session.jdbc;
+		
+		session.countStatement = connection.prepareStatement(
 				"SELECT count(*)" +
 				" FROM " + tableName);
-		containsValueStatement = connection.prepareStatement(
+		session.containsValueStatement = connection.prepareStatement(
 				"SELECT count(*)" +
 				" FROM " + tableName +
 				" WHERE " + COL_VALUE_HASH + " = ? and " +
 					COL_VALUE_TYPE + " = ?");
-		containsNullStatement = connection.prepareStatement(
+		session.containsNullStatement = connection.prepareStatement(
 				"SELECT count(*)" +
 				" FROM " + tableName +
 				" WHERE " + COL_BOOLEAN_VALUE + " IS NULL and " +
@@ -182,38 +814,223 @@ public class DBMap<K, V> extends AbstractDBMap<K, V> implements ColumnNames{
 						COL_LONG_VALUE + " IS NULL and " +
 						COL_STRING_VALUE + " IS NULL and " +
 						COL_VALUE + " IS NULL");
-		clearStatement = connection.prepareStatement(
+		session.clearStatement = connection.prepareStatement(
 				"TRUNCATE TABLE " + tableName);
-		removeStatement = connection.prepareStatement(
-				"DELETE FROM " + tableName + 
-				" WHERE " + COL_ID + " = ? and " +
-						COL_KEY_TYPE + " = ?");
 	}
 	
 	@Override
 	public V put(K key, V value) {
 		if(key == null) return null;
-
-		//laut map-"spezifikation" soll man den Wert, der
-		//vorher gespeichert war, zurückliefern
-		V preValue = get(key);
 		
+		Session session = openSession(Operation.PUT);
 		try{
+			//laut map-"spezifikation" soll man den Wert, der
+			//vorher gespeichert war, zurückliefern. Die Abfrage
+			//verrät uns gleichzeitig, ob der Schlüssel schon existiert.
+			//Zwischengespeichert werden nur existierende Einträge.
+			Object cached = getCachedValue(key);
+			boolean exists = cached != null;
+			V preValue = null;
+			if(exists){
+				preValue = unwrapCachedValue(cached);
+			}else{
+				ResultSet result = getKeyAccess(key.getClass()).lookup(key);
+				exists = result != null;
+				preValue = exists ? this.<V>extractValue(result) : null;
+			}
+			
+			//aufgabe an access deligieren
 			Access access = getAccess(key.getClass(), 
 					value != null ? value.getClass() : null);
+			access.merge(key, value);
+			invalidateCachedValue(key);
 			
-			//aufgabe an access deligieren
-			if(containsKey(key)){
-				access.update(key, value);
-			}else{
-				access.add(key, value);
+			if(!exists){
 				resetCachedSize();
 			}
+			
+			return preValue;
+		}catch(Exception e){
+			throw new BackendException("Could not put value into backend!", e);
+		}finally{
+			closeSession(session);
+		}
+	}
+	
+	/**
+	 * Hinterlegt den Wert unter dem gegebenen Schlüssel. Im Gegensatz zu 
+	 * {@link #put(Object, Object)} wird der vorherige Wert <b>nicht</b> ermittelt,
+	 * sodass nur ein einziges SQL-Statement abgesetzt werden muss.
+	 * 
+	 * @param key Schlüssel unter dem der Wert hinterlegt werden soll.
+	 * @param value Wert, welcher hinterlegt werden soll.
+	 */
+	public void fastPut(K key, V value) {
+		if(key == null) return;
+		
+		merge(key, value);
+	}
+	
+	private void merge(Object key, Object value) {
+		Session session = openSession(Operation.FAST_PUT);
+		try{
+			Access access = getAccess(key.getClass(), 
+					value != null ? value.getClass() : null);
+			access.merge(key, value);
+			invalidateCachedValue(key);
+			
+			//wir wissen nicht, ob der Eintrag neu ist
+			resetCachedSize();
 		}catch(Exception e){
 			throw new BackendException("Could not put value into backend!", e);
+		}finally{
+			closeSession(session);
 		}
+	}
+	
+	/**
+	 * Hinterlegt den Inhalt des gegebenen Streams unter dem gegebenen Schlüssel. Der
+	 * Inhalt wird unverändert (ohne Serialisierung) gespeichert und dabei direkt aus dem
+	 * Stream in die Datenbank geschrieben, ohne ihn vorher vollständig in den Speicher
+	 * zu lesen. Wie bei {@link #fastPut(Object, Object)} wird der vorherige Wert nicht
+	 * ermittelt. Der Stream wird nicht geschlossen.
+	 * <br/><br/>
+	 * Gelesen werden kann der Inhalt über {@link #getStream(Object)} bzw. 
+	 * {@link #getChannel(Object)}. {@link #get(Object)} liefert den vollständig 
+	 * gelesenen Inhalt als {@link InputStream}.
+	 * 
+	 * @param key Schlüssel unter dem der Inhalt hinterlegt werden soll.
+	 * @param value Stream dessen Inhalt hinterlegt werden soll.
+	 */
+	public void putStream(K key, InputStream value) {
+		if(key == null) return;
+		
+		//ausstehende Änderungen dürfen den Inhalt nicht nachträglich überschreiben
+		flush();
+		merge(key, value);
+	}
+	
+	/**
+	 * Liefert den binären Inhalt des Wertes zum gegebenen Schlüssel als Stream. Der
+	 * Inhalt wird dabei erst beim Lesen aus der Datenbank geholt und <b>nicht</b>
+	 * deserialisiert. Für Werte aus {@link #putStream(Object, InputStream)} ist dies 
+	 * der ursprüngliche Inhalt, für alle anderen Objekte deren serialisierte Form.
+	 * <br/><br/>
+	 * Bis der Stream geschlossen oder vollständig gelesen wurde, bleibt die Sitzung des
+	 * aktuellen Threads geöffnet (wie bei {@link #beginBatch()}). Ohne Pool ist die
+	 * Verbindung so lange für andere Threads gesperrt, mit Pool bleibt sie ausgeliehen.
+	 * Der Stream <b>muss</b> daher nach der Verwendung von dem Thread geschlossen werden,
+	 * der ihn abgefragt hat.
+	 * 
+	 * @param key Schlüssel des Wertes.
+	 * @return <b>Null</b> wenn es keinen Eintrag gibt oder der Wert nicht binär gespeichert
+	 * ist (z.B. Strings oder Zahlen). Andernfalls ein Stream über den Inhalt.
+	 */
+	public InputStream getStream(Object key) {
+		if(key == null) return null;
 		
-		return preValue;
+		flush();
+		Session session = openSession();
+		InputStream stream = null;
+		try{
+			KeyAccess keyAccess = getKeyAccess(key.getClass());
+			PreparedStatement stmt = session.jdbc.prepareStatement(
+					"SELECT " + COL_VALUE + 
+					" FROM " + tableName + 
+					" WHERE " + keyAccess.getKeyCondition());
+			
+			InputStream in = null;
+			try{
+				keyAccess.setKeyParameter(stmt, 1, key);
+				
+				ResultSet result = stmt.executeQuery();
+				if(result.next()) in = result.getBinaryStream(1);
+			}finally{
+				if(in == null) stmt.close();
+			}
+			if(in == null) return null;
+			
+			stream = new SessionInputStream(in, stmt, session);
+			return stream;
+		}catch(Exception e){
+			throw new BackendException("Could not get data from backend!", e);
+		}finally{
+			//die Sitzung wird erst mit dem Stream geschlossen
+			if(stream == null) closeSession(session);
+		}
+	}
+	
+	/**
+	 * Ein Stream über einen Wert (siehe {@link #getStream(Object)}). Statement und Sitzung,
+	 * in der er abgefragt wurde, bleiben so lange offen, bis er geschlossen oder vollständig
+	 * gelesen wurde. Wird er nicht geschlossen, gibt der {@link LeakDetector} nur das 
+	 * Statement frei.
+	 */
+	private class SessionInputStream extends FilterInputStream {
+		private final Session session;
+		private final LeakDetector.Registration registration;
+		private boolean released = false;
+		
+		SessionInputStream(InputStream in, PreparedStatement statement, Session session) {
+			super(in);
+			
+			this.session = session;
+			this.registration = LeakDetector.register(this, statement);
+		}
+		
+		@Override
+		public int read() throws IOException {
+			if(released) return -1;
+			
+			int read = super.read();
+			if(read == -1) release();
+			return read;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if(released) return -1;
+			
+			int read = super.read(b, off, len);
+			if(read == -1) release();
+			return read;
+		}
+		
+				@Override
+				public void close() throws IOException {
+			if(released) return;
+			
+					try{
+						super.close();
+					}finally{
+				release();
+						}
+					}
+		
+		private void release(){
+			if(released) return;
+			released = true;
+			
+			try{
+				registration.close();
+		}finally{
+			closeSession(session);
+		}
+	}
+	}
+	
+	/**
+	 * Wie {@link #getStream(Object)}, liefert den Inhalt jedoch als {@link ReadableByteChannel}
+	 * (z.B. zur Übertragung per {@link java.nio.channels.FileChannel#transferFrom(ReadableByteChannel, long, long)}).
+	 * Der Channel <b>muss</b> nach der Verwendung geschlossen werden.
+	 * 
+	 * @param key Schlüssel des Wertes.
+	 * @return <b>Null</b> wenn es keinen binären Inhalt gibt. Andernfalls ein Channel über den Inhalt.
+	 */
+	public ReadableByteChannel getChannel(Object key) {
+		InputStream in = getStream(key);
+		
+		return in != null ? Channels.newChannel(in) : null;
 	}
 	
 	protected Interpreter<?> getInterpreter(Class<?> clazz){
@@ -232,76 +1049,103 @@ public class DBMap<K, V> extends AbstractDBMap<K, V> implements ColumnNames{
 		return access;
 	}
 	
+	protected KeyAccess getKeyAccess(Class<?> keyClass) throws SQLException {
+		Session session = currentSession();
+		if(!session.cachedKeyAccess.containsKey(keyClass)){
+			KeyAccess access = new KeyAccess(session.jdbc, tableName,
+					getInterpreter(keyClass), typeDictionary);
+			
+			session.cachedKeyAccess.put(keyClass, access);
+		}
+		
+		return session.cachedKeyAccess.get(keyClass);
+	}
+	
 	protected Access getGeneralAccess(Class<?> keyClass, Class<?> valueClass) throws SQLException {
+		Session session = currentSession();
 		KeyValueClassPair pair = new KeyValueClassPair(keyClass, valueClass);
-		if(!cachedAccess.containsKey(pair)){
-			Access access = new GeneralAccess(connection, tableName, debugMode,
-					getInterpreter(keyClass),
+		if(!session.cachedAccess.containsKey(pair)){
+			Access access = new GeneralAccess(session.jdbc, tableName, debugMode,
+					getKeyAccess(keyClass),
 					getInterpreter(valueClass));
 			
-			cachedAccess.put(pair, access);
+			session.cachedAccess.put(pair, access);
 		}
 		
-		return cachedAccess.get(pair);
+		return session.cachedAccess.get(pair);
 	}
-
+	
 	protected Access getNullAccess(Class<?> keyClass) throws SQLException {
+		Session session = currentSession();
 		KeyValueClassPair pair = new KeyValueClassPair(keyClass, null);
-		if(!cachedAccess.containsKey(pair)){
-			Access access = new NullAccess(connection, tableName, 
-					getInterpreter(keyClass));
+		if(!session.cachedAccess.containsKey(pair)){
+			Access access = new NullAccess(session.jdbc, tableName, 
+					getKeyAccess(keyClass));
 			
-			cachedAccess.put(pair, access);
+			session.cachedAccess.put(pair, access);
 		}
 		
-		return cachedAccess.get(pair);
+		return session.cachedAccess.get(pair);
 	}
-
+	
 	@Override
 	public boolean containsKey(Object key) {
 		if(key == null) return false;
 		
+		Session session = openSession(Operation.CONTAINS_KEY);
 		try{
-			containsKeyStatement.setInt(1, key.hashCode());
-			containsKeyStatement.setString(2, key.getClass().getName());
-			ResultSet result = containsKeyStatement.executeQuery();
-			
-			result.first();
-			return result.getInt(1) > 0;
-		}catch(SQLException e){
+			return getKeyAccess(key.getClass()).lookup(key) != null;
+		}catch(Exception e){
 			throw new BackendException("Could not communicate with backend!", e);
+		}finally{
+			closeSession(session);
 		}
 	}
 	
-	@SuppressWarnings("unchecked")
 	@Override
 	public V get(Object key) {
 		if(key == null) return null;
-		if(!containsKey(key)) return null;
 		
+		Object cached = getCachedValue(key);
+		if(cached != null){
+			return unwrapCachedValue(cached);
+		}
+		
+		Session session = openSession(Operation.GET);
 		try {
-			Class<?> valueClass = getValueClassByKey(key);
-			Access access = getAccess(key.getClass(), valueClass);
+			//vor dem Lesen, eine spätere Änderung macht den gelesenen Wert ungültig
+			long generation = cacheGeneration(key);
+			ResultSet result = getKeyAccess(key.getClass()).lookup(key);
+			if(result == null) return null;
 			
-			return (V) access.get((Serializable)key);
+			V value = extractValue(result);
+			putCachedValue(key, value, generation);
+			
+			return value;
 		} catch (Exception e) {
 			throw new BackendException("Could not get data from backend!", e);
+		}finally{
+			closeSession(session);
 		}
 	}
 	
-	protected Class<?> getValueClassByKey(Object key){
-		try{
-			valueClassByKeyStatement.setInt(1, key.hashCode());
-			valueClassByKeyStatement.setString(2, key.getClass().getName());
-			
-			ResultSet result = valueClassByKeyStatement.executeQuery();
-			result.first();
-			
-			String className = result.getString(1);
-			return className != null ? Class.forName(className) : null;
-		}catch(Exception e){
-			throw new BackendException("Could not determine value-class by key(" + key + ")!", e);
-		}
+	@SuppressWarnings("unchecked")
+	private <T> T extractKey(ResultSet result) throws Exception{
+		Interpreter<?> keyInterpreter = getInterpreter(
+				typeDictionary.getType(result.getShort(COL_KEY_TYPE)));
+		
+		return (T)keyInterpreter.getFromResultSet(result, 
+				keyInterpreter.getKeyColumnName());
+	}
+	
+	@SuppressWarnings("unchecked")
+	private <T> T extractValue(ResultSet result) throws Exception{
+		Class<?> valueClass = typeDictionary.getType(result.getShort(COL_VALUE_TYPE));
+		if(valueClass == null) return null;
+		
+		Interpreter<?> valueInterpreter = getInterpreter(valueClass);
+		return (T)valueInterpreter.getFromResultSet(result, 
+				valueInterpreter.getValueColumnName());
 	}
 	
 	@SuppressWarnings("rawtypes")
@@ -310,13 +1154,16 @@ public class DBMap<K, V> extends AbstractDBMap<K, V> implements ColumnNames{
 		
 		if(m != null){
 			if(m instanceof DBMap){
+				Session session = openSession(Operation.PUT_ALL);
 				try {
 					putAllSQL((DBMap)m);
 				} catch (SQLException e) {
 					throw new BackendException("Coult not transfer values!", e);
+				}finally{
+					closeSession(session);
 				}
 			}else{
-				putAllLoop(m);
+				batchPut(m);
 			}
 			
 			resetCachedSize();
@@ -325,21 +1172,222 @@ public class DBMap<K, V> extends AbstractDBMap<K, V> implements ColumnNames{
 	
 	@SuppressWarnings("rawtypes")
 	private void putAllSQL(DBMap source) throws SQLException{
+		source.flush();
+		
 		final String TRANSFER_STATEMENT = 
-				"INSERT INTO " + tableName + " SELECT * FROM " + source.tableName;
+				"INSERT INTO " + tableName + " (" + DATA_COLUMNS + ")" +
+				" SELECT " + DATA_COLUMNS + " FROM " + source.tableName;
+		
+		//Serialisierte Schlüssel werden hier (anders als bei put()) über 
+		//ihre Byte-Darstellung verglichen, da die Übertragung komplett per SQL erfolgt.
+		StringBuilder keyEquals = new StringBuilder();
+		for(String keyColumn : KEY_COLUMNS){
+			if(keyEquals.length() > 0) keyEquals.append(" OR ");
+			keyEquals.append("S." + keyColumn + " = " + tableName + "." + keyColumn);
+		}
 		final String DELETE_STATEMENT = 
-				"DELETE FROM " + tableName + " WHERE " + COL_ID + " IN (" +
-						"SELECT " + COL_ID + " FROM " + source.tableName + 
+				"DELETE FROM " + tableName + " WHERE EXISTS (" +
+						"SELECT 1 FROM " + source.tableName + " S" +
+						" WHERE S." + COL_ID + " = " + tableName + "." + COL_ID +
+						" AND S." + COL_KEY_TYPE + " = " + tableName + "." + COL_KEY_TYPE +
+						" AND (" + keyEquals + ")" +
 					")";
 		
+		Connection connection = currentSession().jdbc;
 		connection.createStatement().execute(DELETE_STATEMENT);
 		connection.createStatement().execute(TRANSFER_STATEMENT);
+		invalidateCachedValues();
 	}
-
-	private void putAllLoop(Map<? extends K, ? extends V> m) {
-		for(Entry<? extends K, ? extends V> curEntry : m.entrySet()){
-			put(curEntry.getKey(), curEntry.getValue());
+	
+	/**
+	 * Schreibt alle Einträge der gegebenen Map per JDBC-Batch in die Datenbank.
+	 * Die Einträge werden nach ihrem {@link KeyValueClassPair} gruppiert, sodass 
+	 * jede Gruppe über das Merge-Statement ihres {@link Access} geschrieben wird.
+	 * Solange die Verbindung im Auto-Commit-Modus ist, wird dieser für die Dauer 
+	 * des Schreibvorganges abgeschaltet und nach jeweils {@link #batchSize(int)} 
+	 * Einträgen committet. Läuft bereits eine Transaktion, bleibt das Committen
+	 * dem Aufrufer überlassen.
+	 * 
+	 * @param entries Einträge, die geschrieben werden sollen. Einträge mit 
+	 * <b>null</b>-Schlüssel werden ignoriert.
+	 */
+	void batchPut(Map<?, ?> entries) {
+		batchWrite(entries, Collections.emptySet());
+	}
+	
+	/**
+	 * Wie {@link #batchPut(Map)}, es werden jedoch vorher noch die gegebenen
+	 * Schlüssel per JDBC-Batch gelöscht.
+	 * 
+	 * @param puts Einträge, die geschrieben werden sollen.
+	 * @param removes Schlüssel, deren Einträge gelöscht werden sollen.
+	 */
+	void batchWrite(Map<?, ?> puts, Collection<?> removes) {
+		if(puts.isEmpty() && removes.isEmpty()) return;
+		
+		Set<Access> touched = new LinkedHashSet<Access>();
+		Set<KeyAccess> touchedRemoves = new LinkedHashSet<KeyAccess>();
+		boolean autoCommit = false;
+		Session session = openSession(Operation.PUT_ALL);
+		Connection connection = session.connection;
+		try{
+			autoCommit = connection.getAutoCommit();
+			if(autoCommit) connection.setAutoCommit(false);
+			
+			int count = 0;
+			for(Object key : removes){
+				if(key == null) continue;
+				
+				KeyAccess keyAccess = getKeyAccess(key.getClass());
+				keyAccess.addRemoveBatch(key);
+				touchedRemoves.add(keyAccess);
+				invalidateCachedValue(key);
+				
+				if(++count % batchSize == 0){
+					executeRemoveBatches(touchedRemoves, autoCommit);
+				}
+			}
+			executeRemoveBatches(touchedRemoves, false);
+			
+			for(Entry<?, ?> curEntry : puts.entrySet()){
+				Object key = curEntry.getKey();
+				Object value = curEntry.getValue();
+				if(key == null) continue;
+				
+				Access access = getAccess(key.getClass(), 
+						value != null ? value.getClass() : null);
+				access.addBatch(key, value);
+				touched.add(access);
+				invalidateCachedValue(key);
+				
+				if(++count % batchSize == 0){
+					executeBatches(touched, autoCommit);
+				}
+			}
+			executeBatches(touched, autoCommit);
+		}catch(Exception e){
+			if(autoCommit){
+				try{ connection.rollback(); }catch(SQLException e1){}
+			}
+			throw new BackendException("Could not write values into backend!", e);
+		}finally{
+			if(autoCommit){
+				try{ connection.setAutoCommit(true); }catch(SQLException e){}
+			}
+			closeSession(session);
+			resetCachedSize();
+		}
+	}
+	
+	private void executeRemoveBatches(Set<KeyAccess> touched, boolean commit) throws Exception{
+		for(KeyAccess keyAccess : touched){
+			keyAccess.executeRemoveBatch();
+		}
+		touched.clear();
+		
+		if(commit){
+			currentSession().connection.commit();
+		}
+	}
+	
+	private void executeBatches(Set<Access> touched, boolean commit) throws Exception{
+		for(Access access : touched){
+			access.executeBatch();
+		}
+		touched.clear();
+		
+		if(commit){
+			currentSession().connection.commit();
+		}
+	}
+	
+	/**
+	 * Schreibt alle ausstehenden Änderungen in die Datenbank. Diese Implementierung
+	 * schreibt jede Änderung sofort, daher gibt es hier nichts zu tun. Ableitungen,
+	 * die Schreib-Operationen verzögern (z.B. {@link WriteBehindDBMap}), müssen
+	 * diese Methode überschreiben. Alle Komponenten, die direkt per SQL auf die 
+	 * Tabelle zugreifen, rufen vorher diese Methode auf.
+	 */
+	public void flush() {
+		//es gibt nichts zu tun
+	}
+	
+	/**
+	 * Ermittelt, welche der gegebenen Schlüssel bereits in der Datenbank
+	 * vorhanden sind. Die Schlüssel werden dabei gebündelt abgefragt, sodass
+	 * nicht für jeden Schlüssel ein eigenes Statement abgesetzt werden muss.
+	 * 
+	 * @param keys Schlüssel die geprüft werden sollen.
+	 * @return Alle Schlüssel, die bereits vorhanden sind.
+	 */
+	Set<Object> getContainedKeys(Collection<?> keys) {
+		Set<Object> contained = new HashSet<Object>();
+		List<Object> chunk = new ArrayList<Object>(CONTAINS_CHUNK_SIZE);
+		
+		Session session = openSession();
+		try{
+			for(Object curKey : keys){
+				if(curKey == null) continue;
+				
+				chunk.add(curKey);
+				if(chunk.size() == CONTAINS_CHUNK_SIZE){
+					collectContainedKeys(chunk, contained);
+					chunk.clear();
+				}
+			}
+			collectContainedKeys(chunk, contained);
+		}catch(Exception e){
+			throw new BackendException("Could not communicate with backend!", e);
+		}finally{
+			closeSession(session);
 		}
+		
+		return contained;
+	}
+	
+	private void collectContainedKeys(List<Object> chunk, Set<Object> contained) throws Exception{
+		if(chunk.isEmpty()) return;
+		
+		StringBuilder sql = new StringBuilder(
+				"SELECT " + COL_KEY_TYPE + ", " + join(KEY_COLUMNS) +
+				" FROM " + tableName +
+				" WHERE " + COL_ID + " IN (");
+		for(int i=0; i < chunk.size(); i++){
+			sql.append(i == 0 ? "?" : ", ?");
+		}
+		sql.append(")");
+		
+		PreparedStatement stmt = currentSession().jdbc.prepareStatement(sql.toString());
+		try{
+			for(int i=0; i < chunk.size(); i++){
+				stmt.setInt(i + 1, chunk.get(i).hashCode());
+			}
+			
+			//der Hash-Wert liefert nur Kandidaten, entscheidend ist der Schlüssel selbst
+			Set<Object> existing = new HashSet<Object>();
+			ResultSet result = stmt.executeQuery();
+			while(result.next()){
+				existing.add(extractKey(result));
+			}
+			
+			for(Object curKey : chunk){
+				if(existing.contains(curKey)){
+					contained.add(curKey);
+				}
+			}
+		}finally{
+			stmt.close();
+		}
+	}
+	
+	private static String join(String[] columns){
+		StringBuilder builder = new StringBuilder();
+		for(String column : columns){
+			if(builder.length() > 0) builder.append(", ");
+			builder.append(column);
+		}
+		
+		return builder.toString();
 	}
 	
 	private String constructCachedSizesKey(){
@@ -384,32 +1432,39 @@ public class DBMap<K, V> extends AbstractDBMap<K, V> implements ColumnNames{
 	}
 	
 	private int getSize(){
+		Session session = openSession(Operation.SIZE);
 		try{
-			ResultSet result = countStatement.executeQuery();
+			ResultSet result = session.countStatement.executeQuery();
 			result.first();
 			
 			return result.getInt(1);
 		}catch(SQLException e){
 			throw new BackendException("Coult not determine count!", e);
+		}finally{
+			closeSession(session);
 		}
 	}
-
+	
 	@Override
 	public boolean containsValue(Object value) {
+		Session session = openSession(Operation.CONTAINS_VALUE);
 		try{
 			if(value != null){
-				return _containsVaule(value);
+				return _containsVaule(session, value);
 			}else{
-				return containsNullValues();
+				return containsNullValues(session);
 			}
 		}catch(SQLException e){
 			throw new BackendException("Could not check if backend contains value!", e);
+		}finally{
+			closeSession(session);
 		}
 	}
 	
-	private boolean _containsVaule(Object value) throws SQLException{
+	private boolean _containsVaule(Session session, Object value) throws SQLException{
+		PreparedStatement containsValueStatement = session.containsValueStatement;
 		containsValueStatement.setInt(1, value.hashCode());
-		containsValueStatement.setString(2, value.getClass().getName());
+		containsValueStatement.setShort(2, typeDictionary.findId(value.getClass()));
 		
 		ResultSet result = containsValueStatement.executeQuery();
 		result.first();
@@ -417,8 +1472,8 @@ public class DBMap<K, V> extends AbstractDBMap<K, V> implements ColumnNames{
 		return result.getInt(1) > 0;
 	}
 	
-	private boolean containsNullValues() throws SQLException{
-		ResultSet result = containsNullStatement.executeQuery();
+	private boolean containsNullValues(Session session) throws SQLException{
+		ResultSet result = session.containsNullStatement.executeQuery();
 		result.first();
 		
 		return result.getInt(1) > 0;
@@ -426,32 +1481,37 @@ public class DBMap<K, V> extends AbstractDBMap<K, V> implements ColumnNames{
 	
 	@Override
 	public void clear() {
+		Session session = openSession(Operation.CLEAR);
 		try{
-			clearStatement.execute();
+			session.clearStatement.execute();
 			resetCachedSize();
+			invalidateCachedValues();
 		}catch(SQLException e){
 			throw new BackendException("Could not clear backend!", e);
+		}finally{
+			closeSession(session);
 		}
 	}
-
+	
 	@Override
 	public V remove(Object key) {
 		if(key == null) return null;
 		
+		Session session = openSession(Operation.REMOVE);
 		try{
 			//laut map-"Spezifikation" müssen wir den letzen gespeicherten
 			//wert zurückliefern
 			V preValue = get(key);
 			
-			removeStatement.setInt(1, key.hashCode());
-			removeStatement.setString(2, key.getClass().getName());
-			
-			removeStatement.executeUpdate();
+			getKeyAccess(key.getClass()).remove(key);
 			resetCachedSize();
+			invalidateCachedValue(key);
 			
 			return preValue;
-		}catch(SQLException e){
+		}catch(Exception e){
 			throw new BackendException("Could not delete entry from backend!", e);
+		}finally{
+			closeSession(session);
 		}
 	}
 	
@@ -466,15 +1526,137 @@ public class DBMap<K, V> extends AbstractDBMap<K, V> implements ColumnNames{
 		
 		String sql = constructRetainStatement(c,
 				COL_ID, COL_KEY_TYPE);
+		Session session = openSession(Operation.RETAIN_ALL);
 		try{
-			int effectedRows = connection.createStatement()
+			int effectedRows = session.jdbc.createStatement()
 				.executeUpdate(sql);
+			effectedRows += removeCollidingKeys(c);
 			
 			resetCachedSize();
+			invalidateCachedValues();
 			return effectedRows > 0;
-		}catch(SQLException e){
+		}catch(Exception e){
 			throw new BackendException(
 					"Could not execute statement for retainAll()", e);
+		}finally{
+			closeSession(session);
+		}
+	}
+	
+	/**
+	 * Nachdem alle Einträge gelöscht wurden, deren Hash-Wert nicht in der gegebenen
+	 * Collection vorkommt, können noch Einträge übrig sein, deren Schlüssel lediglich 
+	 * den gleichen Hash-Wert besitzen. Diese werden hier anhand des Schlüssels selbst
+	 * aussortiert:
+	 * <ul>
+	 * 	<li>Schlüssel in einer typisierten Spalte (siehe {@link KeyAccess#isComparableInSql()})
+	 * 		werden direkt per SQL verglichen.</li>
+	 * 	<li>Serialisierte Schlüssel werden nur für die Typen gelesen, die auch in der
+	 * 		Collection serialisiert vorliegen.</li>
+	 * </ul>
+	 * 
+	 * @return Anzahl der gelöschten Einträge.
+	 */
+	private int removeCollidingKeys(Collection<?> c) throws Exception{
+		Map<Class<?>, List<Object>> keysByClass = new LinkedHashMap<Class<?>, List<Object>>();
+		for(Object key : c){
+			if(key == null) continue;
+			
+			List<Object> keys = keysByClass.get(key.getClass());
+			if(keys == null){
+				keys = new ArrayList<Object>();
+				keysByClass.put(key.getClass(), keys);
+			}
+			keys.add(key);
+		}
+		
+		int count = 0;
+		Set<Short> serializedTypes = new LinkedHashSet<Short>();
+		for(Entry<Class<?>, List<Object>> keys : keysByClass.entrySet()){
+			//unbekannte Typen besitzen ohnehin keine Einträge
+			short type = typeDictionary.findId(keys.getKey());
+			if(type == TypeDictionary.NO_TYPE) continue;
+			
+			KeyAccess keyAccess = getKeyAccess(keys.getKey());
+			if(keyAccess.isComparableInSql()){
+				count += removeOtherKeys(keyAccess, type, keys.getValue());
+			}else{
+				serializedTypes.add(type);
+			}
+		}
+		
+		if(!serializedTypes.isEmpty()){
+			count += removeOtherSerializedKeys(c, serializedTypes);
+		}
+		return count;
+	}
+	
+	/**
+	 * Löscht alle Einträge des gegebenen Typs, deren (typisierter) Schlüssel nicht 
+	 * in den gegebenen Schlüsseln enthalten ist.
+	 */
+	private int removeOtherKeys(KeyAccess keyAccess, short type, List<Object> keys) throws Exception{
+		Interpreter<?> keyInterpreter = keyAccess.getKeyInterpreter();
+		StringBuilder sql = new StringBuilder(
+				"DELETE FROM " + tableName +
+				" WHERE " + COL_KEY_TYPE + " = ?" +
+				" AND " + keyInterpreter.getKeyColumnName() + " NOT IN (");
+		for(int i=0; i < keys.size(); i++){
+			sql.append(i == 0 ? "?" : ", ?");
+		}
+		sql.append(")");
+		
+		PreparedStatement stmt = currentSession().jdbc.prepareStatement(sql.toString());
+		try{
+			stmt.setShort(1, type);
+			for(int i=0; i < keys.size(); i++){
+				keyInterpreter.setParameter(stmt, i + 2, keys.get(i));
+			}
+			
+			return stmt.executeUpdate();
+		}finally{
+			stmt.close();
+		}
+	}
+	
+	/**
+	 * Löscht alle Einträge der gegebenen Typen, deren serialisierter Schlüssel nicht 
+	 * in der gegebenen Collection enthalten ist. Dafür müssen die Schlüssel gelesen werden.
+	 */
+	private int removeOtherSerializedKeys(Collection<?> c, Set<Short> types) throws Exception{
+		StringBuilder typeList = new StringBuilder();
+		for(Short type : types){
+			if(typeList.length() > 0) typeList.append(", ");
+			typeList.append(type);
+		}
+		
+		Connection connection = currentSession().jdbc;
+		Statement selectStatement = connection.createStatement();
+		PreparedStatement deleteStatement = connection.prepareStatement(
+				"DELETE FROM " + tableName + " WHERE " + COL_ROW_ID + " = ?");
+		
+		try{
+			ResultSet result = selectStatement.executeQuery(
+					"SELECT " + COL_ROW_ID + ", " + COL_KEY_TYPE + ", " + COL_KEY +
+					" FROM " + tableName +
+					" WHERE " + COL_KEY_TYPE + " IN (" + typeList + ")");
+			
+			int count = 0;
+			while(result.next()){
+				if(!c.contains(extractKey(result))){
+					deleteStatement.setLong(1, result.getLong(COL_ROW_ID));
+					deleteStatement.addBatch();
+					count++;
+				}
+			}
+			
+			if(count > 0){
+				deleteStatement.executeBatch();
+			}
+			return count;
+		}finally{
+			selectStatement.close();
+			deleteStatement.close();
 		}
 	}
 	
@@ -489,15 +1671,19 @@ public class DBMap<K, V> extends AbstractDBMap<K, V> implements ColumnNames{
 		
 		String sql = constructRetainStatement(c,
 				COL_VALUE_HASH, COL_VALUE_TYPE);
+		Session session = openSession(Operation.RETAIN_ALL);
 		try{
-			int effectedRows = connection.createStatement()
+			int effectedRows = session.jdbc.createStatement()
 				.executeUpdate(sql);
 			
 			resetCachedSize();
+			invalidateCachedValues();
 			return effectedRows > 0;
 		}catch(SQLException e){
 			throw new BackendException(
 					"Could not execute statement for retainAll()", e);
+		}finally{
+			closeSession(session);
 		}
 	}
 	
@@ -528,7 +1714,7 @@ public class DBMap<K, V> extends AbstractDBMap<K, V> implements ColumnNames{
 		
 		return builder.toString();
 	}
-
+	
 	private void appendObjectCondition(StringBuilder builder, Object curObject,
 			String colHash, String colType) {
 		builder.append("(");
@@ -537,9 +1723,9 @@ public class DBMap<K, V> extends AbstractDBMap<K, V> implements ColumnNames{
 		builder.append(curObject.hashCode());
 		builder.append(" AND ");
 		builder.append(colType);
-		builder.append(" = '");
-		builder.append(curObject.getClass().getName());
-		builder.append("')");
+		builder.append(" = ");
+		builder.append(typeDictionary.findId(curObject.getClass()));
+		builder.append(")");
 	}
 	
 	private void appendNullCondition(StringBuilder builder,
@@ -555,7 +1741,7 @@ public class DBMap<K, V> extends AbstractDBMap<K, V> implements ColumnNames{
 	public Set<K> keySet() {
 		return new DBSet<K>(this);
 	}
-
+	
 	@Override
 	public Collection<V> values() {
 		try {
@@ -565,12 +1751,22 @@ public class DBMap<K, V> extends AbstractDBMap<K, V> implements ColumnNames{
 					"Could not initialize values-collection.", e);
 		}
 	}
-
+	
 	@Override
 	public Set<java.util.Map.Entry<K, V>> entrySet() {
 		return new DBMapEntrySet<K, V>(this);
 	}
 	
+	/**
+	 * Erstellt eine Abfrage über die Einträge dieser Map. Deren Bedingungen werden in der
+	 * Datenbank ausgewertet (siehe {@link DBMapQuery}).
+	 * 
+	 * @return Eine Abfrage ohne Einschränkungen.
+	 */
+	public DBMapQuery<K, V> query(){
+		return new DBMapQuery<K, V>(this, null);
+	}
+	
 	/**
 	 * Legt fest, ob die Size (@see DBMap#size()) zwischengespeichert wird.
 	 * Sollte die Größe nicht zwischengespeichert werden, wird bei jedem size()-
@@ -583,5 +1779,258 @@ public class DBMap<K, V> extends AbstractDBMap<K, V> implements ColumnNames{
 	 */
 	public void cacheSize(boolean cacheSize){
 		this.cacheSize = cacheSize;
+		
+		if(!cacheSize){
+			//ab jetzt könnte jemand anderes die Tabelle verändern
+			invalidateCachedValues();
+		}
+	}
+	
+	/**
+	 * Legt den {@link ValueCache} fest, in dem bereits gelesene Werte zwischengespeichert
+	 * werden. Der Zwischenspeicher wird (genau wie die Größe) nur dann verwendet, wenn
+	 * die Größe zwischengespeichert wird (@see DBMap#cacheSize(boolean)), man also
+	 * sicherstellt, dass kein anderer Zugriff auf die zugrunde liegende Datenbank stattfindet.
+	 * Zu beachten ist, dass Werte aus dem Zwischenspeicher nicht erneut deserialisiert werden.
+	 * Änderungen an einem gelieferten Objekt wirken sich also auf den Zwischenspeicher aus.
+	 * 
+	 * @param valueCache Zu verwendender Zwischenspeicher. <b>null</b> deaktiviert das
+	 * Zwischenspeichern der Werte.
+	 */
+	public void cacheValues(ValueCache valueCache){
+		invalidateCachedValues();
+		
+		this.valueCache = valueCache;
+	}
+	
+	/**
+	 * @return Der aktuell verwendete {@link ValueCache} oder <b>null</b>, wenn keiner
+	 * festgelegt wurde.
+	 */
+	public ValueCache getValueCache(){
+		return valueCache;
+	}
+	
+	/**
+	 * Beginnt mit der Erfassung von Metriken für alle Operationen, welche die Datenbank
+	 * erreichen (Treffer im {@link ValueCache} oder der zwischengespeicherten Größe werden
+	 * nicht erfasst). Die Metriken werden zusätzlich per JMX bereitgestellt (siehe
+	 * {@link MapMetrics#registerMBean()}). Ohne Metriken wird die Verbindung nicht
+	 * instrumentiert.
+	 * 
+	 * @return Die Metriken der Map. Werden bereits Metriken erfasst, die bestehenden.
+	 */
+	public synchronized MapMetrics enableMetrics(){
+		MapMetrics current = metrics.get();
+		if(current == null){
+			current = new MapMetrics(tableName);
+			current.registerMBean();
+			metrics.set(current);
+			updateStatementListener();
+		}
+		
+		return current;
+	}
+	
+	/**
+	 * Beendet die Erfassung der Metriken und entfernt sie aus JMX.
+	 */
+	public synchronized void disableMetrics(){
+		MapMetrics current = metrics.getAndSet(null);
+		if(current != null){
+			current.close();
+			updateStatementListener();
+		}
+	}
+	
+	/**
+	 * @return Die Metriken der Map oder <b>null</b>, wenn keine erfasst werden
+	 * (siehe {@link #enableMetrics()}).
+	 */
+	public MapMetrics getMetrics(){
+		return metrics.get();
+	}
+	
+	/**
+	 * Protokolliert alle SQL-Statements der Map (inklusive derer von Iteratoren und einer 
+	 * {@link DBList}) über den gegebenen {@link SqlTracer}. Im Gegensatz zum <i>debugMode</i> 
+	 * bleiben die gespeicherten Daten dabei unverändert.
+	 * 
+	 * @param tracer Der zu verwendende Tracer. <b>Null</b> beendet die Protokollierung.
+	 */
+	public synchronized void trace(SqlTracer tracer){
+		this.tracer = tracer;
+		updateStatementListener();
+	}
+	
+	/**
+	 * @return Der aktuell verwendete {@link SqlTracer} oder <b>null</b>.
+	 */
+	public SqlTracer getTracer(){
+		return tracer;
+	}
+	
+	private synchronized void updateStatementListener(){
+		final MapMetrics currentMetrics = metrics.get();
+		final SqlTracer currentTracer = tracer;
+		
+		if(currentMetrics == null){
+			statementListener = currentTracer;
+		}else if(currentTracer == null){
+			statementListener = currentMetrics;
+		}else{
+			statementListener = statement -> {
+				currentMetrics.executed(statement);
+				currentTracer.executed(statement);
+			};
+		}
+	}
+	
+	/**
+	 * @return Der Listener, der über alle Statements der Map benachrichtigt werden muss
+	 * (Metriken und/oder Protokoll). <b>Null</b> wenn es keinen gibt.
+	 */
+	StatementListener statementListener(){
+		return statementListener;
+	}
+	
+	/**
+	 * Eine Arbeit auf der Verbindung einer Sitzung (siehe {@link DBMap#inSession(Operation, SessionWork)}).
+	 */
+	interface SessionWork<T> {
+		T execute(Connection connection) throws Exception;
+	}
+	
+	/**
+	 * Führt die gegebene Arbeit in einer Sitzung des aktuellen Threads aus (siehe 
+	 * {@link #openSession(Operation)}). Ohne Pool ist die eigene Verbindung währenddessen
+	 * für andere Threads gesperrt, ansonsten wird die Verbindung der offenen 
+	 * {@link Transaction} oder eine aus dem Pool verwendet. Hierüber müssen alle Statements
+	 * laufen, die Sichten und Abfragen (z.B. {@link DBNavigableMap}) selbst erzeugen.
+	 * 
+	 * @param operation Die aufzuzeichnende Operation. Kann <b>null</b> sein.
+	 * @param work Erhält die (ggf. instrumentierte) Verbindung der Sitzung.
+	 * @return Das Ergebnis der Arbeit.
+	 */
+	<T> T inSession(Operation operation, SessionWork<T> work) throws Exception {
+		Session session = openSession(operation);
+		try{
+			return work.execute(session.jdbc);
+		}finally{
+			closeSession(session);
+		}
+	}
+	
+	/**
+	 * @return Die eigene Verbindung. Wird sie überwacht (siehe {@link #statementListener()}),
+	 * ist diese instrumentiert.
+	 */
+	Connection jdbc(){
+		return jdbc(connection);
+	}
+	
+	/**
+	 * @return Die gegebene Verbindung (z.B. aus dem Pool), ggf. instrumentiert wie {@link #jdbc()}.
+	 */
+	Connection jdbc(Connection connection){
+		return jdbc(connection, statementListener);
+	}
+	
+	private static Connection jdbc(Connection connection, StatementListener listener){
+		return listener != null ? JdbcInstrumentation.wrap(connection, listener) : connection;
+	}
+	
+	private CacheKey toCacheKey(Object key){
+		return new CacheKey(key);
+	}
+	
+	private Object getCachedValue(Object key){
+		if(valueCache == null || !cacheSize) return null;
+		
+		return valueCache.get(toCacheKey(key));
+	}
+	
+	/**
+	 * @return Ein Wert, der sich bei jeder Invalidierung des Wertes des gegebenen Schlüssels
+	 * (oder aller Werte) ändert.
+	 */
+	private long cacheGeneration(Object key){
+		return cacheGeneration.get() + cacheGenerations.get(cacheGenerationStripe(key));
+	}
+	
+	private static int cacheGenerationStripe(Object key){
+		return (key.hashCode() & Integer.MAX_VALUE) % CACHE_GENERATION_STRIPES;
+	}
+	
+	/**
+	 * @param generation Die {@link #cacheGeneration(Object)} vor dem Lesen des Wertes.
+	 */
+	private void putCachedValue(Object key, Object value, long generation){
+		if(valueCache == null || !cacheSize) return;
+		//ein Stream kann nur einmal gelesen werden
+		if(value instanceof InputStream) return;
+		
+		CacheKey cacheKey = toCacheKey(key);
+		valueCache.put(cacheKey, value != null ? value : NULL_VALUE);
+		
+		//Ein anderer Thread hat den Wert seit dem Lesen geändert. Erst hier prüfen, da
+		//die Invalidierung auch zwischen Prüfung und Einfügen geschehen könnte.
+		if(cacheGeneration(key) != generation){
+			valueCache.invalidate(cacheKey);
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private <T> T unwrapCachedValue(Object cached){
+		return cached == NULL_VALUE ? null : (T)cached;
+	}
+	
+	/**
+	 * Entfernt den Wert des gegebenen Schlüssels aus dem {@link ValueCache}.
+	 * 
+	 * @param key Schlüssel dessen Wert sich geändert hat.
+	 */
+	void invalidateCachedValue(Object key){
+		cacheGenerations.incrementAndGet(cacheGenerationStripe(key));
+		if(valueCache != null){
+			valueCache.invalidate(toCacheKey(key));
+		}
+	}
+	
+	/**
+	 * Leert den {@link ValueCache}. Dies ist immer dann notwendig, wenn
+	 * mehrere Einträge auf einmal per SQL verändert wurden.
+	 */
+	void invalidateCachedValues(){
+		cacheGeneration.incrementAndGet();
+		if(valueCache != null){
+			valueCache.invalidateAll();
+		}
+	}
+	
+	/**
+	 * Legt fest, nach wie vielen Einträgen bei Massen-Operationen (z.B. 
+	 * {@link #putAll(Map)}) die gesammelten Statements abgeschickt und 
+	 * committet werden.
+	 * 
+	 * @param batchSize Anzahl der Einträge pro Batch. Muss größer 0 sein.
+	 */
+	public void batchSize(int batchSize){
+		if(batchSize <= 0) throw new IllegalArgumentException("Batch-size must be greater then 0!");
+		
+		this.batchSize = batchSize;
+	}
+	
+	/**
+	 * Legt fest, wie viele Zeilen die Iteratoren (z.B. von {@link #keySet()}) je
+	 * Seite lesen (siehe {@link DBMapPageReader}). Es werden also nie mehr Zeilen 
+	 * als diese gleichzeitig im Speicher gehalten.
+	 * 
+	 * @param fetchSize Anzahl der Zeilen pro Anfrage. Muss größer 0 sein.
+	 */
+	public void fetchSize(int fetchSize){
+		if(fetchSize <= 0) throw new IllegalArgumentException("Fetch-size must be greater then 0!");
+		
+		this.fetchSize = fetchSize;
 	}
 }
@@ -4,9 +4,11 @@ import java.sql.SQLException;
 import java.util.AbstractSet;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.Spliterator;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import de.raysha.lib.dbc.beans.DBMapEntry;
 import de.raysha.lib.dbc.exception.BackendException;
 
 /**
@@ -90,6 +92,18 @@ public class DBMapEntrySet<K, V>
 		}
 	}
 
+	/**
+	 * Liefert einen {@link DBMapSpliterator}, der anhand der Hash-Werte der Schlüssel
+	 * geteilt wird. Die Teile eines parallelen Streams werden dabei unabhängig
+	 * voneinander seitenweise gelesen.
+	 */
+	@Override
+	public Spliterator<Entry<K, V>> spliterator() {
+		return DBMapSpliterator.overHashes(backend, true,
+				(key, value) -> new DBMapEntry<K, V>(backend, key, value),
+				Spliterator.DISTINCT | Spliterator.NONNULL);
+	}
+	
 	@Override
 	public int size() {
 		return backend.size();
@@ -1,6 +1,5 @@
 package de.raysha.lib.dbc;
 
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Iterator;
@@ -10,162 +9,127 @@ import java.util.NoSuchElementException;
 import de.raysha.lib.dbc.beans.DBMapEntry;
 import de.raysha.lib.dbc.exception.BackendException;
 import de.raysha.lib.dbc.map.interpreter.Interpreter;
-import de.raysha.lib.dbc.map.interpreter.InterpreterProvider;
 
 /**
  * Dies ist die {@link Iterator}-Implementation für das {@link DBMapEntrySet}.
  * 
  * @author rainu
- *
+ * 
  * @param <K> Typ des Schlüssels (Muss serialisierbar sein)
  * @param <V> Typ des Wertes (Muss serialisierbar sein)
  */
 public class DBMapEntrySetIterator <K, V>
-	implements Iterator<Entry<K, V>>, ColumnNames{
+	implements Iterator<Entry<K, V>>, ColumnNames, AutoCloseable{
 	
 	private final DBMap<K, V> backend;
-	private final ResultSet set;
-	private final PreparedStatement removeStatement;
-	private int cursor = 0;
+	private final DBMapPageReader<Entry<K, V>> set;
+	private final InterpreterCache interpreters;
 	private boolean started = false;
-
+	private K currentKey;
+	
 	/**
-	 * Initialisiert einen Iterator. Ab diesen Zeitpunkt wird bereits ein
-	 * ResultSet geöffnet. Dies sollte theoretisch dazu führen, dass dieser
-	 * Iterator über eine <b>Momentaufnahme</b> iteriert. Konkurierende
-	 * Datenbankzugriffe sollten daher keine weiteren Auswirkungen auf die
-	 * aktuelle Instanz haben!
+	 * Initialisiert einen Iterator. Die Einträge werden seitenweise gelesen (siehe
+	 * {@link DBMapPageReader}), die erste Seite bereits ab diesem Zeitpunkt. Bei bis zu
+	 * {@link DBMap#fetchSize(int)} Einträgen iteriert dieser Iterator daher über eine 
+	 * <b>Momentaufnahme</b>. Spätere Seiten können konkurierende Datenbankzugriffe 
+	 * enthalten. Zwischen zwei Seiten wird keine Verbindung gehalten. Wird nicht bis 
+	 * zum Ende iteriert, können die restlichen Einträge über {@link #close()} verworfen
+	 * werden.
 	 * 
 	 * @param backend
 	 * @throws SQLException
 	 */
 	public DBMapEntrySetIterator(DBMap<K, V> backend) throws SQLException{
 		this.backend = backend;
+		this.interpreters = new InterpreterCache(backend.typeDictionary);
+		this.backend.flush();
 		this.set = initSet();
-		this.removeStatement = initRemoveStatement();
 	}
 	
 	@Override
-	protected void finalize() throws Throwable {
-		try{set.close();}catch(SQLException e){}
-		try{removeStatement.close();}catch(SQLException e){}
-		
-		super.finalize();
+	public void close() {
+		set.close();
 	}
 	
-	private ResultSet initSet() throws SQLException{
-		return backend.connection.createStatement()
-			.executeQuery("SELECT * FROM " + backend.tableName);
-	}
-	
-	private PreparedStatement initRemoveStatement() throws SQLException{
-		return backend.connection.prepareStatement(
-				"DELETE FROM " + backend.tableName +
-				" WHERE " + COL_ID + " = ?" +
-				" AND " + COL_KEY_TYPE + " = ?");
+	private DBMapPageReader<Entry<K, V>> initSet(){
+		return new DBMapPageReader<Entry<K, V>>(backend,
+				COL_KEY_TYPE + ", " +
+				COL_KEY + ", " +
+				COL_BYTE_KEY + ", " +
+				COL_BOOLEAN_KEY + ", " +
+				COL_CHAR_KEY + ", " +
+				COL_DOUBLE_KEY + ", " +
+				COL_FLOAT_KEY + ", " +
+				COL_INT_KEY + ", " +
+				COL_LONG_KEY + ", " +
+				COL_STRING_KEY + ", " +
+				
+				COL_VALUE_TYPE + ", " +
+				COL_VALUE + ", " +
+				COL_BYTE_VALUE + ", " +
+				COL_BOOLEAN_VALUE + ", " +
+				COL_CHAR_VALUE + ", " +
+				COL_DOUBLE_VALUE + ", " +
+				COL_FLOAT_VALUE + ", " +
+				COL_INT_VALUE + ", " +
+				COL_LONG_VALUE + ", " +
+				COL_STRING_VALUE,
+				row -> new DBMapEntry<K, V>(
+						backend,
+						getCurrentKey(row),
+						getCurrentValue(row)));
 	}
 	
 	@Override
 	public boolean hasNext() {
-		return cursor < backend.size();
+		return set.hasNext();
 	}
-
+	
 	@Override
 	public Entry<K, V> next() {
-		try{
-			if(!set.next()){
-				throw new NoSuchElementException();
-			}
-		}catch(SQLException e){
-			throw new BackendException(
-					"Could not iterate to next.", e);
-		}
-
+		Entry<K, V> entry = set.next();
 		started = true;
-		cursor++;
 		
-		return new DBMapEntry<K, V>(
-				backend,
-				getCurrentKey(),
-				getCurrentValue());
+		currentKey = entry.getKey();
+		return entry;
 	}
 	
-	private K getCurrentKey(){
+	@SuppressWarnings("unchecked")
+	private K getCurrentKey(ResultSet set){
 		try{
-			Class<?> keyClass = extractKeyClassFromSet();
-			return extractKeyFromSet(keyClass);
+			Interpreter<K> keyInterpreter = (Interpreter<K>)
+					interpreters.getInterpreter(set.getShort(COL_KEY_TYPE));
+			
+			return keyInterpreter.getFromResultSet(set, keyInterpreter.getKeyColumnName());
 		}catch(Exception e){
 			throw new BackendException(
 					"Could not extract key from backend!", e);
 		}
 	}
 	
-	private V getCurrentValue(){
+	@SuppressWarnings("unchecked")
+	private V getCurrentValue(ResultSet set){
 		try{
-			Class<?> valueClass = extractValueClassFromSet();
-			if(valueClass == null) return null;
+			Interpreter<V> valueInterpreter = (Interpreter<V>)
+					interpreters.getInterpreter(set.getShort(COL_VALUE_TYPE));
+			if(valueInterpreter == null) return null;
 			
-			return extractValueFromSet(valueClass);
+			return valueInterpreter.getFromResultSet(set, valueInterpreter.getValueColumnName());
 		}catch(Exception e){
 			throw new BackendException(
 					"Could not extract value from backend!", e);
 		}
 	}
 	
-	private Class<?> extractKeyClassFromSet() 
-			throws SQLException, ClassNotFoundException{
-		
-		String keyClass = set.getString(COL_KEY_TYPE);
-		
-		if(keyClass == null) return null;
-		return Class.forName(keyClass);
-	}
-	
-	private Class<?> extractValueClassFromSet()
-			throws SQLException, ClassNotFoundException{
-		
-		String valueClass = set.getString(COL_VALUE_TYPE);
-		
-		if(valueClass == null) return null;
-		return Class.forName(valueClass);
-	}
-	
-	private K extractKeyFromSet(Class<?> keyClass) throws Exception{
-		@SuppressWarnings("unchecked")
-		Interpreter<K> keyInterpreter = (Interpreter<K>)
-				InterpreterProvider.getInstance()
-				.getInterpreter(keyClass);
-
-		String colName = keyInterpreter.getKeyColumnName();
-		return keyInterpreter.getFromResultSet(set, colName);
-	}
-
-	private V extractValueFromSet(Class<?> valueClass) throws Exception{
-		@SuppressWarnings("unchecked")
-		Interpreter<V> valueInterpreter = (Interpreter<V>)
-				InterpreterProvider.getInstance()
-				.getInterpreter(valueClass);
-		
-		String colName = valueInterpreter.getValueColumnName();
-		return valueInterpreter.getFromResultSet(set, colName);
-	}
-	
 	@Override
 	public void remove() {
 		if(!started) throw new NoSuchElementException(
 				"You must call next() before you can remove anything!");
 		
-		try{
-			String keyString = set.getString(COL_KEY_TYPE);
-			Long keyHash = set.getLong(COL_ID);
+		set.removeCurrent();
 			
-			removeStatement.setLong(1, keyHash);
-			removeStatement.setString(2, keyString);
-			removeStatement.executeUpdate();
-		}catch(SQLException e){
-			throw new BackendException(
-					"Could not remove current entity!", e);
-		}
+			backend.resetCachedSize();
+			backend.invalidateCachedValue(currentKey);
 	}
 	
 	@Override
@@ -175,7 +139,7 @@ public class DBMapEntrySetIterator <K, V>
 		result = prime * result + ((backend == null) ? 0 : backend.hashCode());
 		return result;
 	}
-
+	
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj)
@@ -193,7 +157,7 @@ public class DBMapEntrySetIterator <K, V>
 			return false;
 		return true;
 	}
-
+	
 	@Override
 	public String toString() {
 		return "[" + getClass().getSimpleName() + "]\n" +
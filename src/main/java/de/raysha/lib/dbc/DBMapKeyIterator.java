@@ -2,59 +2,44 @@ package de.raysha.lib.dbc;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Map;
 import java.util.NoSuchElementException;
 
-import de.raysha.lib.dbc.exception.BackendException;
 import de.raysha.lib.dbc.map.interpreter.Interpreter;
-import de.raysha.lib.dbc.map.interpreter.InterpreterProvider;
 
 /**
- * Dies ist der Key-Iterator für eine IFMap.
+ * Dies ist der Key-Iterator für eine IFMap. Die Schlüssel werden seitenweise gelesen
+ * (siehe {@link DBMapPageReader}), zwischen zwei Seiten wird also keine Verbindung
+ * gehalten. Wird nicht bis zum Ende iteriert, können die restlichen Schlüssel über
+ * {@link #close()} verworfen werden.
  * 
  * @author rainu
- *
+ * 
  * @param <E> Muss serialisierbar sein
  */
 public class DBMapKeyIterator<E> implements Iterator<E>,
-											ColumnNames{
+											ColumnNames, AutoCloseable{
 	private final DBMap<E, ?> backend;
-	private Map<Class<?>, Integer> columnClassRelation = new HashMap<Class<?>, Integer>();
-	private final ResultSet view;
-	private final int size;
-	private int index = 0;
+	private final InterpreterCache interpreters;
+	private final DBMapPageReader<E> view;
 	
 	private E lastElement;
 	
 	public DBMapKeyIterator(DBMap<E, ?> backend) throws SQLException {
 		this.backend = backend;
+		this.interpreters = new InterpreterCache(backend.typeDictionary);
+		this.backend.flush();
 		
-		size = getSize();
 		view = initView();
 	}
-
+	
 	@Override
-	protected void finalize() throws Throwable {
+	public void close() {
 		view.close();
-		
-		super.finalize();
-	}
-	
-	private int getSize() throws SQLException{
-		ResultSet countSet = backend.connection.createStatement()
-			.executeQuery(
-				"SELECT count(*) FROM " + backend.tableName);
-		
-		countSet.first();
-		return countSet.getInt(1);
 	}
 	
-	private ResultSet initView() throws SQLException{
-		ResultSet set = backend.connection.createStatement()
-				.executeQuery(
-					"SELECT " +
+	private DBMapPageReader<E> initView(){
+		return new DBMapPageReader<E>(backend,
 					COL_KEY_TYPE + ", " +
 					COL_KEY + ", " +
 					COL_BYTE_KEY + ", " +
@@ -64,72 +49,30 @@ public class DBMapKeyIterator<E> implements Iterator<E>,
 					COL_FLOAT_KEY + ", " +
 					COL_INT_KEY + ", " +
 					COL_LONG_KEY + ", " +
-					COL_STRING_KEY +
-					" FROM " + backend.tableName);
-		
-		columnClassRelation.put(null, 2);
-		columnClassRelation.put(Byte.class, 3);
-		columnClassRelation.put(Boolean.class, 4);
-		columnClassRelation.put(Character.class, 5);
-		columnClassRelation.put(Double.class, 6);
-		columnClassRelation.put(Float.class, 7);
-		columnClassRelation.put(Integer.class, 8);
-		columnClassRelation.put(Long.class, 9);
-		columnClassRelation.put(String.class, 10);
-		
-		return set;
+				COL_STRING_KEY,
+				this::getCurrentKey);
 	}
 	
-	
 	@Override
 	public boolean hasNext() {
-		return index < size;
+		return view.hasNext();
 	}
-
+	
 	@Override
 	public E next() {
-		index++;
-		try {
-			if(!view.next()){
-				throw new NoSuchElementException();
-			}
-		} catch (SQLException e) {
-			throw new NoSuchElementException();
-		}
+		if(!hasNext()) throw new NoSuchElementException();
 		
-		try{
-			Class<?> keyClass = getCurrentKeyClass();
-			E key = getCurrentKey(keyClass);
-
-			lastElement = key;
-			return key;
-		}catch(Exception e){
-			throw new BackendException("Could not iterate to next item!", e);
-		}
-	}
-	
-	private Class<?> getCurrentKeyClass() throws SQLException, ClassNotFoundException{
-		String className = view.getString(1);
-		return Class.forName(className);
+		lastElement = view.next();
+			return lastElement;
 	}
 	
 	@SuppressWarnings("unchecked")
-	private E getCurrentKey(Class<?> keyClass) throws Exception{
-		Interpreter<?> keyInterpreter = InterpreterProvider.getInstance()
-					.getInterpreter(keyClass);
+	private E getCurrentKey(ResultSet set) throws Exception{
+		Interpreter<?> keyInterpreter = interpreters.getInterpreter(set.getShort(COL_KEY_TYPE));
 		
-		int targetColumnIndex = getCoulumnIndexForClass(keyClass);
-		return (E)keyInterpreter.getFromResultSet(view, targetColumnIndex);
+		return (E)keyInterpreter.getFromResultSet(set, keyInterpreter.getKeyColumnName());
 	}
 	
-	private int getCoulumnIndexForClass(Class<?> keyClass){
-		if(columnClassRelation.containsKey(keyClass)){
-			return columnClassRelation.get(keyClass);
-		}else{
-			return columnClassRelation.get(null);
-		}
-	}
-
 	@Override
 	public void remove() {
 		if(lastElement == null) throw new IllegalStateException("Call next() before remove anything!");
@@ -138,7 +81,7 @@ public class DBMapKeyIterator<E> implements Iterator<E>,
 			backend.remove(lastElement);
 		}
 	}
-
+	
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -146,7 +89,7 @@ public class DBMapKeyIterator<E> implements Iterator<E>,
 		result = prime * result + ((backend == null) ? 0 : backend.hashCode());
 		return result;
 	}
-
+	
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj)
@@ -164,7 +107,7 @@ public class DBMapKeyIterator<E> implements Iterator<E>,
 			return false;
 		return true;
 	}
-
+	
 	@Override
 	public String toString() {
 		return "[" + getClass().getSimpleName() + "]\n" +
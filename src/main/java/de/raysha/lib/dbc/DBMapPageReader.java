@@ -0,0 +1,148 @@
+package de.raysha.lib.dbc;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+
+import de.raysha.lib.dbc.exception.BackendException;
+import de.raysha.lib.dbc.metrics.Operation;
+
+/**
+ * Liest die Zeilen einer {@link DBMap} für die Iteratoren (z.B. {@link DBMapKeyIterator})
+ * seitenweise (je {@link DBMap#fetchSize(int)} Zeilen), sortiert nach
+ * {@link ColumnNames#COL_ROW_ID}. Eine Seite setzt hinter der letzten Zeile der vorherigen
+ * Seite fort.
+ * <br/><br/>
+ * Jede Seite wird in einer eigenen Sitzung der Map gelesen (siehe
+ * {@link DBMap#inSession(Operation, DBMap.SessionWork)}). Sie verwendet also die Verbindung
+ * einer offenen {@link Transaction} und hält zwischen zwei Seiten keine Verbindung. Die
+ * erste Seite wird bereits beim Anlegen gelesen.
+ * 
+ * @author rainu
+ * 
+ * @param <T> Typ der gelieferten Elemente
+ */
+class DBMapPageReader<T> implements ColumnNames {
+	/**
+	 * Liest ein Element aus der aktuellen Zeile.
+	 */
+	interface RowReader<T> {
+		T read(ResultSet set) throws Exception;
+	}
+	
+	private final DBMap<?, ?> backend;
+	private final String columns;
+	private final RowReader<T> reader;
+	
+	/**
+	 * Die gelesenen, aber noch nicht gelieferten Elemente der aktuellen Seite und
+	 * deren {@link ColumnNames#COL_ROW_ID}. Die Elemente können <b>null</b> sein.
+	 */
+	private final Deque<T> page = new LinkedList<T>();
+	private final Deque<Long> rowIds = new ArrayDeque<Long>();
+	private boolean exhausted = false;
+	private long lastRowId = Long.MIN_VALUE;
+	private long currentRowId;
+	
+	/**
+	 * @param backend Die zu lesende Map.
+	 * @param columns Die zu lesenden Spalten (durch Komma getrennt).
+	 * @param reader Erzeugt aus einer Zeile das gelieferte Element.
+	 */
+	DBMapPageReader(DBMap<?, ?> backend, String columns, RowReader<T> reader) {
+		this.backend = backend;
+		this.columns = columns;
+		this.reader = reader;
+		
+		readPage();
+	}
+	
+	/**
+	 * Verwirft die restlichen Zeilen.
+	 */
+	void close(){
+		exhausted = true;
+		page.clear();
+		rowIds.clear();
+	}
+	
+	boolean hasNext(){
+		if(page.isEmpty() && !exhausted){
+			readPage();
+		}
+		
+		return !page.isEmpty();
+	}
+	
+	T next(){
+		if(!hasNext()) throw new NoSuchElementException();
+		
+		currentRowId = rowIds.poll();
+		return page.poll();
+	}
+	
+	/**
+	 * Löscht die Zeile des zuletzt gelieferten Elementes (siehe {@link #next()}).
+	 */
+	void removeCurrent(){
+		try{
+			backend.inSession(Operation.REMOVE, connection -> {
+				PreparedStatement statement = connection.prepareStatement(
+						"DELETE FROM " + backend.tableName +
+						" WHERE " + COL_ROW_ID + " = ?");
+				try{
+					statement.setLong(1, currentRowId);
+					return statement.executeUpdate();
+				}finally{
+					statement.close();
+				}
+			});
+		}catch(Exception e){
+			throw new BackendException("Could not remove current entity!", e);
+		}
+	}
+	
+	/**
+	 * Liest die nächste Seite. Ist sie nicht voll, sind alle Zeilen gelesen.
+	 */
+	private void readPage(){
+		final int pageSize = backend.fetchSize;
+		int read;
+		try{
+			read = backend.inSession(null, connection -> {
+				PreparedStatement statement = connection.prepareStatement(
+						"SELECT " + columns + ", " + COL_ROW_ID +
+						" FROM " + backend.tableName +
+						" WHERE " + COL_ROW_ID + " > ?" +
+						" ORDER BY " + COL_ROW_ID,
+						ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+				try{
+					statement.setMaxRows(pageSize);
+					statement.setFetchSize(pageSize);
+					statement.setLong(1, lastRowId);
+					
+					int count = 0;
+					ResultSet set = statement.executeQuery();
+					while(set.next()){
+						page.add(reader.read(set));
+						lastRowId = set.getLong(COL_ROW_ID);
+						rowIds.add(lastRowId);
+						count++;
+					}
+					
+					return count;
+				}finally{
+					statement.close();
+				}
+			});
+		}catch(Exception e){
+			close();
+			throw new BackendException("Could not iterate to next.", e);
+		}
+		
+		if(read < pageSize) exhausted = true;
+	}
+}
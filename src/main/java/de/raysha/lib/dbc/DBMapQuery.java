@@ -0,0 +1,286 @@
+package de.raysha.lib.dbc;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import de.raysha.lib.dbc.beans.DBMapEntry;
+import de.raysha.lib.dbc.exception.BackendException;
+import de.raysha.lib.dbc.map.interpreter.Interpreter;
+import de.raysha.lib.dbc.map.interpreter.InterpreterProvider;
+import de.raysha.lib.dbc.query.Condition;
+import de.raysha.lib.dbc.query.Conditions;
+
+/**
+ * Eine Abfrage über die Einträge einer {@link DBMap}. Die Bedingungen (siehe
+ * {@link Conditions}) werden in der Datenbank ausgewertet, es werden also nur
+ * die passenden Einträge übertragen und deserialisiert. Beispiel:
+ * <pre>
+ * map.query()
+ *     .where(Conditions.valueBetween(10, 20))
+ *     .keysOfType(String.class)
+ *     .entries()
+ * </pre>
+ * Eine Abfrage ist unveränderlich, jede Einschränkung liefert eine neue Abfrage.
+ * Die Ergebnisse werden erst beim Lesen des Streams seitenweise abgefragt (siehe
+ * {@link DBMapSpliterator}).
+ * <br/><br/>
+ * Aggregationen (z.B. {@link #sumValues(Class)} oder {@link #histogram(Class, long)})
+ * werden ebenfalls in der Datenbank berechnet und beziehen sich auf die typisierten
+ * Spalten der Werte (z.B. {@link ColumnNames#COL_LONG_VALUE}).
+ * 
+ * @author rainu
+ * 
+ * @param <K> Typ des Schlüssels
+ * @param <V> Typ des Wertes
+ */
+public class DBMapQuery<K, V> implements ColumnNames {
+	private final DBMap<K, V> backend;
+	private final Condition condition;
+	
+	DBMapQuery(DBMap<K, V> backend, Condition condition) {
+		this.backend = backend;
+		this.condition = condition;
+	}
+	
+	/**
+	 * @param condition Die zusätzliche Bedingung.
+	 * @return Eine Abfrage, deren Einträge auch die gegebene Bedingung erfüllen.
+	 */
+	public DBMapQuery<K, V> where(Condition condition) {
+		if(condition == null) throw new NullPointerException("The condition must not be null!");
+		
+		return new DBMapQuery<K, V>(backend, 
+				this.condition == null ? condition : Conditions.and(this.condition, condition));
+	}
+	
+	/**
+	 * Schränkt die Abfrage auf Schlüssel der gegebenen Klasse ein (Unterklassen zählen nicht dazu).
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends K> DBMapQuery<T, V> keysOfType(Class<T> type) {
+		return (DBMapQuery<T, V>)where(Conditions.keyOfType(type));
+	}
+	
+	/**
+	 * Schränkt die Abfrage auf Werte der gegebenen Klasse ein (Unterklassen zählen nicht dazu).
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends V> DBMapQuery<K, T> valuesOfType(Class<T> type) {
+		return (DBMapQuery<K, T>)where(Conditions.valueOfType(type));
+	}
+	
+	public Stream<Entry<K, V>> entries() {
+		return stream(true, (key, value) -> new DBMapEntry<K, V>(backend, key, value),
+				Spliterator.DISTINCT | Spliterator.NONNULL);
+	}
+	
+	public Stream<K> keys() {
+		return stream(false, (key, value) -> key, Spliterator.DISTINCT | Spliterator.NONNULL);
+	}
+	
+	public Stream<V> values() {
+		return stream(true, (key, value) -> value, 0);
+	}
+	
+	private <T> Stream<T> stream(boolean withValues, BiFunction<K, V, T> element, int characteristics) {
+		DBMapSpliterator<K, V, T> spliterator = DBMapSpliterator.overHashes(
+				backend, condition, withValues, element, characteristics);
+		
+		return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+	}
+	
+	/**
+	 * @return Die Anzahl der Einträge, die alle Bedingungen erfüllen.
+	 */
+	public int count() {
+		return execute("count(*)", null, null, result -> {
+			result.next();
+			return result.getInt(1);
+		});
+	}
+	
+	/**
+	 * Summiert alle Werte der gegebenen Klasse. Werte anderer Klassen werden ignoriert.
+	 * 
+	 * @param type Klasse der Werte (z.B. {@link Long}).
+	 * @return Bei Ganzzahlen ein {@link Long}, bei Gleitkommazahlen ein {@link Double}. 
+	 * Gibt es keine passenden Werte, 0.
+	 */
+	public Number sumValues(Class<? extends Number> type) {
+		final String column = numericColumnFor(type);
+		final boolean integral = isIntegral(type);
+		
+		return execute("SUM(" + column + ")", type, null, result -> {
+			result.next();
+			if(integral){
+				return result.getLong(1);
+			}
+			return result.getDouble(1);
+		});
+	}
+	
+	/**
+	 * @param type Klasse der Werte (z.B. {@link Long} oder {@link String}).
+	 * @return Der kleinste Wert der gegebenen Klasse. <b>Null</b> wenn es keinen gibt.
+	 */
+	public <T extends V> T minValue(Class<T> type) {
+		return extreme("MIN", type);
+	}
+	
+	/**
+	 * @param type Klasse der Werte (z.B. {@link Long} oder {@link String}).
+	 * @return Der größte Wert der gegebenen Klasse. <b>Null</b> wenn es keinen gibt.
+	 */
+	public <T extends V> T maxValue(Class<T> type) {
+		return extreme("MAX", type);
+	}
+	
+	private <T> T extreme(String function, Class<T> type) {
+		final String column = columnFor(type);
+		@SuppressWarnings("unchecked")
+		final Interpreter<T> interpreter = (Interpreter<T>)InterpreterProvider.getInstance().getInterpreter(type);
+		
+		return execute(function + "(" + column + ")", type, null, result -> {
+			result.next();
+			T value = interpreter.getFromResultSet(result, 1);
+			
+			return result.wasNull() ? null : value;
+		});
+	}
+	
+	/**
+	 * Zählt die Einträge je Klasse des Wertes.
+	 * 
+	 * @return Die Anzahl der Einträge je Klasse. Einträge mit dem Wert <b>null</b> 
+	 * werden unter dem Schlüssel <b>null</b> gezählt.
+	 */
+	public Map<Class<?>, Integer> countByValueType() {
+		return execute(COL_VALUE_TYPE + ", count(*)", null, COL_VALUE_TYPE, result -> {
+			Map<Class<?>, Integer> counts = new LinkedHashMap<Class<?>, Integer>();
+			while(result.next()){
+				counts.put(backend.typeDictionary.getType(result.getShort(1)), result.getInt(2));
+			}
+			
+			return counts;
+		});
+	}
+	
+	/**
+	 * Teilt die Werte der gegebenen Klasse in gleich breite Bereiche ein und zählt die
+	 * Einträge je Bereich. Ein Bereich umfasst die Werte von seiner unteren Grenze 
+	 * (inklusive) bis zur unteren Grenze des nächsten Bereiches (exklusive).
+	 * 
+	 * @param type Klasse der Werte (z.B. {@link Long}).
+	 * @param bucketWidth Breite eines Bereiches. Muss größer 0 sein.
+	 * @return Die Anzahl der Einträge je unterer Grenze. Leere Bereiche sind nicht enthalten.
+	 */
+	public SortedMap<Long, Integer> histogram(Class<? extends Number> type, long bucketWidth) {
+		if(bucketWidth <= 0) throw new IllegalArgumentException("Bucket-width must be greater then 0!");
+		
+		String column = numericColumnFor(type);
+		String bucket;
+		if(isIntegral(type)){
+			//MOD hat das Vorzeichen des Dividenden, negative Werte gehören in den Bereich darunter
+			bucket = "(" + column + " - MOD(" + column + ", " + bucketWidth + ")" +
+					" - CASE WHEN MOD(" + column + ", " + bucketWidth + ") < 0 THEN " + bucketWidth + " ELSE 0 END)";
+		}else{
+			bucket = "(CAST(FLOOR(" + column + " / " + bucketWidth + ") AS BIGINT) * " + bucketWidth + ")";
+		}
+		
+		return execute(bucket + ", count(*)", type, bucket, result -> {
+			SortedMap<Long, Integer> histogram = new TreeMap<Long, Integer>();
+			while(result.next()){
+				histogram.put(result.getLong(1), result.getInt(2));
+			}
+			
+			return histogram;
+		});
+	}
+	
+	private static String columnFor(Class<?> type){
+		String column = InterpreterProvider.getInstance().getInterpreter(type).getValueColumnName();
+		if(COL_VALUE.equals(column)){
+			throw new IllegalArgumentException(
+					"Values of " + type.getName() + " are serialized and can not be aggregated by the database!");
+		}
+		
+		return column;
+	}
+	
+	private static String numericColumnFor(Class<? extends Number> type){
+		if(!isIntegral(type) && type != Float.class && type != Double.class){
+			throw new IllegalArgumentException(type.getName() + " is not a supported numeric type!");
+		}
+		
+		return columnFor(type);
+	}
+	
+	private static boolean isIntegral(Class<?> type){
+		return type == Byte.class || type == Integer.class || type == Long.class;
+	}
+	
+	private interface ResultReader<T> {
+		T read(ResultSet result) throws Exception;
+	}
+	
+	/**
+	 * Führt eine Abfrage über die Einträge aus, die alle Bedingungen erfüllen.
+	 * 
+	 * @param select Die abzufragenden Ausdrücke.
+	 * @param valueType Klasse, auf deren Werte sich die Abfrage beschränkt. Kann <b>null</b> sein.
+	 * Die typisierte Spalte einer anderen Klasse kann noch einen alten Wert enthalten.
+	 * @param groupBy Ausdruck, nach dem gruppiert wird. Kann <b>null</b> sein.
+	 * @param reader Liest das Ergebnis aus.
+	 */
+	private <T> T execute(String select, Class<?> valueType, String groupBy, ResultReader<T> reader) {
+		backend.flush();
+		
+		StringBuilder sql = new StringBuilder("SELECT " + select + " FROM " + backend.tableName + 
+				" WHERE 1 = 1");
+		if(valueType != null){
+			sql.append(" AND ").append(COL_VALUE_TYPE).append(" = ?");
+		}
+		if(condition != null){
+			sql.append(" AND ");
+			condition.appendTo(sql);
+		}
+		if(groupBy != null){
+			sql.append(" GROUP BY ").append(groupBy).append(" ORDER BY 1");
+		}
+		
+		try{
+			return backend.inSession(null, connection -> {
+				PreparedStatement statement = connection.prepareStatement(sql.toString());
+				try{
+					int index = 1;
+					if(valueType != null){
+						statement.setShort(index++, backend.typeDictionary.findId(valueType));
+					}
+					if(condition != null) condition.bind(statement, index);
+					
+					return reader.read(statement.executeQuery());
+				}finally{
+					statement.close();
+				}
+			});
+		}catch(Exception e){
+			throw new BackendException("Could not query backend!", e);
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "[" + getClass().getSimpleName() + "]\n" +
+				"Backend: " + backend + "\n" +
+				"Condition: " + (condition != null ? condition.toString() : "-");
+	}
+}
@@ -0,0 +1,271 @@
+package de.raysha.lib.dbc;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import de.raysha.lib.dbc.exception.BackendException;
+import de.raysha.lib.dbc.map.interpreter.Interpreter;
+import de.raysha.lib.dbc.query.Condition;
+
+/**
+ * Ein {@link Spliterator} über die Einträge einer {@link DBMap}. Er deckt einen
+ * Wertebereich einer Integer-Spalte ab (z.B. {@link ColumnNames#COL_ID} bei einer 
+ * Map oder {@link ColumnNames#COL_INT_KEY} bei einer {@link DBList}) und wird beim
+ * Teilen in zwei Hälften dieses Bereiches zerlegt. Jeder Teil liest seinen Bereich
+ * seitenweise (je {@link DBMap#fetchSize(int)} Einträge), sortiert nach der Spalte und
+ * {@link ColumnNames#COL_ROW_ID}. Eine Seite setzt hinter dem letzten Eintrag der
+ * vorherigen Seite fort.
+ * <br/><br/>
+ * Jede Seite wird in einer eigenen Sitzung der Map gelesen (siehe 
+ * {@link DBMap#inSession(de.raysha.lib.dbc.metrics.Operation, DBMap.SessionWork)}). 
+ * Zwischen zwei Seiten hält ein Teil also keine Verbindung. Ein Stream, der nicht 
+ * vollständig gelesen wird (z.B. bei {@link java.util.stream.Stream#findFirst()}), 
+ * muss daher nicht geschlossen werden. Sieht die Map einen Pool vor, werden die Teile
+ * eines parallelen Streams tatsächlich parallel gelesen. Da nicht über einen einzigen
+ * Cursor gelesen wird, sind gleichzeitige Änderungen an der Map ggf. nur teilweise sichtbar.
+ * 
+ * @author rainu
+ * 
+ * @param <K> Typ des Schlüssels
+ * @param <V> Typ des Wertes
+ * @param <T> Typ der gelieferten Elemente
+ */
+public class DBMapSpliterator<K, V, T> implements Spliterator<T>, ColumnNames, AutoCloseable {
+	private final DBMap<K, V> backend;
+	private final String rangeColumn;
+	private final Condition filter;
+	private final boolean withValues;
+	private final BiFunction<K, V, T> element;
+	private final int characteristics;
+	
+	private final InterpreterCache interpreters;
+	/**
+	 * Die gelesenen, aber noch nicht gelieferten Elemente der aktuellen Seite. Die 
+	 * Elemente können <b>null</b> sein (z.B. die Werte einer Map).
+	 */
+	private final Deque<T> page = new LinkedList<T>();
+	private boolean started = false;
+	private boolean exhausted = false;
+	/**
+	 * Position des letzten gelesenen Eintrages (Wert der Spalte und {@link ColumnNames#COL_ROW_ID}).
+	 */
+	private long lastRange;
+	private long lastRowId = Long.MIN_VALUE;
+	
+	private long from;
+	private long to;
+	private long estimatedSize;
+	
+	/**
+	 * @param backend Die zu lesende Map.
+	 * @param rangeColumn Integer-Spalte, nach deren Wertebereich geteilt wird.
+	 * @param from Kleinster Wert der Spalte (inklusive).
+	 * @param to Größter Wert der Spalte (inklusive).
+	 * @param filter Zusätzliche Bedingung für die Einträge. Kann <b>null</b> sein.
+	 * @param estimatedSize Geschätzte Anzahl der Einträge in diesem Bereich.
+	 * @param withValues Werden die Werte benötigt? Andernfalls wird dem Element <b>null</b> übergeben.
+	 * @param element Erzeugt aus Schlüssel und Wert das gelieferte Element.
+	 * @param characteristics Eigenschaften (z.B. {@link #DISTINCT}).
+	 */
+	public DBMapSpliterator(DBMap<K, V> backend, String rangeColumn, long from, long to,
+			Condition filter, long estimatedSize, boolean withValues, BiFunction<K, V, T> element,
+			int characteristics) {
+		
+		this.backend = backend;
+		this.interpreters = new InterpreterCache(backend.typeDictionary);
+		this.rangeColumn = rangeColumn;
+		this.from = from;
+		this.to = to;
+		this.filter = filter;
+		this.estimatedSize = estimatedSize;
+		this.withValues = withValues;
+		this.element = element;
+		this.characteristics = characteristics;
+	}
+	
+	/**
+	 * Erzeugt einen Spliterator über alle Einträge der Map, der anhand des Hash-Wertes
+	 * der Schlüssel geteilt wird.
+	 */
+	public static <K, V, T> DBMapSpliterator<K, V, T> overHashes(DBMap<K, V> backend,
+			boolean withValues, BiFunction<K, V, T> element, int characteristics){
+		
+		return overHashes(backend, null, withValues, element, characteristics);
+	}
+	
+	/**
+	 * Erzeugt einen Spliterator über alle Einträge der Map, auf die die gegebene Bedingung
+	 * zutrifft. Er wird anhand des Hash-Wertes der Schlüssel geteilt.
+	 */
+	public static <K, V, T> DBMapSpliterator<K, V, T> overHashes(DBMap<K, V> backend, Condition filter,
+			boolean withValues, BiFunction<K, V, T> element, int characteristics){
+		
+		backend.flush();
+		return new DBMapSpliterator<K, V, T>(backend, COL_ID, Integer.MIN_VALUE, Integer.MAX_VALUE,
+				filter, backend.size(), withValues, element, characteristics);
+	}
+	
+	/**
+	 * Verwirft die restlichen Einträge. Da zwischen den Seiten keine Verbindung gehalten
+	 * wird, ist dies nicht zwingend notwendig.
+	 */
+	@Override
+	public void close() {
+		exhausted = true;
+		page.clear();
+	}
+	
+	private boolean isExact(){
+		return (characteristics & SIZED) != 0;
+	}
+	
+	@Override
+	public Spliterator<T> trySplit() {
+		//ein angefangener Teil kann nicht mehr geteilt werden
+		if(started) return null;
+		//zu kleine Teile lohnen den eigenen Cursor nicht
+		if(to <= from || estimatedSize < 2 * (long)backend.fetchSize) return null;
+		
+		long middle = from + (to - from) / 2;
+		long firstSize = isExact() ? middle - from + 1 : estimatedSize / 2;
+		
+		DBMapSpliterator<K, V, T> first = new DBMapSpliterator<K, V, T>(backend, rangeColumn,
+				from, middle, filter, firstSize, withValues, element, characteristics);
+		
+		from = middle + 1;
+		estimatedSize -= firstSize;
+		
+		return first;
+	}
+	
+	@Override
+	public boolean tryAdvance(Consumer<? super T> action) {
+		if(action == null) throw new NullPointerException();
+		
+		if(page.isEmpty() && !exhausted){
+			try{
+				readPage();
+			}catch(Exception e){
+				close();
+				throw new BackendException("Could not iterate to next.", e);
+			}
+		}
+		if(page.isEmpty()) return false;
+		
+		action.accept(page.poll());
+		return true;
+	}
+	
+	@Override
+	public void forEachRemaining(Consumer<? super T> action) {
+		while(tryAdvance(action));
+	}
+	
+	/**
+	 * Liest die nächste Seite. Ist sie nicht voll, ist der Teil erschöpft.
+	 */
+	private void readPage() throws Exception{
+		if(!started){
+			started = true;
+			lastRange = from;
+		}
+		
+		final int pageSize = backend.fetchSize;
+		int read = backend.inSession(null, connection -> {
+			PreparedStatement statement = connection.prepareStatement(
+					"SELECT " + getColumns() + ", " + rangeColumn + ", " + COL_ROW_ID +
+					" FROM " + backend.tableName +
+					" WHERE " + rangeColumn + " BETWEEN ? AND ?" +
+					" AND (" + rangeColumn + " > ? OR " + COL_ROW_ID + " > ?)" + getFilter() +
+					" ORDER BY " + rangeColumn + ", " + COL_ROW_ID,
+					ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			try{
+				statement.setMaxRows(pageSize);
+				statement.setFetchSize(pageSize);
+				statement.setLong(1, lastRange);
+				statement.setLong(2, to);
+				statement.setLong(3, lastRange);
+				statement.setLong(4, lastRowId);
+				if(filter != null) filter.bind(statement, 5);
+				
+				int count = 0;
+				ResultSet set = statement.executeQuery();
+				while(set.next()){
+					page.add(read(set));
+					lastRange = set.getLong(rangeColumn);
+					lastRowId = set.getLong(COL_ROW_ID);
+					count++;
+				}
+				
+				return count;
+			}finally{
+				statement.close();
+			}
+		});
+		
+		if(read < pageSize) exhausted = true;
+	}
+	
+	private String getColumns(){
+		String columns = 
+				COL_KEY_TYPE + ", " + COL_KEY + ", " + COL_BYTE_KEY + ", " + COL_BOOLEAN_KEY + ", " + 
+				COL_CHAR_KEY + ", " + COL_DOUBLE_KEY + ", " + COL_FLOAT_KEY + ", " + COL_INT_KEY + ", " + 
+				COL_LONG_KEY + ", " + COL_STRING_KEY;
+		
+		if(withValues){
+			columns += ", " +
+				COL_VALUE_TYPE + ", " + COL_VALUE + ", " + COL_BYTE_VALUE + ", " + COL_BOOLEAN_VALUE + ", " + 
+				COL_CHAR_VALUE + ", " + COL_DOUBLE_VALUE + ", " + COL_FLOAT_VALUE + ", " + COL_INT_VALUE + ", " + 
+				COL_LONG_VALUE + ", " + COL_STRING_VALUE;
+		}
+		
+		return columns;
+	}
+	
+	private String getFilter(){
+		if(filter == null) return "";
+		
+		StringBuilder sql = new StringBuilder(" AND ");
+		filter.appendTo(sql);
+		
+		return sql.toString();
+	}
+	
+	@SuppressWarnings("unchecked")
+	private T read(ResultSet set){
+		try{
+			Interpreter<K> keyInterpreter = (Interpreter<K>)
+					interpreters.getInterpreter(set.getShort(COL_KEY_TYPE));
+			K key = keyInterpreter.getFromResultSet(set, keyInterpreter.getKeyColumnName());
+			
+			V value = null;
+			if(withValues){
+				Interpreter<V> valueInterpreter = (Interpreter<V>)
+						interpreters.getInterpreter(set.getShort(COL_VALUE_TYPE));
+				if(valueInterpreter != null){
+					value = valueInterpreter.getFromResultSet(set, valueInterpreter.getValueColumnName());
+				}
+			}
+			
+			return element.apply(key, value);
+		}catch(Exception e){
+			throw new BackendException(
+					"Could not extract entry from backend!", e);
+		}
+	}
+	
+	@Override
+	public long estimateSize() {
+		return estimatedSize;
+	}
+	
+	@Override
+	public int characteristics() {
+		return characteristics;
+	}
+}
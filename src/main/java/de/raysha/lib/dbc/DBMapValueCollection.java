@@ -6,8 +6,11 @@ import java.sql.SQLException;
 import java.util.AbstractCollection;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.Spliterator;
 
 import de.raysha.lib.dbc.exception.BackendException;
+import de.raysha.lib.dbc.lifecycle.CloseableResources;
+import de.raysha.lib.dbc.lifecycle.LeakDetector;
 
 /**
  * Dies ist die Value-{@link Collection}-Implementierung für die
@@ -15,41 +18,43 @@ import de.raysha.lib.dbc.exception.BackendException;
  * abgeleitet. Es stellt sich hier jedoch die Aufgabe, dass man den 
  * Iterator so weit es geht <b>vermeidet</b>, da so unnötigerweise die 
  * Daten aus der Datenkbank wieder in den Speicher geladen werden!
+ * Die Collection hält eigene Statements und sollte daher nach der 
+ * Verwendung geschlossen werden.
  * 
  * @author rainu
- *
+ * 
  * @param <E> Typ des Wertes (Muss serialisierbar sein)
  */
 public class DBMapValueCollection<E> 
 	extends AbstractCollection<E>
-	implements Collection<E>, ColumnNames{
-
+	implements Collection<E>, ColumnNames, AutoCloseable{
+	
 	private final DBMap<?, E> backend;
 	private PreparedStatement removeStatement;
 	private PreparedStatement removeNullStatement;
+	private final CloseableResources resources = new CloseableResources();
+	private final LeakDetector.Registration registration;
 	
 	public DBMapValueCollection(DBMap<?, E> backend) throws SQLException{
 		this.backend = backend;
+		this.registration = LeakDetector.register(this, resources);
 		initStatements();
 	}
 	
 	@Override
-	protected void finalize() throws Throwable {
-		try{removeStatement.close();}catch(SQLException e){}
-		try{removeNullStatement.close();}catch(SQLException e){}
-		
-		super.finalize();
+	public void close() {
+		registration.close();
 	}
 	
 	private void initStatements() throws SQLException{
-		removeStatement = backend.connection.prepareStatement(
+		removeStatement = resources.add(backend.connection.prepareStatement(
 				"DELETE FROM " + backend.tableName +
 				" WHERE " + COL_VALUE_HASH + " = ?" +
-				" AND " + COL_VALUE_TYPE + " = ?");
-		removeNullStatement = backend.connection.prepareStatement(
+				" AND " + COL_VALUE_TYPE + " = ?"));
+		removeNullStatement = resources.add(backend.connection.prepareStatement(
 				"DELETE FROM " + backend.tableName +
 				" WHERE " + COL_VALUE_HASH + " IS NULL" +
-				" AND " + COL_VALUE_TYPE + " IS NULL");
+				" AND " + COL_VALUE_TYPE + " IS NULL"));
 	}
 	
 	@Override
@@ -62,6 +67,16 @@ public class DBMapValueCollection<E>
 		}
 	}
 	
+	/**
+	 * Liefert einen {@link DBMapSpliterator}, der anhand der Hash-Werte der Schlüssel
+	 * geteilt wird. Die Teile eines parallelen Streams werden dabei unabhängig
+	 * voneinander seitenweise gelesen.
+	 */
+	@Override
+	public Spliterator<E> spliterator() {
+		return DBMapSpliterator.overHashes(backend, true, (key, value) -> value, 0);
+	}
+	
 	@Override
 	public boolean remove(Object o) {
 		try{
@@ -72,16 +87,29 @@ public class DBMapValueCollection<E>
 					"Could not remove values from backend.", e);
 		}
 	}
-
+	
 	private boolean removeObject(Object o) throws SQLException {
+		backend.flush();
+		
 		removeStatement.setLong(1, o.hashCode());
-		removeStatement.setString(2, o.getClass().getName());
+		removeStatement.setShort(2, backend.typeDictionary.findId(o.getClass()));
 		
-		return removeStatement.executeUpdate() > 0;
+		return afterRemove(removeStatement.executeUpdate());
 	}
 	
 	private boolean removeNull() throws SQLException {
-		return removeNullStatement.executeUpdate() > 0;
+		backend.flush();
+		
+		return afterRemove(removeNullStatement.executeUpdate());
+	}
+	
+	private boolean afterRemove(int effectedRows){
+		if(effectedRows > 0){
+			backend.resetCachedSize();
+			backend.invalidateCachedValues();
+		}
+		
+		return effectedRows > 0;
 	}
 	
 	@Override
@@ -130,7 +158,7 @@ public class DBMapValueCollection<E>
 		result = prime * result + ((backend == null) ? 0 : backend.hashCode());
 		return result;
 	}
-
+	
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj)
@@ -148,7 +176,7 @@ public class DBMapValueCollection<E>
 			return false;
 		return true;
 	}
-
+	
 	@Override
 	public String toString() {
 		return "[" + getClass().getSimpleName() + "]\n" +
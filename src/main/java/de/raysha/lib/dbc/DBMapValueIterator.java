@@ -1,7 +1,5 @@
 package de.raysha.lib.dbc;
 
-import java.io.Serializable;
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Iterator;
@@ -9,54 +7,42 @@ import java.util.NoSuchElementException;
 
 import de.raysha.lib.dbc.exception.BackendException;
 import de.raysha.lib.dbc.map.interpreter.Interpreter;
-import de.raysha.lib.dbc.map.interpreter.InterpreterProvider;
 
 /**
  * Dies ist der Value-Iterator für eine IFMap.
  * 
  * @author rainu
- *
+ * 
  * @param <E> Muss serialisierbar sein
  */
 public class DBMapValueIterator<E> implements Iterator<E>,
-												ColumnNames{
+												ColumnNames, AutoCloseable{
 	private final DBMap<?, E> backend;
-	private final ResultSet set;
-	private final PreparedStatement removeStatement;
-	private int cursor = 0;
+	private final DBMapPageReader<E> set;
+	private final InterpreterCache interpreters;
 	private boolean started = false;
 	
 	/**
-	 * Initialisiert einen Iterator. Ab diesen Zeitpunkt wird bereits ein
-	 * ResultSet geöffnet. Dies sollte theoretisch dazu führen, dass dieser
-	 * Iterator über eine <b>Momentaufnahme</b> iteriert. Konkurierende
-	 * Datenbankzugriffe sollten daher keine weiteren Auswirkungen auf die
-	 * aktuelle Instanz haben!
+	 * Initialisiert einen Iterator. Wie beim {@link DBMapEntrySetIterator} wird die erste
+	 * Seite bereits ab diesem Zeitpunkt gelesen.
 	 * 
 	 * @param backend
 	 * @throws SQLException
 	 */
 	public DBMapValueIterator(DBMap<?, E> backend) throws SQLException {
 		this.backend = backend;
+		this.interpreters = new InterpreterCache(backend.typeDictionary);
+		this.backend.flush();
 		this.set = initSet();
-		this.removeStatement = initRemoveStatement();
 	}
 	
 	@Override
-	protected void finalize() throws Throwable {
-		try{removeStatement.close();}catch(SQLException e){}
-		try{set.close();}catch(SQLException e){}
-		
-		super.finalize();
+	public void close() {
+		set.close();
 	}
 	
-	private ResultSet initSet() throws SQLException{
-		return backend.connection.createStatement()
-			.executeQuery(
-			"SELECT " +
-				COL_ID + ", " +
-				COL_KEY_TYPE + ", " +
-				
+	private DBMapPageReader<E> initSet(){
+		return new DBMapPageReader<E>(backend,
 				COL_VALUE_TYPE + ", " +
 				COL_VALUE + ", " +
 				COL_BYTE_VALUE + ", " +
@@ -66,86 +52,47 @@ public class DBMapValueIterator<E> implements Iterator<E>,
 				COL_FLOAT_VALUE + ", " +
 				COL_INT_VALUE + ", " +
 				COL_LONG_VALUE + ", " +
-				COL_STRING_VALUE +
-			" FROM " + backend.tableName);
-	}
-	
-	private PreparedStatement initRemoveStatement() throws SQLException{
-		return backend.connection.prepareStatement(
-				"DELETE FROM " + backend.tableName +
-				" WHERE " + COL_ID + " = ?" +
-				" AND " + COL_KEY_TYPE + " = ?");
-	}
-	
-
+				COL_STRING_VALUE,
+				this::getCurrentValue);
+		}
+		
 	@Override
 	public boolean hasNext() {
-		return cursor < backend.size();
+		return set.hasNext();
 	}
-
+	
 	@Override
 	public E next() {
-		try{
-			if(!set.next()){
-				throw new NoSuchElementException();
-			}
-		}catch(SQLException e){
-			throw new BackendException(
-					"Could not iterate to next.", e);
-		}
-		cursor++;
+		E value = set.next();
 		started = true;
 		
-		return getCurrentValue();
+		return value;
 	}
-
-	private E getCurrentValue(){
+	
+	@SuppressWarnings("unchecked")
+	private E getCurrentValue(ResultSet set){
 		try{
-			Class<?> valueClass = extractValueClassFromSet();
-			return extractValueFromSet(valueClass);
+			Interpreter<E> valueInterpreter = (Interpreter<E>)
+					interpreters.getInterpreter(set.getShort(COL_VALUE_TYPE));
+			if(valueInterpreter == null) return null;
+			
+			return valueInterpreter.getFromResultSet(set, valueInterpreter.getValueColumnName());
 		}catch(Exception e){
 			throw new BackendException(
 					"Could not extract value from backend!", e);
 		}
 	}
 	
-	private Class<?> extractValueClassFromSet()
-			throws SQLException, ClassNotFoundException{
-		
-		String valueClass = set.getString(COL_VALUE_TYPE);
-		
-		if(valueClass == null) return null;
-		return Class.forName(valueClass);
-	}
-	
-	private E extractValueFromSet(Class<?> valueClass) throws Exception{
-		if(valueClass == null) return null;
-		
-		@SuppressWarnings("unchecked")
-		Interpreter<E> valueInterpreter = (Interpreter<E>)
-				InterpreterProvider.getInstance()
-				.getInterpreter(valueClass);
-		
-		String colName = valueInterpreter.getValueColumnName();
-		return valueInterpreter.getFromResultSet(set, colName);
-	}
-	
 	@Override
 	public void remove() {
 		if(!started) throw new NoSuchElementException(
 				"You must call next() before you can remove anything!");
 		
-		try{
-			String keyString = set.getString(COL_KEY_TYPE);
-			Long keyHash = set.getLong(COL_ID);
+		set.removeCurrent();
 			
-			removeStatement.setLong(1, keyHash);
-			removeStatement.setString(2, keyString);
-			removeStatement.executeUpdate();
-		}catch(SQLException e){
-			throw new BackendException(
-					"Could not remove current entity!", e);
-		}
+			//der Schlüssel ist hier nicht bekannt
+			backend.resetCachedSize();
+			backend.invalidateCachedValues();
 	}
 	
 	@Override
@@ -155,7 +102,7 @@ public class DBMapValueIterator<E> implements Iterator<E>,
 		result = prime * result + ((backend == null) ? 0 : backend.hashCode());
 		return result;
 	}
-
+	
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj)
@@ -173,7 +120,7 @@ public class DBMapValueIterator<E> implements Iterator<E>,
 			return false;
 		return true;
 	}
-
+	
 	@Override
 	public String toString() {
 		return "[" + getClass().getSimpleName() + "]\n" +
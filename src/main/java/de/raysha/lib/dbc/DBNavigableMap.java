@@ -0,0 +1,835 @@
+package de.raysha.lib.dbc;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+import javax.sql.DataSource;
+
+import de.raysha.lib.dbc.beans.ConnectionInfo;
+import de.raysha.lib.dbc.beans.DBMapEntry;
+import de.raysha.lib.dbc.exception.BackendException;
+import de.raysha.lib.dbc.map.interpreter.Interpreter;
+import de.raysha.lib.dbc.map.interpreter.InterpreterProvider;
+import de.raysha.lib.dbc.metrics.Operation;
+
+/**
+ * Eine {@link NavigableMap}, die auf einer {@link DBMap} basiert. Alle Schlüssel
+ * sind von der selben Klasse, welche in einer eigenen Spalte gespeichert wird (z.B.
+ * {@link Long} in {@link ColumnNames#COL_LONG_KEY}). Auf dieser Spalte wird ein Index
+ * angelegt, so dass Bereichs-Abfragen (z.B. {@link #ceilingEntry(Object)} oder
+ * {@link #subMap(Object, Object)}) direkt in der Datenbank ausgeführt werden. Die
+ * Iteratoren lesen die Einträge seitenweise (je {@link DBMap#fetchSize(int)} Einträge).
+ * <br/><br/>
+ * Die Reihenfolge der Schlüssel wird von der Datenbank bestimmt. Bei Zahlen entspricht
+ * sie der natürlichen Ordnung, bei Zeichenketten ggf. der Sortierung der Datenbank.
+ * Einträge der zugrunde liegenden Map mit Schlüsseln anderer Klassen gehören nicht zu
+ * dieser Map. Sichten (z.B. {@link #headMap(Object)}) schreiben direkt in die zugrunde
+ * liegende Map.
+ * 
+ * @author rainu
+ * 
+ * @param <K> Typ des Schlüssels. Muss in einer eigenen Spalte gespeichert werden.
+ * @param <V> Typ des Wertes
+ */
+public class DBNavigableMap<K extends Comparable<? super K>, V> extends AbstractMap<K, V>
+		implements NavigableMap<K, V>, ColumnNames, AutoCloseable {
+	
+	protected final DBMap<K, V> backend;
+	private final Class<K> keyType;
+	private final Interpreter<K> keyInterpreter;
+	private final String keyColumn;
+	/**
+	 * Wurde die {@link DBMap} von der Map selbst angelegt, wird sie zusammen mit
+	 * der Map geschlossen.
+	 */
+	private final boolean ownsBackend;
+	
+	//Grenzen dieser Sicht (null steht für unbegrenzt)
+	private final K lowKey;
+	private final boolean lowInclusive;
+	private final K highKey;
+	private final boolean highInclusive;
+	private final boolean descending;
+	
+	public DBNavigableMap(DBMap<K, V> backend, Class<K> keyType) {
+		this(backend, keyType, false);
+	}
+	
+	protected DBNavigableMap(DBMap<K, V> backend, Class<K> keyType, boolean ownsBackend) {
+		this(backend, keyType, ownsBackend, null, false, null, false, false);
+		
+		createIndex();
+	}
+	
+	private DBNavigableMap(DBMap<K, V> backend, Class<K> keyType, boolean ownsBackend,
+			K lowKey, boolean lowInclusive, K highKey, boolean highInclusive, boolean descending) {
+		
+		this.backend = backend;
+		this.keyType = keyType;
+		this.ownsBackend = ownsBackend;
+		this.lowKey = lowKey;
+		this.lowInclusive = lowInclusive;
+		this.highKey = highKey;
+		this.highInclusive = highInclusive;
+		this.descending = descending;
+		
+		@SuppressWarnings("unchecked")
+		Interpreter<K> interpreter = (Interpreter<K>)InterpreterProvider.getInstance().getInterpreter(keyType);
+		this.keyInterpreter = interpreter;
+		this.keyColumn = interpreter.getKeyColumnName();
+		
+		if(COL_KEY.equals(keyColumn)){
+			throw new IllegalArgumentException(
+					"Keys of " + keyType.getName() + " are serialized and can not be ordered by the database!");
+		}
+	}
+	
+	public DBNavigableMap(ConnectionInfo info, String tableName, Class<K> keyType, boolean dropIfExist){
+		this(new DBMap<K, V>(info, tableName, dropIfExist), keyType, true);
+	}
+	
+	public DBNavigableMap(ConnectionInfo info, String tableName, Class<K> keyType){
+		this(new DBMap<K, V>(info, tableName), keyType, true);
+	}
+	
+	public DBNavigableMap(DataSource dataSource, String tableName, Class<K> keyType, boolean dropIfExist){
+		this(new DBMap<K, V>(dataSource, tableName, dropIfExist), keyType, true);
+	}
+	
+	public DBNavigableMap(DataSource dataSource, String tableName, Class<K> keyType){
+		this(new DBMap<K, V>(dataSource, tableName), keyType, true);
+	}
+	
+	/**
+	 * Legt den Index auf der Schlüssel-Spalte an. Manche Spalten-Typen (z.B. CLOB für
+	 * Zeichenketten) können nicht von jeder Datenbank indiziert werden. In diesem Fall
+	 * funktioniert die Map weiterhin, die Abfragen müssen dann jedoch sortieren.
+	 */
+	private void createIndex(){
+		try{
+			Statement statement = backend.connection.createStatement();
+			try{
+				statement.execute("CREATE INDEX IF NOT EXISTS " + backend.tableName + "_" + keyColumn + "_IDX" +
+						" ON " + backend.tableName + " (" + keyColumn + ")");
+			}finally{
+				statement.close();
+			}
+		}catch(SQLException e){
+			//ohne Index
+		}
+	}
+	
+	/**
+	 * Wurde die {@link DBMap} von der Map angelegt, wird diese geschlossen.
+	 */
+	@Override
+	public void close() {
+		if(ownsBackend){
+			backend.close();
+		}
+	}
+	
+	private DBNavigableMap<K, V> view(K lowKey, boolean lowInclusive, K highKey, boolean highInclusive,
+			boolean descending){
+		
+		return new DBNavigableMap<K, V>(backend, keyType, false,
+				lowKey, lowInclusive, highKey, highInclusive, descending);
+	}
+	
+	private boolean tooLow(K key, boolean inclusive){
+		if(lowKey == null) return false;
+		
+		int c = key.compareTo(lowKey);
+		return c < 0 || (c == 0 && !lowInclusive && inclusive);
+	}
+	
+	private boolean tooHigh(K key, boolean inclusive){
+		if(highKey == null) return false;
+		
+		int c = key.compareTo(highKey);
+		return c > 0 || (c == 0 && !highInclusive && inclusive);
+	}
+	
+	private boolean inRange(K key, boolean inclusive){
+		return !tooLow(key, inclusive) && !tooHigh(key, inclusive);
+	}
+	
+	private K checkKey(Object key){
+		if(key == null) throw new NullPointerException("Null-keys are not supported!");
+		
+		return keyType.cast(key);
+	}
+	
+	/**
+	 * @return Der Schlüssel, wenn er zu dieser Sicht gehört. Andernfalls <b>null</b>.
+	 */
+	private K keyInRange(Object key){
+		if(!keyType.isInstance(key)) return null;
+		
+		K k = keyType.cast(key);
+		return inRange(k, true) ? k : null;
+	}
+	
+	/*
+	 * SQL
+	 */
+	
+	private void appendRange(StringBuilder sql){
+		sql.append(" WHERE ").append(keyColumn).append(" IS NOT NULL");
+		if(lowKey != null){
+			sql.append(" AND ").append(keyColumn).append(lowInclusive ? " >= ?" : " > ?");
+		}
+		if(highKey != null){
+			sql.append(" AND ").append(keyColumn).append(highInclusive ? " <= ?" : " < ?");
+		}
+	}
+	
+	private int bindRange(PreparedStatement statement, int index) throws Exception{
+		if(lowKey != null) keyInterpreter.setParameter(statement, index++, lowKey);
+		if(highKey != null) keyInterpreter.setParameter(statement, index++, highKey);
+		
+		return index;
+	}
+	
+	private String selectEntries(String operator, boolean ascending){
+		StringBuilder sql = new StringBuilder("SELECT " +
+				keyColumn + ", " +
+				COL_VALUE_TYPE + ", " +
+				COL_VALUE + ", " +
+				COL_BYTE_VALUE + ", " +
+				COL_BOOLEAN_VALUE + ", " +
+				COL_CHAR_VALUE + ", " +
+				COL_DOUBLE_VALUE + ", " +
+				COL_FLOAT_VALUE + ", " +
+				COL_INT_VALUE + ", " +
+				COL_LONG_VALUE + ", " +
+				COL_STRING_VALUE +
+				" FROM " + backend.tableName);
+		
+		appendRange(sql);
+		if(operator != null){
+			sql.append(" AND ").append(keyColumn).append(operator).append("?");
+		}
+		sql.append(" ORDER BY ").append(keyColumn).append(ascending ? " ASC" : " DESC");
+		
+		return sql.toString();
+	}
+	
+	private K readKey(ResultSet set) throws Exception{
+		return keyInterpreter.getFromResultSet(set, 1);
+	}
+	
+	@SuppressWarnings("unchecked")
+	private V readValue(ResultSet set, InterpreterCache interpreters) throws Exception{
+		Interpreter<V> valueInterpreter = (Interpreter<V>)
+				interpreters.getInterpreter(set.getShort(COL_VALUE_TYPE));
+		if(valueInterpreter == null) return null;
+		
+		return valueInterpreter.getFromResultSet(set, valueInterpreter.getValueColumnName());
+	}
+	
+	/**
+	 * Sucht den ersten Eintrag in aufsteigender bzw. absteigender Reihenfolge (unabhängig von
+	 * der Richtung dieser Sicht).
+	 * 
+	 * @param operator Vergleich mit dem gegebenen Schlüssel (z.B. " &lt; "). Kann <b>null</b> sein.
+	 * @param key Der zu vergleichende Schlüssel.
+	 * @param ascending Reihenfolge der Suche.
+	 * @return <b>Null</b>, wenn es keinen passenden Eintrag gibt.
+	 */
+	private Entry<K, V> findEntry(String operator, K key, boolean ascending){
+		backend.flush();
+		
+		try{
+			return backend.inSession(Operation.GET, connection -> {
+				PreparedStatement statement = connection.prepareStatement(
+						selectEntries(operator, ascending));
+				try{
+					statement.setMaxRows(1);
+					int index = bindRange(statement, 1);
+					if(operator != null) keyInterpreter.setParameter(statement, index, key);
+					
+					ResultSet set = statement.executeQuery();
+					if(!set.next()) return null;
+					
+					return new SimpleImmutableEntry<K, V>(readKey(set), readValue(set, new InterpreterCache(backend.typeDictionary)));
+				}finally{
+					statement.close();
+				}
+			});
+		}catch(Exception e){
+			throw new BackendException("Could not find entry in backend!", e);
+		}
+	}
+	
+	private Entry<K, V> absLowest(){
+		return findEntry(null, null, true);
+	}
+	
+	private Entry<K, V> absHighest(){
+		return findEntry(null, null, false);
+	}
+	
+	private Entry<K, V> absLower(K key){
+		return findEntry(" < ", key, false);
+	}
+	
+	private Entry<K, V> absFloor(K key){
+		return findEntry(" <= ", key, false);
+	}
+	
+	private Entry<K, V> absCeiling(K key){
+		return findEntry(" >= ", key, true);
+	}
+	
+	private Entry<K, V> absHigher(K key){
+		return findEntry(" > ", key, true);
+	}
+	
+	private static <K> K keyOrNull(Entry<K, ?> entry){
+		return entry != null ? entry.getKey() : null;
+	}
+	
+	private static <K> K keyOrException(Entry<K, ?> entry){
+		if(entry == null) throw new NoSuchElementException();
+		
+		return entry.getKey();
+	}
+	
+	/*
+	 * Map
+	 */
+	
+	@Override
+	public int size() {
+		backend.flush();
+		
+		StringBuilder sql = new StringBuilder("SELECT count(*) FROM " + backend.tableName);
+		appendRange(sql);
+		
+		try{
+			return backend.inSession(Operation.SIZE, connection -> {
+				PreparedStatement statement = connection.prepareStatement(sql.toString());
+				try{
+					bindRange(statement, 1);
+					
+					ResultSet set = statement.executeQuery();
+					set.next();
+					return set.getInt(1);
+				}finally{
+					statement.close();
+				}
+			});
+		}catch(Exception e){
+			throw new BackendException("Could not count entries!", e);
+		}
+	}
+	
+	@Override
+	public boolean isEmpty() {
+		return absLowest() == null;
+	}
+	
+	@Override
+	public boolean containsKey(Object key) {
+		return keyInRange(key) != null && backend.containsKey(key);
+	}
+	
+	@Override
+	public V get(Object key) {
+		return keyInRange(key) != null ? backend.get(key) : null;
+	}
+	
+	@Override
+	public V put(K key, V value) {
+		if(!inRange(checkKey(key), true)) throw new IllegalArgumentException("The key is out of range!");
+		
+		return backend.put(key, value);
+	}
+	
+	@Override
+	public V remove(Object key) {
+		return keyInRange(key) != null ? backend.remove(key) : null;
+	}
+	
+	@Override
+	public void clear() {
+		backend.flush();
+		
+		StringBuilder sql = new StringBuilder("DELETE FROM " + backend.tableName);
+		appendRange(sql);
+		
+		try{
+			backend.inSession(Operation.CLEAR, connection -> {
+				PreparedStatement statement = connection.prepareStatement(sql.toString());
+				try{
+					bindRange(statement, 1);
+					return statement.executeUpdate();
+				}finally{
+					statement.close();
+				}
+			});
+		}catch(Exception e){
+			throw new BackendException("Could not clear entries!", e);
+		}finally{
+			backend.resetCachedSize();
+			backend.invalidateCachedValues();
+		}
+	}
+	
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		return new AbstractSet<Entry<K, V>>() {
+			@Override
+			public Iterator<Entry<K, V>> iterator() {
+				return new EntryIterator(!descending);
+			}
+			
+			@Override
+			public int size() {
+				return DBNavigableMap.this.size();
+			}
+			
+			@Override
+			public boolean isEmpty() {
+				return DBNavigableMap.this.isEmpty();
+			}
+			
+			@Override
+			public void clear() {
+				DBNavigableMap.this.clear();
+			}
+		};
+	}
+	
+	@Override
+	public Set<K> keySet() {
+		return navigableKeySet();
+	}
+	
+	/*
+	 * NavigableMap
+	 */
+	
+	@Override
+	public Comparator<? super K> comparator() {
+		return descending ? Collections.reverseOrder() : null;
+	}
+	
+	@Override
+	public Entry<K, V> firstEntry() {
+		return descending ? absHighest() : absLowest();
+	}
+	
+	@Override
+	public Entry<K, V> lastEntry() {
+		return descending ? absLowest() : absHighest();
+	}
+	
+	@Override
+	public Entry<K, V> lowerEntry(K key) {
+		checkKey(key);
+		return descending ? absHigher(key) : absLower(key);
+	}
+	
+	@Override
+	public Entry<K, V> floorEntry(K key) {
+		checkKey(key);
+		return descending ? absCeiling(key) : absFloor(key);
+	}
+	
+	@Override
+	public Entry<K, V> ceilingEntry(K key) {
+		checkKey(key);
+		return descending ? absFloor(key) : absCeiling(key);
+	}
+	
+	@Override
+	public Entry<K, V> higherEntry(K key) {
+		checkKey(key);
+		return descending ? absLower(key) : absHigher(key);
+	}
+	
+	@Override
+	public K firstKey() {
+		return keyOrException(firstEntry());
+	}
+	
+	@Override
+	public K lastKey() {
+		return keyOrException(lastEntry());
+	}
+	
+	@Override
+	public K lowerKey(K key) {
+		return keyOrNull(lowerEntry(key));
+	}
+	
+	@Override
+	public K floorKey(K key) {
+		return keyOrNull(floorEntry(key));
+	}
+	
+	@Override
+	public K ceilingKey(K key) {
+		return keyOrNull(ceilingEntry(key));
+	}
+	
+	@Override
+	public K higherKey(K key) {
+		return keyOrNull(higherEntry(key));
+	}
+	
+	@Override
+	public Entry<K, V> pollFirstEntry() {
+		Entry<K, V> entry = firstEntry();
+		if(entry != null) backend.remove(entry.getKey());
+		
+		return entry;
+	}
+	
+	@Override
+	public Entry<K, V> pollLastEntry() {
+		Entry<K, V> entry = lastEntry();
+		if(entry != null) backend.remove(entry.getKey());
+		
+		return entry;
+	}
+	
+	@Override
+	public NavigableMap<K, V> descendingMap() {
+		return view(lowKey, lowInclusive, highKey, highInclusive, !descending);
+	}
+	
+	@Override
+	public NavigableSet<K> navigableKeySet() {
+		return new KeySet<K>(this);
+	}
+	
+	@Override
+	public NavigableSet<K> descendingKeySet() {
+		return descendingMap().navigableKeySet();
+	}
+	
+	@Override
+	public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+		checkKey(fromKey);
+		checkKey(toKey);
+		
+		//die Schlüssel sind in der Reihenfolge dieser Sicht angegeben
+		K low = descending ? toKey : fromKey;
+		boolean lowInc = descending ? toInclusive : fromInclusive;
+		K high = descending ? fromKey : toKey;
+		boolean highInc = descending ? fromInclusive : toInclusive;
+		
+		if(low.compareTo(high) > 0) throw new IllegalArgumentException("fromKey > toKey");
+		if(!inRange(low, lowInc)) throw new IllegalArgumentException("fromKey out of range");
+		if(!inRange(high, highInc)) throw new IllegalArgumentException("toKey out of range");
+		
+		return view(low, lowInc, high, highInc, descending);
+	}
+	
+	@Override
+	public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+		if(!inRange(checkKey(toKey), inclusive)) throw new IllegalArgumentException("toKey out of range");
+		
+		if(descending){
+			return view(toKey, inclusive, highKey, highInclusive, true);
+		}
+		return view(lowKey, lowInclusive, toKey, inclusive, false);
+	}
+	
+	@Override
+	public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+		if(!inRange(checkKey(fromKey), inclusive)) throw new IllegalArgumentException("fromKey out of range");
+		
+		if(descending){
+			return view(lowKey, lowInclusive, fromKey, inclusive, true);
+		}
+		return view(fromKey, inclusive, highKey, highInclusive, false);
+	}
+	
+	@Override
+	public SortedMap<K, V> subMap(K fromKey, K toKey) {
+		return subMap(fromKey, true, toKey, false);
+	}
+	
+	@Override
+	public SortedMap<K, V> headMap(K toKey) {
+		return headMap(toKey, false);
+	}
+	
+	@Override
+	public SortedMap<K, V> tailMap(K fromKey) {
+		return tailMap(fromKey, true);
+	}
+	
+	@Override
+	public String toString() {
+		return "[" + getClass().getSimpleName() + "]\n" +
+				"Backend: " + backend + "\n" +
+				"Range: " + (lowInclusive ? "[" : "(") + (lowKey != null ? lowKey : "-") + ", " +
+				(highKey != null ? highKey : "-") + (highInclusive ? "]" : ")") +
+				(descending ? " descending" : "");
+	}
+	
+	/**
+	 * Liest die Einträge dieser Sicht seitenweise. Eine Seite setzt hinter dem Schlüssel
+	 * des letzten Eintrages der vorherigen Seite fort und wird in einer eigenen Sitzung
+	 * der Map gelesen. Zwischen zwei Seiten wird also keine Verbindung gehalten. Die erste
+	 * Seite wird bereits beim Anlegen gelesen.
+	 */
+	private class EntryIterator implements Iterator<Entry<K, V>>, AutoCloseable {
+		private final InterpreterCache interpreters = new InterpreterCache(backend.typeDictionary);
+		private final boolean ascending;
+		/**
+		 * Die gelesenen, aber noch nicht gelieferten Einträge der aktuellen Seite.
+		 */
+		private final Deque<Entry<K, V>> page = new ArrayDeque<Entry<K, V>>();
+		private boolean exhausted = false;
+		/**
+		 * Schlüssel des zuletzt gelesenen Eintrages. <b>Null</b> vor der ersten Seite.
+		 */
+		private K lastRead;
+		private K lastKey;
+		
+		EntryIterator(boolean ascending) {
+			this.ascending = ascending;
+			backend.flush();
+			
+			readPage();
+		}
+		
+		@Override
+		public void close() {
+			exhausted = true;
+			page.clear();
+		}
+		
+		@Override
+		public boolean hasNext() {
+			if(page.isEmpty() && !exhausted){
+				readPage();
+				}
+				
+			return !page.isEmpty();
+		}
+		
+		@Override
+		public Entry<K, V> next() {
+			if(!hasNext()) throw new NoSuchElementException();
+			
+			Entry<K, V> entry = page.poll();
+			lastKey = entry.getKey();
+			return entry;
+		}
+		
+		/**
+		 * Liest die nächste Seite. Ist sie nicht voll, sind alle Einträge gelesen.
+		 */
+		private void readPage(){
+			final int pageSize = backend.fetchSize;
+			final String operator = lastRead == null ? null : (ascending ? " > " : " < ");
+			int read;
+			try{
+				read = backend.inSession(null, connection -> {
+					PreparedStatement statement = connection.prepareStatement(
+							selectEntries(operator, ascending),
+							ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			try{
+						statement.setMaxRows(pageSize);
+						statement.setFetchSize(pageSize);
+						int index = bindRange(statement, 1);
+						if(operator != null) keyInterpreter.setParameter(statement, index, lastRead);
+						
+						int count = 0;
+						ResultSet set = statement.executeQuery();
+						while(set.next()){
+							lastRead = readKey(set);
+							page.add(new DBMapEntry<K, V>(backend, lastRead, readValue(set, interpreters)));
+							count++;
+						}
+						
+						return count;
+					}finally{
+						statement.close();
+					}
+				});
+			}catch(Exception e){
+				close();
+				throw new BackendException("Could not iterate to next.", e);
+			}
+			
+			if(read < pageSize) exhausted = true;
+		}
+		
+		@Override
+		public void remove() {
+			if(lastKey == null) throw new IllegalStateException("Call next() before remove anything!");
+			
+			backend.remove(lastKey);
+			lastKey = null;
+		}
+	}
+	
+	/**
+	 * Die Schlüssel einer {@link NavigableMap}. Alle Anfragen werden an die Map weitergeleitet.
+	 */
+	private static class KeySet<E> extends AbstractSet<E> implements NavigableSet<E> {
+		private final NavigableMap<E, ?> map;
+		
+		KeySet(NavigableMap<E, ?> map) {
+			this.map = map;
+		}
+		
+		@Override
+		public Iterator<E> iterator() {
+			final Iterator<? extends Entry<E, ?>> entries = map.entrySet().iterator();
+			
+			return new Iterator<E>() {
+				@Override
+				public boolean hasNext() {
+					return entries.hasNext();
+				}
+				
+				@Override
+				public E next() {
+					return entries.next().getKey();
+				}
+				
+				@Override
+				public void remove() {
+					entries.remove();
+				}
+			};
+		}
+		
+		@Override
+		public Iterator<E> descendingIterator() {
+			return descendingSet().iterator();
+		}
+		
+		@Override
+		public int size() {
+			return map.size();
+		}
+		
+		@Override
+		public boolean isEmpty() {
+			return map.isEmpty();
+		}
+		
+		@Override
+		public boolean contains(Object o) {
+			return map.containsKey(o);
+		}
+		
+		@Override
+		public boolean remove(Object o) {
+			if(!map.containsKey(o)) return false;
+			
+			map.remove(o);
+			return true;
+		}
+		
+		@Override
+		public void clear() {
+			map.clear();
+		}
+		
+		@Override
+		public Comparator<? super E> comparator() {
+			return map.comparator();
+		}
+		
+		@Override
+		public E first() {
+			return map.firstKey();
+		}
+		
+		@Override
+		public E last() {
+			return map.lastKey();
+		}
+		
+		@Override
+		public E lower(E e) {
+			return map.lowerKey(e);
+		}
+		
+		@Override
+		public E floor(E e) {
+			return map.floorKey(e);
+		}
+		
+		@Override
+		public E ceiling(E e) {
+			return map.ceilingKey(e);
+		}
+		
+		@Override
+		public E higher(E e) {
+			return map.higherKey(e);
+		}
+		
+		@Override
+		public E pollFirst() {
+			return keyOrNull(map.pollFirstEntry());
+		}
+		
+		@Override
+		public E pollLast() {
+			return keyOrNull(map.pollLastEntry());
+		}
+		
+		@Override
+		public NavigableSet<E> descendingSet() {
+			return new KeySet<E>(map.descendingMap());
+		}
+		
+		@Override
+		public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+			return new KeySet<E>(map.subMap(fromElement, fromInclusive, toElement, toInclusive));
+		}
+		
+		@Override
+		public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+			return new KeySet<E>(map.headMap(toElement, inclusive));
+		}
+		
+		@Override
+		public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+			return new KeySet<E>(map.tailMap(fromElement, inclusive));
+		}
+		
+		@Override
+		public SortedSet<E> subSet(E fromElement, E toElement) {
+			return subSet(fromElement, true, toElement, false);
+		}
+		
+		@Override
+		public SortedSet<E> headSet(E toElement) {
+			return headSet(toElement, false);
+		}
+		
+		@Override
+		public SortedSet<E> tailSet(E fromElement) {
+			return tailSet(fromElement, true);
+		}
+	}
+}
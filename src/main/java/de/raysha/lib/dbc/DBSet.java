@@ -5,10 +5,17 @@ import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
 
 import de.raysha.lib.dbc.beans.ConnectionInfo;
 import de.raysha.lib.dbc.exception.BackendException;
+import de.raysha.lib.dbc.metrics.SqlTracer;
 
 /**
  * Das DB(Database)-Set ist eine {@link Set} Implementierung.
@@ -20,49 +27,107 @@ import de.raysha.lib.dbc.exception.BackendException;
  * Schlüssel gibt.
  * 
  * @author rainu
- *
+ * 
  * @param <E> Muss serialisierbar sein
  */
 public class DBSet<E> 
-	implements Set<E>, ColumnNames {
+	implements Set<E>, ColumnNames, AutoCloseable {
 	
 	private final DBMap<E, ?> backend;
+	/**
+	 * Wurde die {@link DBMap} vom Set selbst angelegt, wird sie zusammen mit
+	 * dem Set geschlossen.
+	 */
+	private final boolean ownsBackend;
 	
 	public DBSet(DBMap<E, ?> backend) {
+		this(backend, false);
+	}
+	
+	protected DBSet(DBMap<E, ?> backend, boolean ownsBackend) {
 		this.backend = backend;
+		this.ownsBackend = ownsBackend;
 	}
 	
 	public DBSet(ConnectionInfo info, String tableName, boolean dropIfExist, boolean debugMode){
-		this(new DBMap<E, Serializable>(info, tableName, dropIfExist, debugMode));
+		this(new DBMap<E, Serializable>(info, tableName, dropIfExist, debugMode), true);
 	}
 	
 	public DBSet(ConnectionInfo info, String tableName, boolean dropIfExist){
-		this(new DBMap<E, Serializable>(info, tableName, dropIfExist));
+		this(new DBMap<E, Serializable>(info, tableName, dropIfExist), true);
 	}
 	
 	public DBSet(ConnectionInfo info, String tableName){
-		this(new DBMap<E, Serializable>(info, tableName));
+		this(new DBMap<E, Serializable>(info, tableName), true);
 	}
 	
 	public DBSet(ConnectionInfo info){
-		this(new DBMap<E, Serializable>(info));
+		this(new DBMap<E, Serializable>(info), true);
+	}
+	
+	public DBSet(DataSource dataSource, String tableName, boolean dropIfExist, boolean debugMode){
+		this(new DBMap<E, Serializable>(dataSource, tableName, dropIfExist, debugMode), true);
+	}
+	
+	public DBSet(DataSource dataSource, String tableName, boolean dropIfExist){
+		this(new DBMap<E, Serializable>(dataSource, tableName, dropIfExist), true);
+	}
+	
+	public DBSet(DataSource dataSource, String tableName){
+		this(new DBMap<E, Serializable>(dataSource, tableName), true);
+	}
+	
+	public DBSet(DataSource dataSource){
+		this(new DBMap<E, Serializable>(dataSource), true);
+	}
+	
+	/**
+	 * Wurde die {@link DBMap} vom Set angelegt, wird diese geschlossen. Ein Set, das
+	 * eine bestehende Map verwendet (z.B. {@link DBMap#keySet()}), lässt diese offen.
+	 */
+	@Override
+	public void close() {
+		if(ownsBackend){
+			backend.close();
+		}
+	}
+		
+	/**
+	 * @see DBMap#beginBatch()
+	 */
+	public Transaction beginBatch(){
+		return backend.beginBatch();
+	}
+	
+	/**
+	 * @see DBMap#transaction(Consumer)
+	 */
+	public void transaction(Consumer<? super Transaction> work){
+		backend.transaction(work);
+	}
+		
+	/**
+	 * @see DBMap#trace(SqlTracer)
+	 */
+	public void trace(SqlTracer tracer){
+		backend.trace(tracer);
 	}
 		
 	@Override
 	public int size() {
 		return backend.size();
 	}
-
+	
 	@Override
 	public boolean isEmpty() {
 		return backend.isEmpty();
 	}
-
+	
 	@Override
 	public boolean contains(Object o) {
 		return backend.containsKey(o);
 	}
-
+	
 	@Override
 	public Iterator<E> iterator() {
 		try{
@@ -71,7 +136,18 @@ public class DBSet<E>
 			throw new BackendException("Could not initialize backend-key-iterator!", e);
 		}
 	}
-
+	
+	/**
+	 * Liefert einen {@link DBMapSpliterator}, der anhand der Hash-Werte der Schlüssel
+	 * geteilt wird. Die Teile eines parallelen Streams werden dabei unabhängig
+	 * voneinander seitenweise gelesen.
+	 */
+	@Override
+	public Spliterator<E> spliterator() {
+		return DBMapSpliterator.overHashes(backend, false, (key, value) -> key,
+				Spliterator.DISTINCT | Spliterator.NONNULL);
+	}
+	
 	@Override
 	public Object[] toArray() {
 		Object[] array = new Object[size()];
@@ -83,7 +159,7 @@ public class DBSet<E>
 		
 		return array;
 	}
-
+	
 	@SuppressWarnings("unchecked")
 	@Override
 	public <T> T[] toArray(T[] a) {
@@ -100,7 +176,7 @@ public class DBSet<E>
 		
 		return a;
 	}
-
+	
 	@Override
 	public boolean add(E e) {
 		if(!backend.containsKey(e)){
@@ -110,7 +186,7 @@ public class DBSet<E>
 			return false;
 		}
 	}
-
+	
 	@Override
 	public boolean remove(Object o) {
 		if(backend.containsKey(o)){
@@ -120,7 +196,7 @@ public class DBSet<E>
 			return false;
 		}
 	}
-
+	
 	@Override
 	public boolean containsAll(Collection<?> c) {
 		if(c == this) return true;
@@ -134,31 +210,37 @@ public class DBSet<E>
 		
 		return true;
 	}
-
+	
 	@Override
 	public boolean addAll(Collection<? extends E> c) {
 		if(c == this) return false;
 		
-		boolean changed = false;
-		
 		if(c == null) {
 			throw new NullPointerException();
 		}
 		
+		//Anstatt für jedes Element einzeln zu prüfen ob es schon
+		//vorhanden ist und es danach einzufügen, werden die
+		//vorhandenen Elemente gebündelt ermittelt und die fehlenden
+		//Elemente per Batch geschrieben.
+		Map<E, Object> toAdd = new LinkedHashMap<E, Object>();
 		for(E curObject : c){
-			if(add(curObject)){
-				changed = true;
+			if(curObject != null){
+				toAdd.put(curObject, null);
 			}
 		}
+		toAdd.keySet().removeAll(backend.getContainedKeys(toAdd.keySet()));
 		
-		return changed;
+		backend.batchPut(toAdd);
+		
+		return !toAdd.isEmpty();
 	}
-
+	
 	@Override
 	public boolean retainAll(Collection<?> c) {
 		return backend.retainAllKeys(c);
 	}
-
+	
 	@Override
 	public boolean removeAll(Collection<?> c) {
 		if(c == this){
@@ -178,12 +260,12 @@ public class DBSet<E>
 		
 		return changed;
 	}
-
+	
 	@Override
 	public void clear() {
 		backend.clear();
 	}
-
+	
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -191,7 +273,7 @@ public class DBSet<E>
 		result = prime * result + ((backend == null) ? 0 : backend.hashCode());
 		return result;
 	}
-
+	
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj)
@@ -209,7 +291,7 @@ public class DBSet<E>
 			return false;
 		return true;
 	}
-
+	
 	@Override
 	public String toString() {
 		return "[" + getClass().getSimpleName() + "]\n" +
@@ -0,0 +1,42 @@
+package de.raysha.lib.dbc;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import de.raysha.lib.dbc.map.interpreter.Interpreter;
+import de.raysha.lib.dbc.map.interpreter.InterpreterProvider;
+import de.raysha.lib.dbc.meta.TypeDictionary;
+
+/**
+ * Merkt sich zu jeder gespeicherten Typ-Kennung (z.B. {@link ColumnNames#COL_KEY_TYPE})
+ * den zugehörigen {@link Interpreter}. So muss beim Iterieren nicht für jede Zeile
+ * der Typ erneut aufgelöst werden. Eine Instanz ist nicht für die gleichzeitige
+ * Verwendung durch mehrere Threads gedacht.
+ * 
+ * @author rainu
+ */
+class InterpreterCache {
+	private final TypeDictionary typeDictionary;
+	private final Map<Short, Interpreter<?>> interpreters = new HashMap<Short, Interpreter<?>>();
+	
+	InterpreterCache(TypeDictionary typeDictionary) {
+		this.typeDictionary = typeDictionary;
+	}
+	
+	/**
+	 * @param typeId Kennung der gespeicherten Klasse (siehe {@link TypeDictionary})
+	 * @return <b>Null</b> wenn keine Klasse angegeben ist. Andernfalls der Interpreter der Klasse.
+	 * @throws ClassNotFoundException
+	 */
+	public Interpreter<?> getInterpreter(short typeId) throws ClassNotFoundException{
+		if(typeId == TypeDictionary.NO_TYPE) return null;
+		
+		Interpreter<?> interpreter = interpreters.get(typeId);
+		if(interpreter == null){
+			interpreter = InterpreterProvider.getInstance().getInterpreter(typeDictionary.getType(typeId));
+			interpreters.put(typeId, interpreter);
+		}
+		
+		return interpreter;
+	}
+}
@@ -0,0 +1,179 @@
+package de.raysha.lib.dbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import de.raysha.lib.dbc.connection.ConnectionProvider;
+import de.raysha.lib.dbc.exception.BackendException;
+
+/**
+ * Eine Transaktion, die mehrere Operationen zusammenfasst (siehe {@link DBMap#beginBatch()}).
+ * Solange sie offen ist, wird die Verbindung nicht im Auto-Commit-Modus betrieben,
+ * die Änderungen werden also erst mit {@link #commit()} gemeinsam geschrieben. Wird die
+ * Transaktion ohne {@link #commit()} geschlossen, werden alle ausstehenden Änderungen
+ * verworfen.
+ * <br/><br/>
+ * Alle Operationen des aktuellen Threads auf Maps, die die selbe Verbindung verwenden,
+ * nehmen an der Transaktion teil. Bei Maps mit Pool (siehe
+ * {@link de.raysha.lib.dbc.beans.ConnectionInfo#isPooled()}) gilt dies für alle Maps
+ * des selben Pools. Beim Zurückrollen werden die zwischengespeicherten Daten (z.B.
+ * die Größe) aller beteiligten Maps verworfen.
+ * <br/><br/>
+ * Läuft auf der Verbindung bereits eine Transaktion, wird keine neue begonnen. In diesem
+ * Fall bleiben das Committen und Zurückrollen der äußeren Transaktion überlassen.
+ * Eine Transaktion darf nur von dem Thread verwendet werden, der sie begonnen hat.
+ * 
+ * @author rainu
+ */
+public class Transaction implements AutoCloseable {
+	/**
+	 * Die offenen Transaktionen des aktuellen Threads.
+	 */
+	private static final ThreadLocal<List<Transaction>> ACTIVE = new ThreadLocal<List<Transaction>>(){
+		@Override
+		protected List<Transaction> initialValue() {
+			return new ArrayList<Transaction>(1);
+		}
+	};
+	
+	private final Connection connection;
+	private final ConnectionProvider provider;
+	private final Runnable release;
+	private final boolean owner;
+	private final Set<DBMap<?, ?>> participants =
+			Collections.newSetFromMap(new IdentityHashMap<DBMap<?, ?>, Boolean>());
+	
+	/**
+	 * Wurde seit dem letzten {@link #commit()} auf eine Map zugegriffen?
+	 */
+	private boolean pending = false;
+	private boolean closed = false;
+	
+	/**
+	 * @param connection Verbindung der Transaktion.
+	 * @param provider Pool, aus dem die Verbindung stammt. Kann <b>null</b> sein.
+	 * @param release Gibt die Verbindung wieder frei, sobald die Transaktion geschlossen wird.
+	 * @throws SQLException
+	 */
+	Transaction(Connection connection, ConnectionProvider provider, Runnable release) throws SQLException {
+		this.connection = connection;
+		this.provider = provider;
+		this.release = release;
+		this.owner = connection.getAutoCommit() && getActive(connection) == null;
+		
+		if(owner){
+			connection.setAutoCommit(false);
+			ACTIVE.get().add(this);
+		}
+	}
+	
+	/**
+	 * @return Die offene Transaktion des aktuellen Threads auf der gegebenen Verbindung.
+	 * <b>Null</b> wenn es keine gibt.
+	 */
+	static Transaction getActive(Connection connection){
+		for(Transaction transaction : ACTIVE.get()){
+			if(transaction.connection == connection) return transaction;
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * @return Die Verbindung der offenen Transaktion des aktuellen Threads, die aus dem
+	 * gegebenen Pool stammt. <b>Null</b> wenn es keine gibt.
+	 */
+	static Connection getActiveConnection(ConnectionProvider provider){
+		for(Transaction transaction : ACTIVE.get()){
+			if(transaction.provider == provider) return transaction.connection;
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Vermerkt, dass die gegebene Map innerhalb dieser Transaktion verwendet wird.
+	 */
+	void participate(DBMap<?, ?> map){
+		participants.add(map);
+		pending = true;
+	}
+	
+	private void checkOpen(){
+		if(closed) throw new IllegalStateException("This transaction is already closed!");
+	}
+	
+	/**
+	 * @return True, wenn diese Transaktion auf der Verbindung begonnen wurde. False, wenn sie
+	 * an einer bereits laufenden Transaktion teilnimmt.
+	 */
+	public boolean isOwner() {
+		return owner;
+	}
+	
+	public boolean isClosed() {
+		return closed;
+	}
+	
+	/**
+	 * Schreibt alle bisherigen Änderungen. Die Transaktion bleibt anschließend offen,
+	 * alle weiteren Änderungen werden wieder gesammelt.
+	 */
+	public void commit() {
+		checkOpen();
+		
+		if(owner){
+			try{
+				connection.commit();
+			}catch(SQLException e){
+				throw new BackendException("Could not commit transaction!", e);
+			}
+		}
+		pending = false;
+	}
+	
+	/**
+	 * Verwirft alle Änderungen seit dem letzten {@link #commit()}. Die zwischengespeicherten
+	 * Daten aller beteiligten Maps werden verworfen.
+	 */
+	public void rollback() {
+		checkOpen();
+		
+		try{
+			if(owner) connection.rollback();
+		}catch(SQLException e){
+			throw new BackendException("Could not rollback transaction!", e);
+		}finally{
+			for(DBMap<?, ?> map : participants){
+				map.resetCachedSize();
+				map.invalidateCachedValues();
+			}
+			pending = false;
+		}
+	}
+	
+	/**
+	 * Verwirft alle nicht committeten Änderungen und beendet die Transaktion.
+	 */
+	@Override
+	public void close() {
+		if(closed) return;
+		
+		try{
+			if(pending && owner) rollback();
+		}finally{
+			closed = true;
+			
+			if(owner){
+				ACTIVE.get().remove(this);
+				try{ connection.setAutoCommit(true); }catch(SQLException e){}
+			}
+			release.run();
+		}
+	}
+}
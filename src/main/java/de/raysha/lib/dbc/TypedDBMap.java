@@ -0,0 +1,530 @@
+package de.raysha.lib.dbc;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import de.raysha.lib.dbc.beans.ConnectionInfo;
+import de.raysha.lib.dbc.connection.ConnectionProvider;
+import de.raysha.lib.dbc.exception.BackendException;
+import de.raysha.lib.dbc.lifecycle.CloseableResources;
+import de.raysha.lib.dbc.lifecycle.LeakDetector;
+import de.raysha.lib.dbc.map.access.TypedAccess;
+import de.raysha.lib.dbc.map.interpreter.Interpreter;
+import de.raysha.lib.dbc.map.interpreter.InterpreterProvider;
+import de.raysha.lib.dbc.meta.MetadataManager;
+import de.raysha.lib.dbc.meta.TableMetadata;
+
+/**
+ * Diese {@link Map} Implementierung legt ihre Einträge (wie die {@link DBMap}) in einer
+ * Datenbank ab, allerdings in einer Tabelle mit schmalem Schema. Da Schlüssel- und Wert-Typ
+ * beim Anlegen über ihre {@link Class}-Objekte festgelegt werden, besteht die Tabelle nur aus
+ * einer typisierten Schlüssel-Spalte (Primärschlüssel) und einer Wert-Spalte. Eine
+ * <i>TypedDBMap&lt;Long, String&gt;</i> legt z.B. die Tabelle
+ * <i>(KEY_LONG BIGINT PRIMARY KEY, VALUE_STRING CLOB)</i> an.
+ * <br/><br/>
+ * Im Gegensatz zur {@link DBMap} entfallen dadurch die leeren Spalten der übrigen Typen,
+ * die Typ-Namen sowie die Hash-Werte je Eintrag. Zeilen und Index werden deutlich kleiner
+ * und ein Schlüssel wird direkt über den Primärschlüssel gefunden. Die Schlüssel müssen
+ * allerdings in einer typisierten Spalte abgelegt werden können (z.B. {@link Long} oder
+ * {@link String}). Als Wert eignet sich jeder Typ, den auch die {@link DBMap} speichern kann.
+ * Nicht-primitive Werte werden dabei über ihren {@link de.raysha.lib.dbc.map.codec.Codec}
+ * gespeichert, ohne dass ihre Klasse je Eintrag vermerkt wird.
+ * <br/><br/>
+ * Der Typ der Tabelle wird in den Metadaten vermerkt. Eine bestehende Tabelle kann nur mit
+ * denselben Typen geöffnet werden. Die Operationen der Map verwenden die eine Verbindung
+ * der Map und sind daher synchronisiert. Iteratoren dürfen nicht von mehreren Threads
+ * gleichzeitig verwendet werden.
+ * 
+ * @author rainu
+ * 
+ * @param <K> Typ des Schlüssels
+ * @param <V> Typ des Wertes
+ */
+public class TypedDBMap<K, V> extends AbstractDBMap<K, V> implements ColumnNames{
+	public static final String TABLE_VERSION = "typed-1.0";
+	
+	/**
+	 * Name der Eigenschaft in den Metadaten, unter der der Schlüssel-Typ vermerkt ist.
+	 */
+	public static final String METADATA_KEY_TYPE = "keyType";
+	
+	/**
+	 * Name der Eigenschaft in den Metadaten, unter der der Wert-Typ vermerkt ist.
+	 */
+	public static final String METADATA_VALUE_TYPE = "valueType";
+	
+	protected final Class<K> keyClass;
+	protected final Class<V> valueClass;
+	protected final boolean dropIfExists;
+	protected int batchSize = DBMap.DEFAULT_BATCH_SIZE;
+	protected int fetchSize = DBMap.DEFAULT_FETCH_SIZE;
+	
+	protected final MetadataManager metadataManager;
+	private final TypedAccess access;
+	private PreparedStatement sizeStatement;
+	private PreparedStatement clearStatement;
+	
+	public TypedDBMap(ConnectionInfo info, String tableName, Class<K> keyClass, Class<V> valueClass, boolean dropIfExist){
+		super(info, tableName);
+		
+		this.keyClass = keyClass;
+		this.valueClass = valueClass;
+		this.dropIfExists = dropIfExist;
+		this.metadataManager = initMetadataManager();
+		this.access = init();
+	}
+	
+	public TypedDBMap(ConnectionInfo info, String tableName, Class<K> keyClass, Class<V> valueClass){
+		//wie bei der DBMap: wer den Tabellennamen angibt, möchte die Tabelle behalten
+		this(info, tableName, keyClass, valueClass, false);
+	}
+	
+	/**
+	 * Die Map verwendet eine vom gegebenen Provider ausgeliehene Verbindung, anstatt
+	 * selbst eine Verbindung aufzubauen.
+	 * 
+	 * @param provider Provider, von dem die Verbindung der Map ausgeliehen wird.
+	 * @param tableName Name der Tabelle
+	 * @param keyClass Typ der Schlüssel
+	 * @param valueClass Typ der Werte
+	 * @param dropIfExist Soll die Tabelle geleert werden, falls sie schon existiert?
+	 */
+	public TypedDBMap(ConnectionProvider provider, String tableName, Class<K> keyClass, Class<V> valueClass, boolean dropIfExist){
+		super(provider, tableName);
+		
+		this.keyClass = keyClass;
+		this.valueClass = valueClass;
+		this.dropIfExists = dropIfExist;
+		this.metadataManager = initMetadataManager();
+		this.access = init();
+	}
+	
+	private MetadataManager initMetadataManager() {
+		try {
+			return addResource(new MetadataManager(connection));
+		} catch (SQLException e) {
+			throw new BackendException("Could not initialise metadata-manager.", e);
+		}
+	}
+	
+	private TypedAccess init(){
+		if(keyClass == null || valueClass == null){
+			throw new NullPointerException("The key and value class must not be null!");
+		}
+		
+		Interpreter<?> keyInterpreter = InterpreterProvider.getInstance().getInterpreter(keyClass);
+		Interpreter<?> valueInterpreter = InterpreterProvider.getInstance().getInterpreter(valueClass);
+		if(!TypedAccess.isKeyInterpreter(keyInterpreter)){
+			throw new IllegalArgumentException("The key class " + keyClass.getName() +
+					" can not be stored in a typed column!");
+		}
+		
+		boolean created = createTable(keyInterpreter, valueInterpreter);
+		checkMetadata(created);
+		if(!created && dropIfExists) truncateTable();
+		
+		try{
+			sizeStatement = addResource(connection.prepareStatement(
+					"SELECT COUNT(*) FROM " + tableName));
+			clearStatement = addResource(connection.prepareStatement(
+					"DELETE FROM " + tableName));
+			
+			return addResource(new TypedAccess(connection, tableName, keyInterpreter, valueInterpreter));
+		}catch(SQLException e){
+			throw new BackendException("Could not initialise map.", e);
+		}
+	}
+	
+	/**
+	 * @return True, wenn die Tabelle neu angelegt wurde.
+	 */
+	private boolean createTable(Interpreter<?> keyInterpreter, Interpreter<?> valueInterpreter){
+		try{
+			connection.createStatement()
+				.execute(TypedAccess.getCreateStatement(tableName, keyInterpreter, valueInterpreter));
+			
+			return true;
+		}catch(SQLException e){
+			//Möglicherweise ist die Tabelle schon vorhanden
+			return false;
+		}
+	}
+	
+	/**
+	 * Leert eine bestehende Tabelle. Erst nach {@link #checkMetadata(boolean)}, damit
+	 * keine fremde Tabelle geleert wird.
+	 */
+	private void truncateTable(){
+		try{
+			connection.createStatement().execute("TRUNCATE TABLE " + tableName);
+		}catch (SQLException e) {
+			throw new BackendException("Could not truncate existing table!", e);
+		}
+	}
+	
+	private void checkMetadata(boolean created){
+		TableMetadata metadata = metadataManager.getTableMetadata(tableName);
+		
+		if(created){
+			if(metadata == null) metadataManager.insertMetadata(tableName, TABLE_VERSION);
+			else metadataManager.updateVersion(tableName, TABLE_VERSION);
+			
+			metadataManager.setProperty(tableName, METADATA_KEY_TYPE, keyClass.getName());
+			metadataManager.setProperty(tableName, METADATA_VALUE_TYPE, valueClass.getName());
+			return;
+		}
+		
+		if(metadata == null || !TABLE_VERSION.equals(metadata.getVersion())){
+			throw new BackendException("The table " + tableName + " is not a typed map!");
+		}
+		
+		String keyType = metadataManager.getProperties(tableName).getProperty(METADATA_KEY_TYPE);
+		String valueType = metadataManager.getProperties(tableName).getProperty(METADATA_VALUE_TYPE);
+		if(!keyClass.getName().equals(keyType) || !valueClass.getName().equals(valueType)){
+			throw new BackendException("The table " + tableName + " stores " +
+					keyType + " -> " + valueType + " but not " +
+					keyClass.getName() + " -> " + valueClass.getName());
+		}
+	}
+	
+	public Class<K> getKeyClass() {
+		return keyClass;
+	}
+	
+	public Class<V> getValueClass() {
+		return valueClass;
+	}
+	
+	/**
+	 * @param batchSize Anzahl der Einträge, die bei {@link #putAll(Map)} gemeinsam
+	 * geschrieben werden.
+	 */
+	public void setBatchSize(int batchSize) {
+		if(batchSize <= 0) throw new IllegalArgumentException("Batch size must be greater then 0!");
+		
+		this.batchSize = batchSize;
+	}
+	
+	/**
+	 * @param fetchSize Anzahl der Einträge, die Iteratoren je Abfrage aus der Datenbank lesen.
+	 */
+	public void setFetchSize(int fetchSize) {
+		if(fetchSize <= 0) throw new IllegalArgumentException("Fetch size must be greater then 0!");
+		
+		this.fetchSize = fetchSize;
+	}
+	
+	private K checkKey(K key){
+		if(key == null) throw new NullPointerException("Null-Keys are not supported!");
+		
+		return keyClass.cast(key);
+	}
+	
+	private V checkValue(V value){
+		return valueClass.cast(value);
+	}
+	
+	@Override
+	public synchronized int size() {
+		try{
+			ResultSet result = sizeStatement.executeQuery();
+			try{
+				result.next();
+				return result.getInt(1);
+			}finally{
+				result.close();
+			}
+		}catch(SQLException e){
+			throw new BackendException("Could not determine the size of the map.", e);
+		}
+	}
+	
+	@Override
+	public synchronized boolean containsKey(Object key) {
+		if(!keyClass.isInstance(key)) return false;
+		
+		try{
+			return access.contains(key);
+		}catch(Exception e){
+			throw new BackendException("Could not check the key.", e);
+		}
+	}
+	
+	@Override
+	public boolean containsValue(Object value) {
+		if(value != null && !valueClass.isInstance(value)) return false;
+		
+		for(V cur : values()){
+			if(value == null ? cur == null : value.equals(cur)) return true;
+		}
+		
+		return false;
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public synchronized V get(Object key) {
+		if(!keyClass.isInstance(key)) return null;
+		
+		try{
+			return (V)access.get(key);
+		}catch(Exception e){
+			throw new BackendException("Could not get the value.", e);
+		}
+	}
+	
+	@Override
+	public synchronized V put(K key, V value) {
+		checkKey(key);
+		checkValue(value);
+		
+		V previous = get(key);
+		try{
+			access.merge(key, value);
+		}catch(Exception e){
+			throw new BackendException("Could not put the value.", e);
+		}
+		
+		return previous;
+	}
+	
+	@Override
+	public synchronized V remove(Object key) {
+		if(!keyClass.isInstance(key)) return null;
+		
+		V previous = get(key);
+		try{
+			access.remove(key);
+		}catch(Exception e){
+			throw new BackendException("Could not remove the value.", e);
+		}
+		
+		return previous;
+	}
+	
+	/**
+	 * Schreibt die Einträge gebündelt (siehe {@link #setBatchSize(int)}) in die Datenbank.
+	 */
+	@Override
+	public synchronized void putAll(Map<? extends K, ? extends V> m) {
+		try{
+			int pending = 0;
+			for(Entry<? extends K, ? extends V> entry : m.entrySet()){
+				access.addBatch(checkKey(entry.getKey()), checkValue(entry.getValue()));
+				
+				if(++pending >= batchSize){
+					access.executeBatch();
+					pending = 0;
+				}
+			}
+			
+			if(pending > 0) access.executeBatch();
+		}catch(RuntimeException e){
+			throw e;
+		}catch(Exception e){
+			throw new BackendException("Could not put the values.", e);
+		}
+	}
+	
+	@Override
+	public synchronized void clear() {
+		try{
+			clearStatement.executeUpdate();
+		}catch(SQLException e){
+			throw new BackendException("Could not clear the map.", e);
+		}
+	}
+	
+	@Override
+	public Set<K> keySet() {
+		return new AbstractSet<K>() {
+			@Override
+			public Iterator<K> iterator() {
+				return new EntryIterator<K>(false) {
+					@Override
+					protected K create(K key, V value) {
+						return key;
+					}
+				};
+			}
+			
+			@Override
+			public int size() {
+				return TypedDBMap.this.size();
+			}
+			
+			@Override
+			public boolean contains(Object o) {
+				return containsKey(o);
+			}
+			
+			@Override
+			public boolean remove(Object o) {
+				boolean contained = containsKey(o);
+				TypedDBMap.this.remove(o);
+				
+				return contained;
+			}
+			
+			@Override
+			public void clear() {
+				TypedDBMap.this.clear();
+			}
+		};
+	}
+	
+	@Override
+	public Collection<V> values() {
+		return new AbstractCollection<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				return new EntryIterator<V>(true) {
+					@Override
+					protected V create(K key, V value) {
+						return value;
+					}
+				};
+			}
+			
+			@Override
+			public int size() {
+				return TypedDBMap.this.size();
+			}
+			
+			@Override
+			public void clear() {
+				TypedDBMap.this.clear();
+			}
+		};
+	}
+	
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		return new AbstractSet<Entry<K, V>>() {
+			@Override
+			public Iterator<Entry<K, V>> iterator() {
+				return new EntryIterator<Entry<K, V>>(true) {
+					@Override
+					protected Entry<K, V> create(K key, V value) {
+						return new AbstractMap.SimpleEntry<K, V>(key, value){
+							private static final long serialVersionUID = 1L;
+							
+							@Override
+							public V setValue(V value) {
+								put(getKey(), value);
+								
+								return super.setValue(value);
+							}
+						};
+					}
+				};
+			}
+			
+			@Override
+			public int size() {
+				return TypedDBMap.this.size();
+			}
+			
+			@Override
+			public void clear() {
+				TypedDBMap.this.clear();
+			}
+		};
+	}
+	
+	/**
+	 * Iteriert über einen Cursor auf der Tabelle. Der Cursor wird geschlossen, sobald der 
+	 * Iterator erschöpft ist. Wird nicht bis zum Ende iteriert, sollte der Iterator über 
+	 * {@link #close()} geschlossen werden.
+	 */
+	private abstract class EntryIterator<T> implements Iterator<T>, AutoCloseable {
+		private final CloseableResources resources = new CloseableResources();
+		private final LeakDetector.Registration registration;
+		private final boolean withValues;
+		private final ResultSet set;
+		private boolean fetched = false;
+		private boolean available = false;
+		private boolean started = false;
+		private K currentKey;
+		
+		EntryIterator(boolean withValues) {
+			this.withValues = withValues;
+			this.registration = LeakDetector.register(this, resources);
+			
+			try{
+				PreparedStatement statement = resources.add(connection.prepareStatement(
+						"SELECT " + access.getKeyColumn() +
+							(withValues ? ", " + access.getValueColumn() : "") +
+						" FROM " + tableName,
+						ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY));
+				statement.setFetchSize(fetchSize);
+				
+				this.set = resources.add(statement.executeQuery());
+			}catch(SQLException e){
+				close();
+				throw new BackendException("Could not open the cursor.", e);
+			}
+		}
+		
+		protected abstract T create(K key, V value);
+		
+		@Override
+		public void close() {
+			registration.close();
+		}
+		
+		@Override
+		public boolean hasNext() {
+			if(!fetched){
+				try{
+					available = !registration.isClosed() && set.next();
+				}catch(SQLException e){
+					throw new BackendException(
+							"Could not iterate to next.", e);
+				}
+				fetched = true;
+				
+				if(!available) close();
+			}
+			
+			return available;
+		}
+		
+		@Override
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if(!hasNext()) throw new NoSuchElementException();
+			fetched = false;
+			started = true;
+			
+			try{
+				currentKey = (K)access.getKey(set, 1);
+				
+				return create(currentKey, withValues ? (V)access.getValue(set, 2) : null);
+			}catch(Exception e){
+				throw new BackendException(
+						"Could not extract entry from backend!", e);
+			}
+		}
+		
+		@Override
+		public void remove() {
+			if(!started) throw new IllegalStateException(
+					"You must call next() before you can remove anything!");
+			
+			TypedDBMap.this.remove(currentKey);
+			//erst der nächste Aufruf von next() liefert wieder einen Eintrag zum Löschen
+			started = false;
+			currentKey = null;
+		}
+	}
+}
@@ -0,0 +1,445 @@
+package de.raysha.lib.dbc;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import de.raysha.lib.dbc.beans.ConnectionInfo;
+import de.raysha.lib.dbc.exception.BackendException;
+
+/**
+ * Diese {@link DBMap} schreibt ihre Änderungen nicht synchron in die Datenbank.
+ * Stattdessen werden {@link #put(Object, Object)} und {@link #remove(Object)} in
+ * einem begrenzten Puffer vorgemerkt. Mehrfache Änderungen am selben Schlüssel werden
+ * dabei zusammengefasst (die letzte Änderung gewinnt). Ein Hintergrund-Thread schreibt
+ * den Puffer über eine eigene Verbindung per JDBC-Batch in die Datenbank.
+ * <br/><br/>
+ * {@link #get(Object)} und {@link #containsKey(Object)} berücksichtigen die noch nicht
+ * geschriebenen Änderungen. Alle anderen Operationen schreiben vorher den Puffer weg
+ * (siehe {@link #flush()}). Ist der Puffer voll, blockieren schreibende Aufrufe so lange,
+ * bis wieder Platz ist.
+ * <br/><br/>
+ * Wird die Map nicht mehr benötigt, <b>muss</b> {@link #close()} aufgerufen werden,
+ * da sonst noch ausstehende Änderungen verloren gehen können.
+ * 
+ * @author rainu
+ * 
+ * @param <K> Typ des Schlüssels (Muss serialisierbar sein)
+ * @param <V> Typ des Wertes (Muss serialisierbar sein)
+ */
+public class WriteBehindDBMap<K, V> extends DBMap<K, V> {
+	public static final int DEFAULT_CAPACITY = 10000;
+	public static final long DEFAULT_FLUSH_DELAY = 100;
+	
+	/**
+	 * Markiert einen vorgemerkten Schlüssel als gelöscht.
+	 */
+	private static final Object REMOVED = new Object();
+	
+	private final DBMap<Object, Object> writer;
+	private final int capacity;
+	private final long flushDelay;
+	private final Thread flusher;
+	
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notFull = lock.newCondition();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition flushRequested = lock.newCondition();
+	private final Condition flushed = lock.newCondition();
+	
+	private Map<Object, Object> pending = new LinkedHashMap<Object, Object>();
+	private Map<Object, Object> inFlight = new LinkedHashMap<Object, Object>();
+	private boolean flushRequest = false;
+	private boolean closed = false;
+	private Exception failure;
+	
+	/**
+	 * 
+	 * @param info Verbindungsinformationen
+	 * @param tableName Name der Tabelle
+	 * @param dropIfExist Soll die Tabelle geleert werden, falls sie schon existiert?
+	 * @param debugMode Sollen zusätzlich die String-Repräsentationen gespeichert werden?
+	 * @param capacity Maximale Anzahl der (unterschiedlichen) Schlüssel, die vorgemerkt
+	 * werden können, bevor schreibende Aufrufe blockieren.
+	 * @param flushDelay Zeit in Millisekunden, die der Hintergrund-Thread nach der ersten
+	 * Änderung wartet, um weitere Änderungen zu sammeln.
+	 */
+	public WriteBehindDBMap(ConnectionInfo info, String tableName, boolean dropIfExist,
+			boolean debugMode, int capacity, long flushDelay){
+		
+		super(info, tableName, dropIfExist, debugMode);
+		
+		if(capacity <= 0) throw new IllegalArgumentException("Capacity must be greater then 0!");
+		if(flushDelay < 0) throw new IllegalArgumentException("Flush-delay must not be negative!");
+		
+		this.capacity = capacity;
+		this.flushDelay = flushDelay;
+		
+		//der Hintergrund-Thread bekommt seine eigene Verbindung, damit
+		//sich die Threads nicht die Statements teilen müssen
+		this.writer = new DBMap<Object, Object>(info, this.tableName, false, debugMode);
+		
+		this.flusher = new Thread(new Flusher(), "dbc-write-behind-" + this.tableName);
+		this.flusher.setDaemon(true);
+		this.flusher.start();
+	}
+	
+	public WriteBehindDBMap(ConnectionInfo info, String tableName, boolean dropIfExist, int capacity){
+		this(info, tableName, dropIfExist, false, capacity, DEFAULT_FLUSH_DELAY);
+	}
+	
+	public WriteBehindDBMap(ConnectionInfo info, String tableName, boolean dropIfExist){
+		this(info, tableName, dropIfExist, DEFAULT_CAPACITY);
+	}
+	
+	public WriteBehindDBMap(ConnectionInfo info, String tableName){
+		this(info, tableName, false);
+	}
+	
+	public WriteBehindDBMap(ConnectionInfo info){
+		this(info, null, true);
+	}
+	
+	@Override
+	public V put(K key, V value) {
+		if(key == null) return null;
+		
+		V preValue = get(key);
+		enqueue(key, value);
+		
+		return preValue;
+	}
+	
+	@Override
+	public void fastPut(K key, V value) {
+		if(key == null) return;
+		
+		enqueue(key, value);
+	}
+	
+	@Override
+	public V remove(Object key) {
+		if(key == null) return null;
+		
+		V preValue = get(key);
+		enqueue(key, REMOVED);
+		
+		return preValue;
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public V get(Object key) {
+		if(key == null) return null;
+		
+		Object[] pendingValue = lookupPending(key);
+		if(pendingValue != null){
+			return pendingValue[0] == REMOVED ? null : (V)pendingValue[0];
+		}
+		
+		return super.get(key);
+	}
+	
+	@Override
+	public boolean containsKey(Object key) {
+		if(key == null) return false;
+		
+		Object[] pendingValue = lookupPending(key);
+		if(pendingValue != null){
+			return pendingValue[0] != REMOVED;
+		}
+		
+		return super.containsKey(key);
+	}
+	
+	/**
+	 * Sucht den Schlüssel unter den noch nicht geschriebenen Änderungen.
+	 * 
+	 * @return <b>null</b> wenn es keine ausstehende Änderung gibt. Andernfalls ein
+	 * Array, welches als einziges Element den ausstehenden Wert enthält.
+	 */
+	private Object[] lookupPending(Object key){
+		lock.lock();
+		try{
+			checkFailure();
+			
+			if(pending.containsKey(key)){
+				return new Object[]{ pending.get(key) };
+			}
+			if(inFlight.containsKey(key)){
+				return new Object[]{ inFlight.get(key) };
+			}
+			
+			return null;
+		}finally{
+			lock.unlock();
+		}
+	}
+	
+	private void enqueue(Object key, Object value){
+		lock.lock();
+		try{
+			checkOpen();
+			checkFailure();
+			
+			while(pending.size() >= capacity && !pending.containsKey(key)){
+				//der Puffer ist voll: der Hintergrund-Thread soll sofort schreiben
+				flushRequest = true;
+				flushRequested.signal();
+				
+				notFull.await();
+				checkOpen();
+				checkFailure();
+			}
+			
+			pending.put(key, value);
+			invalidateCachedValue(key);
+			notEmpty.signal();
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new BackendException("Interrupted while waiting for free capacity!", e);
+		}finally{
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Wartet so lange, bis alle bis zu diesem Zeitpunkt vorgemerkten Änderungen in die
+	 * Datenbank geschrieben wurden.
+	 * 
+	 * @throws BackendException Wenn beim Schreiben der Änderungen ein Fehler auftrat. Die
+	 * Änderungen bleiben in diesem Fall vorgemerkt, sodass ein erneuter Aufruf dieser
+	 * Methode das Schreiben wiederholt.
+	 */
+	@Override
+	public void flush() {
+		lock.lock();
+		try{
+			checkFailure();
+			
+			while(!pending.isEmpty() || !inFlight.isEmpty()){
+				if(!flusher.isAlive()){
+					throw new BackendException("Write-behind thread is not running anymore!");
+				}
+				
+				flushRequest = true;
+				flushRequested.signal();
+				notEmpty.signal();
+				
+				flushed.await();
+				checkFailure();
+			}
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new BackendException("Interrupted while waiting for flush!", e);
+		}finally{
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Wird nicht unterstützt, da die Änderungen von einem eigenen Thread
+	 * über eine eigene Verbindung geschrieben werden.
+	 * 
+	 * @throws UnsupportedOperationException Immer.
+	 */
+	@Override
+	public Transaction beginBatch() {
+		throw new UnsupportedOperationException("Transactions are not supported by write-behind maps!");
+	}
+	
+	/**
+	 * Schreibt alle ausstehenden Änderungen in die Datenbank und beendet
+	 * den Hintergrund-Thread. Danach sind keine schreibenden Zugriffe mehr
+	 * möglich.
+	 */
+	@Override
+	public void close() {
+		try{
+			//schreibt auch alle ausstehenden Änderungen
+			super.close();
+		}finally{
+			lock.lock();
+			try{
+				closed = true;
+				notEmpty.signalAll();
+				notFull.signalAll();
+				flushRequested.signalAll();
+			}finally{
+				lock.unlock();
+			}
+			
+			try {
+				flusher.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			writer.close();
+		}
+	}
+	
+	private void checkOpen(){
+		if(closed) throw new IllegalStateException("This map is already closed!");
+	}
+	
+	private void checkFailure(){
+		if(failure != null){
+			Exception cause = failure;
+			failure = null;
+			
+			//der Hintergrund-Thread darf es nun erneut versuchen
+			notEmpty.signal();
+			throw new BackendException("Could not write pending changes into backend!", cause);
+		}
+	}
+	
+	@Override
+	public int size() {
+		flush();
+		return super.size();
+	}
+	
+	@Override
+	public boolean containsValue(Object value) {
+		flush();
+		return super.containsValue(value);
+	}
+	
+	@Override
+	public void clear() {
+		lock.lock();
+		try{
+			//alles was noch nicht geschrieben wurde, muss auch nicht mehr geschrieben werden
+			pending.clear();
+			invalidateCachedValues();
+			notFull.signalAll();
+		}finally{
+			lock.unlock();
+		}
+		
+		flush();
+		super.clear();
+	}
+	
+	@Override
+	public void putAll(Map<? extends K, ? extends V> m) {
+		if(m == this) return;
+		
+		if(m instanceof DBMap){
+			flush();
+			super.putAll(m);
+		}else if(m != null){
+			for(Entry<? extends K, ? extends V> curEntry : m.entrySet()){
+				fastPut(curEntry.getKey(), curEntry.getValue());
+			}
+		}
+	}
+	
+	@Override
+	public boolean retainAllKeys(Collection<?> c) {
+		flush();
+		return super.retainAllKeys(c);
+	}
+	
+	@Override
+	public boolean retainAllValues(Collection<?> c) {
+		flush();
+		return super.retainAllValues(c);
+	}
+	
+	/**
+	 * Schreibt die vorgemerkten Änderungen im Hintergrund in die Datenbank.
+	 */
+	private class Flusher implements Runnable {
+		@Override
+		public void run() {
+			while(true){
+				Map<Object, Object> toWrite = awaitChanges();
+				if(toWrite == null) return;
+				
+				Exception error = null;
+				try{
+					write(toWrite);
+				}catch(Exception e){
+					error = e;
+				}
+				
+				finish(toWrite, error);
+			}
+		}
+		
+		/**
+		 * Wartet auf vorgemerkte Änderungen und übernimmt diese.
+		 * 
+		 * @return <b>null</b> wenn die Map geschlossen wurde.
+		 */
+		private Map<Object, Object> awaitChanges(){
+			lock.lock();
+			try{
+				while(pending.isEmpty() || failure != null){
+					if(closed) return null;
+					notEmpty.await();
+				}
+				
+				//etwas warten, damit weitere Änderungen zusammengefasst werden können
+				long nanos = TimeUnit.MILLISECONDS.toNanos(flushDelay);
+				while(!flushRequest && !closed && nanos > 0){
+					nanos = flushRequested.awaitNanos(nanos);
+				}
+				flushRequest = false;
+				
+				Map<Object, Object> toWrite = pending;
+				inFlight = toWrite;
+				pending = new LinkedHashMap<Object, Object>();
+				notFull.signalAll();
+				
+				return toWrite;
+			}catch(InterruptedException e){
+				return null;
+			}finally{
+				lock.unlock();
+			}
+		}
+		
+		private void write(Map<Object, Object> toWrite){
+			Map<Object, Object> puts = new LinkedHashMap<Object, Object>();
+			List<Object> removes = new LinkedList<Object>();
+			
+			for(Entry<Object, Object> curEntry : toWrite.entrySet()){
+				if(curEntry.getValue() == REMOVED){
+					removes.add(curEntry.getKey());
+				}else{
+					puts.put(curEntry.getKey(), curEntry.getValue());
+				}
+			}
+			
+			writer.batchWrite(puts, removes);
+		}
+		
+		private void finish(Map<Object, Object> written, Exception error){
+			lock.lock();
+			try{
+				if(error != null){
+					//die Änderungen wieder vormerken, sofern sie nicht
+					//inzwischen durch neuere Änderungen überholt wurden
+					for(Entry<Object, Object> curEntry : written.entrySet()){
+						if(!pending.containsKey(curEntry.getKey())){
+							pending.put(curEntry.getKey(), curEntry.getValue());
+						}
+					}
+					failure = error;
+				}
+				
+				inFlight = new LinkedHashMap<Object, Object>();
+				flushed.signalAll();
+			}finally{
+				lock.unlock();
+			}
+		}
+	}
+}
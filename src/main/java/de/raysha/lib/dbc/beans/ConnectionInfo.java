@@ -5,12 +5,26 @@ public class ConnectionInfo {
 	private String jdbcUrl;
 	private String user;
 	private String pw;
+	private int poolSize;
 	
 	public ConnectionInfo(String className, String jdbcUrl, String user, String pw) {
+		this(className, jdbcUrl, user, pw, 0);
+	}
+	
+	/**
+	 * @param poolSize Maximale Anzahl der Verbindungen, die sich alle Maps mit diesen
+	 * Verbindungsdaten teilen. Jede geöffnete Map hält davon ihre eigene Verbindung, der
+	 * Pool muss also größer sein als die Anzahl der gleichzeitig geöffneten Maps. Bei 0
+	 * (Standard) verwendet jede Map ausschließlich ihre eigene Verbindung.
+	 */
+	public ConnectionInfo(String className, String jdbcUrl, String user, String pw, int poolSize) {
+		if(poolSize < 0) throw new IllegalArgumentException("Pool-size must not be negative!");
+		
 		this.className = className;
 		this.jdbcUrl = jdbcUrl;
 		this.user = user;
 		this.pw = pw;
+		this.poolSize = poolSize;
 	}
 	
 	public String getClassName() {
@@ -25,11 +39,62 @@ public class ConnectionInfo {
 	public String getPw() {
 		return pw;
 	}
+	public int getPoolSize() {
+		return poolSize;
+	}
+	public boolean isPooled() {
+		return poolSize > 0;
+	}
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((className == null) ? 0 : className.hashCode());
+		result = prime * result + ((jdbcUrl == null) ? 0 : jdbcUrl.hashCode());
+		result = prime * result + poolSize;
+		result = prime * result + ((pw == null) ? 0 : pw.hashCode());
+		result = prime * result + ((user == null) ? 0 : user.hashCode());
+		return result;
+	}
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		ConnectionInfo other = (ConnectionInfo) obj;
+		if (className == null) {
+			if (other.className != null)
+				return false;
+		} else if (!className.equals(other.className))
+			return false;
+		if (jdbcUrl == null) {
+			if (other.jdbcUrl != null)
+				return false;
+		} else if (!jdbcUrl.equals(other.jdbcUrl))
+			return false;
+		if (poolSize != other.poolSize)
+			return false;
+		if (pw == null) {
+			if (other.pw != null)
+				return false;
+		} else if (!pw.equals(other.pw))
+			return false;
+		if (user == null) {
+			if (other.user != null)
+				return false;
+		} else if (!user.equals(other.user))
+			return false;
+		return true;
+	}
 	@Override
 	public String toString() {
 		return "ConnectInfo [className=" + className + ", jdbcUrl=" + jdbcUrl
 				+ ", user=" + user + 
-				", pw=" + ( pw == null ? "" : pw.replaceAll(".", "*") ) + "]";
+				", pw=" + ( pw == null ? "" : pw.replaceAll(".", "*") ) + 
+				", poolSize=" + poolSize + "]";
 	}
 	
 }
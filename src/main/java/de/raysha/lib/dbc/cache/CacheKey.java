@@ -0,0 +1,48 @@
+package de.raysha.lib.dbc.cache;
+
+/**
+ * Identifiziert einen Eintrag im {@link ValueCache}. Ein Eintrag wird
+ * (genau wie in der Datenbank) über seinen Schlüssel identifiziert. Schlüssel
+ * unterschiedlicher Klassen sind dabei niemals gleich.
+ * 
+ * @author rainu
+ */
+public class CacheKey {
+	private final Object key;
+	
+	public CacheKey(Object key) {
+		if(key == null) throw new NullPointerException("Key must not be null!");
+		
+		this.key = key;
+	}
+	
+	public Object getKey() {
+		return key;
+	}
+	
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + key.getClass().hashCode();
+		result = prime * result + key.hashCode();
+		return result;
+	}
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		CacheKey other = (CacheKey) obj;
+		if (key.getClass() != other.key.getClass())
+			return false;
+		return key.equals(other.key);
+	}
+	@Override
+	public String toString() {
+		return "CacheKey [key=" + key + ", keyType=" + key.getClass().getName() + "]";
+	}
+}
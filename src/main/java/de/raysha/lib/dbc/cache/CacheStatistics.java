@@ -0,0 +1,58 @@
+package de.raysha.lib.dbc.cache;
+
+/**
+ * Momentaufnahme der Statistiken eines {@link ValueCache}.
+ * 
+ * @author rainu
+ */
+public class CacheStatistics {
+	private final long hitCount;
+	private final long missCount;
+	private final long evictionCount;
+	private final long size;
+	
+	public CacheStatistics(long hitCount, long missCount, long evictionCount, long size) {
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.evictionCount = evictionCount;
+		this.size = size;
+	}
+	
+	/**
+	 * @return Anzahl der Anfragen, die aus dem Zwischenspeicher beantwortet werden konnten.
+	 */
+	public long getHitCount() {
+		return hitCount;
+	}
+	/**
+	 * @return Anzahl der Anfragen, die nicht aus dem Zwischenspeicher beantwortet werden konnten.
+	 */
+	public long getMissCount() {
+		return missCount;
+	}
+	/**
+	 * @return Anzahl der Einträge, die aus Platzgründen verdrängt wurden.
+	 */
+	public long getEvictionCount() {
+		return evictionCount;
+	}
+	/**
+	 * @return Anzahl der aktuell zwischengespeicherten Einträge.
+	 */
+	public long getSize() {
+		return size;
+	}
+	/**
+	 * @return Anteil der Anfragen, die aus dem Zwischenspeicher beantwortet werden konnten.
+	 */
+	public double getHitRate() {
+		long requests = hitCount + missCount;
+		return requests == 0 ? 1.0 : (double)hitCount / requests;
+	}
+	@Override
+	public String toString() {
+		return "CacheStatistics [hitCount=" + hitCount + ", missCount="
+				+ missCount + ", evictionCount=" + evictionCount + ", size="
+				+ size + "]";
+	}
+}
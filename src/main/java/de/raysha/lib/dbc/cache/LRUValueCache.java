@@ -0,0 +1,116 @@
+package de.raysha.lib.dbc.cache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Ein {@link ValueCache}, der bei Platzmangel die am längsten nicht
+ * verwendeten Einträge verdrängt (least recently used). Die Größe wird
+ * entweder über die Anzahl der Einträge oder über das Gesamtgewicht
+ * (siehe {@link Weigher}) begrenzt.
+ * 
+ * @author rainu
+ */
+public class LRUValueCache implements ValueCache {
+	private static final Weigher SINGLETON_WEIGHER = new Weigher() {
+		@Override
+		public long weigh(CacheKey key, Object value) {
+			return 1;
+		}
+	};
+	
+	private final LinkedHashMap<CacheKey, Object> entries =
+			new LinkedHashMap<CacheKey, Object>(16, 0.75f, true);
+	private final Map<CacheKey, Long> weights = new HashMap<CacheKey, Long>();
+	private final long maxWeight;
+	private final Weigher weigher;
+	
+	private long totalWeight = 0;
+	private long hitCount = 0;
+	private long missCount = 0;
+	private long evictionCount = 0;
+	
+	/**
+	 * @param maxSize Maximale Anzahl der Einträge.
+	 */
+	public LRUValueCache(int maxSize) {
+		this(maxSize, SINGLETON_WEIGHER);
+	}
+	
+	/**
+	 * @param maxWeight Maximales Gesamtgewicht aller Einträge.
+	 * @param weigher Bestimmt das Gewicht eines einzelnen Eintrages.
+	 */
+	public LRUValueCache(long maxWeight, Weigher weigher) {
+		if(maxWeight <= 0) throw new IllegalArgumentException("Max-weight must be greater then 0!");
+		if(weigher == null) throw new NullPointerException("Weigher must not be null!");
+		
+		this.maxWeight = maxWeight;
+		this.weigher = weigher;
+	}
+	
+	@Override
+	public synchronized Object get(CacheKey key) {
+		Object value = entries.get(key);
+		
+		if(value != null) hitCount++;
+		else missCount++;
+		
+		return value;
+	}
+	
+	@Override
+	public synchronized void put(CacheKey key, Object value) {
+		if(value == null) throw new NullPointerException("Value must not be null!");
+		
+		long weight = weigher.weigh(key, value);
+		if(weight > maxWeight){
+			//passt sowieso nicht hinein
+			invalidate(key);
+			return;
+		}
+		
+		remove(key);
+		entries.put(key, value);
+		weights.put(key, weight);
+		totalWeight += weight;
+		
+		evict();
+	}
+	
+	private void evict(){
+		Iterator<Entry<CacheKey, Object>> iter = entries.entrySet().iterator();
+		while(totalWeight > maxWeight && iter.hasNext()){
+			CacheKey eldest = iter.next().getKey();
+			iter.remove();
+			totalWeight -= weights.remove(eldest);
+			evictionCount++;
+		}
+	}
+	
+	private void remove(CacheKey key){
+		if(entries.remove(key) != null){
+			totalWeight -= weights.remove(key);
+		}
+	}
+	
+	@Override
+	public synchronized void invalidate(CacheKey key) {
+		remove(key);
+	}
+	
+	@Override
+	public synchronized void invalidateAll() {
+		entries.clear();
+		weights.clear();
+		totalWeight = 0;
+	}
+	
+	@Override
+	public synchronized CacheStatistics getStatistics() {
+		return new CacheStatistics(hitCount, missCount, evictionCount, entries.size());
+	}
+}
@@ -0,0 +1,46 @@
+package de.raysha.lib.dbc.cache;
+
+/**
+ * Ein Zwischenspeicher für bereits deserialisierte Werte einer Map. 
+ * Implementierungen müssen ihre Größe selbstständig begrenzen und
+ * threadsicher sein.
+ * 
+ * @author rainu
+ */
+public interface ValueCache {
+	
+	/**
+	 * Liefert den zwischengespeicherten Wert.
+	 * 
+	 * @param key Schlüssel unter dem der Wert zwischengespeichert wurde.
+	 * @return <b>null</b> wenn kein Wert zwischengespeichert ist.
+	 */
+	public Object get(CacheKey key);
+	
+	/**
+	 * Speichert einen Wert zwischen. Ggf. werden dabei andere Einträge verdrängt.
+	 * 
+	 * @param key Schlüssel unter dem der Wert zwischengespeichert werden soll.
+	 * @param value Wert der zwischengespeichert werden soll. Darf nicht <b>null</b> sein.
+	 */
+	public void put(CacheKey key, Object value);
+	
+	/**
+	 * Entfernt den Eintrag des gegebenen Schlüssels aus dem Zwischenspeicher.
+	 * 
+	 * @param key Schlüssel dessen Eintrag entfernt werden soll.
+	 */
+	public void invalidate(CacheKey key);
+	
+	/**
+	 * Entfernt alle Einträge aus dem Zwischenspeicher.
+	 */
+	public void invalidateAll();
+	
+	/**
+	 * Liefert eine Momentaufnahme der Statistiken dieses Zwischenspeichers.
+	 * 
+	 * @return
+	 */
+	public CacheStatistics getStatistics();
+}
@@ -0,0 +1,18 @@
+package de.raysha.lib.dbc.cache;
+
+/**
+ * Bestimmt das Gewicht eines Eintrages im {@link LRUValueCache}.
+ * 
+ * @author rainu
+ */
+public interface Weigher {
+	
+	/**
+	 * Liefert das Gewicht des gegebenen Eintrages.
+	 * 
+	 * @param key Schlüssel des Eintrages.
+	 * @param value Wert des Eintrages.
+	 * @return Gewicht des Eintrages. Muss größer oder gleich 0 sein.
+	 */
+	public long weigh(CacheKey key, Object value);
+}
@@ -0,0 +1,158 @@
+package de.raysha.lib.dbc.connection;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import de.raysha.lib.dbc.beans.ConnectionInfo;
+import de.raysha.lib.dbc.exception.BackendException;
+
+/**
+ * Ein einfacher {@link ConnectionProvider}, der bis zu {@link ConnectionInfo#getPoolSize()}
+ * Verbindungen über den {@link DriverManager} aufbaut und wiederverwendet. Verbindungen
+ * werden erst bei Bedarf aufgebaut. Sind alle Verbindungen ausgeliehen, wartet
+ * {@link #getConnection()} auf die nächste zurückgegebene Verbindung.
+ * <br/><br/>
+ * Für gleiche {@link ConnectionInfo}s wird der selbe Pool verwendet (siehe 
+ * {@link #getPool(ConnectionInfo)}), sodass sich alle Maps einer Datenbank die
+ * Verbindungen teilen.
+ * 
+ * @author rainu
+ */
+public class ConnectionPool implements ConnectionProvider {
+	private static final Map<ConnectionInfo, ConnectionPool> POOLS = new HashMap<ConnectionInfo, ConnectionPool>();
+	
+	/**
+	 * Liefert den Pool für die gegebenen Verbindungsdaten. Gibt es noch keinen, wird
+	 * ein neuer angelegt.
+	 * 
+	 * @param info Verbindungsdaten. Die Größe des Pools muss größer 0 sein.
+	 * @return Der Pool für die gegebenen Verbindungsdaten.
+	 */
+	public static synchronized ConnectionPool getPool(ConnectionInfo info){
+		ConnectionPool pool = POOLS.get(info);
+		if(pool == null){
+			pool = new ConnectionPool(info);
+			POOLS.put(info, pool);
+		}
+		
+		return pool;
+	}
+	
+	private final ConnectionInfo info;
+	private final BlockingQueue<Connection> idle = new LinkedBlockingQueue<Connection>();
+	private int created = 0;
+	private boolean closed = false;
+	
+	public ConnectionPool(ConnectionInfo info) {
+		if(info.getPoolSize() <= 0){
+			throw new IllegalArgumentException("Pool-size must be greater then 0!");
+		}
+		
+		this.info = info;
+		
+		try {
+			Class.forName(info.getClassName());
+		} catch (Exception e) {
+			throw new BackendException("Could not load drive " + info.getClassName(), e);
+		}
+	}
+	
+	@Override
+	public Connection getConnection() throws SQLException {
+		while(true){
+			Connection connection = idle.poll();
+			if(connection == null){
+				connection = createConnection();
+			}
+			if(connection == null){
+				try {
+					connection = idle.take();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new SQLException("Interrupted while waiting for a connection!", e);
+				}
+			}
+			
+			if(!connection.isClosed()) return connection;
+			
+			//eine geschlossene Verbindung wird verworfen
+			synchronized (this) {
+				created--;
+			}
+		}
+	}
+	
+	/**
+	 * @return Eine neue Verbindung oder <b>null</b>, wenn bereits alle Verbindungen aufgebaut sind.
+	 */
+	private Connection createConnection() throws SQLException{
+		synchronized (this) {
+			if(closed) throw new SQLException("The connection pool is closed!");
+			if(created >= info.getPoolSize()) return null;
+			
+			created++;
+		}
+		
+		try{
+			return DriverManager.getConnection(info.getJdbcUrl(), 
+					info.getUser(), info.getPw());
+		}catch(SQLException e){
+			synchronized (this) {
+				created--;
+			}
+			throw e;
+		}
+	}
+	
+	@Override
+	public void releaseConnection(Connection connection) {
+		boolean isClosed;
+		synchronized (this) {
+			isClosed = closed;
+		}
+		
+		if(isClosed){
+			try{ connection.close(); }catch(SQLException e){}
+		}else{
+			idle.offer(connection);
+		}
+	}
+	
+	/**
+	 * @return Anzahl der aktuell aufgebauten Verbindungen.
+	 */
+	public synchronized int getSize() {
+		return created;
+	}
+	
+	/**
+	 * @return Anzahl der Verbindungen, die aktuell nicht ausgeliehen sind.
+	 */
+	public int getIdleCount() {
+		return idle.size();
+	}
+	
+	/**
+	 * Schließt alle nicht ausgeliehenen Verbindungen. Ausgeliehene Verbindungen
+	 * werden bei ihrer Rückgabe geschlossen. Anschließend können keine Verbindungen
+	 * mehr ausgeliehen werden.
+	 */
+	public void close() {
+		synchronized (this) {
+			closed = true;
+		}
+		synchronized (ConnectionPool.class) {
+			if(POOLS.get(info) == this) POOLS.remove(info);
+		}
+		
+		Connection connection;
+		while((connection = idle.poll()) != null){
+			try{ connection.close(); }catch(SQLException e){}
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package de.raysha.lib.dbc.connection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Stellt Verbindungen zur Datenbank bereit. Eine Verbindung wird für die Dauer
+ * einer Operation ausgeliehen und anschließend wieder zurückgegeben. Solange eine
+ * Verbindung ausgeliehen ist, wird sie von keinem anderen Aufrufer verwendet.
+ * 
+ * @author rainu
+ */
+public interface ConnectionProvider {
+	
+	/**
+	 * Leiht eine Verbindung aus. Ist keine Verbindung verfügbar, wird so lange
+	 * gewartet, bis eine Verbindung zurückgegeben wird.
+	 * 
+	 * @return Die ausgeliehene Verbindung.
+	 * @throws SQLException
+	 */
+	Connection getConnection() throws SQLException;
+	
+	/**
+	 * Gibt eine ausgeliehene Verbindung zurück.
+	 * 
+	 * @param connection Verbindung aus {@link #getConnection()}.
+	 */
+	void releaseConnection(Connection connection);
+}
@@ -0,0 +1,43 @@
+package de.raysha.lib.dbc.connection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+/**
+ * Ein {@link ConnectionProvider}, der seine Verbindungen von einer {@link DataSource}
+ * bezieht. Ausgeliehene Verbindungen werden bei der Rückgabe geschlossen. Stammt die
+ * {@link DataSource} von einem Connection-Pool, gelangt die Verbindung dadurch wieder
+ * in diesen Pool.
+ * 
+ * @author rainu
+ */
+public class DataSourceConnectionProvider implements ConnectionProvider {
+	private final DataSource dataSource;
+	
+	public DataSourceConnectionProvider(DataSource dataSource) {
+		if(dataSource == null) throw new NullPointerException("The data-source must not be null!");
+		
+		this.dataSource = dataSource;
+	}
+	
+	public DataSource getDataSource() {
+		return dataSource;
+	}
+	
+	@Override
+	public Connection getConnection() throws SQLException {
+		return dataSource.getConnection();
+	}
+	
+	@Override
+	public void releaseConnection(Connection connection) {
+		try{ connection.close(); }catch(SQLException e){}
+	}
+	
+	@Override
+	public String toString() {
+		return "DataSourceConnectionProvider [dataSource=" + dataSource + "]";
+	}
+}
@@ -0,0 +1,57 @@
+package de.raysha.lib.dbc.lifecycle;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Sammelt Ressourcen (Statements, ResultSets, Verbindungen, ...), die gemeinsam
+ * freigegeben werden sollen. Bei {@link #close()} werden die Ressourcen in umgekehrter
+ * Reihenfolge ihrer Registrierung geschlossen, sodass z.B. Statements vor ihrer
+ * Verbindung geschlossen werden. Fehler beim Schließen werden ignoriert.
+ * 
+ * @author rainu
+ */
+public class CloseableResources implements AutoCloseable {
+	private final Deque<AutoCloseable> resources = new ArrayDeque<AutoCloseable>();
+	private boolean closed = false;
+	
+	/**
+	 * Registriert eine Ressource. Wurden die Ressourcen bereits geschlossen, wird die
+	 * gegebene Ressource sofort geschlossen.
+	 * 
+	 * @param resource Die Ressource.
+	 * @return Die gegebene Ressource.
+	 */
+	public <T extends AutoCloseable> T add(T resource) {
+		boolean closeNow;
+		synchronized (this) {
+			closeNow = closed;
+			if(!closed) resources.push(resource);
+		}
+		
+		if(closeNow) closeQuietly(resource);
+		return resource;
+	}
+	
+	public synchronized boolean isClosed() {
+		return closed;
+	}
+	
+	@Override
+	public void close() {
+		while(true){
+			AutoCloseable resource;
+			synchronized (this) {
+				closed = true;
+				resource = resources.poll();
+			}
+			
+			if(resource == null) return;
+			closeQuietly(resource);
+		}
+	}
+	
+	private static void closeQuietly(AutoCloseable resource){
+		try{ resource.close(); }catch(Exception e){}
+	}
+}
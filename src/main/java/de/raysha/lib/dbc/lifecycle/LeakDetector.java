@@ -0,0 +1,165 @@
+package de.raysha.lib.dbc.lifecycle;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Überwacht Objekte, die Datenbank-Ressourcen halten (Collections, Iteratoren, ...) und
+ * daher über {@link AutoCloseable#close()} freigegeben werden müssen. Wird ein solches
+ * Objekt vom Garbage-Collector entfernt, ohne dass es vorher geschlossen wurde, werden
+ * seine Ressourcen nachträglich von einem Hintergrund-Thread freigegeben. 
+ * <br/><br/>
+ * Im Debug-Modus (siehe {@link #setDebug(boolean)} bzw. die System-Property 
+ * {@value #DEBUG_PROPERTY}) wird außerdem die Stelle gemerkt, an der ein Objekt 
+ * angelegt wurde, und jedes nicht geschlossene Objekt an den {@link Listener} gemeldet.
+ * 
+ * @author rainu
+ */
+public final class LeakDetector {
+	public static final String DEBUG_PROPERTY = "de.raysha.lib.dbc.debug";
+	
+	/**
+	 * Wird über nicht geschlossene Objekte informiert.
+	 */
+	public static interface Listener {
+		
+		/**
+		 * @param type Klasse des nicht geschlossenen Objektes.
+		 * @param creation Enthält die Stelle, an der das Objekt angelegt wurde.
+		 */
+		public void leaked(Class<?> type, Throwable creation);
+	}
+	
+	private static final Listener DEFAULT_LISTENER = new Listener() {
+		@Override
+		public void leaked(Class<?> type, Throwable creation) {
+			System.err.println("An instance of " + type.getName() + 
+					" was not closed. Its resources are released now.");
+			creation.printStackTrace();
+		}
+	};
+	
+	private static final ReferenceQueue<Object> QUEUE = new ReferenceQueue<Object>();
+	private static final Set<Registration> REGISTRATIONS = 
+			Collections.newSetFromMap(new ConcurrentHashMap<Registration, Boolean>());
+	
+	private static volatile boolean debug = Boolean.getBoolean(DEBUG_PROPERTY);
+	private static volatile Listener listener = DEFAULT_LISTENER;
+	private static Thread reaper;
+	
+	private LeakDetector() {
+	}
+	
+	public static boolean isDebug() {
+		return debug;
+	}
+	
+	/**
+	 * Schaltet den Debug-Modus ein oder aus. Dies gilt nur für danach registrierte Objekte.
+	 */
+	public static void setDebug(boolean debug) {
+		LeakDetector.debug = debug;
+	}
+	
+	/**
+	 * @param listener Der Listener. Bei <b>null</b> werden nicht geschlossene Objekte
+	 * auf {@link System#err} ausgegeben.
+	 */
+	public static void setListener(Listener listener) {
+		LeakDetector.listener = listener != null ? listener : DEFAULT_LISTENER;
+	}
+	
+	/**
+	 * Registriert ein Objekt. Die gegebene Aufräum-Aktion darf das Objekt selbst 
+	 * <b>nicht</b> referenzieren, da es sonst niemals vom Garbage-Collector entfernt wird.
+	 * 
+	 * @param owner Das zu überwachende Objekt.
+	 * @param cleanup Gibt die Ressourcen des Objektes frei.
+	 * @return Die Registrierung. Deren {@link Registration#close()} führt die Aufräum-Aktion 
+	 * aus und beendet die Überwachung. Dies sollte im {@link AutoCloseable#close()} des
+	 * Objektes geschehen.
+	 */
+	public static Registration register(Object owner, AutoCloseable cleanup) {
+		Registration registration = new Registration(owner, cleanup);
+		REGISTRATIONS.add(registration);
+		startReaper();
+		
+		return registration;
+	}
+	
+	/**
+	 * @return Anzahl der Objekte, die aktuell überwacht werden.
+	 */
+	public static int getRegistrationCount() {
+		return REGISTRATIONS.size();
+	}
+	
+	private static synchronized void startReaper(){
+		if(reaper != null) return;
+		
+		reaper = new Thread("dbc-leak-detector"){
+			@Override
+			public void run() {
+				while(true){
+					try {
+						((Registration)QUEUE.remove()).leaked();
+					} catch (InterruptedException e) {
+						//der Thread läuft so lange wie die JVM
+					} catch (RuntimeException e) {
+						//ein fehlerhafter Listener darf den Thread nicht beenden
+					}
+				}
+			}
+		};
+		reaper.setDaemon(true);
+		reaper.start();
+	}
+	
+	/**
+	 * Die Registrierung eines überwachten Objektes.
+	 */
+	public static final class Registration extends PhantomReference<Object> implements AutoCloseable {
+		private final Class<?> type;
+		private final Throwable creation;
+		private final AutoCloseable cleanup;
+		private final AtomicBoolean closed = new AtomicBoolean(false);
+		
+		private Registration(Object owner, AutoCloseable cleanup) {
+			super(owner, QUEUE);
+			
+			this.type = owner.getClass();
+			this.creation = debug ? new Throwable("Created at") : null;
+			this.cleanup = cleanup;
+		}
+		
+		public boolean isClosed() {
+			return closed.get();
+		}
+		
+		/**
+		 * Führt die Aufräum-Aktion aus. Wiederholte Aufrufe haben keine Wirkung.
+		 */
+		@Override
+		public void close() {
+			if(!closed.compareAndSet(false, true)) return;
+			
+			REGISTRATIONS.remove(this);
+			clear();
+			try{ cleanup.close(); }catch(Exception e){}
+		}
+		
+		private void leaked(){
+			if(isClosed()) return;
+			
+			try{
+				if(creation != null) listener.leaked(type, creation);
+			}finally{
+				close();
+			}
+		}
+	}
+}
@@ -0,0 +1,168 @@
+package de.raysha.lib.dbc.list;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Verzeichnis der Blöcke einer blockweise gespeicherten Liste. Jeder Block
+ * besitzt eine Id sowie die Anzahl seiner Elemente. Die Ids sind in Listen-
+ * Reihenfolge aufsteigend, müssen aber nicht lückenlos sein.
+ * <br/><br/>
+ * Die Anzahl der Elemente wird zusätzlich in einem Fenwick-Baum geführt, sodass
+ * sich eine Position in O(log n) ihrem Block zuordnen lässt. Das Einfügen bzw.
+ * Entfernen eines Blockes baut den Baum neu auf.
+ * 
+ * @author rainu
+ */
+public class BlockDirectory {
+	private final List<Integer> ids = new ArrayList<Integer>();
+	private final List<Integer> counts = new ArrayList<Integer>();
+	private int[] tree = new int[1];
+	private int size = 0;
+	
+	/**
+	 * @return Anzahl aller Elemente.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * @return Anzahl der Blöcke.
+	 */
+	public int getBlockCount() {
+		return ids.size();
+	}
+	
+	public int getId(int block) {
+		return ids.get(block);
+	}
+	
+	public void setId(int block, int id) {
+		ids.set(block, id);
+	}
+	
+	public int getCount(int block) {
+		return counts.get(block);
+	}
+	
+	/**
+	 * Setzt die Anzahl der Elemente eines Blockes.
+	 * 
+	 * @param block Position des Blockes.
+	 * @param count Neue Anzahl der Elemente.
+	 */
+	public void setCount(int block, int count) {
+		int delta = count - counts.get(block);
+		counts.set(block, count);
+		size += delta;
+		
+		for(int i = block + 1; i < tree.length; i += i & -i){
+			tree[i] += delta;
+		}
+	}
+	
+	/**
+	 * Fügt einen neuen Block ein.
+	 * 
+	 * @param block Position, an der der Block eingefügt werden soll.
+	 * @param id Id des Blockes.
+	 * @param count Anzahl der Elemente des Blockes.
+	 */
+	public void addBlock(int block, int id, int count) {
+		ids.add(block, id);
+		counts.add(block, count);
+		
+		rebuild();
+	}
+	
+	/**
+	 * Entfernt einen Block.
+	 * 
+	 * @param block Position des Blockes.
+	 */
+	public void removeBlock(int block) {
+		ids.remove(block);
+		counts.remove(block);
+		
+		rebuild();
+	}
+	
+	public void clear() {
+		ids.clear();
+		counts.clear();
+		
+		rebuild();
+	}
+	
+	private void rebuild() {
+		tree = new int[ids.size() + 1];
+		size = 0;
+		
+		for(int i = 1; i < tree.length; i++){
+			tree[i] += counts.get(i - 1);
+			size += counts.get(i - 1);
+			
+			int parent = i + (i & -i);
+			if(parent < tree.length){
+				tree[parent] += tree[i];
+			}
+		}
+	}
+	
+	/**
+	 * @param block Position des Blockes.
+	 * @return Anzahl der Elemente, die vor dem gegebenen Block liegen.
+	 */
+	public int getStart(int block) {
+		int start = 0;
+		for(int i = block; i > 0; i -= i & -i){
+			start += tree[i];
+		}
+		
+		return start;
+	}
+	
+	/**
+	 * Ermittelt den Block, in dem das Element an der gegebenen Position liegt.
+	 * 
+	 * @param index Position des Elementes (0 <= index < {@link #size()}).
+	 * @return Position des Blockes.
+	 */
+	public int findBlock(int index) {
+		int block = 0;
+		int remaining = index;
+		
+		for(int step = Integer.highestOneBit(tree.length); step > 0; step >>= 1){
+			int next = block + step;
+			if(next < tree.length && tree[next] <= remaining){
+				block = next;
+				remaining -= tree[next];
+			}
+		}
+		
+		return block;
+	}
+	
+	/**
+	 * Sucht einen Block anhand seiner Id.
+	 * 
+	 * @param id Id des Blockes.
+	 * @return Position des Blockes oder -1, wenn es keinen Block mit dieser Id gibt.
+	 */
+	public int findBlockById(int id) {
+		int low = 0;
+		int high = ids.size() - 1;
+		
+		while(low <= high){
+			int mid = (low + high) >>> 1;
+			int midId = ids.get(mid);
+			
+			if(midId < id) low = mid + 1;
+			else if(midId > id) high = mid - 1;
+			else return mid;
+		}
+		
+		return -1;
+	}
+}
@@ -9,7 +9,7 @@ import de.raysha.lib.dbc.ColumnNames;
  * 
  * @author rainu
  */
-public interface Access extends ColumnNames{
+public interface Access extends ColumnNames, AutoCloseable{
 	
 	/**
 	 * Liefert den Wert aus der Datenbank.
@@ -35,4 +35,39 @@ public interface Access extends ColumnNames{
 	 * @throws Exception Wenn ein Fehler auftrat.
 	 */
 	public void update(Object key, Object value) throws Exception;
+	
+	/**
+	 * Fügt einen Eintrag hinzu oder aktualisiert einen bereits bestehenden Eintrag.
+	 * Im Gegensatz zu {@link #add(Object, Object)} und {@link #update(Object, Object)}
+	 * muss der Aufrufer vorher nicht wissen, ob der Schlüssel bereits existiert.
+	 * 
+	 * @param key Schlüssel unter dem der Eintrag hinterlegt werden soll.
+	 * @param value Wert, welcher hinterlegt werden soll.
+	 * @throws Exception Wenn ein Fehler auftrat.
+	 */
+	public void merge(Object key, Object value) throws Exception;
+	
+	/**
+	 * Merkt einen Eintrag für das nächste {@link #executeBatch()} vor. Der Eintrag
+	 * wird dabei wie bei {@link #merge(Object, Object)} hinzugefügt oder aktualisiert.
+	 * 
+	 * @param key Schlüssel unter dem der Eintrag hinterlegt werden soll.
+	 * @param value Wert, welcher hinterlegt werden soll.
+	 * @throws Exception Wenn ein Fehler auftrat.
+	 */
+	public void addBatch(Object key, Object value) throws Exception;
+	
+	/**
+	 * Schreibt alle vorgemerkten Einträge (siehe {@link #addBatch(Object, Object)})
+	 * in einem Rutsch in die Datenbank.
+	 * 
+	 * @throws Exception Wenn ein Fehler auftrat.
+	 */
+	public void executeBatch() throws Exception;
+	
+	/**
+	 * Schließt alle Statements dieses Zugriffs.
+	 */
+	@Override
+	public void close();
 }
@@ -6,6 +6,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 
 import de.raysha.lib.dbc.map.interpreter.Interpreter;
+import de.raysha.lib.dbc.meta.TypeDictionary;
 
 /**
  * Diese Klasse kapselt den Zugriff der Datenbank.
@@ -16,28 +17,32 @@ public class GeneralAccess implements Access {
 	protected PreparedStatement insertStatement;
 	protected PreparedStatement updateStatement;
 	protected PreparedStatement selectStatement;
+	protected PreparedStatement mergeStatement;
 	private final boolean debugMode;
 	
+	private final KeyAccess keyAccess;
 	private final Interpreter<?> keyInterpreter;
 	private final Interpreter<?> valueInterpreter;
+	private final TypeDictionary typeDictionary;
 	
 	public GeneralAccess(Connection connection, String tableName, boolean debugMode, 
-			Interpreter<?> keyProvider, Interpreter<?> valueProvider) throws SQLException{
+			KeyAccess keyAccess, Interpreter<?> valueProvider) throws SQLException{
 		
 		this.debugMode = debugMode;
-		this.keyInterpreter = keyProvider;
+		this.keyAccess = keyAccess;
+		this.keyInterpreter = keyAccess.getKeyInterpreter();
 		this.valueInterpreter = valueProvider;
+		this.typeDictionary = keyAccess.getTypeDictionary();
 		
 		init(connection, tableName);
 	}
 	
 	@Override
-	protected void finalize() throws Throwable {
+	public void close() {
 		try{insertStatement.close();}catch(SQLException e){}
 		try{updateStatement.close();}catch(SQLException e){}
 		try{selectStatement.close();}catch(SQLException e){}
-		
-		super.finalize();
+		try{if(mergeStatement != null) mergeStatement.close();}catch(SQLException e){}
 	}
 	
 	private void init(Connection connection, String tableName) throws SQLException{
@@ -75,8 +80,8 @@ public class GeneralAccess implements Access {
 							valueInterpreter.getValueColumnName() + " = ?, " +
 							 COL_VALUE_HASH + " = ?, " +
 							 COL_VALUE_TYPE + " = ?, " +
-						COL_VALUE_STRING + " = ?" +
-					"WHERE " + COL_ID + " = ? and " + COL_KEY_TYPE + " = ?");
+						COL_VALUE_STRING + " = ? " +
+					"WHERE " + keyAccess.getKeyCondition());
 		}else{
 			updateStatement = connection.prepareStatement(
 					"UPDATE " + tableName + " " + 
@@ -84,53 +89,110 @@ public class GeneralAccess implements Access {
 								valueInterpreter.getValueColumnName() + " = ?, " +
 								 COL_VALUE_HASH + " = ?, " +
 								 COL_VALUE_TYPE + " = ? " +
-						"WHERE " + COL_ID + " = ? and " + COL_KEY_TYPE + " = ?");
+						"WHERE " + keyAccess.getKeyCondition());
 		}
 		
 		selectStatement = connection.prepareStatement(
 				"SELECT " + valueInterpreter.getValueColumnName() + " FROM " + tableName + " " +
-						"WHERE " + COL_ID + " = ? and " + COL_KEY_TYPE + " = ?");
+						"WHERE " + keyAccess.getKeyCondition());
+		
+		mergeStatement = prepareMergeStatement(connection, tableName);
 	}
-
+	
+	private PreparedStatement prepareMergeStatement(Connection connection, String tableName){
+		//MERGE ist nicht in jedem SQL-Dialekt vorhanden. In diesem Fall
+		//wird beim Mergen auf Update und ggf. Insert zurückgegriffen.
+		//Gleiches gilt für Schlüssel, die nicht per SQL verglichen werden können.
+		if(!keyAccess.isComparableInSql()) return null;
+		
+		try{
+			return connection.prepareStatement(
+					"MERGE INTO " + tableName + "(" + 
+							COL_ID + ", " + 
+							keyInterpreter.getKeyColumnName() + ", " + 
+							COL_KEY_TYPE + ", " + 
+							
+							COL_VALUE_HASH + ", " +
+							valueInterpreter.getValueColumnName() + ", " + 
+							COL_VALUE_TYPE + 
+							(debugMode ? ", " + COL_KEY_STRING + ", " + COL_VALUE_STRING : "") + ")" +
+						" KEY(" + keyAccess.getKeyColumns() + ")" +
+						(debugMode ? " VALUES(?, ?, ?, ?, ?, ?, ?, ?)" : " VALUES(?, ?, ?, ?, ?, ?)"));
+		}catch(SQLException e){
+			return null;
+		}
+	}
+	
 	@Override
 	public void add(Object key, Object value) throws Exception {
-		insertStatement.setInt(1, key.hashCode());
-		keyInterpreter.setParameter(insertStatement, 2, key);
-		insertStatement.setString(3, key.getClass().getName());
-		insertStatement.setInt(4, value.hashCode());
-		valueInterpreter.setParameter(insertStatement, 5, value);
-		insertStatement.setString(6, value.getClass().getName());
+		setInsertParameter(insertStatement, key, value);
+		insertStatement.executeUpdate();
+	}
+	
+	private void setInsertParameter(PreparedStatement stmt, Object key, Object value) throws Exception {
+		stmt.setInt(1, key.hashCode());
+		keyInterpreter.setParameter(stmt, 2, key);
+		stmt.setShort(3, typeDictionary.getId(key.getClass()));
+		stmt.setInt(4, value.hashCode());
+		valueInterpreter.setParameter(stmt, 5, value);
+		stmt.setShort(6, typeDictionary.getId(value.getClass()));
 		
 		if(debugMode){
-			insertStatement.setString(7, key.toString());
-			insertStatement.setString(8, value.toString());
+			stmt.setString(7, key.toString());
+			stmt.setString(8, value.toString());
 		}
-		
-		insertStatement.executeUpdate();
 	}
 	
 	@Override
 	public void update(Object key, Object value) throws Exception {
+		executeUpdate(key, value);
+	}
+	
+	@Override
+	public void merge(Object key, Object value) throws Exception {
+		if(mergeStatement != null){
+			setInsertParameter(mergeStatement, key, value);
+			mergeStatement.executeUpdate();
+		}else if(executeUpdate(key, value) <= 0){
+			add(key, value);
+		}
+	}
+	
+	@Override
+	public void addBatch(Object key, Object value) throws Exception {
+		if(mergeStatement != null){
+			setInsertParameter(mergeStatement, key, value);
+			mergeStatement.addBatch();
+		}else{
+			merge(key, value);
+		}
+	}
+	
+	@Override
+	public void executeBatch() throws Exception {
+		if(mergeStatement != null){
+			mergeStatement.executeBatch();
+		}
+	}
+	
+	private int executeUpdate(Object key, Object value) throws Exception {
 		valueInterpreter.setParameter(updateStatement, 1, value);
 		updateStatement.setInt(2, value.hashCode());
-		updateStatement.setString(3, value.getClass().getName());
+		updateStatement.setShort(3, typeDictionary.getId(value.getClass()));
 		
 		if(debugMode){
 			updateStatement.setString(4, value.toString());
-			updateStatement.setInt(5, key.hashCode());
-			updateStatement.setString(6, key.getClass().getName());
+			keyAccess.setKeyParameter(updateStatement, 5, key);
 		}else{
-			updateStatement.setInt(4, key.hashCode());
-			updateStatement.setString(5, key.getClass().getName());
+			keyAccess.setKeyParameter(updateStatement, 4, key);
 		}
 		
-		updateStatement.executeUpdate();
+		return updateStatement.executeUpdate();
 	}
 	
 	@Override
 	public Object get(Object key) throws Exception {
-		selectStatement.setInt(1, key.hashCode());
-		selectStatement.setString(2, key.getClass().getName());
+		keyAccess.setKeyParameter(selectStatement, 1, key);
 		
 		ResultSet set = selectStatement.executeQuery();
 		
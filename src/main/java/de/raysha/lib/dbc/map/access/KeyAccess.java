@@ -0,0 +1,227 @@
+package de.raysha.lib.dbc.map.access;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import de.raysha.lib.dbc.ColumnNames;
+import de.raysha.lib.dbc.ConvertHelper;
+import de.raysha.lib.dbc.map.interpreter.Interpreter;
+import de.raysha.lib.dbc.meta.TypeDictionary;
+
+/**
+ * Diese Klasse kapselt die Identifizierung eines Eintrages über seinen Schlüssel.
+ * Der Hash-Wert des Schlüssels dient dabei nur noch als (indizierter) Eimer.
+ * Ob ein Eintrag tatsächlich zum Schlüssel gehört, wird über die Schlüssel-Spalte
+ * entschieden:
+ * <ul>
+ * 	<li>Liegt der Schlüssel in einer typisierten Spalte (z.B. {@link ColumnNames#COL_STRING_KEY}),
+ * 		wird er direkt per SQL verglichen.</li>
+ * 	<li>Liegt der Schlüssel serialisiert in {@link ColumnNames#COL_KEY}, werden alle Einträge
+ * 		des Eimers gelesen. Ein Eintrag gehört zum Schlüssel, wenn die serialisierte Form
+ * 		übereinstimmt oder {@link Object#equals(Object)} zutrifft. Der gefundene Eintrag
+ * 		wird anschließend über seine {@link ColumnNames#COL_ROW_ID} angesprochen.</li>
+ * </ul>
+ * 
+ * @author rainu
+ */
+public class KeyAccess implements ColumnNames, AutoCloseable {
+	/**
+	 * Wird für nicht vorhandene Einträge gesetzt. Die {@link ColumnNames#COL_ROW_ID}
+	 * wird automatisch hochgezählt und ist daher niemals negativ.
+	 */
+	private static final long NO_ROW = -1L;
+	
+	private final Interpreter<?> keyInterpreter;
+	private final TypeDictionary typeDictionary;
+	private final boolean comparableInSql;
+	
+	private PreparedStatement lookupStatement;
+	private PreparedStatement removeStatement;
+	
+	public KeyAccess(Connection connection, String tableName, Interpreter<?> keyInterpreter, 
+			TypeDictionary typeDictionary) throws SQLException{
+		this.keyInterpreter = keyInterpreter;
+		this.typeDictionary = typeDictionary;
+		this.comparableInSql = !COL_KEY.equals(keyInterpreter.getKeyColumnName());
+		
+		init(connection, tableName);
+	}
+	
+	@Override
+	public void close() {
+		try{lookupStatement.close();}catch(SQLException e){}
+		try{removeStatement.close();}catch(SQLException e){}
+	}
+	
+	private void init(Connection connection, String tableName) throws SQLException{
+		lookupStatement = connection.prepareStatement(
+				"SELECT " +
+					COL_ROW_ID + ", " +
+					keyInterpreter.getKeyColumnName() + ", " +
+					COL_VALUE_TYPE + ", " +
+					COL_VALUE + ", " +
+					COL_BYTE_VALUE + ", " +
+					COL_BOOLEAN_VALUE + ", " +
+					COL_CHAR_VALUE + ", " +
+					COL_DOUBLE_VALUE + ", " +
+					COL_FLOAT_VALUE + ", " +
+					COL_INT_VALUE + ", " +
+					COL_LONG_VALUE + ", " +
+					COL_STRING_VALUE +
+				" FROM " + tableName +
+				" WHERE " + COL_ID + " = ? and " + COL_KEY_TYPE + " = ?" +
+					(comparableInSql ? " and " + keyInterpreter.getKeyColumnName() + " = ?" : ""));
+		removeStatement = connection.prepareStatement(
+				"DELETE FROM " + tableName +
+				" WHERE " + getKeyCondition());
+	}
+	
+	public Interpreter<?> getKeyInterpreter() {
+		return keyInterpreter;
+	}
+	
+	public TypeDictionary getTypeDictionary() {
+		return typeDictionary;
+	}
+	
+	/**
+	 * @return True, wenn der Schlüssel direkt per SQL verglichen werden kann. Nur dann
+	 * kann ein Eintrag über ein einziges MERGE-Statement geschrieben werden.
+	 */
+	public boolean isComparableInSql() {
+		return comparableInSql;
+	}
+	
+	/**
+	 * @return Die Spalten, die einen Eintrag eindeutig identifizieren (z.B. für <i>MERGE ... KEY(...)</i>).
+	 * Nur gültig, wenn {@link #isComparableInSql()} zutrifft.
+	 */
+	public String getKeyColumns() {
+		return COL_ID + ", " + COL_KEY_TYPE + ", " + keyInterpreter.getKeyColumnName();
+	}
+	
+	/**
+	 * @return WHERE-Bedingung, die genau den Eintrag eines Schlüssels trifft. Die Parameter
+	 * werden über {@link #setKeyParameter(PreparedStatement, int, Object)} gesetzt.
+	 */
+	public String getKeyCondition() {
+		if(comparableInSql){
+			return COL_ID + " = ? and " +
+					COL_KEY_TYPE + " = ? and " +
+					keyInterpreter.getKeyColumnName() + " = ?";
+		}
+		
+		return COL_ROW_ID + " = ?";
+	}
+	
+	/**
+	 * Setzt die Parameter der Bedingung aus {@link #getKeyCondition()}.
+	 * 
+	 * @param stmt Statement indem die Parameter gesetzt werden sollen.
+	 * @param index Index des ersten Parameters.
+	 * @param key Schlüssel des Eintrages.
+	 * @return Index des nächsten freien Parameters.
+	 * @throws Exception
+	 */
+	public int setKeyParameter(PreparedStatement stmt, int index, Object key) throws Exception {
+		if(comparableInSql){
+			return setBucketParameter(stmt, index, key);
+		}
+		
+		Long rowId = findRowId(key);
+		stmt.setLong(index, rowId != null ? rowId : NO_ROW);
+		
+		return index + 1;
+	}
+	
+	private int setBucketParameter(PreparedStatement stmt, int index, Object key) throws Exception {
+		stmt.setInt(index++, key.hashCode());
+		//unbekannte Typen erhalten hier keine Kennung, es gibt ohnehin keinen Eintrag
+		stmt.setShort(index++, typeDictionary.findId(key.getClass()));
+		
+		if(comparableInSql){
+			keyInterpreter.setParameter(stmt, index++, key);
+		}
+		
+		return index;
+	}
+	
+	/**
+	 * Sucht den Eintrag des gegebenen Schlüssels.
+	 * 
+	 * @param key Schlüssel des Eintrages.
+	 * @return <b>null</b> wenn es keinen Eintrag gibt. Andernfalls ein {@link ResultSet},
+	 * welches auf dem Eintrag steht. Es enthält die {@link ColumnNames#COL_ROW_ID},
+	 * {@link ColumnNames#COL_VALUE_TYPE} sowie alle Wert-Spalten.
+	 * @throws Exception
+	 */
+	public ResultSet lookup(Object key) throws Exception {
+		setBucketParameter(lookupStatement, 1, key);
+		ResultSet result = lookupStatement.executeQuery();
+		
+		byte[] serializedKey = null;
+		while(result.next()){
+			if(comparableInSql) return result;
+			
+			//serialisierte Schlüssel lassen sich nicht allein über die Bytes vergleichen:
+			//gleiche Objekte können unterschiedlich serialisiert sein. Umgekehrt besitzen
+			//viele Klassen kein eigenes equals(), sind aber bei gleichen Bytes identisch.
+			byte[] storedKey = result.getBytes(2);
+			if(serializedKey == null){
+				serializedKey = ConvertHelper.convertObjectToByteArray(key);
+			}
+			
+			if(Arrays.equals(serializedKey, storedKey)) return result;
+			if(storedKey != null && key.equals(ConvertHelper.convertByteArrayToObject(storedKey))) return result;
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * @param key Schlüssel des Eintrages.
+	 * @return Die {@link ColumnNames#COL_ROW_ID} des Eintrages oder <b>null</b>, wenn es keinen Eintrag gibt.
+	 * @throws Exception
+	 */
+	public Long findRowId(Object key) throws Exception {
+		ResultSet result = lookup(key);
+		
+		return result != null ? result.getLong(1) : null;
+	}
+	
+	/**
+	 * Löscht den Eintrag des gegebenen Schlüssels.
+	 * 
+	 * @param key Schlüssel des Eintrages.
+	 * @return Anzahl der gelöschten Einträge.
+	 * @throws Exception
+	 */
+	public int remove(Object key) throws Exception {
+		setKeyParameter(removeStatement, 1, key);
+		
+		return removeStatement.executeUpdate();
+	}
+	
+	/**
+	 * Fügt das Löschen des Eintrages dem aktuellen Batch hinzu.
+	 * 
+	 * @param key Schlüssel des Eintrages.
+	 * @throws Exception
+	 */
+	public void addRemoveBatch(Object key) throws Exception {
+		setKeyParameter(removeStatement, 1, key);
+		removeStatement.addBatch();
+	}
+	
+	/**
+	 * Führt alle gesammelten Lösch-Operationen aus.
+	 * 
+	 * @throws Exception
+	 */
+	public void executeRemoveBatch() throws Exception {
+		removeStatement.executeBatch();
+	}
+}
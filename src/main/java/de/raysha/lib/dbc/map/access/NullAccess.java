@@ -14,20 +14,22 @@ import de.raysha.lib.dbc.map.interpreter.Interpreter;
 public class NullAccess implements Access {
 	protected PreparedStatement insertStatement;
 	protected PreparedStatement updateStatement;
+	protected PreparedStatement mergeStatement;
+	protected KeyAccess keyAccess;
 	protected Interpreter<?> keyInterpreter;
 	
-	public NullAccess(Connection connection, String tableName, Interpreter<?> keyInterpreter) throws SQLException{
-		this.keyInterpreter = keyInterpreter;
+	public NullAccess(Connection connection, String tableName, KeyAccess keyAccess) throws SQLException{
+		this.keyAccess = keyAccess;
+		this.keyInterpreter = keyAccess.getKeyInterpreter();
 		
 		init(connection, tableName);
 	}
 	
 	@Override
-	protected void finalize() throws Throwable {
+	public void close() {
 		try{insertStatement.close();}catch(SQLException e){}
 		try{updateStatement.close();}catch(SQLException e){}
-		
-		super.finalize();
+		try{if(mergeStatement != null) mergeStatement.close();}catch(SQLException e){}
 	}
 	
 	private void init(Connection connection, String tableName) throws SQLException{
@@ -37,7 +39,7 @@ public class NullAccess implements Access {
 							keyInterpreter.getKeyColumnName() + ", " + 
 							COL_KEY_TYPE + ")" +
 						" VALUES(?, ?, ?)");
-
+		
 		updateStatement = connection.prepareStatement(
 				"UPDATE " + tableName + " " + 
 					"SET " +
@@ -52,7 +54,40 @@ public class NullAccess implements Access {
 							COL_VALUE + " = NULL, " +
 							COL_VALUE_HASH + " = NULL, " +
 							COL_VALUE_TYPE + " = NULL " +
-					"WHERE " + COL_ID + " = ? AND " + COL_KEY_TYPE + " = ?");
+					"WHERE " + keyAccess.getKeyCondition());
+		
+		mergeStatement = prepareMergeStatement(connection, tableName);
+	}
+	
+	private PreparedStatement prepareMergeStatement(Connection connection, String tableName){
+		//MERGE ist nicht in jedem SQL-Dialekt vorhanden. In diesem Fall
+		//wird beim Mergen auf Update und ggf. Insert zurückgegriffen.
+		//Gleiches gilt für Schlüssel, die nicht per SQL verglichen werden können.
+		if(!keyAccess.isComparableInSql()) return null;
+		
+		try{
+			return connection.prepareStatement(
+					"MERGE INTO " + tableName + "(" + 
+							COL_ID + ", " + 
+							keyInterpreter.getKeyColumnName() + ", " + 
+							COL_KEY_TYPE + ", " +
+							
+							COL_BOOLEAN_VALUE + ", " +
+							COL_BYTE_VALUE + ", " +
+							COL_CHAR_VALUE + ", " +
+							COL_DOUBLE_VALUE + ", " +
+							COL_FLOAT_VALUE + ", " +
+							COL_INT_VALUE + ", " +
+							COL_LONG_VALUE + ", " +
+							COL_STRING_VALUE + ", " +
+							COL_VALUE + ", " +
+							COL_VALUE_HASH + ", " +
+							COL_VALUE_TYPE + ")" +
+						" KEY(" + keyAccess.getKeyColumns() + ")" +
+						" VALUES(?, ?, ?, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL)");
+		}catch(SQLException e){
+			return null;
+		}
 	}
 	
 	@Override
@@ -60,22 +95,58 @@ public class NullAccess implements Access {
 		//diese klasse liefert immer null
 		return null;
 	}
-
+	
 	@Override
 	public void add(Object key, Object value) throws Exception {
 		insertStatement.setInt(1, key.hashCode());
 		keyInterpreter.setParameter(insertStatement, 2, key);
-		insertStatement.setString(3, key.getClass().getName());
+		insertStatement.setShort(3, keyAccess.getTypeDictionary().getId(key.getClass()));
 		
 		insertStatement.executeUpdate();
 	}
-
+	
 	@Override
 	public void update(Object key, Object value) throws Exception {
-		updateStatement.setInt(1, key.hashCode());
-		updateStatement.setString(2, key.getClass().getName());
+		executeUpdate(key);
+	}
+	
+	@Override
+	public void merge(Object key, Object value) throws Exception {
+		if(mergeStatement != null){
+			setMergeParameter(key);
+			mergeStatement.executeUpdate();
+		}else if(executeUpdate(key) <= 0){
+			add(key, value);
+		}
+	}
+	
+	@Override
+	public void addBatch(Object key, Object value) throws Exception {
+		if(mergeStatement != null){
+			setMergeParameter(key);
+			mergeStatement.addBatch();
+		}else{
+			merge(key, value);
+		}
+	}
+	
+	@Override
+	public void executeBatch() throws Exception {
+		if(mergeStatement != null){
+			mergeStatement.executeBatch();
+		}
+	}
+	
+	private void setMergeParameter(Object key) throws Exception {
+		mergeStatement.setInt(1, key.hashCode());
+		keyInterpreter.setParameter(mergeStatement, 2, key);
+		mergeStatement.setShort(3, keyAccess.getTypeDictionary().getId(key.getClass()));
+	}
+	
+	private int executeUpdate(Object key) throws Exception {
+		keyAccess.setKeyParameter(updateStatement, 1, key);
 		
-		updateStatement.executeUpdate();
+		return updateStatement.executeUpdate();
 	}
 
 }
@@ -0,0 +1,275 @@
+package de.raysha.lib.dbc.map.access;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+
+import de.raysha.lib.dbc.map.interpreter.Interpreter;
+
+/**
+ * Diese Klasse kapselt den Zugriff auf eine Tabelle mit schmalem Schema (siehe
+ * {@link de.raysha.lib.dbc.TypedDBMap}). Die Tabelle besteht nur aus der Schlüssel-Spalte
+ * des Schlüssel-Interpreters (Primärschlüssel) und der Wert-Spalte des Wert-Interpreters.
+ * Hash-Werte und Typ-Namen werden nicht gespeichert, da alle Schlüssel und Werte
+ * denselben Typ besitzen.
+ * 
+ * @author rainu
+ */
+public class TypedAccess implements Access {
+	/**
+	 * Die Spalten-Definitionen des schmalen Schemas. Sie entsprechen denen der
+	 * {@link de.raysha.lib.dbc.DBMap}, nur werden String-Schlüssel nicht als CLOB
+	 * abgelegt, da sie Primärschlüssel sind.
+	 */
+	private static final Map<String, String> COLUMN_DEFINITIONS = new HashMap<String, String>();
+	private static final Map<String, Integer> COLUMN_TYPES = new HashMap<String, Integer>();
+	static{
+		column(COL_INT_KEY, "INT", Types.INTEGER);
+		column(COL_LONG_KEY, "BIGINT", Types.BIGINT);
+		column(COL_FLOAT_KEY, "REAL", Types.REAL);
+		column(COL_DOUBLE_KEY, "DOUBLE", Types.DOUBLE);
+		column(COL_BYTE_KEY, "TINYINT", Types.TINYINT);
+		column(COL_CHAR_KEY, "NVARCHAR(1)", Types.NVARCHAR);
+		column(COL_BOOLEAN_KEY, "BOOLEAN", Types.BOOLEAN);
+		column(COL_STRING_KEY, "NVARCHAR(MAX)", Types.NVARCHAR);
+		
+		column(COL_VALUE, "BLOB", Types.BLOB);
+		column(COL_INT_VALUE, "INT", Types.INTEGER);
+		column(COL_LONG_VALUE, "BIGINT", Types.BIGINT);
+		column(COL_FLOAT_VALUE, "REAL", Types.REAL);
+		column(COL_DOUBLE_VALUE, "DOUBLE", Types.DOUBLE);
+		column(COL_BYTE_VALUE, "TINYINT", Types.TINYINT);
+		column(COL_CHAR_VALUE, "NVARCHAR(1)", Types.NVARCHAR);
+		column(COL_BOOLEAN_VALUE, "BOOLEAN", Types.BOOLEAN);
+		column(COL_STRING_VALUE, "CLOB", Types.CLOB);
+	}
+	
+	private static void column(String name, String definition, int type){
+		COLUMN_DEFINITIONS.put(name, definition);
+		COLUMN_TYPES.put(name, type);
+	}
+	
+	protected PreparedStatement insertStatement;
+	protected PreparedStatement updateStatement;
+	protected PreparedStatement selectStatement;
+	protected PreparedStatement containsStatement;
+	protected PreparedStatement removeStatement;
+	protected PreparedStatement mergeStatement;
+	
+	private final Interpreter<?> keyInterpreter;
+	private final Interpreter<?> valueInterpreter;
+	private final String keyColumn;
+	private final String valueColumn;
+	
+	public TypedAccess(Connection connection, String tableName,
+			Interpreter<?> keyInterpreter, Interpreter<?> valueInterpreter) throws SQLException{
+		
+		if(!isKeyInterpreter(keyInterpreter)){
+			throw new IllegalArgumentException("The keys must be stored in a typed column!");
+		}
+		
+		this.keyInterpreter = keyInterpreter;
+		this.valueInterpreter = valueInterpreter;
+		this.keyColumn = keyInterpreter.getKeyColumnName();
+		this.valueColumn = valueInterpreter.getValueColumnName();
+		
+		init(connection, tableName);
+	}
+	
+	/**
+	 * @param keyInterpreter Interpreter des Schlüssel-Typs.
+	 * @return True, wenn die Schlüssel in einer typisierten Spalte liegen und somit
+	 * als Primärschlüssel des schmalen Schemas taugen. Serialisierte Schlüssel
+	 * (siehe {@link KeyAccess}) sind dazu nicht geeignet.
+	 */
+	public static boolean isKeyInterpreter(Interpreter<?> keyInterpreter){
+		return COLUMN_DEFINITIONS.containsKey(keyInterpreter.getKeyColumnName());
+	}
+	
+	/**
+	 * @return Das CREATE-Statement der Tabelle für die gegebenen Interpreter.
+	 */
+	public static String getCreateStatement(String tableName,
+			Interpreter<?> keyInterpreter, Interpreter<?> valueInterpreter){
+		
+		String keyColumn = keyInterpreter.getKeyColumnName();
+		String valueColumn = valueInterpreter.getValueColumnName();
+		
+		return "CREATE TABLE " + tableName + " (" +
+				keyColumn + " " + COLUMN_DEFINITIONS.get(keyColumn) + " NOT NULL," +
+				valueColumn + " " + COLUMN_DEFINITIONS.get(valueColumn) + "," +
+				
+				"PRIMARY KEY (" + keyColumn + ")" +
+				")";
+	}
+	
+	@Override
+	public void close() {
+		try{insertStatement.close();}catch(SQLException e){}
+		try{updateStatement.close();}catch(SQLException e){}
+		try{selectStatement.close();}catch(SQLException e){}
+		try{containsStatement.close();}catch(SQLException e){}
+		try{removeStatement.close();}catch(SQLException e){}
+		try{if(mergeStatement != null) mergeStatement.close();}catch(SQLException e){}
+	}
+	
+	private void init(Connection connection, String tableName) throws SQLException{
+		insertStatement = connection.prepareStatement(
+				"INSERT INTO " + tableName + "(" + keyColumn + ", " + valueColumn + ")" +
+				" VALUES(?, ?)");
+		updateStatement = connection.prepareStatement(
+				"UPDATE " + tableName +
+				" SET " + valueColumn + " = ?" +
+				" WHERE " + keyColumn + " = ?");
+		selectStatement = connection.prepareStatement(
+				"SELECT " + valueColumn + " FROM " + tableName +
+				" WHERE " + keyColumn + " = ?");
+		containsStatement = connection.prepareStatement(
+				"SELECT 1 FROM " + tableName +
+				" WHERE " + keyColumn + " = ?");
+		removeStatement = connection.prepareStatement(
+				"DELETE FROM " + tableName +
+				" WHERE " + keyColumn + " = ?");
+		
+		mergeStatement = prepareMergeStatement(connection, tableName);
+	}
+	
+	private PreparedStatement prepareMergeStatement(Connection connection, String tableName){
+		//MERGE ist nicht in jedem SQL-Dialekt vorhanden. In diesem Fall
+		//wird beim Mergen auf Update und ggf. Insert zurückgegriffen.
+		try{
+			return connection.prepareStatement(
+					"MERGE INTO " + tableName + "(" + keyColumn + ", " + valueColumn + ")" +
+						" KEY(" + keyColumn + ")" +
+						" VALUES(?, ?)");
+		}catch(SQLException e){
+			return null;
+		}
+	}
+	
+	public String getKeyColumn() {
+		return keyColumn;
+	}
+	
+	public String getValueColumn() {
+		return valueColumn;
+	}
+	
+	/**
+	 * Liest den Schlüssel aus der gegebenen Spalte.
+	 */
+	public Object getKey(ResultSet result, int index) throws Exception {
+		return keyInterpreter.getFromResultSet(result, index);
+	}
+	
+	/**
+	 * Liest den Wert aus der gegebenen Spalte. Die Interpreter der primitiven Typen
+	 * liefern für NULL-Spalten einen Standardwert, der hier durch <b>null</b> ersetzt wird.
+	 */
+	public Object getValue(ResultSet result, int index) throws Exception {
+		Object value = valueInterpreter.getFromResultSet(result, index);
+		
+		return result.wasNull() ? null : value;
+	}
+	
+	private void setValueParameter(PreparedStatement stmt, int index, Object value) throws Exception {
+		if(value == null){
+			stmt.setNull(index, COLUMN_TYPES.get(valueColumn));
+		}else{
+			valueInterpreter.setParameter(stmt, index, value);
+		}
+	}
+	
+	@Override
+	public Object get(Object key) throws Exception {
+		keyInterpreter.setParameter(selectStatement, 1, key);
+		
+		ResultSet set = selectStatement.executeQuery();
+		try{
+			return set.next() ? getValue(set, 1) : null;
+		}finally{
+			set.close();
+		}
+	}
+	
+	/**
+	 * @return True, wenn es einen Eintrag zum gegebenen Schlüssel gibt.
+	 */
+	public boolean contains(Object key) throws Exception {
+		keyInterpreter.setParameter(containsStatement, 1, key);
+		
+		ResultSet set = containsStatement.executeQuery();
+		try{
+			return set.next();
+		}finally{
+			set.close();
+		}
+	}
+	
+	@Override
+	public void add(Object key, Object value) throws Exception {
+		keyInterpreter.setParameter(insertStatement, 1, key);
+		setValueParameter(insertStatement, 2, value);
+		
+		insertStatement.executeUpdate();
+	}
+	
+	@Override
+	public void update(Object key, Object value) throws Exception {
+		executeUpdate(key, value);
+	}
+	
+	@Override
+	public void merge(Object key, Object value) throws Exception {
+		if(mergeStatement != null){
+			setMergeParameter(key, value);
+			mergeStatement.executeUpdate();
+		}else if(executeUpdate(key, value) <= 0){
+			add(key, value);
+		}
+	}
+	
+	@Override
+	public void addBatch(Object key, Object value) throws Exception {
+		if(mergeStatement != null){
+			setMergeParameter(key, value);
+			mergeStatement.addBatch();
+		}else{
+			merge(key, value);
+		}
+	}
+	
+	@Override
+	public void executeBatch() throws Exception {
+		if(mergeStatement != null){
+			mergeStatement.executeBatch();
+		}
+	}
+	
+	/**
+	 * Löscht den Eintrag des gegebenen Schlüssels.
+	 * 
+	 * @return Anzahl der gelöschten Einträge.
+	 */
+	public int remove(Object key) throws Exception {
+		keyInterpreter.setParameter(removeStatement, 1, key);
+		
+		return removeStatement.executeUpdate();
+	}
+	
+	private void setMergeParameter(Object key, Object value) throws Exception {
+		keyInterpreter.setParameter(mergeStatement, 1, key);
+		setValueParameter(mergeStatement, 2, value);
+	}
+	
+	private int executeUpdate(Object key, Object value) throws Exception {
+		setValueParameter(updateStatement, 1, value);
+		keyInterpreter.setParameter(updateStatement, 2, key);
+		
+		return updateStatement.executeUpdate();
+	}
+}
@@ -0,0 +1,48 @@
+package de.raysha.lib.dbc.map.codec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import de.raysha.lib.dbc.ConvertHelper;
+import de.raysha.lib.dbc.map.interpreter.InterpreterProvider;
+
+/**
+ * Ein Codec wandelt ein Objekt in seine binäre Form um (und zurück). Alle Objekte,
+ * die nicht in einer typisierten Spalte abgelegt werden können, werden über einen
+ * Codec gespeichert. Welcher Codec für welche Klasse zuständig ist, wird im
+ * {@link InterpreterProvider} hinterlegt.
+ * <br/><br/>
+ * Die Kennung des Codecs (siehe {@link #getId()}) wird zusammen mit den Daten
+ * gespeichert, sodass beim Lesen wieder der passende Codec gewählt werden kann
+ * (siehe {@link ConvertHelper}). Einmal vergebene Kennungen dürfen sich daher
+ * nicht mehr ändern.
+ * 
+ * @author rainu
+ */
+public interface Codec {
+	/**
+	 * @return Eindeutige Kennung des Codecs. Die Kennung 0 ist der Java-Serialisierung
+	 * (siehe {@link JavaSerializationCodec}) vorbehalten.
+	 */
+	byte getId();
+	
+	/**
+	 * Schreibt die binäre Form des Objektes.
+	 * 
+	 * @param value Objekt welches geschrieben werden soll (niemals <b>null</b>).
+	 * @param out Stream in den geschrieben werden soll.
+	 * @throws IOException
+	 */
+	void write(Object value, DataOutputStream out) throws IOException;
+	
+	/**
+	 * Liest ein Objekt aus seiner binären Form.
+	 * 
+	 * @param in Stream aus dem gelesen werden soll.
+	 * @return Das gelesene Objekt.
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	Object read(DataInputStream in) throws IOException, ClassNotFoundException;
+}
@@ -0,0 +1,59 @@
+package de.raysha.lib.dbc.map.codec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * {@link Codec} für {@link Externalizable} Objekte. Im Gegensatz zur
+ * Java-Serialisierung wird keine vollständige Klassenbeschreibung geschrieben,
+ * sondern nur der Name der Klasse gefolgt von den Daten aus
+ * {@link Externalizable#writeExternal(java.io.ObjectOutput)}.
+ * <br/><br/>
+ * Der Codec kann für {@link Externalizable} selbst registriert werden und gilt
+ * dann für alle Klassen, die dieses Interface implementieren:
+ * <pre>
+ * InterpreterProvider.getInstance().registerCodec(Externalizable.class, new ExternalizableCodec());
+ * </pre>
+ * 
+ * @author rainu
+ */
+public class ExternalizableCodec implements Codec {
+	public static final byte ID = 1;
+	
+	@Override
+	public byte getId() {
+		return ID;
+	}
+	
+	@Override
+	public void write(Object value, DataOutputStream out) throws IOException {
+		if(!(value instanceof Externalizable)){
+			throw new IOException("The class " + value.getClass().getName() + " is not externalizable!");
+		}
+		
+		out.writeUTF(value.getClass().getName());
+		
+		ObjectOutputStream oos = new ObjectOutputStream(out);
+		((Externalizable)value).writeExternal(oos);
+		oos.flush();
+	}
+	
+	@Override
+	public Object read(DataInputStream in) throws IOException, ClassNotFoundException {
+		Class<?> clazz = Class.forName(in.readUTF());
+		
+		Externalizable value;
+		try {
+			value = (Externalizable)clazz.getDeclaredConstructor().newInstance();
+		} catch (Exception e) {
+			throw new IOException("Could not instantiate " + clazz.getName(), e);
+		}
+		
+		value.readExternal(new ObjectInputStream(in));
+		return value;
+	}
+}
@@ -0,0 +1,37 @@
+package de.raysha.lib.dbc.map.codec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * Standard-{@link Codec}, der die Java-Serialisierung verwendet. Die Objekte
+ * müssen daher {@link Serializable} sein. Die Daten werden ohne Kennung des
+ * Codecs geschrieben und sind somit mit bereits bestehenden Tabellen kompatibel.
+ * 
+ * @author rainu
+ */
+public class JavaSerializationCodec implements Codec {
+	public static final byte ID = 0;
+	
+	@Override
+	public byte getId() {
+		return ID;
+	}
+	
+	@Override
+	public void write(Object value, DataOutputStream out) throws IOException {
+		ObjectOutputStream oos = new ObjectOutputStream(out);
+		oos.writeObject(value);
+		oos.flush();
+	}
+	
+	@Override
+	public Object read(DataInputStream in) throws IOException, ClassNotFoundException {
+		ObjectInputStream ois = new ObjectInputStream(in);
+		return ois.readObject();
+	}
+}
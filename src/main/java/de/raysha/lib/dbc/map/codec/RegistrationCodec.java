@@ -0,0 +1,219 @@
+package de.raysha.lib.dbc.map.codec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.raysha.lib.dbc.ConvertHelper;
+
+/**
+ * {@link Codec} für einfache Bean- bzw. Record-artige Klassen. Jede Klasse muss
+ * vorher unter einer festen Nummer registriert werden (siehe {@link #register(Class, int)}).
+ * Anstelle einer Klassenbeschreibung wird nur diese Nummer geschrieben, gefolgt von
+ * den Werten aller Felder (auch der Felder der Oberklassen, jedoch keine statischen
+ * oder <i>transient</i> Felder).
+ * <br/><br/>
+ * Primitive Felder, deren Wrapper-Klassen sowie Strings werden direkt geschrieben.
+ * Alle anderen Felder werden wiederum über den für ihre Klasse zuständigen Codec
+ * geschrieben. Die registrierten Klassen benötigen einen parameterlosen Konstruktor
+ * (der auch privat sein darf).
+ * <br/><br/>
+ * Da die Felder in einer festen Reihenfolge (nach Namen sortiert) geschrieben werden,
+ * dürfen sich die Felder einer registrierten Klasse nicht mehr ändern, solange noch
+ * Daten mit der alten Form gespeichert sind. Gleiches gilt für die vergebenen Nummern.
+ * 
+ * @author rainu
+ */
+public class RegistrationCodec implements Codec {
+	public static final byte ID = 2;
+	
+	private final Map<Class<?>, Integer> classIds = new HashMap<Class<?>, Integer>();
+	private final Map<Integer, Class<?>> classes = new HashMap<Integer, Class<?>>();
+	private final Map<Class<?>, Field[]> fields = new HashMap<Class<?>, Field[]>();
+	
+	@Override
+	public byte getId() {
+		return ID;
+	}
+	
+	/**
+	 * Registriert eine Klasse.
+	 * 
+	 * @param clazz Klasse die registriert werden soll.
+	 * @param classId Nummer der Klasse (0 bis {@link Short#MAX_VALUE}).
+	 * @return Dieser Codec.
+	 */
+	public synchronized RegistrationCodec register(Class<?> clazz, int classId) {
+		if(classId < 0 || classId > Short.MAX_VALUE){
+			throw new IllegalArgumentException("Invalid class id: " + classId);
+		}
+		if(classes.containsKey(classId) && classes.get(classId) != clazz){
+			throw new IllegalArgumentException("The class id " + classId + 
+					" is already registered for " + classes.get(classId).getName());
+		}
+		
+		classIds.put(clazz, classId);
+		classes.put(classId, clazz);
+		fields.put(clazz, collectFields(clazz));
+		
+		return this;
+	}
+	
+	private static Field[] collectFields(Class<?> clazz){
+		List<Field> result = new ArrayList<Field>();
+		
+		//die Felder der Oberklassen zuerst
+		for(Class<?> cur = clazz; cur != null && cur != Object.class; cur = cur.getSuperclass()){
+			Field[] declared = cur.getDeclaredFields();
+			Arrays.sort(declared, new Comparator<Field>() {
+				@Override
+				public int compare(Field f1, Field f2) {
+					return f1.getName().compareTo(f2.getName());
+				}
+			});
+			
+			List<Field> own = new ArrayList<Field>();
+			for(Field field : declared){
+				int modifiers = field.getModifiers();
+				if(Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) continue;
+				
+				field.setAccessible(true);
+				own.add(field);
+			}
+			result.addAll(0, own);
+		}
+		
+		return result.toArray(new Field[result.size()]);
+	}
+	
+	private synchronized Field[] getFields(Class<?> clazz){
+		return fields.get(clazz);
+	}
+	
+	private synchronized Integer getClassId(Class<?> clazz){
+		return classIds.get(clazz);
+	}
+	
+	private synchronized Class<?> getRegisteredClass(int classId){
+		return classes.get(classId);
+	}
+	
+	@Override
+	public void write(Object value, DataOutputStream out) throws IOException {
+		Integer classId = getClassId(value.getClass());
+		if(classId == null){
+			throw new IOException("The class " + value.getClass().getName() + " is not registered!");
+		}
+		
+		out.writeShort(classId);
+		try{
+			for(Field field : getFields(value.getClass())){
+				writeField(field.getType(), field.get(value), out);
+			}
+		}catch(IllegalAccessException e){
+			throw new IOException("Could not read fields of " + value.getClass().getName(), e);
+		}
+	}
+	
+	private void writeField(Class<?> type, Object value, DataOutputStream out) throws IOException{
+		if(type == int.class) out.writeInt((Integer)value);
+		else if(type == long.class) out.writeLong((Long)value);
+		else if(type == boolean.class) out.writeBoolean((Boolean)value);
+		else if(type == byte.class) out.writeByte((Byte)value);
+		else if(type == char.class) out.writeChar((Character)value);
+		else if(type == short.class) out.writeShort((Short)value);
+		else if(type == float.class) out.writeFloat((Float)value);
+		else if(type == double.class) out.writeDouble((Double)value);
+		else{
+			out.writeBoolean(value != null);
+			if(value == null) return;
+			
+			if(type == String.class){
+				byte[] bytes = ((String)value).getBytes("UTF-8");
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+			else if(type == Integer.class) out.writeInt((Integer)value);
+			else if(type == Long.class) out.writeLong((Long)value);
+			else if(type == Boolean.class) out.writeBoolean((Boolean)value);
+			else if(type == Byte.class) out.writeByte((Byte)value);
+			else if(type == Character.class) out.writeChar((Character)value);
+			else if(type == Short.class) out.writeShort((Short)value);
+			else if(type == Float.class) out.writeFloat((Float)value);
+			else if(type == Double.class) out.writeDouble((Double)value);
+			else{
+				//über den zuständigen Codec schreiben
+				byte[] bytes = ConvertHelper.convertObjectToByteArray(value);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+		}
+	}
+	
+	@Override
+	public Object read(DataInputStream in) throws IOException, ClassNotFoundException {
+		int classId = in.readShort();
+		Class<?> clazz = getRegisteredClass(classId);
+		if(clazz == null){
+			throw new ClassNotFoundException("There is no class registered for id " + classId);
+		}
+		
+		try{
+			Constructor<?> constructor = clazz.getDeclaredConstructor();
+			constructor.setAccessible(true);
+			Object value = constructor.newInstance();
+			
+			for(Field field : getFields(clazz)){
+				field.set(value, readField(field.getType(), in));
+			}
+			
+			return value;
+		}catch(IOException e){
+			throw e;
+		}catch(ClassNotFoundException e){
+			throw e;
+		}catch(Exception e){
+			throw new IOException("Could not instantiate " + clazz.getName(), e);
+		}
+	}
+	
+	private Object readField(Class<?> type, DataInputStream in) throws IOException, ClassNotFoundException{
+		if(type == int.class) return in.readInt();
+		if(type == long.class) return in.readLong();
+		if(type == boolean.class) return in.readBoolean();
+		if(type == byte.class) return in.readByte();
+		if(type == char.class) return in.readChar();
+		if(type == short.class) return in.readShort();
+		if(type == float.class) return in.readFloat();
+		if(type == double.class) return in.readDouble();
+		
+		if(!in.readBoolean()) return null;
+		
+		if(type == String.class){
+			byte[] bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+			return new String(bytes, "UTF-8");
+		}
+		if(type == Integer.class) return in.readInt();
+		if(type == Long.class) return in.readLong();
+		if(type == Boolean.class) return in.readBoolean();
+		if(type == Byte.class) return in.readByte();
+		if(type == Character.class) return in.readChar();
+		if(type == Short.class) return in.readShort();
+		if(type == Float.class) return in.readFloat();
+		if(type == Double.class) return in.readDouble();
+		
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return ConvertHelper.convertByteArrayToObject(bytes);
+	}
+}
@@ -1,14 +1,25 @@
 package de.raysha.lib.dbc.map.interpreter;
 
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.raysha.lib.dbc.map.codec.Codec;
+import de.raysha.lib.dbc.map.codec.JavaSerializationCodec;
 
 /**
  * Dies ist ein Provider, der die bestehenden Interpreter
  * beinhaltet und zur Verfügung stellt.
+ * <br/><br/>
+ * Außerdem wird hier hinterlegt, über welchen {@link Codec} die Objekte
+ * einer Klasse gespeichert werden, die keinen eigenen Interpreter besitzen.
+ * Ein Codec kann je Klasse (bzw. für eine Oberklasse oder ein Interface)
+ * oder als Standard für alle Klassen hinterlegt werden. Ohne weitere Angabe
+ * wird die Java-Serialisierung verwendet.
  * 
  * @author rainu
- *
+ * 
  */
 public class InterpreterProvider {
 	private static InterpreterProvider instance;
@@ -23,9 +34,16 @@ public class InterpreterProvider {
 	
 	private Map<Class<?>, Interpreter<?>> interpreter = new HashMap<Class<?>, Interpreter<?>>();
 	private Interpreter<?> objectInterpreter;
+	private Interpreter<?> streamInterpreter;
+	
+	private final Map<Class<?>, Codec> registeredCodecs = new ConcurrentHashMap<Class<?>, Codec>();
+	private final Map<Class<?>, Codec> resolvedCodecs = new ConcurrentHashMap<Class<?>, Codec>();
+	private final Map<Byte, Codec> codecsById = new ConcurrentHashMap<Byte, Codec>();
+	private volatile Codec defaultCodec;
 	
 	private InterpreterProvider() {
 		objectInterpreter = new ObjectInterpreter();
+		streamInterpreter = new StreamInterpreter();
 		interpreter.put(Integer.class, new IntegerInterpreter());
 		interpreter.put(Long.class, new LongInterpreter());
 		interpreter.put(Float.class, new FloatInterpreter());
@@ -34,13 +52,103 @@ public class InterpreterProvider {
 		interpreter.put(Character.class, new CharacterInterpreter());
 		interpreter.put(Boolean.class, new BooleanInterpreter());
 		interpreter.put(String.class, new StringInterpreter());
+		
+		setDefaultCodec(new JavaSerializationCodec());
 	}
-
+	
 	public Interpreter<?> getInterpreter(Class<?> clazz){
 		if(interpreter.containsKey(clazz)){
 			return interpreter.get(clazz);
 		}
+		if(InputStream.class.isAssignableFrom(clazz)){
+			return streamInterpreter;
+		}
 		
 		return objectInterpreter;
 	}
+	
+	/**
+	 * Hinterlegt einen {@link Codec} für die gegebene Klasse. Dieser gilt auch für 
+	 * alle Unterklassen bzw. (bei einem Interface) für alle implementierenden Klassen,
+	 * sofern für diese kein eigener Codec hinterlegt ist.
+	 * <br/><br/>
+	 * Bereits gespeicherte Objekte bleiben weiterhin lesbar, solange der Codec, mit
+	 * dem sie geschrieben wurden, registriert bleibt.
+	 * 
+	 * @param clazz Klasse für die der Codec gelten soll.
+	 * @param codec Codec der verwendet werden soll.
+	 */
+	public void registerCodec(Class<?> clazz, Codec codec){
+		registerId(codec);
+		
+		registeredCodecs.put(clazz, codec);
+		resolvedCodecs.clear();
+	}
+	
+	/**
+	 * Hinterlegt den {@link Codec}, der für alle Klassen ohne eigenen Codec verwendet wird.
+	 * 
+	 * @param codec Codec der verwendet werden soll.
+	 */
+	public void setDefaultCodec(Codec codec){
+		registerId(codec);
+		
+		defaultCodec = codec;
+		resolvedCodecs.clear();
+	}
+	
+	private void registerId(Codec codec){
+		if(codec == null) throw new NullPointerException("Codec must not be null!");
+		
+		Codec existing = codecsById.get(codec.getId());
+		if(existing != null && existing.getClass() != codec.getClass()){
+			throw new IllegalArgumentException("The codec id " + codec.getId() + 
+					" is already used by " + existing.getClass().getName());
+		}
+		
+		codecsById.put(codec.getId(), codec);
+	}
+	
+	/**
+	 * @param clazz Klasse des Objektes.
+	 * @return Der Codec über den die Objekte der gegebenen Klasse gespeichert werden.
+	 */
+	public Codec getCodec(Class<?> clazz){
+		Codec codec = resolvedCodecs.get(clazz);
+		if(codec == null){
+			codec = resolveCodec(clazz);
+			if(codec == null) codec = defaultCodec;
+			
+			resolvedCodecs.put(clazz, codec);
+		}
+		
+		return codec;
+	}
+	
+	private Codec resolveCodec(Class<?> clazz){
+		//zuerst die Klasse selbst sowie ihre Oberklassen...
+		for(Class<?> cur = clazz; cur != null; cur = cur.getSuperclass()){
+			Codec codec = registeredCodecs.get(cur);
+			if(codec != null) return codec;
+		}
+		
+		//...anschließend deren Interfaces
+		for(Class<?> cur = clazz; cur != null; cur = cur.getSuperclass()){
+			for(Class<?> curInterface : cur.getInterfaces()){
+				Codec codec = registeredCodecs.get(curInterface);
+				if(codec == null) codec = resolveCodec(curInterface);
+				if(codec != null) return codec;
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * @param id Kennung des Codecs (siehe {@link Codec#getId()}).
+	 * @return Der Codec mit der gegebenen Kennung oder <b>null</b>, wenn es keinen gibt.
+	 */
+	public Codec getCodec(byte id){
+		return codecsById.get(id);
+	}
 }
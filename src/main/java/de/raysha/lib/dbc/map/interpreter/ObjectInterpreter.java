@@ -1,7 +1,6 @@
 package de.raysha.lib.dbc.map.interpreter;
 
 import java.io.InputStream;
-import java.io.Serializable;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 
@@ -25,7 +24,7 @@ public class ObjectInterpreter implements Interpreter<Object>,
 	public void setParameter(PreparedStatement stmt, 
 			int index, Object value) throws Exception{
 		
-		stmt.setBinaryStream(index, ConvertHelper.convertObjectToInputStream(value));
+		stmt.setBytes(index, ConvertHelper.convertObjectToByteArray(value));
 	}
 
 	@Override
@@ -34,7 +33,7 @@ public class ObjectInterpreter implements Interpreter<Object>,
 		
 		InputStream in = result.getBinaryStream(index);
 		try{
-			return (Serializable)ConvertHelper.convertInputStreamToObject(in);
+			return ConvertHelper.convertInputStreamToObject(in);
 		}finally{
 			if(in != null){
 				in.close();
@@ -43,12 +42,12 @@ public class ObjectInterpreter implements Interpreter<Object>,
 	}
 
 	@Override
-	public Serializable getFromResultSet(ResultSet result, String columnLabel)
+	public Object getFromResultSet(ResultSet result, String columnLabel)
 			throws Exception {
 
 		InputStream in = result.getBinaryStream(columnLabel);
 		try{
-			return (Serializable)ConvertHelper.convertInputStreamToObject(in);
+			return ConvertHelper.convertInputStreamToObject(in);
 		}finally{
 			if(in != null){
 				in.close();
@@ -0,0 +1,59 @@
+package de.raysha.lib.dbc.map.interpreter;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import de.raysha.lib.dbc.ColumnNames;
+import de.raysha.lib.dbc.DBMap;
+
+/**
+ * Interpreter für {@link InputStream}s. Der Inhalt des Streams wird unverändert (also
+ * ohne Serialisierung) in die BLOB-Spalte geschrieben. Der Stream wird dabei direkt
+ * an den JDBC-Treiber übergeben und nicht vorher in den Speicher gelesen.
+ * <br/><br/>
+ * Beim Lesen über diesen Interpreter (z.B. {@link DBMap#get(Object)}) wird der Inhalt
+ * jedoch vollständig gelesen, da das {@link ResultSet} nicht offen bleiben kann.
+ * Große Inhalte sollten daher über {@link DBMap#getStream(Object)} gelesen werden.
+ * 
+ * @author rainu
+ */
+public class StreamInterpreter implements Interpreter<InputStream>,
+											ColumnNames{
+	
+	@Override
+	public String getValueColumnName() {
+		return COL_VALUE;
+	}
+	
+	@Override
+	public String getKeyColumnName() {
+		return COL_KEY;
+	}
+	
+	@Override
+	public void setParameter(PreparedStatement stmt, 
+			int index, Object value) throws Exception{
+		
+		stmt.setBinaryStream(index, (InputStream)value);
+	}
+	
+	@Override
+	public InputStream getFromResultSet(
+			ResultSet result, int index) throws Exception {
+		
+		return toInputStream(result.getBytes(index));
+	}
+	
+	@Override
+	public InputStream getFromResultSet(ResultSet result, String columnLabel)
+			throws Exception {
+		
+		return toInputStream(result.getBytes(columnLabel));
+	}
+	
+	private InputStream toInputStream(byte[] bytes){
+		return bytes != null ? new ByteArrayInputStream(bytes) : null;
+	}
+}
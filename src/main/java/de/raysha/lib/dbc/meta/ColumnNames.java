@@ -1,7 +1,7 @@
 package de.raysha.lib.dbc.meta;
 
 /**
- * Alle Spaltennamen der Metadaten-Tabelle.
+ * Alle Spaltennamen der Metadaten-Tabelle sowie des Typ-Verzeichnisses.
  * 
  * @author rainu
  *
@@ -11,4 +11,7 @@ public interface ColumnNames {
 	public static String COL_TABLE_NAME			=	"T_NAME";
 	public static String COL_TABLE_VERSION		=	"T_VERSION";
 	public static String COL_TABLE_META_DATA	=	"T_META_DATA";
+	
+	public static String COL_TYPE_ID			=	"TYPE_ID";
+	public static String COL_TYPE_NAME			=	"TYPE_NAME";
 }
@@ -1,9 +1,13 @@
 package de.raysha.lib.dbc.meta;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Properties;
 
 import de.raysha.lib.dbc.exception.BackendException;
 
@@ -17,15 +21,16 @@ import de.raysha.lib.dbc.exception.BackendException;
  * ergreifen.
  * 
  * @author rainu
- *
+ * 
  */
-public class MetadataManager implements ColumnNames{
+public class MetadataManager implements ColumnNames, AutoCloseable{
 	public static final String TABLE_NAME = "DE_RAINU_METATABLE";
-
+	
 	private PreparedStatement tableMetadataStatement;
 	private PreparedStatement metadataStatement;
 	private PreparedStatement insertStatement;
 	private PreparedStatement updateStatement;
+	private PreparedStatement updateVersionStatement;
 	private PreparedStatement removeStatement;
 	
 	public MetadataManager(Connection connection) throws SQLException{
@@ -34,6 +39,19 @@ public class MetadataManager implements ColumnNames{
 		insertOwnMetadata();
 	}
 	
+	/**
+	 * Schließt alle Statements des Managers.
+	 */
+	@Override
+	public void close() {
+		try{tableMetadataStatement.close();}catch(SQLException e){}
+		try{metadataStatement.close();}catch(SQLException e){}
+		try{insertStatement.close();}catch(SQLException e){}
+		try{updateStatement.close();}catch(SQLException e){}
+		try{updateVersionStatement.close();}catch(SQLException e){}
+		try{removeStatement.close();}catch(SQLException e){}
+	}
+	
 	private void createTable(Connection connection){
 		try{
 			connection.createStatement().execute(
@@ -67,6 +85,10 @@ public class MetadataManager implements ColumnNames{
 				"UPDATE " + TABLE_NAME +
 				" SET " + COL_TABLE_META_DATA + " = ?" +
 				" WHERE " + COL_ID + " = ?");
+		this.updateVersionStatement = connection.prepareStatement(
+				"UPDATE " + TABLE_NAME +
+				" SET " + COL_TABLE_VERSION + " = ?" +
+				" WHERE " + COL_ID + " = ?");
 		this.removeStatement = connection.prepareStatement(
 				"DELETE FROM " + TABLE_NAME +
 				" WHERE " + COL_ID + " = ?");
@@ -166,6 +188,74 @@ public class MetadataManager implements ColumnNames{
 		}
 	}
 	
+	/**
+	 * Liefert die Metadaten einer Tabelle als Eigenschaften (siehe {@link Properties}).
+	 * 
+	 * @param tableName Name der Tabelle
+	 * @return Die Eigenschaften der Tabelle. Gibt es keine, ist das Ergebnis leer.
+	 */
+	public Properties getProperties(String tableName){
+		Properties properties = new Properties();
+		String metadata = getMetadata(new Long(tableName.hashCode()));
+		
+		if(metadata != null){
+			try {
+				properties.load(new StringReader(metadata));
+			} catch (IOException e) {
+				throw new BackendException("Could not read metadata for table '" + tableName + "'", e);
+			}
+		}
+		
+		return properties;
+	}
+	
+	/**
+	 * Setzt eine Eigenschaft in den Metadaten einer Tabelle. Alle anderen 
+	 * Eigenschaften bleiben dabei erhalten.
+	 * 
+	 * @param tableName Name der Tabelle
+	 * @param name Name der Eigenschaft
+	 * @param value Wert der Eigenschaft
+	 */
+	public void setProperty(String tableName, String name, String value){
+		Properties properties = getProperties(tableName);
+		properties.setProperty(name, value);
+		
+		StringWriter writer = new StringWriter();
+		try {
+			properties.store(writer, null);
+		} catch (IOException e) {
+			throw new BackendException("Could not write metadata for table '" + tableName + "'", e);
+		}
+		
+		//Properties schreiben immer einen Zeitstempel als Kommentar
+		StringBuilder metadata = new StringBuilder();
+		for(String line : writer.toString().split("\\r?\\n")){
+			if(!line.startsWith("#")){
+				metadata.append(line).append("\n");
+			}
+		}
+		
+		updateMetadata(tableName, metadata.toString());
+	}
+	
+	/**
+	 * Aktualisiert die Version einer Tabelle. Dies ist z.B. nach einer
+	 * Migration des Tabellen-Schemas notwendig.
+	 * 
+	 * @param tableName Name der Tabelle
+	 * @param version Neue Version der Tabelle.
+	 */
+	public void updateVersion(String tableName, String version){
+		try {
+			updateVersionStatement.setString(1, version);
+			updateVersionStatement.setLong(2, tableName.hashCode());
+			updateVersionStatement.executeUpdate();
+		} catch (SQLException e) {
+			throw new BackendException("Could not update version for table '" + tableName + "'", e);
+		}
+	}
+	
 	public void removeMetadata(String tableName){
 		if(tableName == null) return;
 		
@@ -0,0 +1,284 @@
+package de.raysha.lib.dbc.meta;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.raysha.lib.dbc.exception.BackendException;
+
+/**
+ * Dieses Verzeichnis vergibt für jeden gespeicherten Typ (also jeden Klassen-Namen) eine
+ * kleine Kennung. Die Tabellen speichern anstelle des Klassen-Namens nur noch diese
+ * Kennung (<i>SMALLINT</i>). Das Verzeichnis liegt in einer eigenen Tabelle und gilt für
+ * alle Tabellen einer Datenbank, so dass Einträge per SQL zwischen Tabellen kopiert
+ * werden können.
+ * <br/><br/>
+ * Alle bekannten Typen werden beim Anlegen geladen und im Speicher gehalten. Die
+ * Datenbank wird nur für bisher unbekannte Typen angesprochen. Da ein Typ nach seiner
+ * ersten Auflösung auch als {@link Class} vorgehalten wird, muss beim Lesen nicht
+ * erneut {@link Class#forName(String)} aufgerufen werden.
+ * <br/><br/>
+ * Neue Typen werden über die Verbindung des Verzeichnisses eingetragen. Befindet diese
+ * sich gerade in einer Transaktion, wird der Typ erst nach deren Ende in den Speicher
+ * übernommen, da er bei einem Rollback wieder verschwindet.
+ * 
+ * @author rainu
+ */
+public class TypeDictionary implements ColumnNames, AutoCloseable{
+	public static final String TABLE_NAME = "DE_RAINU_TYPETABLE";
+	public static final String TABLE_VERSION = "1.0";
+	
+	/**
+	 * Die Kennung, die für "kein Typ" (also einen <b>null</b>-Wert) steht. Vergebene
+	 * Kennungen beginnen bei 1. Eine NULL-Spalte wird von {@link ResultSet#getShort(int)}
+	 * ebenfalls als 0 geliefert.
+	 */
+	public static final short NO_TYPE = 0;
+	
+	/**
+	 * Wie oft versucht wird, eine Kennung zu vergeben, wenn gleichzeitig andere
+	 * Verbindungen Typen eintragen.
+	 */
+	private static final int INSERT_ATTEMPTS = 3;
+	
+	private final Connection connection;
+	private PreparedStatement selectAllStatement;
+	private PreparedStatement selectIdStatement;
+	private PreparedStatement selectNameStatement;
+	private PreparedStatement nextIdStatement;
+	private PreparedStatement insertStatement;
+	
+	private final Map<String, Short> ids = new ConcurrentHashMap<String, Short>();
+	private final Map<Short, String> names = new ConcurrentHashMap<Short, String>();
+	private final Map<Short, Class<?>> types = new ConcurrentHashMap<Short, Class<?>>();
+	
+	public TypeDictionary(Connection connection, MetadataManager metadataManager) throws SQLException{
+		this.connection = connection;
+		
+		createTable(connection, metadataManager);
+		initStatements(connection);
+		load();
+	}
+	
+	/**
+	 * Schließt alle Statements des Verzeichnisses.
+	 */
+	@Override
+	public void close() {
+		try{selectAllStatement.close();}catch(SQLException e){}
+		try{selectIdStatement.close();}catch(SQLException e){}
+		try{selectNameStatement.close();}catch(SQLException e){}
+		try{nextIdStatement.close();}catch(SQLException e){}
+		try{insertStatement.close();}catch(SQLException e){}
+	}
+	
+	private void createTable(Connection connection, MetadataManager metadataManager){
+		try{
+			connection.createStatement().execute(
+				"CREATE TABLE " + TABLE_NAME + " (" +
+					COL_TYPE_ID + " SMALLINT," +
+					COL_TYPE_NAME + " NVARCHAR(MAX) NOT NULL," +
+					
+					"PRIMARY KEY(" + COL_TYPE_ID + ")," +
+					"UNIQUE(" + COL_TYPE_NAME + ")" +
+				")");
+		}catch(SQLException e){
+			//die tabelle ist schon vorhanden
+		}
+		
+		if(metadataManager.getTableMetadata(TABLE_NAME) == null){
+			metadataManager.insertMetadata(TABLE_NAME, TABLE_VERSION);
+		}
+	}
+	
+	private void initStatements(Connection connection) throws SQLException{
+		this.selectAllStatement = connection.prepareStatement(
+				"SELECT " + COL_TYPE_ID + ", " + COL_TYPE_NAME +
+				" FROM " + TABLE_NAME);
+		this.selectIdStatement = connection.prepareStatement(
+				"SELECT " + COL_TYPE_ID +
+				" FROM " + TABLE_NAME +
+				" WHERE " + COL_TYPE_NAME + " = ?");
+		this.selectNameStatement = connection.prepareStatement(
+				"SELECT " + COL_TYPE_NAME +
+				" FROM " + TABLE_NAME +
+				" WHERE " + COL_TYPE_ID + " = ?");
+		this.nextIdStatement = connection.prepareStatement(
+				"SELECT COALESCE(MAX(" + COL_TYPE_ID + "), " + NO_TYPE + ") + 1" +
+				" FROM " + TABLE_NAME);
+		this.insertStatement = connection.prepareStatement(
+				"INSERT INTO " + TABLE_NAME +
+				" (" + COL_TYPE_ID + ", " + COL_TYPE_NAME + ")" +
+				" VALUES (?, ?)");
+	}
+	
+	private synchronized void load() throws SQLException{
+		ResultSet result = selectAllStatement.executeQuery();
+		try{
+			while(result.next()){
+				remember(result.getShort(1), result.getString(2));
+			}
+		}finally{
+			result.close();
+		}
+	}
+	
+	private void remember(short id, String typeName) throws SQLException{
+		if(!connection.getAutoCommit()) return;
+		
+		ids.put(typeName, id);
+		names.put(id, typeName);
+	}
+	
+	/**
+	 * Liefert die Kennung des gegebenen Typs. Ist der Typ noch nicht verzeichnet,
+	 * wird er eingetragen.
+	 * 
+	 * @param type Der Typ (z.B. die Klasse eines Schlüssels).
+	 * @return Die Kennung des Typs.
+	 */
+	public short getId(Class<?> type){
+		return getId(type.getName());
+	}
+	
+	/**
+	 * @param typeName Der Name des Typs (siehe {@link Class#getName()}).
+	 * @return Die Kennung des Typs.
+	 * @see #getId(Class)
+	 */
+	public short getId(String typeName){
+		Short id = ids.get(typeName);
+		
+		return id != null ? id : register(typeName);
+	}
+	
+	/**
+	 * Liefert die Kennung des gegebenen Typs, ohne ihn einzutragen. Dies eignet sich für
+	 * Abfragen: ist der Typ nicht verzeichnet, kann es auch keine Einträge mit ihm geben.
+	 * 
+	 * @param type Der Typ (z.B. die Klasse eines gesuchten Wertes).
+	 * @return Die Kennung des Typs oder {@link #NO_TYPE}, wenn er nicht verzeichnet ist.
+	 */
+	public short findId(Class<?> type){
+		String typeName = type.getName();
+		Short id = ids.get(typeName);
+		if(id != null) return id;
+		
+		synchronized (this) {
+			try{
+				id = selectId(typeName);
+				if(id != null) remember(id, typeName);
+			}catch(SQLException e){
+				throw new BackendException("Could not read the id of type " + typeName, e);
+			}
+		}
+		
+		return id != null ? id : NO_TYPE;
+	}
+	
+	/**
+	 * @param id Kennung des Typs.
+	 * @return Der Name des Typs oder <b>null</b> für {@link #NO_TYPE}.
+	 * @throws BackendException Wenn die Kennung nicht verzeichnet ist.
+	 */
+	public String getTypeName(short id){
+		if(id == NO_TYPE) return null;
+		
+		String typeName = names.get(id);
+		if(typeName != null) return typeName;
+		
+		synchronized (this) {
+			try{
+				selectNameStatement.setShort(1, id);
+				ResultSet result = selectNameStatement.executeQuery();
+				try{
+					if(!result.next()) throw new BackendException("Unknown type id " + id);
+					
+					typeName = result.getString(1);
+					remember(id, typeName);
+				}finally{
+					result.close();
+				}
+			}catch(SQLException e){
+				throw new BackendException("Could not read the type with id " + id, e);
+			}
+		}
+		
+		return typeName;
+	}
+	
+	/**
+	 * @param id Kennung des Typs.
+	 * @return Der Typ oder <b>null</b> für {@link #NO_TYPE}.
+	 * @throws ClassNotFoundException Wenn der Typ nicht (mehr) geladen werden kann.
+	 */
+	public Class<?> getType(short id) throws ClassNotFoundException{
+		if(id == NO_TYPE) return null;
+		
+		Class<?> type = types.get(id);
+		if(type == null){
+			type = Class.forName(getTypeName(id));
+			//nur verzeichnete Kennungen, eine verworfene Kennung kann neu vergeben werden
+			if(names.containsKey(id)) types.put(id, type);
+		}
+		
+		return type;
+	}
+	
+	private synchronized short register(String typeName){
+		try{
+			Short id = selectId(typeName);
+			if(id == null) id = insert(typeName);
+			
+			remember(id, typeName);
+			return id;
+		}catch(SQLException e){
+			throw new BackendException("Could not register type " + typeName, e);
+		}
+	}
+	
+	private Short selectId(String typeName) throws SQLException{
+		selectIdStatement.setString(1, typeName);
+		ResultSet result = selectIdStatement.executeQuery();
+		try{
+			return result.next() ? result.getShort(1) : null;
+		}finally{
+			result.close();
+		}
+	}
+	
+	private short insert(String typeName) throws SQLException{
+		for(int attempt = 1; ; attempt++){
+			int id = nextId();
+			if(id > Short.MAX_VALUE){
+				throw new BackendException("There are too many types to register " + typeName);
+			}
+			
+			try{
+				insertStatement.setShort(1, (short)id);
+				insertStatement.setString(2, typeName);
+				insertStatement.executeUpdate();
+				
+				return (short)id;
+			}catch(SQLException e){
+				//eine andere Verbindung hat die Kennung (oder sogar den Typ) gerade vergeben
+				Short existing = selectId(typeName);
+				if(existing != null) return existing;
+				if(attempt >= INSERT_ATTEMPTS) throw e;
+			}
+		}
+	}
+	
+	private int nextId() throws SQLException{
+		ResultSet result = nextIdStatement.executeQuery();
+		try{
+			result.next();
+			return result.getInt(1);
+		}finally{
+			result.close();
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package de.raysha.lib.dbc.metrics;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Beschreibt die Ausführung eines SQL-Statements über eine instrumentierte Verbindung
+ * (siehe {@link JdbcInstrumentation}).
+ * 
+ * @author rainu
+ */
+public class ExecutedStatement {
+	private final String sql;
+	private final List<Object> parameters;
+	private final List<List<Object>> batchParameters;
+	private final int rows;
+	private final long nanos;
+	
+	/**
+	 * @param parameters Die gebundenen Parameter.
+	 * @param batchParameters Die Parameter je Zeile eines Batches. Ist <b>null</b>, 
+	 * wenn kein Batch ausgeführt wurde.
+	 */
+	public ExecutedStatement(String sql, List<Object> parameters, List<List<Object>> batchParameters, 
+			int rows, long nanos) {
+		
+		this.sql = sql;
+		this.parameters = parameters;
+		this.batchParameters = batchParameters != null ? 
+				batchParameters : Collections.<List<Object>>emptyList();
+		this.rows = rows;
+		this.nanos = nanos;
+	}
+	
+	/**
+	 * @return Das ausgeführte SQL-Statement.
+	 */
+	public String getSql() {
+		return sql;
+	}
+	
+	/**
+	 * @return Die gebundenen Parameter in der Reihenfolge ihres Index. Nicht gebundene
+	 * Parameter sind <b>null</b>. Binäre Inhalte werden nur beschrieben (z.B. "&lt;12 bytes&gt;").
+	 * Bei einem Batch sind dies die zuletzt gebundenen Parameter (siehe {@link #getBatchParameters()}).
+	 */
+	public List<Object> getParameters() {
+		return parameters;
+	}
+	
+	/**
+	 * @return Die Parameter jeder Zeile eines Batches (siehe {@link #getParameters()}). 
+	 * Leer, wenn kein Batch ausgeführt wurde.
+	 */
+	public List<List<Object>> getBatchParameters() {
+		return batchParameters;
+	}
+	
+	/**
+	 * @return Anzahl der Zeilen eines Batches. 0 wenn kein Batch ausgeführt wurde.
+	 */
+	public int getBatchSize() {
+		return batchParameters.size();
+	}
+	
+	/**
+	 * @return Anzahl der geänderten Zeilen. -1 wenn diese nicht bekannt ist (z.B. bei Abfragen).
+	 */
+	public int getRows() {
+		return rows;
+	}
+	
+	/**
+	 * @return Laufzeit der Ausführung in Nanosekunden.
+	 */
+	public long getNanos() {
+		return nanos;
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append(String.format("[%.3f ms] ", nanos / 1000000d));
+		builder.append(sql);
+		if(!batchParameters.isEmpty()){
+			builder.append(" parameters=").append(batchParameters);
+			builder.append(" batch=").append(batchParameters.size());
+		}else if(!parameters.isEmpty()){
+			builder.append(" parameters=").append(parameters);
+		}
+		if(rows >= 0) builder.append(" rows=").append(rows);
+		
+		return builder.toString();
+	}
+}
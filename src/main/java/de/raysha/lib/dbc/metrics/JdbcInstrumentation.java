@@ -0,0 +1,193 @@
+package de.raysha.lib.dbc.metrics;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Instrumentiert eine JDBC-Verbindung. Alle über die Verbindung erzeugten Statements
+ * benachrichtigen bei jeder Ausführung einen {@link StatementListener} (inklusive der
+ * gebundenen Parameter, siehe {@link ExecutedStatement}). Alle anderen Aufrufe werden 
+ * unverändert an die eigentliche Verbindung weitergereicht.
+ * 
+ * @author rainu
+ */
+public final class JdbcInstrumentation {
+	
+	private JdbcInstrumentation(){
+	}
+	
+	/**
+	 * @param connection Die zu instrumentierende Verbindung.
+	 * @param listener Wird über jede Ausführung eines Statements benachrichtigt.
+	 * @return Eine Verbindung, welche die gegebene Verbindung instrumentiert.
+	 */
+	public static Connection wrap(Connection connection, StatementListener listener){
+		return (Connection)Proxy.newProxyInstance(
+				JdbcInstrumentation.class.getClassLoader(), 
+				new Class<?>[]{ Connection.class }, 
+				new ConnectionHandler(connection, listener));
+	}
+	
+	/**
+	 * @return Die eigentliche Verbindung einer instrumentierten Verbindung (siehe 
+	 * {@link #wrap(Connection, StatementListener)}), sonst die gegebene Verbindung.
+	 */
+	public static Connection unwrap(Connection connection){
+		if(Proxy.isProxyClass(connection.getClass())){
+			InvocationHandler handler = Proxy.getInvocationHandler(connection);
+			if(handler instanceof ConnectionHandler){
+				return ((ConnectionHandler)handler).connection;
+			}
+		}
+		
+		return connection;
+	}
+	
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try{
+			return method.invoke(target, args);
+		}catch(InvocationTargetException e){
+			throw e.getCause();
+		}
+	}
+	
+	private static class ConnectionHandler implements InvocationHandler {
+		private final Connection connection;
+		private final StatementListener listener;
+		
+		ConnectionHandler(Connection connection, StatementListener listener) {
+			this.connection = connection;
+			this.listener = listener;
+		}
+		
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Object result = JdbcInstrumentation.invoke(connection, method, args);
+			
+			final Class<?> type;
+			if(result instanceof CallableStatement) type = CallableStatement.class;
+			else if(result instanceof PreparedStatement) type = PreparedStatement.class;
+			else if(result instanceof Statement) type = Statement.class;
+			else return result;
+			
+			//bei prepare*() ist das erste Argument das SQL
+			String sql = args != null && args.length > 0 && args[0] instanceof String ? 
+					(String)args[0] : null;
+			
+			return Proxy.newProxyInstance(
+					JdbcInstrumentation.class.getClassLoader(), 
+					new Class<?>[]{ type }, 
+					new StatementHandler(result, sql, listener));
+		}
+	}
+	
+	private static class StatementHandler implements InvocationHandler {
+		private final Object statement;
+		private final String sql;
+		private final StatementListener listener;
+		private final List<Object> parameters = new ArrayList<Object>();
+		/**
+		 * Die Parameter jeder Zeile des aktuellen Batches (siehe {@link PreparedStatement#addBatch()}).
+		 */
+		private final List<List<Object>> batchParameters = new ArrayList<List<Object>>();
+		
+		StatementHandler(Object statement, String sql, StatementListener listener) {
+			this.statement = statement;
+			this.sql = sql;
+			this.listener = listener;
+		}
+		
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if(name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer){
+				bind((Integer)args[0], name.equals("setNull") ? null : args[1]);
+			}else if(name.equals("clearParameters")){
+				parameters.clear();
+			}else if(name.equals("addBatch")){
+				//bei Statements (ohne prepare) ist das Argument das SQL der Zeile
+				batchParameters.add(args != null && args.length > 0 ? 
+						Collections.singletonList(args[0]) : new ArrayList<Object>(parameters));
+			}else if(name.equals("clearBatch")){
+				batchParameters.clear();
+			}else if(name.startsWith("execute")){
+				return execute(method, args);
+			}
+			
+				return JdbcInstrumentation.invoke(statement, method, args);
+			}
+			
+		private void bind(int index, Object value){
+			while(parameters.size() < index){
+				parameters.add(null);
+			}
+			parameters.set(index - 1, describe(value));
+		}
+		
+		private Object execute(Method method, Object[] args) throws Throwable {
+			//bei Statements (ohne prepare) ist das erste Argument das SQL
+			String executed = args != null && args.length > 0 && args[0] instanceof String ? 
+					(String)args[0] : sql;
+			List<List<Object>> batch = null;
+			if(method.getName().startsWith("executeBatch")){
+				batch = new ArrayList<List<Object>>(batchParameters);
+				batchParameters.clear();
+			}
+			
+			Object result = null;
+			long start = System.nanoTime();
+			try{
+				result = JdbcInstrumentation.invoke(statement, method, args);
+				return result;
+			}finally{
+				long nanos = System.nanoTime() - start;
+				
+				listener.executed(new ExecutedStatement(executed, 
+						new ArrayList<Object>(parameters), batch, rowsOf(result), nanos));
+			}
+		}
+	}
+	
+	/**
+	 * @return Eine Beschreibung des gebundenen Wertes. Binäre Inhalte werden nicht übernommen.
+	 */
+	private static Object describe(Object value){
+		if(value instanceof byte[]) return "<" + ((byte[])value).length + " bytes>";
+		if(value instanceof InputStream || value instanceof Reader) return "<stream>";
+		if(value instanceof Blob || value instanceof Clob) return "<lob>";
+		
+		return value;
+	}
+	
+	/**
+	 * @return Anzahl der geänderten Zeilen laut Ergebnis der Ausführung. -1 wenn diese 
+	 * nicht bekannt ist.
+	 */
+	private static int rowsOf(Object result){
+		if(result instanceof Integer) return (Integer)result;
+		if(result instanceof Long) return (int)(long)(Long)result;
+		if(result instanceof int[]){
+			int rows = 0;
+			for(int count : (int[])result){
+				if(count < 0) return -1;
+				rows += count;
+			}
+			return rows;
+		}
+		
+		return -1;
+	}
+}
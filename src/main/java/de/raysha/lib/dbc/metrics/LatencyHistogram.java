@@ -0,0 +1,136 @@
+package de.raysha.lib.dbc.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ein threadsicheres Histogramm für Laufzeiten (in Nanosekunden). Wie bei einem 
+ * HDR-Histogramm sind die Eimer logarithmisch nach Größenordnung (Zweierpotenz) 
+ * aufgeteilt und jede Größenordnung nochmals linear in {@value #SUB_BUCKETS} Eimer. 
+ * Damit ist der relative Fehler eines Wertes unabhängig von seiner Größe höchstens 
+ * 1/{@value #SUB_BUCKETS}, während das Histogramm eine feste Größe hat.
+ * 
+ * @author rainu
+ */
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 4;
+	public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	
+	/**
+	 * Werte unter {@link #SUB_BUCKETS} haben je einen eigenen Eimer, danach folgt für
+	 * jede der übrigen Größenordnungen eines (positiven) long ein Block.
+	 */
+	private static final int BUCKET_COUNT = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+	
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong max = new AtomicLong(0);
+	
+	static int indexOf(long value){
+		if(value < SUB_BUCKETS) return (int)value;
+		
+		int magnitude = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int)(value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		
+		return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+	
+	/**
+	 * @return Der größte Wert, der im Eimer des gegebenen Index landet.
+	 */
+	static long highestValueOf(int index){
+		if(index < SUB_BUCKETS) return index;
+		
+		int magnitude = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long subBucket = index % SUB_BUCKETS;
+		int shift = magnitude - SUB_BUCKET_BITS;
+		
+		return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+	}
+	
+	/**
+	 * Erfasst eine Laufzeit. Negative Werte werden als 0 erfasst.
+	 * 
+	 * @param nanos Laufzeit in Nanosekunden.
+	 */
+	public void record(long nanos){
+		if(nanos < 0) nanos = 0;
+		
+		buckets.incrementAndGet(indexOf(nanos));
+		count.incrementAndGet();
+		sum.addAndGet(nanos);
+		
+		long current;
+		while(nanos < (current = min.get()) && !min.compareAndSet(current, nanos));
+		while(nanos > (current = max.get()) && !max.compareAndSet(current, nanos));
+	}
+	
+	public long getCount() {
+		return count.get();
+	}
+	
+	/**
+	 * @return Summe aller Laufzeiten in Nanosekunden.
+	 */
+	public long getSum() {
+		return sum.get();
+	}
+	
+	/**
+	 * @return Die kleinste Laufzeit. 0 wenn noch keine erfasst wurde.
+	 */
+	public long getMin() {
+		long value = min.get();
+		return value == Long.MAX_VALUE ? 0 : value;
+	}
+	
+	public long getMax() {
+		return max.get();
+	}
+	
+	/**
+	 * @param percentile Perzentil zwischen 0 und 100 (z.B. 99.9).
+	 * @return Die Laufzeit, die von dem gegebenen Anteil aller Aufrufe nicht überschritten
+	 * wurde (bis auf den Fehler des Eimers). 0 wenn noch keine erfasst wurde.
+	 */
+	public long getValueAtPercentile(double percentile){
+		if(percentile < 0 || percentile > 100){
+			throw new IllegalArgumentException("Percentile must be between 0 and 100!");
+		}
+		
+		long total = 0;
+		long[] counts = new long[BUCKET_COUNT];
+		for(int i=0; i < BUCKET_COUNT; i++){
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+		if(total == 0) return 0;
+		
+		long threshold = Math.max(1, (long)Math.ceil(total * percentile / 100d));
+		long seen = 0;
+		for(int i=0; i < BUCKET_COUNT; i++){
+			seen += counts[i];
+			if(seen >= threshold){
+				return Math.min(highestValueOf(i), getMax());
+			}
+		}
+		
+		return getMax();
+	}
+	
+	/**
+	 * Verwirft alle erfassten Laufzeiten. Gleichzeitig erfasste Laufzeiten können
+	 * dabei teilweise erhalten bleiben.
+	 */
+	public void reset(){
+		for(int i=0; i < BUCKET_COUNT; i++){
+			buckets.set(i, 0);
+		}
+		count.set(0);
+		sum.set(0);
+		min.set(Long.MAX_VALUE);
+		max.set(0);
+	}
+}
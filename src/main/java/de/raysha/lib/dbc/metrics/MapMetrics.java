@@ -0,0 +1,274 @@
+package de.raysha.lib.dbc.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import de.raysha.lib.dbc.exception.BackendException;
+
+/**
+ * Erfasst Metriken für die Operationen einer {@link de.raysha.lib.dbc.DBMap}: Anzahl der 
+ * Aufrufe, die dabei ausgeführten SQL-Statements, die serialisierten Bytes sowie die 
+ * Verteilung der Laufzeiten (siehe {@link LatencyHistogram}). Ruft eine Operation eine 
+ * andere auf, zählen deren Statements und Bytes auch für die äußere Operation.
+ * <br/><br/>
+ * Die Metriken können direkt abgefragt werden (z.B. {@link #getStatistics(Operation)}) oder 
+ * über JMX (siehe {@link #registerMBean()}). Solange eine Map keine Metriken erfasst, 
+ * kostet die Instrumentierung lediglich eine Abfrage auf <b>null</b>.
+ * 
+ * @author rainu
+ */
+public class MapMetrics implements MapMetricsMXBean, StatementListener {
+	public static final String JMX_DOMAIN = "de.raysha.lib.dbc";
+	
+	private static final AtomicInteger INSTANCES = new AtomicInteger();
+	
+	/**
+	 * Anzahl der Metriken, die gerade erfasst werden. Solange es keine gibt, muss
+	 * beim Serialisieren nicht nach einer laufenden {@link Recording} gesucht werden.
+	 */
+	private static final AtomicInteger ACTIVE = new AtomicInteger();
+	
+	/**
+	 * Die innerste laufende Aufzeichnung des aktuellen Threads.
+	 */
+	private static final ThreadLocal<Recording> CURRENT = new ThreadLocal<Recording>();
+	
+	private final String tableName;
+	private final Map<Operation, Counter> counters = new EnumMap<Operation, Counter>(Operation.class);
+	private ObjectName objectName;
+	private boolean closed = false;
+	
+	public MapMetrics(String tableName) {
+		this.tableName = tableName;
+		
+		for(Operation operation : Operation.values()){
+			counters.put(operation, new Counter());
+		}
+		
+		ACTIVE.incrementAndGet();
+	}
+	
+	private static class Counter {
+		final LongAdder statements = new LongAdder();
+		final LongAdder bytes = new LongAdder();
+		final LatencyHistogram latencies = new LatencyHistogram();
+	}
+	
+	/**
+	 * Eine laufende Aufzeichnung einer Operation.
+	 */
+	public static final class Recording {
+		private final MapMetrics metrics;
+		private final Operation operation;
+		private final Recording parent;
+		private final long start;
+		private long statements;
+		private long bytes;
+		
+		private Recording(MapMetrics metrics, Operation operation, Recording parent) {
+			this.metrics = metrics;
+			this.operation = operation;
+			this.parent = parent;
+			this.start = System.nanoTime();
+		}
+	}
+	
+	/**
+	 * Beginnt die Aufzeichnung einer Operation. Jede Aufzeichnung <b>muss</b> über 
+	 * {@link #end(Recording)} im selben Thread beendet werden.
+	 * 
+	 * @param metrics Die Metriken der Map. Kann <b>null</b> sein.
+	 * @param operation Die aufzuzeichnende Operation.
+	 * @return Die Aufzeichnung. <b>Null</b> wenn keine Metriken erfasst werden.
+	 */
+	public static Recording begin(MapMetrics metrics, Operation operation){
+		if(metrics == null) return null;
+		
+		Recording recording = new Recording(metrics, operation, CURRENT.get());
+		CURRENT.set(recording);
+		return recording;
+	}
+	
+	/**
+	 * Beendet eine Aufzeichnung (siehe {@link #begin(MapMetrics, Operation)}).
+	 * 
+	 * @param recording Die Aufzeichnung. Kann <b>null</b> sein.
+	 */
+	public static void end(Recording recording){
+		if(recording == null) return;
+		
+		long nanos = System.nanoTime() - recording.start;
+		
+		Counter counter = recording.metrics.counters.get(recording.operation);
+		counter.statements.add(recording.statements);
+		counter.bytes.add(recording.bytes);
+		counter.latencies.record(nanos);
+		
+		Recording parent = recording.parent;
+		if(parent != null){
+			parent.statements += recording.statements;
+			parent.bytes += recording.bytes;
+			CURRENT.set(parent);
+		}else{
+			CURRENT.remove();
+		}
+	}
+	
+	/**
+	 * Vermerkt die serialisierten Bytes bei der laufenden Aufzeichnung des aktuellen Threads.
+	 */
+	public static void bytesSerialized(int bytes){
+		if(ACTIVE.get() == 0) return;
+		
+		Recording recording = CURRENT.get();
+		if(recording != null) recording.bytes += bytes;
+	}
+	
+	/**
+	 * Vermerkt das ausgeführte Statement bei der laufenden Aufzeichnung des aktuellen Threads.
+	 */
+	@Override
+	public void executed(ExecutedStatement statement) {
+		Recording recording = CURRENT.get();
+		if(recording != null) recording.statements++;
+	}
+	
+	/**
+	 * @return Momentaufnahme der Metriken der gegebenen Operation.
+	 */
+	public OperationStatistics getStatistics(Operation operation){
+		Counter counter = counters.get(operation);
+		LatencyHistogram latencies = counter.latencies;
+		
+		return new OperationStatistics(operation.name(), 
+				latencies.getCount(), 
+				counter.statements.sum(), 
+				counter.bytes.sum(), 
+				latencies.getSum(), 
+				latencies.getMin(), 
+				latencies.getMax(), 
+				latencies.getValueAtPercentile(50), 
+				latencies.getValueAtPercentile(90), 
+				latencies.getValueAtPercentile(99), 
+				latencies.getValueAtPercentile(99.9));
+	}
+	
+	/**
+	 * @return Das Histogramm der Laufzeiten der gegebenen Operation.
+	 */
+	public LatencyHistogram getLatencies(Operation operation){
+		return counters.get(operation).latencies;
+	}
+	
+	@Override
+	public String getTableName() {
+		return tableName;
+	}
+	
+	@Override
+	public Map<String, OperationStatistics> getOperations() {
+		Map<String, OperationStatistics> result = new LinkedHashMap<String, OperationStatistics>();
+		for(Operation operation : Operation.values()){
+			if(counters.get(operation).latencies.getCount() > 0){
+				result.put(operation.name(), getStatistics(operation));
+			}
+		}
+		
+		return result;
+	}
+	
+	@Override
+	public long getCount() {
+		long sum = 0;
+		for(Counter counter : counters.values()){
+			sum += counter.latencies.getCount();
+		}
+		
+		return sum;
+	}
+	
+	@Override
+	public long getStatementCount() {
+		long sum = 0;
+		for(Counter counter : counters.values()){
+			sum += counter.statements.sum();
+		}
+		
+		return sum;
+	}
+	
+	@Override
+	public long getBytesSerialized() {
+		long sum = 0;
+		for(Counter counter : counters.values()){
+			sum += counter.bytes.sum();
+		}
+		
+		return sum;
+	}
+	
+	@Override
+	public void reset() {
+		for(Counter counter : counters.values()){
+			counter.statements.reset();
+			counter.bytes.reset();
+			counter.latencies.reset();
+		}
+	}
+	
+	/**
+	 * Registriert die Metriken beim {@link ManagementFactory#getPlatformMBeanServer()} unter
+	 * dem Namen <i>de.raysha.lib.dbc:type=DBMap,table=&lt;Tabelle&gt;,id=&lt;laufende Nummer&gt;</i>.
+	 * 
+	 * @return Der Name, unter dem die Metriken registriert wurden.
+	 */
+	public synchronized ObjectName registerMBean(){
+		if(objectName != null) return objectName;
+		
+		try{
+			ObjectName name = new ObjectName(JMX_DOMAIN + ":type=DBMap" +
+					",table=" + ObjectName.quote(tableName) + 
+					",id=" + INSTANCES.incrementAndGet());
+			
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+			objectName = name;
+			
+			return objectName;
+		}catch(JMException e){
+			throw new BackendException("Could not register metrics!", e);
+		}
+	}
+	
+	/**
+	 * Entfernt die Registrierung beim {@link MBeanServer} (siehe {@link #registerMBean()}).
+	 */
+	public synchronized void unregisterMBean(){
+		if(objectName == null) return;
+		
+		try{
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		}catch(JMException e){
+			//bereits entfernt
+		}
+		objectName = null;
+	}
+	
+	/**
+	 * Beendet die Erfassung der Metriken. Die bisher erfassten Metriken bleiben abfragbar.
+	 */
+	public synchronized void close(){
+		if(closed) return;
+		
+		closed = true;
+		unregisterMBean();
+		ACTIVE.decrementAndGet();
+	}
+}
@@ -0,0 +1,42 @@
+package de.raysha.lib.dbc.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX-Schnittstelle der {@link MapMetrics}.
+ * 
+ * @author rainu
+ */
+public interface MapMetricsMXBean {
+	
+	/**
+	 * @return Name der Tabelle der Map.
+	 */
+	public String getTableName();
+	
+	/**
+	 * @return Momentaufnahme aller Operationen, die mindestens einmal aufgerufen wurden. 
+	 * Der Schlüssel ist der Name der {@link Operation}.
+	 */
+	public Map<String, OperationStatistics> getOperations();
+	
+	/**
+	 * @return Anzahl aller Aufrufe.
+	 */
+	public long getCount();
+	
+	/**
+	 * @return Anzahl aller ausgeführten SQL-Statements.
+	 */
+	public long getStatementCount();
+	
+	/**
+	 * @return Anzahl aller serialisierten Bytes.
+	 */
+	public long getBytesSerialized();
+	
+	/**
+	 * Setzt alle Metriken zurück.
+	 */
+	public void reset();
+}
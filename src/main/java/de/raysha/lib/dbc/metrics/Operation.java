@@ -0,0 +1,19 @@
+package de.raysha.lib.dbc.metrics;
+
+/**
+ * Alle Operationen einer {@link de.raysha.lib.dbc.DBMap}, für die Metriken erfasst werden.
+ * 
+ * @author rainu
+ */
+public enum Operation {
+	GET,
+	PUT,
+	FAST_PUT,
+	PUT_ALL,
+	REMOVE,
+	CONTAINS_KEY,
+	CONTAINS_VALUE,
+	SIZE,
+	CLEAR,
+	RETAIN_ALL
+}
@@ -0,0 +1,108 @@
+package de.raysha.lib.dbc.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Momentaufnahme der Metriken einer {@link Operation}. Alle Laufzeiten sind in Nanosekunden
+ * angegeben. Die Perzentile stammen aus einem {@link LatencyHistogram} und sind entsprechend 
+ * gerundet.
+ * 
+ * @author rainu
+ */
+public class OperationStatistics {
+	private final String operation;
+	private final long count;
+	private final long statementCount;
+	private final long bytesSerialized;
+	private final long totalNanos;
+	private final long minNanos;
+	private final long maxNanos;
+	private final long medianNanos;
+	private final long p90Nanos;
+	private final long p99Nanos;
+	private final long p999Nanos;
+	
+	@ConstructorProperties({"operation", "count", "statementCount", "bytesSerialized", "totalNanos", 
+		"minNanos", "maxNanos", "medianNanos", "p90Nanos", "p99Nanos", "p999Nanos"})
+	public OperationStatistics(String operation, long count, long statementCount, long bytesSerialized, 
+			long totalNanos, long minNanos, long maxNanos, long medianNanos, long p90Nanos, 
+			long p99Nanos, long p999Nanos) {
+		
+		this.operation = operation;
+		this.count = count;
+		this.statementCount = statementCount;
+		this.bytesSerialized = bytesSerialized;
+		this.totalNanos = totalNanos;
+		this.minNanos = minNanos;
+		this.maxNanos = maxNanos;
+		this.medianNanos = medianNanos;
+		this.p90Nanos = p90Nanos;
+		this.p99Nanos = p99Nanos;
+		this.p999Nanos = p999Nanos;
+	}
+	
+	/**
+	 * @return Name der {@link Operation}.
+	 */
+	public String getOperation() {
+		return operation;
+	}
+	/**
+	 * @return Anzahl der Aufrufe.
+	 */
+	public long getCount() {
+		return count;
+	}
+	/**
+	 * @return Anzahl der SQL-Statements, die von allen Aufrufen ausgeführt wurden.
+	 */
+	public long getStatementCount() {
+		return statementCount;
+	}
+	/**
+	 * @return Anzahl der Bytes, die von allen Aufrufen serialisiert wurden.
+	 */
+	public long getBytesSerialized() {
+		return bytesSerialized;
+	}
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+	public long getMinNanos() {
+		return minNanos;
+	}
+	public long getMaxNanos() {
+		return maxNanos;
+	}
+	public long getMedianNanos() {
+		return medianNanos;
+	}
+	public long getP90Nanos() {
+		return p90Nanos;
+	}
+	public long getP99Nanos() {
+		return p99Nanos;
+	}
+	public long getP999Nanos() {
+		return p999Nanos;
+	}
+	/**
+	 * @return Durchschnittliche Anzahl an SQL-Statements pro Aufruf.
+	 */
+	public double getStatementsPerCall() {
+		return count == 0 ? 0 : (double)statementCount / count;
+	}
+	/**
+	 * @return Durchschnittliche Laufzeit eines Aufrufs.
+	 */
+	public double getMeanNanos() {
+		return count == 0 ? 0 : (double)totalNanos / count;
+	}
+	@Override
+	public String toString() {
+		return "OperationStatistics [operation=" + operation + ", count=" + count
+				+ ", statementCount=" + statementCount + ", bytesSerialized=" + bytesSerialized 
+				+ ", meanNanos=" + getMeanNanos() + ", medianNanos=" + medianNanos 
+				+ ", p99Nanos=" + p99Nanos + ", maxNanos=" + maxNanos + "]";
+	}
+}
@@ -0,0 +1,91 @@
+package de.raysha.lib.dbc.metrics;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Protokolliert die SQL-Statements einer {@link de.raysha.lib.dbc.DBMap} (siehe 
+ * {@link de.raysha.lib.dbc.DBMap#trace(SqlTracer)}) inklusive der gebundenen Parameter, 
+ * der Laufzeit und der Anzahl geänderter Zeilen (siehe {@link ExecutedStatement}).
+ * <br/><br/>
+ * Statements, deren Laufzeit den Schwellwert (siehe {@link #slowQueryThreshold(long, TimeUnit)})
+ * erreicht, werden immer mit {@link Level#WARNING} protokolliert. Von allen anderen wird 
+ * nur ein zufälliger Anteil (siehe {@link #sampleRate(double)}) mit {@link Level#FINE} 
+ * protokolliert. Die gespeicherten Daten bleiben unverändert.
+ * 
+ * @author rainu
+ */
+public class SqlTracer implements StatementListener {
+	public static final String DEFAULT_LOGGER = "de.raysha.lib.dbc.sql";
+	
+	private final Logger logger;
+	private volatile long slowQueryNanos = Long.MAX_VALUE;
+	private volatile double sampleRate = 1.0;
+	
+	/**
+	 * Protokolliert über den Logger {@value #DEFAULT_LOGGER}.
+	 */
+	public SqlTracer() {
+		this(Logger.getLogger(DEFAULT_LOGGER));
+	}
+	
+	public SqlTracer(Logger logger) {
+		if(logger == null) throw new NullPointerException();
+		
+		this.logger = logger;
+	}
+	
+	/**
+	 * Legt fest, ab welcher Laufzeit ein Statement als langsam gilt. Langsame Statements
+	 * werden immer protokolliert. Standardmäßig gilt kein Statement als langsam.
+	 * 
+	 * @param threshold Schwellwert. Muss positiv sein.
+	 * @param unit Einheit des Schwellwertes.
+	 * @return Dieser Tracer.
+	 */
+	public SqlTracer slowQueryThreshold(long threshold, TimeUnit unit){
+		if(threshold <= 0) throw new IllegalArgumentException("Threshold must be greater then 0!");
+		
+		this.slowQueryNanos = unit.toNanos(threshold);
+		return this;
+	}
+	
+	/**
+	 * Legt fest, welcher Anteil der (nicht langsamen) Statements protokolliert wird.
+	 * Standardmäßig werden alle protokolliert.
+	 * 
+	 * @param sampleRate Anteil zwischen 0 (keine) und 1 (alle).
+	 * @return Dieser Tracer.
+	 */
+	public SqlTracer sampleRate(double sampleRate){
+		if(sampleRate < 0 || sampleRate > 1){
+			throw new IllegalArgumentException("Sample-rate must be between 0 and 1!");
+		}
+		
+		this.sampleRate = sampleRate;
+		return this;
+	}
+	
+	public Logger getLogger() {
+		return logger;
+	}
+	
+	@Override
+	public void executed(ExecutedStatement statement) {
+		if(statement.getNanos() >= slowQueryNanos){
+			if(logger.isLoggable(Level.WARNING)){
+				logger.log(Level.WARNING, "Slow query: " + statement);
+			}
+			return;
+		}
+		
+		if(!logger.isLoggable(Level.FINE)) return;
+		
+		double rate = sampleRate;
+		if(rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate)){
+			logger.log(Level.FINE, statement.toString());
+		}
+	}
+}
@@ -0,0 +1,15 @@
+package de.raysha.lib.dbc.metrics;
+
+/**
+ * Wird über jedes SQL-Statement benachrichtigt, das über eine instrumentierte Verbindung
+ * ausgeführt wurde (siehe {@link JdbcInstrumentation}).
+ * 
+ * @author rainu
+ */
+public interface StatementListener {
+	
+	/**
+	 * @param statement Das ausgeführte Statement.
+	 */
+	public void executed(ExecutedStatement statement);
+}
@@ -0,0 +1,42 @@
+package de.raysha.lib.dbc.query;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Eine Bedingung, die vollständig in der Datenbank ausgewertet wird. Sie wird
+ * als SQL-Ausdruck in die WHERE-Klausel einer Abfrage übernommen, so dass nur
+ * die passenden Einträge übertragen und deserialisiert werden. Bedingungen
+ * werden über {@link Conditions} erzeugt.
+ * 
+ * @author rainu
+ */
+public abstract class Condition {
+	
+	/**
+	 * Hängt den SQL-Ausdruck dieser Bedingung an. Parameter werden als <b>?</b>
+	 * angegeben und über {@link #bind(PreparedStatement, int)} gesetzt.
+	 * 
+	 * @param sql Die zu erweiternde WHERE-Klausel.
+	 */
+	public abstract void appendTo(StringBuilder sql);
+	
+	/**
+	 * Setzt die Parameter dieser Bedingung in der Reihenfolge, in der sie in
+	 * {@link #appendTo(StringBuilder)} angegeben wurden.
+	 * 
+	 * @param stmt Statement, in dem die Parameter gesetzt werden sollen.
+	 * @param index Index des ersten Parameters.
+	 * @return Index des nächsten freien Parameters.
+	 * @throws SQLException
+	 */
+	public abstract int bind(PreparedStatement stmt, int index) throws SQLException;
+	
+	@Override
+	public String toString() {
+		StringBuilder sql = new StringBuilder();
+		appendTo(sql);
+		
+		return sql.toString();
+	}
+}
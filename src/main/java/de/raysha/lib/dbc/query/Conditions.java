@@ -0,0 +1,264 @@
+package de.raysha.lib.dbc.query;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import de.raysha.lib.dbc.ColumnNames;
+import de.raysha.lib.dbc.map.interpreter.Interpreter;
+import de.raysha.lib.dbc.map.interpreter.InterpreterProvider;
+import de.raysha.lib.dbc.meta.TypeDictionary;
+
+/**
+ * Erzeugt {@link Condition}s für die Abfragen einer {@link de.raysha.lib.dbc.DBMap}
+ * (siehe {@link de.raysha.lib.dbc.DBMap#query()}).
+ * <br/><br/>
+ * Vergleiche sind nur für Klassen möglich, die in einer eigenen Spalte gespeichert
+ * werden (z.B. {@link Integer} in {@link ColumnNames#COL_INT_VALUE}). Ein Vergleich 
+ * trifft nur auf Einträge zu, deren Schlüssel bzw. Wert von der selben Klasse ist wie
+ * der Vergleichswert. Serialisierte Objekte können in der Datenbank nicht verglichen
+ * werden, hier wird eine {@link IllegalArgumentException} geworfen.
+ * 
+ * @author rainu
+ */
+public final class Conditions implements ColumnNames {
+	
+	private Conditions(){
+	}
+	
+	public static Condition keyEquals(Object key){
+		return compare(true, " = ", key);
+	}
+	
+	public static Condition keyLessThan(Object key){
+		return compare(true, " < ", key);
+	}
+	
+	public static Condition keyGreaterThan(Object key){
+		return compare(true, " > ", key);
+	}
+	
+	/**
+	 * @param from Kleinster Schlüssel (inklusive)
+	 * @param to Größter Schlüssel (inklusive)
+	 */
+	public static Condition keyBetween(Object from, Object to){
+		return between(true, from, to);
+	}
+	
+	/**
+	 * @param pattern SQL-Muster (<b>%</b> für beliebig viele, <b>_</b> für ein Zeichen)
+	 */
+	public static Condition keyLike(String pattern){
+		return compare(true, " LIKE ", pattern);
+	}
+	
+	public static Condition keyOfType(Class<?> type){
+		return new TypeCondition(typeColumn(true), type);
+	}
+	
+	public static Condition valueEquals(Object value){
+		if(value == null) return valueIsNull();
+		
+		return compare(false, " = ", value);
+	}
+	
+	public static Condition valueLessThan(Object value){
+		return compare(false, " < ", value);
+	}
+	
+	public static Condition valueGreaterThan(Object value){
+		return compare(false, " > ", value);
+	}
+	
+	/**
+	 * @param from Kleinster Wert (inklusive)
+	 * @param to Größter Wert (inklusive)
+	 */
+	public static Condition valueBetween(Object from, Object to){
+		return between(false, from, to);
+	}
+	
+	/**
+	 * @param pattern SQL-Muster (<b>%</b> für beliebig viele, <b>_</b> für ein Zeichen)
+	 */
+	public static Condition valueLike(String pattern){
+		return compare(false, " LIKE ", pattern);
+	}
+	
+	public static Condition valueIsNull(){
+		return new TypeCondition(COL_VALUE_TYPE, null);
+	}
+	
+	public static Condition valueOfType(Class<?> type){
+		return new TypeCondition(COL_VALUE_TYPE, type);
+	}
+	
+	public static Condition and(Condition...conditions){
+		return new Junction(" AND ", conditions);
+	}
+	
+	public static Condition or(Condition...conditions){
+		return new Junction(" OR ", conditions);
+	}
+	
+	/**
+	 * Trifft auf alle Einträge zu, auf die die gegebene Bedingung nicht zutrifft. Dies
+	 * schließt Einträge mit ein, deren Klasse nicht zur Bedingung passt.
+	 */
+	public static Condition not(Condition condition){
+		return new Negation(condition);
+	}
+	
+	private static Condition compare(boolean key, String operator, Object operand){
+		if(operand == null) throw new NullPointerException("The operand must not be null!");
+		
+		//die typisierte Spalte einer anderen Klasse kann noch einen alten Wert enthalten
+		return and(
+				new TypeCondition(typeColumn(key), operand.getClass()),
+				new Comparison(columnFor(key, operand.getClass()), operator, operand));
+	}
+	
+	private static Condition between(boolean key, Object from, Object to){
+		if(from == null || to == null) throw new NullPointerException("The bounds must not be null!");
+		if(from.getClass() != to.getClass()){
+			throw new IllegalArgumentException("The bounds must be of the same class!");
+		}
+		
+		String column = columnFor(key, from.getClass());
+		return and(
+				new TypeCondition(typeColumn(key), from.getClass()),
+				new Comparison(column, " >= ", from),
+				new Comparison(column, " <= ", to));
+	}
+	
+	private static String typeColumn(boolean key){
+		return key ? COL_KEY_TYPE : COL_VALUE_TYPE;
+	}
+	
+	private static String columnFor(boolean key, Class<?> type){
+		Interpreter<?> interpreter = InterpreterProvider.getInstance().getInterpreter(type);
+		String column = key ? interpreter.getKeyColumnName() : interpreter.getValueColumnName();
+		
+		if(COL_KEY.equals(column) || COL_VALUE.equals(column)){
+			throw new IllegalArgumentException(
+					"Objects of " + type.getName() + " are serialized and can not be compared by the database!");
+		}
+		
+		return column;
+	}
+	
+	private static class Comparison extends Condition {
+		private final String column;
+		private final String operator;
+		private final Object operand;
+		private final Interpreter<?> interpreter;
+		
+		Comparison(String column, String operator, Object operand) {
+			this.column = column;
+			this.operator = operator;
+			this.operand = operand;
+			this.interpreter = InterpreterProvider.getInstance().getInterpreter(operand.getClass());
+		}
+		
+		@Override
+		public void appendTo(StringBuilder sql) {
+			sql.append(column).append(operator).append("?");
+		}
+		
+		@Override
+		public int bind(PreparedStatement stmt, int index) throws SQLException {
+			try{
+				interpreter.setParameter(stmt, index, operand);
+			}catch(SQLException e){
+				throw e;
+			}catch(Exception e){
+				throw new SQLException("Could not set parameter " + operand, e);
+			}
+			
+			return index + 1;
+		}
+	}
+	
+	private static class TypeCondition extends Condition {
+		private final String column;
+		private final Class<?> type;
+		
+		TypeCondition(String column, Class<?> type) {
+			this.column = column;
+			this.type = type;
+		}
+		
+		@Override
+		public void appendTo(StringBuilder sql) {
+			if(type == null){
+				sql.append(column).append(" IS NULL");
+				return;
+			}
+			
+			//gespeichert ist nur die Kennung des Typs (siehe TypeDictionary)
+			sql.append(column).append(" = (SELECT ").append(TypeDictionary.COL_TYPE_ID)
+				.append(" FROM ").append(TypeDictionary.TABLE_NAME)
+				.append(" WHERE ").append(TypeDictionary.COL_TYPE_NAME).append(" = ?)");
+		}
+		
+		@Override
+		public int bind(PreparedStatement stmt, int index) throws SQLException {
+			if(type == null) return index;
+			
+			stmt.setString(index, type.getName());
+			return index + 1;
+		}
+	}
+	
+	private static class Junction extends Condition {
+		private final String operator;
+		private final Condition[] conditions;
+		
+		Junction(String operator, Condition[] conditions) {
+			if(conditions.length == 0) throw new IllegalArgumentException("There must be at least one condition!");
+			
+			this.operator = operator;
+			this.conditions = conditions.clone();
+		}
+		
+		@Override
+		public void appendTo(StringBuilder sql) {
+			sql.append("(");
+			for(int i=0; i < conditions.length; i++){
+				if(i > 0) sql.append(operator);
+				conditions[i].appendTo(sql);
+			}
+			sql.append(")");
+		}
+		
+		@Override
+		public int bind(PreparedStatement stmt, int index) throws SQLException {
+			for(Condition condition : conditions){
+				index = condition.bind(stmt, index);
+			}
+			
+			return index;
+		}
+	}
+	
+	private static class Negation extends Condition {
+		private final Condition condition;
+		
+		Negation(Condition condition) {
+			this.condition = condition;
+		}
+		
+		@Override
+		public void appendTo(StringBuilder sql) {
+			//Spalten anderer Klassen sind NULL, der Vergleich damit ist unbekannt (nicht falsch)
+			sql.append("NOT COALESCE((");
+			condition.appendTo(sql);
+			sql.append("), FALSE)");
+		}
+		
+		@Override
+		public int bind(PreparedStatement stmt, int index) throws SQLException {
+			return condition.bind(stmt, index);
+		}
+	}
+}
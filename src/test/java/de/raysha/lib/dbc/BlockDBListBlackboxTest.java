@@ -0,0 +1,194 @@
+package de.raysha.lib.dbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.raysha.lib.dbc.beans.ConnectionInfo;
+
+public class BlockDBListBlackboxTest {
+	private final static String DB_PATH = "/tmp/dbc";
+	
+	ConnectionInfo info;
+	List<String> reference;
+	List<String> toTest;
+	
+	@Before
+	public void before(){
+		//die (bestehende) Datenbank vorher entfernen
+		new File(DB_PATH + ".h2.db").delete();
+		info = new ConnectionInfo(
+				"org.h2.Driver",
+				"jdbc:h2:" + DB_PATH,
+				"sa",
+				"");
+		
+		reference = new ArrayList<String>();
+		toTest = BehaveAuditor.initBehaveAuditor(
+				List.class,
+				reference,
+				new BlockDBList<String>(info, "blocklist", true),
+				"iterator", "toString", "listIterator", "subList", "equals", "hashCode");
+	}
+	
+	@Test
+	public void add() {
+		for(int i=0; i < 200; i++){
+			toTest.add("" + i);
+		}
+		
+		assertEquals(200, toTest.size());
+		for(int i=0; i < 200; i++){
+			assertEquals("" + i, toTest.get(i));
+		}
+	}
+	
+	@Test
+	public void addAtHead() {
+		//erzwingt Teilungen und Neuverteilungen der Block-Ids
+		for(int i=0; i < 500; i++){
+			toTest.add(0, "" + i);
+		}
+		
+		for(int i=0; i < toTest.size(); i++){
+			toTest.get(i);
+		}
+	}
+	
+	@Test
+	public void addInMiddle() {
+		for(int i=0; i < 500; i++){
+			toTest.add(toTest.size() / 2, "" + i);
+		}
+		
+		for(int i=0; i < toTest.size(); i++){
+			toTest.get(i);
+		}
+	}
+	
+	@Test
+	public void addAll() {
+		toTest.addAll(Arrays.asList("a", "b", "c"));
+		toTest.addAll(1, Arrays.asList("d", "e"));
+		toTest.addAll(new ArrayList<String>(reference));
+		
+		for(int i=0; i < toTest.size(); i++){
+			toTest.get(i);
+		}
+	}
+	
+	@Test
+	public void remove() {
+		for(int i=0; i < 300; i++){
+			toTest.add("" + i);
+		}
+		
+		toTest.remove(0);
+		toTest.remove(toTest.size() - 1);
+		while(toTest.size() > 10){
+			toTest.remove(toTest.size() / 3);
+		}
+		
+		for(int i=0; i < toTest.size(); i++){
+			toTest.get(i);
+		}
+		toTest.remove("5");
+	}
+	
+	@Test
+	public void setAndIndexOf() {
+		for(int i=0; i < 150; i++){
+			toTest.add(0, "" + (i % 10));
+		}
+		toTest.add(null);
+		toTest.set(70, "x");
+		
+		toTest.indexOf("3");
+		toTest.lastIndexOf("3");
+		toTest.indexOf("x");
+		toTest.indexOf(null);
+		toTest.indexOf("unknown");
+		toTest.contains("7");
+	}
+	
+	@Test
+	public void randomOperations() {
+		Random random = new Random(4711);
+		
+		for(int i=0; i < 2000; i++){
+			int op = random.nextInt(4);
+			
+			if(op < 2 || toTest.isEmpty()){
+				toTest.add(random.nextInt(toTest.size() + 1), "" + i);
+			}else if(op == 2){
+				toTest.remove(random.nextInt(toTest.size()));
+			}else{
+				toTest.get(random.nextInt(toTest.size()));
+			}
+		}
+		
+		for(int i=0; i < toTest.size(); i++){
+			toTest.get(i);
+		}
+	}
+	
+	@Test
+	public void rebalance() {
+		BlockDBList<String> list = new BlockDBList<String>(info, "blockrebalancelist", true);
+		List<String> expected = new ArrayList<String>();
+		
+		for(int i=0; i < 400; i++){
+			list.add(i / 2, "" + i);
+			expected.add(i / 2, "" + i);
+		}
+		for(int i=0; i < 150; i++){
+			list.remove(i);
+			expected.remove(i);
+		}
+		
+		list.rebalance();
+		assertEquals(expected, new ArrayList<String>(list));
+	}
+	
+	@Test
+	public void reopen() {
+		BlockDBList<String> list = new BlockDBList<String>(info, "blockreopenlist", true);
+		List<String> expected = new ArrayList<String>();
+		
+		for(int i=0; i < 300; i++){
+			list.add(i % 7 == 0 ? 0 : i / 2, "" + i);
+			expected.add(i % 7 == 0 ? 0 : i / 2, "" + i);
+		}
+		
+		list = new BlockDBList<String>(info, "blockreopenlist");
+		assertEquals(expected, new ArrayList<String>(list));
+		
+		list.add(100, "new");
+		expected.add(100, "new");
+		assertEquals(expected, new ArrayList<String>(list));
+	}
+	
+	@Test
+	public void reopenDBList() {
+		DBList<String> dbList = new DBList<String>(info, "blockdblist", true);
+		for(int i=0; i < 100; i++){
+			dbList.add("" + i);
+		}
+		
+		BlockDBList<String> list = new BlockDBList<String>(info, "blockdblist");
+		assertEquals(new ArrayList<String>(dbList), new ArrayList<String>(list));
+		
+		list.add(0, "head");
+		assertEquals("head", list.get(0));
+		assertEquals("99", list.get(100));
+		assertTrue(list.contains("50"));
+	}
+}
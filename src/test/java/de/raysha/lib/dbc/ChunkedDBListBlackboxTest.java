@@ -0,0 +1,200 @@
+package de.raysha.lib.dbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.raysha.lib.dbc.beans.ConnectionInfo;
+import de.raysha.lib.dbc.exception.BackendException;
+
+public class ChunkedDBListBlackboxTest {
+	private final static String DB_PATH = "/tmp/dbc";
+	
+	ConnectionInfo info;
+	List<String> reference;
+	List<String> toTest;
+	
+	@Before
+	public void before(){
+		//die (bestehende) Datenbank vorher entfernen
+		new File(DB_PATH + ".h2.db").delete();
+		info = new ConnectionInfo(
+				"org.h2.Driver", 
+				"jdbc:h2:" + DB_PATH, 
+				"sa", 
+				"");
+		
+		reference = new ArrayList<String>();
+		toTest = BehaveAuditor.initBehaveAuditor(
+				List.class, 
+				reference, 
+				new ChunkedDBList<String>(info, "chunkedlist", true, 8), 
+				"iterator", "toString", "listIterator", "subList", "equals", "hashCode");
+	}
+	
+	@Test
+	public void add() {
+		for(int i=0; i < 50; i++){
+			toTest.add("" + i);
+		}
+		toTest.add(null);
+		
+		assertEquals(51, toTest.size());
+		for(int i=0; i < toTest.size(); i++){
+			toTest.get(i);
+		}
+	}
+	
+	@Test
+	public void addAtIndex() {
+		for(int i=0; i < 100; i++){
+			toTest.add(i % 3 == 0 ? 0 : toTest.size() / 2, "" + i);
+		}
+		
+		for(int i=0; i < toTest.size(); i++){
+			toTest.get(i);
+		}
+	}
+	
+	@Test
+	public void addAll() {
+		toTest.add("first");
+		toTest.addAll(Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h", "i", "j", "k", "l", "m"));
+		toTest.addAll(2, Arrays.asList("x", "y"));
+		toTest.addAll(new ArrayList<String>(reference));
+		
+		for(int i=0; i < toTest.size(); i++){
+			toTest.get(i);
+		}
+	}
+	
+	@Test
+	public void setAndRemove() {
+		for(int i=0; i < 60; i++){
+			toTest.add("" + i);
+		}
+		
+		toTest.set(10, "x");
+		toTest.set(59, "y");
+		while(toTest.size() > 5){
+			toTest.remove(toTest.size() / 4);
+		}
+		toTest.remove("y");
+		toTest.remove(0);
+		
+		for(int i=0; i < toTest.size(); i++){
+			toTest.get(i);
+		}
+		toTest.indexOf("x");
+		toTest.contains("3");
+	}
+	
+	@Test
+	public void randomOperations() {
+		Random random = new Random(815);
+		
+		for(int i=0; i < 1000; i++){
+			int op = random.nextInt(5);
+			
+			if(op < 2 || toTest.isEmpty()){
+				toTest.add(random.nextInt(toTest.size() + 1), "" + i);
+			}else if(op == 2){
+				toTest.remove(random.nextInt(toTest.size()));
+			}else if(op == 3){
+				toTest.set(random.nextInt(toTest.size()), "s" + i);
+			}else{
+				toTest.get(random.nextInt(toTest.size()));
+			}
+		}
+		
+		for(int i=0; i < toTest.size(); i++){
+			toTest.get(i);
+		}
+	}
+	
+	@Test
+	public void iterator() {
+		ChunkedDBList<String> list = new ChunkedDBList<String>(info, "chunkiteratorlist", true, 8);
+		List<String> expected = new ArrayList<String>();
+		for(int i=0; i < 30; i++){
+			list.add("" + i);
+			expected.add("" + i);
+		}
+		
+		assertEquals(expected, new ArrayList<String>(list));
+		assertEquals(expected.subList(5, 20), new ArrayList<String>(list.subList(5, 20)));
+		
+		Iterator<String> iter = list.iterator();
+		while(iter.hasNext()){
+			if(Integer.parseInt(iter.next()) % 2 == 0) iter.remove();
+		}
+		Iterator<String> expectedIter = expected.iterator();
+		while(expectedIter.hasNext()){
+			if(Integer.parseInt(expectedIter.next()) % 2 == 0) expectedIter.remove();
+		}
+		assertEquals(expected, new ArrayList<String>(list));
+	}
+	
+	@Test
+	public void reopen() {
+		ChunkedDBList<String> list = new ChunkedDBList<String>(info, "chunkreopenlist", true, 8);
+		for(int i=0; i < 30; i++){
+			list.add(i / 3, "" + i);
+		}
+		List<String> expected = new ArrayList<String>(list);
+		
+		//die Größe der Abschnitte bleibt erhalten
+		list = new ChunkedDBList<String>(info, "chunkreopenlist", false, 100);
+		assertEquals(8, list.getChunkSize());
+		assertEquals(expected, new ArrayList<String>(list));
+		
+		list.add(0, "new");
+		expected.add(0, "new");
+		assertEquals(expected, new ArrayList<String>(list));
+	}
+	
+	@Test
+	public void failedSplitIsRolledBack() throws Exception {
+		ChunkedDBList<String> list = new ChunkedDBList<String>(info, "chunkrollbacklist", true, 4);
+		list.addAll(Arrays.asList("a", "b", "c", "d"));
+		
+		//der beim Teilen neu angelegte Abschnitt kann nicht geschrieben werden
+		Connection connection = DriverManager.getConnection(info.getJdbcUrl(), info.getUser(), info.getPw());
+		try{
+			connection.createStatement().execute("ALTER TABLE chunkrollbacklist" +
+					" ADD CONSTRAINT chunkrollbacklist_single CHECK (" + ColumnNames.COL_CHUNK_INDEX + " < 1)");
+		}finally{
+			connection.close();
+		}
+		
+		try{
+			list.add(1, "x");
+			fail("The split should have failed!");
+		}catch(BackendException e){}
+		
+		//auch der bereits verkleinerte Abschnitt wurde zurückgerollt
+		assertEquals(Arrays.asList("a", "b", "c", "d"), new ArrayList<String>(list));
+		list.close();
+		
+		list = new ChunkedDBList<String>(info, "chunkrollbacklist");
+		assertEquals(Arrays.asList("a", "b", "c", "d"), new ArrayList<String>(list));
+		list.close();
+	}
+	
+	@Test(expected=BackendException.class)
+	public void foreignTable() {
+		new DBMap<String, String>(info, "chunkmaptable");
+		new ChunkedDBList<String>(info, "chunkmaptable");
+	}
+}
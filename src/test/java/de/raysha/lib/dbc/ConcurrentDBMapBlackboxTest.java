@@ -0,0 +1,192 @@
+package de.raysha.lib.dbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.raysha.lib.dbc.beans.ConnectionInfo;
+
+public class ConcurrentDBMapBlackboxTest {
+	private final static String DB_PATH = "/tmp/dbc";
+	private final static ConnectionInfo POOLED_INFO = new ConnectionInfo(
+			"org.h2.Driver",
+			"jdbc:h2:" + DB_PATH,
+			"sa",
+			"",
+			4);
+	private final static ConnectionInfo INFO = new ConnectionInfo(
+			"org.h2.Driver",
+			"jdbc:h2:" + DB_PATH,
+			"sa",
+			"");
+	
+	@Before
+	public void before(){
+		//die (bestehende) Datenbank vorher entfernen
+		new File(DB_PATH + ".h2.db").delete();
+	}
+	
+	@Test
+	public void atomicOperations() {
+		ConcurrentDBMap<String, Integer> map = new ConcurrentDBMap<String, Integer>(
+				POOLED_INFO, "concurrentoperations", true);
+		
+		assertNull(map.putIfAbsent("a", 1));
+		assertEquals(Integer.valueOf(1), map.putIfAbsent("a", 2));
+		assertEquals(Integer.valueOf(1), map.get("a"));
+		
+		assertFalse(map.replace("a", 2, 3));
+		assertTrue(map.replace("a", 1, 3));
+		assertEquals(Integer.valueOf(3), map.replace("a", 4));
+		assertNull(map.replace("b", 4));
+		assertFalse(map.containsKey("b"));
+		
+		assertFalse(map.remove("a", 3));
+		assertTrue(map.remove("a", 4));
+		assertFalse(map.containsKey("a"));
+		
+		assertEquals(Integer.valueOf(5), map.computeIfAbsent("c", k -> 5));
+		assertEquals(Integer.valueOf(5), map.computeIfAbsent("c", k -> 6));
+		assertNull(map.computeIfAbsent("d", k -> null));
+		assertFalse(map.containsKey("d"));
+		
+		assertEquals(Integer.valueOf(10), map.computeIfPresent("c", (k, v) -> v * 2));
+		assertNull(map.computeIfPresent("d", (k, v) -> 1));
+		assertEquals(Integer.valueOf(1), map.compute("d", (k, v) -> v == null ? 1 : v + 1));
+		assertEquals(Integer.valueOf(2), map.compute("d", (k, v) -> v == null ? 1 : v + 1));
+		assertNull(map.compute("d", (k, v) -> null));
+		assertFalse(map.containsKey("d"));
+		
+		assertEquals(Integer.valueOf(1), map.merge("e", 1, Integer::sum));
+		assertEquals(Integer.valueOf(3), map.merge("e", 2, Integer::sum));
+		assertNull(map.merge("e", 2, (a, b) -> null));
+		assertFalse(map.containsKey("e"));
+		
+		assertEquals(1, map.size());
+		
+		map.close();
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void failedOperationIsRolledBack() {
+		ConcurrentDBMap<String, Integer> map = new ConcurrentDBMap<String, Integer>(
+				POOLED_INFO, "concurrentrollback", true);
+		map.put("a", 1);
+		
+		try{
+			map.compute("a", (k, v) -> {
+				throw new IllegalStateException();
+			});
+		}finally{
+			assertEquals(Integer.valueOf(1), map.get("a"));
+			map.close();
+		}
+	}
+	
+	@Test
+	public void concurrentMerge() throws Exception {
+		final ConcurrentDBMap<String, Integer> map = new ConcurrentDBMap<String, Integer>(
+				POOLED_INFO, "concurrentmerge", true);
+		final int threadCount = 8;
+		final int perThread = 50;
+		final int keyCount = 5;
+		final AtomicInteger created = new AtomicInteger();
+		final Throwable[] failure = new Throwable[1];
+		
+		Thread[] threads = new Thread[threadCount];
+		for(int t=0; t < threadCount; t++){
+			threads[t] = new Thread(){
+				@Override
+				public void run() {
+					try{
+						for(int i=0; i < perThread; i++){
+							String key = "key" + (i % keyCount);
+							map.merge(key, 1, Integer::sum);
+							map.computeIfAbsent("once" + (i % keyCount), k -> created.incrementAndGet());
+						}
+					}catch(Throwable e){
+						synchronized (failure) {
+							failure[0] = e;
+						}
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for(Thread thread : threads){
+			thread.join();
+		}
+		
+		if(failure[0] != null) throw new AssertionError(failure[0]);
+		
+		for(int k=0; k < keyCount; k++){
+			assertEquals(Integer.valueOf(threadCount * perThread / keyCount), map.get("key" + k));
+		}
+		assertEquals(keyCount, created.get());
+		assertEquals(2 * keyCount, map.size());
+		
+		map.close();
+	}
+	
+	@Test
+	public void putDuringTransaction() throws Exception {
+		final ConcurrentDBMap<String, Integer> map = new ConcurrentDBMap<String, Integer>(
+				INFO, "concurrenttransaction", true);
+		final CountDownLatch started = new CountDownLatch(1);
+		final Throwable[] failure = new Throwable[1];
+		
+		//die Transaktion sperrt die Verbindung und nimmt erst danach die Sperre des Schlüssels
+		Thread transaction = new Thread(){
+			@Override
+			public void run() {
+				try{
+					map.transaction(tx -> {
+						started.countDown();
+						try{
+							Thread.sleep(200);
+						}catch(InterruptedException e){}
+						map.put("k", 1);
+					});
+				}catch(Throwable e){
+					synchronized (failure) {
+						failure[0] = e;
+					}
+				}
+			}
+		};
+		transaction.setDaemon(true);
+		transaction.start();
+		
+		Thread put = new Thread(){
+			@Override
+			public void run() {
+				try{
+					started.await();
+					map.put("k", 2);
+				}catch(Throwable e){
+					synchronized (failure) {
+						failure[0] = e;
+					}
+				}
+			}
+		};
+		put.setDaemon(true);
+		put.start();
+		
+		transaction.join(10000);
+		put.join(10000);
+		assertFalse(transaction.isAlive());
+		assertFalse(put.isAlive());
+		if(failure[0] != null) throw new AssertionError(failure[0]);
+		
+		assertEquals(Integer.valueOf(2), map.get("k"));
+	}
+}
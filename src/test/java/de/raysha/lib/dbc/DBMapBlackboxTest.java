@@ -4,19 +4,40 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serializable;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Map.Entry;
 
+import org.h2.jdbcx.JdbcConnectionPool;
 import org.junit.Before;
 import org.junit.Test;
 
 import de.raysha.lib.dbc.DBMap;
 import de.raysha.lib.dbc.beans.ConnectionInfo;
+import de.raysha.lib.dbc.cache.CacheKey;
+import de.raysha.lib.dbc.cache.CacheStatistics;
+import de.raysha.lib.dbc.cache.LRUValueCache;
+import de.raysha.lib.dbc.connection.ConnectionPool;
+import de.raysha.lib.dbc.meta.MetadataManager;
+import de.raysha.lib.dbc.meta.TypeDictionary;
 
 public class DBMapBlackboxTest {
 	private final static boolean DELETE_ON_EXIT = true;
@@ -109,6 +130,319 @@ public class DBMapBlackboxTest {
 		for(Entry<String, T> entry : map.entrySet()){}
 	}
 	
+	@Test
+	public void testFastPut() {
+		DBMap<String, String> sMap = new DBMap<String, String>(INFO, null, DELETE_ON_EXIT);
+		sMap.cacheSize(true);
+		
+		sMap.fastPut("1", "13121989");
+		sMap.fastPut("2", null);
+		assertEquals("13121989", sMap.get("1"));
+		assertTrue(sMap.containsKey("2"));
+		assertNull(sMap.get("2"));
+		assertTrue(sMap.size() == 2);
+		
+		sMap.fastPut("1", "13082010");
+		sMap.fastPut("2", "13041990");
+		assertEquals("13082010", sMap.get("1"));
+		assertEquals("13041990", sMap.get("2"));
+		assertTrue(sMap.size() == 2);
+		
+		sMap.fastPut("2", null);
+		assertNull(sMap.get("2"));
+		assertTrue(sMap.containsValue(null));
+		assertTrue(sMap.size() == 2);
+	}
+	
+	@Test
+	public void testBatchPutAll() {
+		DBMap<String, Serializable> map = new DBMap<String, Serializable>(INFO, null, DELETE_ON_EXIT);
+		map.batchSize(7);
+		map.put("0", "old");
+		
+		Map<String, Serializable> toPut = new HashMap<String, Serializable>();
+		for(int i=0; i < 50; i++){
+			toPut.put(String.valueOf(i), i % 3 == 0 ? null : i % 3 == 1 ? (Serializable)i : "v" + i);
+		}
+		map.putAll(toPut);
+		
+		assertTrue(map.size() == 50);
+		for(String key : toPut.keySet()){
+			assertTrue(map.containsKey(key));
+			assertEquals(toPut.get(key), map.get(key));
+		}
+	}
+	
+	@Test
+	public void testValueCache() {
+		DBMap<String, String> sMap = new DBMap<String, String>(INFO, null, DELETE_ON_EXIT);
+		sMap.cacheSize(true);
+		sMap.cacheValues(new LRUValueCache(2));
+		
+		sMap.put("1", "13121989");
+		sMap.put("2", null);
+		sMap.put("3", "13082010");
+		
+		assertEquals("13121989", sMap.get("1"));
+		assertEquals("13121989", sMap.get("1"));
+		assertNull(sMap.get("2"));
+		assertNull(sMap.get("2"));
+		assertEquals("13082010", sMap.get("3"));
+		
+		CacheStatistics stats = sMap.getValueCache().getStatistics();
+		assertTrue(stats.getHitCount() == 2);
+		assertTrue(stats.getEvictionCount() == 1);
+		assertTrue(stats.getSize() == 2);
+		
+		//Änderungen müssen den zwischengespeicherten Wert ersetzen
+		sMap.put("3", "13041990");
+		assertEquals("13041990", sMap.get("3"));
+		sMap.remove("3");
+		assertNull(sMap.get("3"));
+		
+		Map<String, String> toPut = new HashMap<String, String>();
+		toPut.put("2", "13041990");
+		sMap.putAll(toPut);
+		assertEquals("13041990", sMap.get("2"));
+		
+		sMap.clear();
+		assertNull(sMap.get("1"));
+		assertTrue(sMap.getValueCache().getStatistics().getSize() == 0);
+	}
+	
+	@Test
+	public void testHashCollisions() {
+		//"Aa" und "BB" besitzen den gleichen Hash-Wert
+		assertTrue("Aa".hashCode() == "BB".hashCode());
+		
+		DBMap<String, String> sMap = new DBMap<String, String>(INFO, null, DELETE_ON_EXIT);
+		assertNull(sMap.put("Aa", "13121989"));
+		assertNull(sMap.put("BB", "13082010"));
+		assertFalse(sMap.containsKey("C#"));
+		
+		assertTrue(sMap.size() == 2);
+		assertEquals("13121989", sMap.get("Aa"));
+		assertEquals("13082010", sMap.get("BB"));
+		
+		assertEquals("13121989", sMap.put("Aa", "13041990"));
+		assertEquals("13082010", sMap.get("BB"));
+		
+		assertEquals("13082010", sMap.remove("BB"));
+		assertTrue(sMap.containsKey("Aa"));
+		assertFalse(sMap.containsKey("BB"));
+		
+		assertTrue(sMap.keySet().addAll(Arrays.asList("Aa", "BB")));
+		assertTrue(sMap.size() == 2);
+		assertTrue(sMap.keySet().retainAll(Arrays.asList("BB")));
+		assertTrue(sMap.size() == 1);
+		assertTrue(sMap.containsKey("BB"));
+		
+		DBMap<String, String> other = new DBMap<String, String>(INFO, null, DELETE_ON_EXIT);
+		other.put("Aa", "1");
+		other.put("BB", "2");
+		sMap.putAll(other);
+		assertTrue(sMap.size() == 2);
+		assertEquals("1", sMap.get("Aa"));
+		assertEquals("2", sMap.get("BB"));
+	}
+	
+	@Test
+	public void testRetainAllKeys() {
+		List<String> aa = new ArrayList<String>(Arrays.asList("Aa"));
+		List<String> bb = new ArrayList<String>(Arrays.asList("BB"));
+		List<String> other = new ArrayList<String>(Arrays.asList("C#"));
+		
+		DBMap<Object, String> map = new DBMap<Object, String>(INFO, null, DELETE_ON_EXIT);
+		map.put("BB", "string");
+		map.put(1, "int");
+		map.put(2, "int");
+		map.put(bb, "list");
+		map.put(other, "list");
+		
+		//"BB" sowie die Liste mit "BB" liegen allein in dem Eimer von "Aa" bzw. der Liste mit "Aa"
+		assertTrue(map.keySet().retainAll(Arrays.asList("Aa", 1, aa, other)));
+		assertEquals(2, map.size());
+		assertTrue(map.containsKey(1));
+		assertTrue(map.containsKey(other));
+		assertFalse(map.containsKey("BB"));
+		assertFalse(map.containsKey(bb));
+		
+		assertFalse(map.keySet().retainAll(Arrays.asList(1, other)));
+		assertEquals(2, map.size());
+	}
+	
+	@Test
+	public void testMigrateFromVersion1() throws Exception {
+		final String table = "MIGRATION_TEST";
+		Connection connection = DriverManager.getConnection(
+				INFO.getJdbcUrl(), INFO.getUser(), INFO.getPw());
+		try{
+			//so wurden Tabellen in der Version 1.0 angelegt
+			connection.createStatement().execute("CREATE TABLE " + table + " (" +
+					"ID_HASH INT, KEY BLOB, KEY_TO_STRING CLOB, VALUE BLOB, VALUE_TO_STRING CLOB, " +
+					"KEY_TYPE NVARCHAR(MAX), VALUE_TYPE NVARCHAR(MAX), VALUE_HASH INT, " +
+					"KEY_INT INT, KEY_LONG BIGINT, KEY_FLOAT REAL, KEY_DOUBLE DOUBLE, KEY_BYTE TINYINT, " +
+					"KEY_CHAR NVARCHAR(1), KEY_BOOLEAN BOOLEAN, KEY_STRING CLOB, " +
+					"VALUE_INT INT, VALUE_LONG BIGINT, VALUE_FLOAT REAL, VALUE_DOUBLE DOUBLE, VALUE_BYTE TINYINT, " +
+					"VALUE_CHAR NVARCHAR(1), VALUE_BOOLEAN BOOLEAN, VALUE_STRING CLOB, " +
+					"PRIMARY KEY (ID_HASH, KEY_TYPE))");
+			connection.createStatement().execute("INSERT INTO " + table + 
+					" (ID_HASH, KEY_STRING, KEY_TYPE, VALUE_HASH, VALUE_STRING, VALUE_TYPE)" +
+					" VALUES (" + "Aa".hashCode() + ", 'Aa', 'java.lang.String', " + 
+					"13121989".hashCode() + ", '13121989', 'java.lang.String')");
+			
+			MetadataManager metadataManager = new MetadataManager(connection);
+			metadataManager.removeMetadata(table);
+			metadataManager.insertMetadata(table, "1.0");
+			
+			DBMap<String, String> sMap = new DBMap<String, String>(INFO, table);
+			assertEquals(DBMap.TABLE_VERSION, metadataManager.getTableMetadata(table).getVersion());
+			assertEquals("13121989", sMap.get("Aa"));
+			
+			sMap.put("BB", "13082010");
+			assertTrue(sMap.size() == 2);
+			assertEquals("13121989", sMap.get("Aa"));
+			assertEquals("13082010", sMap.get("BB"));
+			
+			//ein erneutes Öffnen darf nicht erneut migrieren
+			assertEquals("13082010", new DBMap<String, String>(INFO, table).get("BB"));
+		}finally{
+			connection.close();
+		}
+	}
+	
+	@Test
+	public void testMigrateFromVersion2() throws Exception {
+		final String table = "MIGRATION2_TEST";
+		Connection connection = DriverManager.getConnection(
+				INFO.getJdbcUrl(), INFO.getUser(), INFO.getPw());
+		try{
+			//so wurden Tabellen in der Version 2.0 angelegt
+			connection.createStatement().execute("CREATE TABLE " + table + " (" +
+					"ROW_ID BIGINT AUTO_INCREMENT, ID_HASH INT, KEY BLOB, KEY_TO_STRING CLOB, VALUE BLOB, VALUE_TO_STRING CLOB, " +
+					"KEY_TYPE NVARCHAR(MAX), VALUE_TYPE NVARCHAR(MAX), VALUE_HASH INT, " +
+					"KEY_INT INT, KEY_LONG BIGINT, KEY_FLOAT REAL, KEY_DOUBLE DOUBLE, KEY_BYTE TINYINT, " +
+					"KEY_CHAR NVARCHAR(1), KEY_BOOLEAN BOOLEAN, KEY_STRING CLOB, " +
+					"VALUE_INT INT, VALUE_LONG BIGINT, VALUE_FLOAT REAL, VALUE_DOUBLE DOUBLE, VALUE_BYTE TINYINT, " +
+					"VALUE_CHAR NVARCHAR(1), VALUE_BOOLEAN BOOLEAN, VALUE_STRING CLOB, " +
+					"PRIMARY KEY (ROW_ID))");
+			connection.createStatement().execute("CREATE INDEX " + table + "_VALUE_IDX" +
+					" ON " + table + "(VALUE_HASH, VALUE_TYPE)");
+			connection.createStatement().execute("INSERT INTO " + table +
+					" (ID_HASH, KEY_STRING, KEY_TYPE, VALUE_HASH, VALUE_INT, VALUE_TYPE)" +
+					" VALUES (" + "Aa".hashCode() + ", 'Aa', 'java.lang.String', " +
+					Integer.valueOf(13121989).hashCode() + ", 13121989, 'java.lang.Integer')");
+			connection.createStatement().execute("INSERT INTO " + table +
+					" (ID_HASH, KEY_STRING, KEY_TYPE)" +
+					" VALUES (" + "BB".hashCode() + ", 'BB', 'java.lang.String')");
+	
+			MetadataManager metadataManager = new MetadataManager(connection);
+			metadataManager.removeMetadata(table);
+			metadataManager.insertMetadata(table, "2.0");
+	
+			DBMap<String, Integer> iMap = new DBMap<String, Integer>(INFO, table);
+			assertEquals(DBMap.TABLE_VERSION, metadataManager.getTableMetadata(table).getVersion());
+			assertEquals(Integer.valueOf(13121989), iMap.get("Aa"));
+			assertTrue(iMap.containsKey("BB"));
+			assertNull(iMap.get("BB"));
+			assertTrue(iMap.containsValue(13121989));
+	
+			//die Typen stehen nun als Kennung des Typ-Verzeichnisses in der Tabelle
+			ResultSet result = connection.createStatement().executeQuery(
+					"SELECT KEY_TYPE, VALUE_TYPE FROM " + table + " WHERE KEY_STRING = 'Aa'");
+			assertTrue(result.next());
+			assertEquals(new TypeDictionary(connection, metadataManager).findId(Integer.class), result.getShort(2));
+			result.close();
+			assertTrue(getIndexes(connection, table).contains(table + "_VALUE_IDX"));
+		}finally{
+			connection.close();
+		}
+	}
+	
+	@Test
+	public void testResumeMigrationFromVersion2() throws Exception {
+		final String table = "MIGRATION2_RESUME_TEST";
+		Connection connection = DriverManager.getConnection(
+				INFO.getJdbcUrl(), INFO.getUser(), INFO.getPw());
+		try{
+			MetadataManager metadataManager = new MetadataManager(connection);
+			TypeDictionary typeDictionary = new TypeDictionary(connection, metadataManager);
+			short stringId = typeDictionary.getId(String.class);
+			
+			//eine abgebrochene Migration: KEY_TYPE ist bereits umgestellt, VALUE_TYPE
+			//enthält schon teilweise Kennungen
+			connection.createStatement().execute("CREATE TABLE " + table + " (" +
+					"ROW_ID BIGINT AUTO_INCREMENT, ID_HASH INT, KEY BLOB, KEY_TO_STRING CLOB, VALUE BLOB, VALUE_TO_STRING CLOB, " +
+					"KEY_TYPE SMALLINT, VALUE_TYPE NVARCHAR(MAX), VALUE_HASH INT, " +
+					"KEY_INT INT, KEY_LONG BIGINT, KEY_FLOAT REAL, KEY_DOUBLE DOUBLE, KEY_BYTE TINYINT, " +
+					"KEY_CHAR NVARCHAR(1), KEY_BOOLEAN BOOLEAN, KEY_STRING CLOB, " +
+					"VALUE_INT INT, VALUE_LONG BIGINT, VALUE_FLOAT REAL, VALUE_DOUBLE DOUBLE, VALUE_BYTE TINYINT, " +
+					"VALUE_CHAR NVARCHAR(1), VALUE_BOOLEAN BOOLEAN, VALUE_STRING CLOB, " +
+					"PRIMARY KEY (ROW_ID))");
+			connection.createStatement().execute("INSERT INTO " + table +
+					" (ID_HASH, KEY_STRING, KEY_TYPE, VALUE_HASH, VALUE_STRING, VALUE_TYPE)" +
+					" VALUES (" + "Aa".hashCode() + ", 'Aa', " + stringId + ", " +
+					"13121989".hashCode() + ", '13121989', '" + stringId + "')");
+			connection.createStatement().execute("INSERT INTO " + table +
+					" (ID_HASH, KEY_STRING, KEY_TYPE, VALUE_HASH, VALUE_INT, VALUE_TYPE)" +
+					" VALUES (" + "BB".hashCode() + ", 'BB', " + stringId + ", " +
+					Integer.valueOf(13082010).hashCode() + ", 13082010, 'java.lang.Integer')");
+			
+			metadataManager.removeMetadata(table);
+			metadataManager.insertMetadata(table, "2.0");
+			
+			DBMap<String, Object> oMap = new DBMap<String, Object>(INFO, table);
+			assertEquals(DBMap.TABLE_VERSION, metadataManager.getTableMetadata(table).getVersion());
+			assertEquals("13121989", oMap.get("Aa"));
+			assertEquals(13082010, oMap.get("BB"));
+			
+			//Kennungen dürfen nicht als Klassen-Namen eingetragen werden
+			ResultSet result = connection.createStatement().executeQuery(
+					"SELECT COUNT(*) FROM " + TypeDictionary.TABLE_NAME + 
+					" WHERE TYPE_NAME = '" + stringId + "'");
+			result.next();
+			assertEquals(0, result.getInt(1));
+			result.close();
+		}finally{
+			connection.close();
+		}
+	}
+	
+	@Test
+	public void testIndexes() throws Exception {
+		final String table = "INDEX_TEST";
+		new DBMap<String, String>(INFO, table);
+		
+		Connection connection = DriverManager.getConnection(
+				INFO.getJdbcUrl(), INFO.getUser(), INFO.getPw());
+		try{
+			MetadataManager metadataManager = new MetadataManager(connection);
+			String indexes = metadataManager.getProperties(table).getProperty(DBMap.METADATA_INDEXES);
+			assertTrue(indexes.contains(table + "_VALUE_IDX(VALUE_HASH, VALUE_TYPE)"));
+			assertTrue(indexes.contains(table + "_ORDER_IDX(KEY_INT)"));
+			assertTrue(getIndexes(connection, table).contains(table + "_VALUE_IDX"));
+			
+			//fehlende Indizes müssen beim Start wieder angelegt werden
+			connection.createStatement().execute("DROP INDEX " + table + "_VALUE_IDX");
+			assertFalse(getIndexes(connection, table).contains(table + "_VALUE_IDX"));
+			
+			new DBMap<String, String>(INFO, table);
+			assertTrue(getIndexes(connection, table).contains(table + "_VALUE_IDX"));
+		}finally{
+			connection.close();
+		}
+	}
+	
+	private Set<String> getIndexes(Connection connection, String table) throws Exception {
+		Set<String> indexes = new HashSet<String>();
+		ResultSet result = connection.getMetaData().getIndexInfo(null, null, table, false, true);
+		while(result.next()){
+			indexes.add(result.getString("INDEX_NAME"));
+		}
+		
+		return indexes;
+	}
+	
 	@Test
 	public void testIntegerSimpleUse() {
 		DBMap<String, Integer> iMap = new DBMap<String, Integer>(INFO, null, DELETE_ON_EXIT);
@@ -265,4 +599,297 @@ public class DBMapBlackboxTest {
 		}});
 		testIter(oMap);
 	}
+	
+	/**
+	 * Liefert (ohne sie im Speicher zu halten) die Bytes 0, 1, ..., 250, 0, 1, ...
+	 */
+	private static InputStream generatingStream(final int length){
+		return new InputStream() {
+			int position = 0;
+			
+			@Override
+			public int read() {
+				return position < length ? position++ % 251 : -1;
+			}
+		};
+	}
+	
+	private static void assertGeneratedContent(int length, InputStream in) throws IOException{
+		byte[] buffer = new byte[8192];
+		int position = 0;
+		for(int read = in.read(buffer); read != -1; read = in.read(buffer)){
+			for(int i=0; i < read; i++, position++){
+				assertEquals((byte)(position % 251), buffer[i]);
+			}
+		}
+		in.close();
+		
+		assertEquals(length, position);
+	}
+	
+	@Test
+	public void testStreams() throws Exception {
+		final int length = 3 * 1024 * 1024;
+		DBMap<String, Object> map = new DBMap<String, Object>(INFO);
+		map.cacheValues(new LRUValueCache(10));
+		map.cacheSize(true);
+		
+		map.putStream("large", generatingStream(length));
+		map.put("object", new BigInteger("1312198900000000000"));
+		map.put("string", "value");
+		
+		assertEquals(3, map.size());
+		assertGeneratedContent(length, map.getStream("large"));
+		
+		ReadableByteChannel channel = map.getChannel("large");
+		ByteBuffer buffer = ByteBuffer.allocate(1024);
+		assertEquals(1024, channel.read(buffer));
+		assertEquals((byte)(1000 % 251), buffer.get(1000));
+		channel.close();
+		
+		//get() liefert einen (vollständig gelesenen) Stream - jedes Mal einen neuen
+		assertGeneratedContent(length, (InputStream)map.get("large"));
+		assertGeneratedContent(length, (InputStream)map.get("large"));
+		
+		//Objekte werden nicht deserialisiert
+		InputStream serialized = map.getStream("object");
+		assertEquals(new BigInteger("1312198900000000000"), ConvertHelper.convertInputStreamToObject(serialized));
+		serialized.close();
+		
+		assertNull(map.getStream("string"));
+		assertNull(map.getStream("unknown"));
+		assertNull(map.getChannel("unknown"));
+		
+		map.putStream("large", generatingStream(10));
+		assertGeneratedContent(10, map.getStream("large"));
+		assertEquals(3, map.size());
+	}
+	
+	@Test
+	public void testStreamWhilePooledMapIsUsed() throws Exception {
+		final int length = 1024 * 1024;
+		ConnectionInfo pooled = new ConnectionInfo(
+				INFO.getClassName(), INFO.getJdbcUrl(), INFO.getUser(), INFO.getPw(), 4);
+		final DBMap<String, Object> map = new DBMap<String, Object>(pooled, "streampooledmap", true);
+		ConnectionPool pool = ConnectionPool.getPool(pooled);
+		map.putStream("large", generatingStream(length));
+		//die Map selbst hält eine Verbindung des Pools
+		assertEquals(pool.getSize() - 1, pool.getIdleCount());
+		
+		//die Verbindung des Streams bleibt ausgeliehen, bis er geschlossen wurde
+		InputStream in = map.getStream("large");
+		assertEquals(pool.getSize() - 2, pool.getIdleCount());
+		
+		final Throwable[] failure = new Throwable[1];
+		Thread writer = new Thread(){
+			@Override
+			public void run() {
+				try{
+					for(int i=0; i < 100; i++){
+						map.put("key" + i, i);
+						assertEquals(i, map.get("key" + i));
+					}
+				}catch(Throwable e){
+					failure[0] = e;
+				}
+			}
+		};
+		writer.start();
+		assertGeneratedContent(length, in);
+		writer.join();
+		
+		if(failure[0] != null) throw new AssertionError(failure[0]);
+		assertEquals(pool.getSize() - 1, pool.getIdleCount());
+		assertEquals(101, map.size());
+		
+		//ein vollständig gelesener Stream gibt die Verbindung ebenfalls zurück
+		in = map.getStream("large");
+		byte[] buffer = new byte[8192];
+		while(in.read(buffer) != -1);
+		assertEquals(pool.getSize() - 1, pool.getIdleCount());
+		in.close();
+		
+		map.close();
+		assertEquals(pool.getSize(), pool.getIdleCount());
+	}
+	
+	private void testConcurrentAccess(final DBMap<String, Integer> map) throws Exception {
+		final int threadCount = 8;
+		final int perThread = 100;
+		final Throwable[] failure = new Throwable[1];
+		
+		Thread[] threads = new Thread[threadCount];
+		for(int t=0; t < threadCount; t++){
+			final int thread = t;
+			threads[t] = new Thread(){
+				@Override
+				public void run() {
+					try{
+						for(int i=0; i < perThread; i++){
+							String key = thread + "_" + i;
+							map.put(key, i);
+							assertEquals(Integer.valueOf(i), map.get(key));
+							assertTrue(map.containsKey(key));
+						}
+					}catch(Throwable e){
+						synchronized (failure) {
+							failure[0] = e;
+						}
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for(Thread thread : threads){
+			thread.join();
+		}
+		
+		if(failure[0] != null) throw new AssertionError(failure[0]);
+		assertEquals(threadCount * perThread, map.size());
+		assertEquals(Integer.valueOf(perThread - 1), map.get((threadCount - 1) + "_" + (perThread - 1)));
+	}
+	
+	@Test
+	public void testConcurrentAccess() throws Exception {
+		testConcurrentAccess(new DBMap<String, Integer>(INFO, "concurrentmap", true));
+	}
+	
+	@Test
+	public void testConcurrentPooledAccess() throws Exception {
+		ConnectionInfo pooled = new ConnectionInfo(
+				INFO.getClassName(), INFO.getJdbcUrl(), INFO.getUser(), INFO.getPw(), 4);
+		
+		DBMap<String, Integer> map = new DBMap<String, Integer>(pooled, "concurrentpooledmap", true);
+		testConcurrentAccess(map);
+		
+		//die Map hält ihre eigene Verbindung aus dem Pool
+		ConnectionPool pool = ConnectionPool.getPool(pooled);
+		assertTrue(pool.getSize() <= 4);
+		assertEquals(pool.getSize() - 1, pool.getIdleCount());
+		
+		map.close();
+		assertEquals(pool.getSize(), pool.getIdleCount());
+	}
+	
+	@Test
+	public void testValueCacheConcurrentPut() throws Exception {
+		ConnectionInfo pooled = new ConnectionInfo(
+				INFO.getClassName(), INFO.getJdbcUrl(), INFO.getUser(), INFO.getPw(), 4);
+		final DBMap<String, Integer> map = new DBMap<String, Integer>(pooled, "cacheracemap", true);
+		map.put("a", 1);
+		map.cacheSize(true);
+		
+		//ein anderer Thread ändert den Wert, nachdem er gelesen, aber bevor er zwischengespeichert wurde
+		map.cacheValues(new LRUValueCache(10){
+			boolean raced = false;
+			
+			@Override
+			public void put(CacheKey key, Object value) {
+				if(!raced){
+					raced = true;
+					Thread writer = new Thread(() -> map.put("a", 2));
+					writer.start();
+					try{
+						writer.join();
+					}catch(InterruptedException e){
+						throw new IllegalStateException(e);
+					}
+				}
+				
+				super.put(key, value);
+			}
+		});
+		
+		assertEquals(Integer.valueOf(1), map.get("a"));
+		assertEquals(Integer.valueOf(2), map.get("a"));
+		
+		map.close();
+	}
+	
+	@Test
+	public void testDataSource() {
+		JdbcConnectionPool dataSource = JdbcConnectionPool.create(INFO.getJdbcUrl(), INFO.getUser(), INFO.getPw());
+		try{
+			DBMap<String, Integer> map = new DBMap<String, Integer>(dataSource, "datasourcemap", true);
+			DBList<String> list = new DBList<String>(dataSource, "datasourcelist", true);
+			DBSet<String> set = new DBSet<String>(dataSource, "datasourceset", true);
+			
+			//jede Collection leiht sich genau eine Verbindung aus dem Pool
+			assertEquals(3, dataSource.getActiveConnections());
+			
+			map.put("a", 1);
+			list.add("b");
+			set.add("c");
+			
+			assertEquals(Integer.valueOf(1), map.get("a"));
+			assertEquals("b", list.get(0));
+			assertTrue(set.contains("c"));
+			assertEquals(3, dataSource.getActiveConnections());
+			
+			//die Daten sind auch über eine normale Verbindung sichtbar
+			assertEquals(Integer.valueOf(1), new DBMap<String, Integer>(INFO, "datasourcemap").get("a"));
+		}finally{
+			dataSource.dispose();
+		}
+	}
+	
+	@Test
+	public void testClose() {
+		JdbcConnectionPool dataSource = JdbcConnectionPool.create(INFO.getJdbcUrl(), INFO.getUser(), INFO.getPw());
+		try{
+			DBMap<String, Integer> map = new DBMap<String, Integer>(dataSource, "closemap", true);
+			map.put("a", 1);
+			map.put("b", 2);
+			
+			//ein erschöpfter Iterator kann noch das letzte Element entfernen
+			Iterator<Integer> values = map.values().iterator();
+			values.next();
+			values.next();
+			assertFalse(values.hasNext());
+			values.remove();
+			assertEquals(1, map.size());
+			
+			map.close();
+			map.close();
+			assertTrue(map.isClosed());
+			assertEquals(0, dataSource.getActiveConnections());
+			
+			try{
+				map.get("a");
+				fail("It should be thrown an exception!");
+			}catch(IllegalStateException e){}
+		}finally{
+			dataSource.dispose();
+		}
+	}
+	
+	@Test
+	public void testFetchSize() {
+		DBMap<Integer, String> map = new DBMap<Integer, String>(INFO, "fetchsizemap", true);
+		map.fetchSize(7);
+		
+		Map<Integer, String> expected = new HashMap<Integer, String>();
+		for(int i=0; i < 100; i++){
+			expected.put(i, i % 3 == 0 ? null : "" + i);
+		}
+		map.putAll(expected);
+		
+		Map<Integer, String> entries = new HashMap<Integer, String>();
+		for(Entry<Integer, String> entry : map.entrySet()){
+			entries.put(entry.getKey(), entry.getValue());
+		}
+		assertEquals(expected, entries);
+		assertEquals(expected.keySet(), new HashSet<Integer>(map.keySet()));
+		
+		int count = 0;
+		for(Iterator<String> values = map.values().iterator(); values.hasNext(); values.next()){
+			count++;
+		}
+		assertEquals(100, count);
+		
+		try{
+			map.fetchSize(0);
+			fail("It should be thrown an exception!");
+		}catch(IllegalArgumentException e){}
+	}
 }
@@ -38,11 +38,18 @@ public class DBMapEntrySetIteratorBlackboxTest {
 	}	
 	
 	@Test
-	public void hasNext(){
+	public void hasNext() throws SQLException{
 		assertFalse(toTest.hasNext());
 		
+		//das Ende wird über den Cursor bestimmt (Momentaufnahme)
 		backend.put(1, "1");
+		assertFalse(toTest.hasNext());
+		
+		toTest = new DBMapEntrySetIterator<Integer, String>(backend);
 		assertTrue(toTest.hasNext());
+		assertTrue(toTest.hasNext());
+		toTest.next();
+		assertFalse(toTest.hasNext());
 	}
 	
 	@Test
@@ -69,6 +69,28 @@ public class DBMapExtendedObjectTest {
 		assertEquals("ONE-ONE", map.get(one));
 	}
 	
+	@Test
+	public void testCollidingKeys(){
+		/**
+		 * Unterschiedliche Schlüssel der selben Klasse mit selbem Hash
+		 * dürfen sich nicht gegenseitig überschreiben!
+		 */
+		Map<Serializable, String> map = new DBMap<Serializable, String>(INFO);
+		TestClassOne one = new TestClassOne(); one.value = "One";
+		TestClassOne otherOne = new TestClassOne(); otherOne.value = "OtherOne";
+		
+		map.put(one, "ONE");
+		map.put(otherOne, "OTHER-ONE");
+		
+		assertTrue(map.size() == 2);
+		assertEquals("ONE", map.get(one));
+		assertEquals("OTHER-ONE", map.get(otherOne));
+		
+		map.remove(one);
+		assertFalse(map.containsKey(one));
+		assertEquals("OTHER-ONE", map.get(otherOne));
+	}
+	
 	@Test
 	public void testMultipleUsage(){
 		Map<String, String> instance1 = new DBMap<String, String>(INFO, "MULTIPLE_USE");
@@ -0,0 +1,165 @@
+package de.raysha.lib.dbc;
+
+import static de.raysha.lib.dbc.query.Conditions.keyBetween;
+import static de.raysha.lib.dbc.query.Conditions.keyLike;
+import static de.raysha.lib.dbc.query.Conditions.not;
+import static de.raysha.lib.dbc.query.Conditions.or;
+import static de.raysha.lib.dbc.query.Conditions.valueBetween;
+import static de.raysha.lib.dbc.query.Conditions.valueEquals;
+import static de.raysha.lib.dbc.query.Conditions.valueGreaterThan;
+import static de.raysha.lib.dbc.query.Conditions.valueIsNull;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.raysha.lib.dbc.beans.ConnectionInfo;
+
+public class DBMapQueryBlackboxTest {
+	private final static String DB_PATH = "/tmp/dbc";
+	private final static ConnectionInfo INFO = new ConnectionInfo(
+			"org.h2.Driver",
+			"jdbc:h2:" + DB_PATH,
+			"sa",
+			"");
+	
+	DBMap<Object, Object> map;
+	
+	@Before
+	public void before(){
+		//die (bestehende) Datenbank vorher entfernen
+		new File(DB_PATH + ".h2.db").delete();
+		
+		map = new DBMap<Object, Object>(INFO, "querymap", true);
+		for(int i=0; i < 30; i++){
+			map.put("key" + i, i);
+			map.put(i, "value" + i);
+		}
+		map.put("nullkey", null);
+		map.put(1000L, 15L);
+	}
+	
+	private static Set<Object> set(Object...elements){
+		return new HashSet<Object>(Arrays.asList(elements));
+	}
+	
+	@Test
+	public void valueRange() {
+		Map<String, Object> result = map.query()
+				.where(valueBetween(10, 12))
+				.keysOfType(String.class)
+				.entries()
+				.collect(Collectors.toMap(Entry::getKey, Entry::getValue));
+		
+		assertEquals(3, result.size());
+		assertEquals(10, result.get("key10"));
+		assertEquals(12, result.get("key12"));
+		
+		//die Klasse muss übereinstimmen
+		assertEquals(set("key15"), map.query().where(valueEquals(15)).keys().collect(Collectors.toSet()));
+		assertEquals(set(1000L), map.query().where(valueEquals(15L)).keys().collect(Collectors.toSet()));
+	}
+	
+	@Test
+	public void changedType() {
+		//die Spalte der alten Klasse behält ihren Wert, darf aber nicht mehr zutreffen
+		map.put("key15", "fifteen");
+		map.put(15, 15);
+		
+		assertEquals(set("key14", "key16", 15), map.query()
+				.where(valueBetween(14, 16))
+				.keys().collect(Collectors.toSet()));
+		assertEquals(set(15), map.query().where(valueEquals(15)).keys().collect(Collectors.toSet()));
+		assertEquals(0, map.query().where(valueEquals("value15")).count());
+		assertEquals(map.size() - 1, map.query().where(not(valueEquals(15))).count());
+	}
+	
+	@Test
+	public void combined() {
+		assertEquals(set("value1", "value2", "value28", "value29"), map.query()
+				.where(or(keyBetween(1, 2), keyBetween(28, 100)))
+				.values().collect(Collectors.toSet()));
+		
+		assertEquals(set("key2", "key20", "key21", "key22"), map.query()
+				.where(keyLike("key2%"))
+				.where(not(valueGreaterThan(22)))
+				.keys().collect(Collectors.toSet()));
+		
+		assertEquals(set("nullkey"), map.query().where(valueIsNull()).keys().collect(Collectors.toSet()));
+		assertEquals(map.size() - 1, map.query().where(not(valueIsNull())).count());
+	}
+	
+	@Test
+	public void count() {
+		assertEquals(map.size(), map.query().count());
+		assertEquals(30, map.query().valuesOfType(String.class).count());
+		assertEquals(0, map.query().where(valueBetween(100, 200)).count());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void serializedOperand() {
+		valueEquals(new java.util.Date());
+	}
+	
+	@Test
+	public void aggregations() {
+		map.put("negative", -7);
+		map.put("double1", 1.5);
+		map.put("double2", 2.25);
+		
+		assertEquals(29 * 30 / 2 - 7L, map.query().sumValues(Integer.class));
+		assertEquals(15L, map.query().sumValues(Long.class));
+		assertEquals(3.75, map.query().sumValues(Double.class));
+		assertEquals(0L, map.query().where(valueGreaterThan(100)).sumValues(Integer.class));
+		assertEquals(10L + 11 + 12, map.query().where(valueBetween(10, 12)).sumValues(Integer.class));
+		
+		assertEquals(Integer.valueOf(-7), map.query().minValue(Integer.class));
+		assertEquals(Integer.valueOf(29), map.query().maxValue(Integer.class));
+		assertEquals("value9", map.query().maxValue(String.class));
+		assertNull(map.query().minValue(Float.class));
+		
+		Map<Class<?>, Integer> counts = map.query().countByValueType();
+		assertEquals(Integer.valueOf(31), counts.get(Integer.class));
+		assertEquals(Integer.valueOf(30), counts.get(String.class));
+		assertEquals(Integer.valueOf(2), counts.get(Double.class));
+		assertEquals(Integer.valueOf(1), counts.get(Long.class));
+		assertEquals(Integer.valueOf(1), counts.get(null));
+		
+		SortedMap<Long, Integer> histogram = map.query().histogram(Integer.class, 10);
+		assertEquals(Arrays.asList(-10L, 0L, 10L, 20L), new ArrayList<Long>(histogram.keySet()));
+		assertEquals(Arrays.asList(1, 10, 10, 10), new ArrayList<Integer>(histogram.values()));
+		
+		histogram = map.query().histogram(Double.class, 2);
+		assertEquals(Integer.valueOf(1), histogram.get(0L));
+		assertEquals(Integer.valueOf(1), histogram.get(2L));
+	}
+	
+	@Test
+	public void aggregationsOfChangedType() {
+		map.put("key29", "twentynine");
+		map.put(1000L, 15);
+		
+		assertEquals(28 * 29 / 2 + 15L, map.query().sumValues(Integer.class));
+		assertEquals(0L, map.query().sumValues(Long.class));
+		assertEquals(Integer.valueOf(28), map.query().maxValue(Integer.class));
+		assertNull(map.query().maxValue(Long.class));
+		assertEquals(Integer.valueOf(9), map.query().histogram(Integer.class, 10).get(20L));
+		assertEquals(Integer.valueOf(11), map.query().histogram(Integer.class, 10).get(10L));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void aggregateSerialized() {
+		map.query().sumValues(java.math.BigInteger.class);
+	}
+}
@@ -0,0 +1,163 @@
+package de.raysha.lib.dbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.raysha.lib.dbc.beans.ConnectionInfo;
+
+public class DBMapSpliteratorBlackboxTest {
+	private final static String DB_PATH = "/tmp/dbc";
+	private final static ConnectionInfo INFO = new ConnectionInfo(
+			"org.h2.Driver",
+			"jdbc:h2:" + DB_PATH,
+			"sa",
+			"");
+	private final static ConnectionInfo POOLED_INFO = new ConnectionInfo(
+			"org.h2.Driver",
+			"jdbc:h2:" + DB_PATH,
+			"sa",
+			"",
+			4);
+	
+	Map<String, Integer> expected;
+	
+	@Before
+	public void before(){
+		//die (bestehende) Datenbank vorher entfernen
+		new File(DB_PATH + ".h2.db").delete();
+		
+		expected = new HashMap<String, Integer>();
+		for(int i=0; i < 1000; i++){
+			expected.put("key" + i, i);
+		}
+	}
+	
+	private DBMap<String, Integer> createMap(ConnectionInfo info, String tableName){
+		DBMap<String, Integer> map = new DBMap<String, Integer>(info, tableName, true);
+		map.fetchSize(10);
+		map.putAll(expected);
+		
+		return map;
+	}
+	
+	@Test
+	public void split() {
+		DBMap<String, Integer> map = createMap(INFO, "splitmap");
+		
+		Spliterator<Entry<String, Integer>> first = map.entrySet().spliterator();
+		assertEquals(1000, first.estimateSize());
+		assertTrue(first.hasCharacteristics(Spliterator.DISTINCT));
+		
+		Spliterator<Entry<String, Integer>> second = first.trySplit();
+		assertNotNull(second);
+		assertEquals(1000, first.estimateSize() + second.estimateSize());
+		
+		Map<String, Integer> result = new HashMap<String, Integer>();
+		first.forEachRemaining(e -> result.put(e.getKey(), e.getValue()));
+		assertNull(first.trySplit());
+		second.forEachRemaining(e -> result.put(e.getKey(), e.getValue()));
+		
+		assertEquals(expected, result);
+	}
+	
+	@Test
+	public void parallelStream() {
+		DBMap<String, Integer> map = createMap(POOLED_INFO, "parallelstreammap");
+		
+		Map<String, Integer> result = map.entrySet().parallelStream()
+				.collect(Collectors.toMap(Entry::getKey, Entry::getValue));
+		assertEquals(expected, result);
+		
+		assertEquals(999 * 1000 / 2, map.values().parallelStream().mapToInt(Integer::intValue).sum());
+		assertEquals(expected.keySet(), map.keySet().parallelStream().collect(Collectors.toSet()));
+		
+		map.close();
+	}
+	
+	@Test
+	public void sharedConnection() {
+		DBMap<String, Integer> map = createMap(INFO, "sharedstreammap");
+		
+		assertEquals(1000, map.keySet().parallelStream().filter(k -> k.startsWith("key")).count());
+	}
+	
+	@Test(timeout = 30000)
+	public void shortCircuit() {
+		ConnectionInfo info = new ConnectionInfo(
+				INFO.getClassName(), INFO.getJdbcUrl(), INFO.getUser(), INFO.getPw(), 2);
+		DBMap<String, Integer> map = createMap(info, "shortcircuitmap");
+		
+		//nicht geschlossene Streams dürfen keine Verbindung des Pools behalten
+		for(int i=0; i < 5; i++){
+			assertTrue(map.entrySet().stream().anyMatch(e -> true));
+			assertNotNull(map.keySet().stream().findFirst().orElse(null));
+			assertEquals(3, map.values().parallelStream().limit(3).count());
+		}
+		
+		map.close();
+	}
+	
+	@Test
+	public void pageBoundaryInHashCollision() {
+		//"Aa" und "BB" (sowie "AaAa", "AaBB", ...) besitzen den gleichen Hash-Wert
+		DBMap<String, Integer> map = new DBMap<String, Integer>(INFO, "collisionstreammap", true);
+		map.fetchSize(1);
+		Map<String, Integer> colliding = new HashMap<String, Integer>();
+		for(String key : new String[]{"AaAa", "AaBB", "BBAa", "BBBB", "Aa", "BB", "C#"}){
+			colliding.put(key, key.length());
+		}
+		map.putAll(colliding);
+		
+		assertEquals(colliding, map.entrySet().stream()
+				.collect(Collectors.toMap(Entry::getKey, Entry::getValue)));
+	}
+	
+	@Test
+	public void nullValues() {
+		DBMap<String, Integer> map = new DBMap<String, Integer>(INFO, "nullstreammap", true);
+		map.fetchSize(2);
+		map.put("a", 1);
+		map.put("b", null);
+		map.put("c", null);
+		
+		assertEquals(3, map.values().stream().count());
+		assertEquals(2, map.values().stream().filter(v -> v == null).count());
+	}
+	
+	@Test
+	public void orderedList() {
+		DBList<String> list = new DBList<String>(POOLED_INFO, "parallelstreamlist", true);
+		list.backend.fetchSize(10);
+		
+		List<String> reference = new ArrayList<String>();
+		for(int i=0; i < 500; i++){
+			reference.add("" + i);
+		}
+		list.addAll(reference);
+		list.add(0, "head");
+		reference.add(0, "head");
+		
+		Spliterator<String> spliterator = list.spliterator();
+		assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED | Spliterator.SIZED));
+		assertEquals(501, spliterator.getExactSizeIfKnown());
+		
+		assertEquals(reference, list.parallelStream().collect(Collectors.toList()));
+		assertEquals(reference.subList(100, 110), list.stream().skip(100).limit(10).collect(Collectors.toList()));
+		
+		list.close();
+	}
+}
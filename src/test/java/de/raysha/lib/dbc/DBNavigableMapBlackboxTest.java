@@ -0,0 +1,165 @@
+package de.raysha.lib.dbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.raysha.lib.dbc.beans.ConnectionInfo;
+
+public class DBNavigableMapBlackboxTest {
+	private final static String DB_PATH = "/tmp/dbc";
+	private final static ConnectionInfo INFO = new ConnectionInfo(
+			"org.h2.Driver",
+			"jdbc:h2:" + DB_PATH,
+			"sa",
+			"");
+	
+	NavigableMap<Long, String> reference;
+	DBNavigableMap<Long, String> map;
+	NavigableMap<Long, String> toTest;
+	
+	@Before
+	public void before(){
+		//die (bestehende) Datenbank vorher entfernen
+		new File(DB_PATH + ".h2.db").delete();
+		
+		reference = new TreeMap<Long, String>();
+		map = new DBNavigableMap<Long, String>(INFO, "navigablemap", Long.class, true);
+		toTest = BehaveAuditor.initBehaveAuditor(NavigableMap.class, reference, map, "toString");
+		
+		for(long i=0; i < 100; i++){
+			toTest.put(i * 10, "value" + i);
+		}
+		toTest.put(-5L, null);
+	}
+	
+	@Test
+	public void navigation() {
+		for(long key = -20; key < 1020; key += 3){
+			toTest.lowerEntry(key);
+			toTest.floorEntry(key);
+			toTest.ceilingEntry(key);
+			toTest.higherEntry(key);
+			toTest.ceilingKey(key);
+		}
+		
+		toTest.firstKey();
+		toTest.lastKey();
+		toTest.firstEntry();
+		toTest.lastEntry();
+		toTest.pollFirstEntry();
+		toTest.pollLastEntry();
+		toTest.size();
+		toTest.containsKey(500L);
+		toTest.get(500L);
+		toTest.get(505L);
+	}
+	
+	@Test
+	public void views() {
+		toTest.subMap(100L, 200L);
+		toTest.subMap(100L, false, 200L, true);
+		toTest.headMap(300L);
+		toTest.tailMap(700L, false);
+		toTest.descendingMap();
+		toTest.descendingMap().headMap(500L);
+		toTest.descendingMap().subMap(500L, true, 300L, false);
+		toTest.navigableKeySet().subSet(10L, 50L);
+		toTest.descendingKeySet();
+		
+		assertEquals(new ArrayList<Long>(reference.descendingMap().tailMap(400L).keySet()),
+				new ArrayList<Long>(map.descendingMap().tailMap(400L).keySet()));
+		
+		NavigableMap<Long, String> sub = map.subMap(100L, true, 200L, true);
+		assertEquals(Long.valueOf(200), sub.lastKey());
+		assertEquals(Long.valueOf(100), sub.descendingMap().lastKey());
+		assertNull(sub.higherKey(200L));
+		assertEquals(Long.valueOf(100), sub.ceilingKey(-1000L));
+		assertNull(sub.get(300L));
+		
+		try{
+			sub.put(300L, "out of range");
+			throw new AssertionError("It should be thrown an exception!");
+		}catch(IllegalArgumentException e){}
+		try{
+			sub.headMap(250L);
+			throw new AssertionError("It should be thrown an exception!");
+		}catch(IllegalArgumentException e){}
+		
+		//Änderungen an der Sicht landen in der Map
+		sub.put(155L, "new");
+		sub.remove(100L);
+		sub.headMap(130L).clear();
+		assertEquals("new", map.get(155L));
+		assertTrue(!map.containsKey(110L) && !map.containsKey(120L));
+		assertEquals(Long.valueOf(130), map.tailMap(100L).firstKey());
+	}
+	
+	@Test
+	public void iterator() {
+		Iterator<Entry<Long, String>> entries = map.tailMap(900L, true).entrySet().iterator();
+		assertEquals(Long.valueOf(900), entries.next().getKey());
+		entries.remove();
+		
+		Entry<Long, String> entry = entries.next();
+		entry.setValue("changed");
+		assertEquals("changed", map.get(910L));
+		assertTrue(!map.containsKey(900L));
+		
+		int count = 0;
+		for(Iterator<Long> keys = map.descendingKeySet().iterator(); keys.hasNext(); keys.next()){
+			count++;
+		}
+		assertEquals(100, count);
+	}
+	
+	@Test
+	public void randomOperations() {
+		Random random = new Random(4711);
+		
+		for(int i=0; i < 500; i++){
+			long key = random.nextInt(2000) - 500;
+			
+			switch(random.nextInt(6)){
+			case 0: toTest.put(key, "random" + i); break;
+			case 1: toTest.remove(key); break;
+			case 2: toTest.floorKey(key); break;
+			case 3: toTest.higherEntry(key); break;
+			case 4: toTest.headMap(key, true).size(); break;
+			default: toTest.tailMap(key).isEmpty();
+			}
+		}
+		
+		assertEquals(reference, map);
+		assertEquals(new ArrayList<Long>(reference.keySet()), new ArrayList<Long>(map.keySet()));
+	}
+	
+	@Test
+	public void stringKeys() {
+		DBNavigableMap<String, Integer> strings = new DBNavigableMap<String, Integer>(
+				INFO, "navigablestrings", String.class, true);
+		strings.put("b", 2);
+		strings.put("a", 1);
+		strings.put("c", 3);
+		
+		assertEquals("a", strings.firstKey());
+		assertEquals("c", strings.higherKey("b"));
+		assertEquals(1, strings.headMap("b").size());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void serializedKeys() {
+		new DBNavigableMap<java.math.BigInteger, String>(INFO, "navigableserialized", java.math.BigInteger.class, true);
+	}
+}
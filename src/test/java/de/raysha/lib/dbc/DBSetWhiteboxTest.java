@@ -4,6 +4,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollection;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
@@ -142,11 +143,17 @@ public class DBSetWhiteboxTest {
 			fail("It should be thrown an exception.");
 		}catch(NullPointerException e){}
 		
-		doReturn(true).when(toTest).add(anyString());
+		doReturn(Collections.emptySet()).when(mockBackend).getContainedKeys(anyCollection());
 		assertTrue(toTest.addAll(Collections.singleton("Test")));
 		
-		doReturn(false).when(toTest).add(anyString());
+		verify(mockBackend).batchPut(eq(Collections.singletonMap("Test", null)));
+		verify(toTest, never()).add(anyString());
+		
+		reset(mockBackend);
+		doReturn(Collections.singleton("Test")).when(mockBackend).getContainedKeys(anyCollection());
 		assertFalse(toTest.addAll(Collections.singleton("Test")));
+		
+		verify(mockBackend).batchPut(eq(Collections.emptyMap()));
 	}
 	
 	@Test
@@ -0,0 +1,224 @@
+package de.raysha.lib.dbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map.Entry;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.raysha.lib.dbc.beans.ConnectionInfo;
+import de.raysha.lib.dbc.cache.LRUValueCache;
+
+public class TransactionBlackboxTest {
+	private final static String DB_PATH = "/tmp/dbc";
+	private final static ConnectionInfo INFO = new ConnectionInfo(
+			"org.h2.Driver",
+			"jdbc:h2:" + DB_PATH,
+			"sa",
+			"");
+	private final static ConnectionInfo POOLED_INFO = new ConnectionInfo(
+			"org.h2.Driver",
+			"jdbc:h2:" + DB_PATH,
+			"sa",
+			"",
+			4);
+	
+	@Before
+	public void before(){
+		//die (bestehende) Datenbank vorher entfernen
+		new File(DB_PATH + ".h2.db").delete();
+	}
+	
+	@Test
+	public void commit() {
+		DBMap<String, Integer> map = new DBMap<String, Integer>(INFO, "txcommit", true);
+		
+		map.transaction(tx -> {
+			assertTrue(tx.isOwner());
+			
+			for(int i=0; i < 10; i++){
+				map.put("key" + i, i);
+			}
+		});
+		
+		DBMap<String, Integer> other = new DBMap<String, Integer>(INFO, "txcommit");
+		assertEquals(10, other.size());
+		assertEquals(Integer.valueOf(5), other.get("key5"));
+		
+		other.close();
+		map.close();
+	}
+	
+	@Test
+	public void rollback() {
+		DBMap<String, Integer> map = new DBMap<String, Integer>(INFO, "txrollback", true);
+		map.cacheSize(true);
+		map.cacheValues(new LRUValueCache(10));
+		map.put("a", 1);
+		
+		try{
+			map.transaction(tx -> {
+				map.put("a", 2);
+				map.put("b", 3);
+				assertEquals(2, map.size());
+				
+				throw new IllegalStateException();
+			});
+			fail("The exception should be thrown!");
+		}catch(IllegalStateException e){}
+		
+		assertEquals(1, map.size());
+		assertEquals(Integer.valueOf(1), map.get("a"));
+		assertFalse(map.containsKey("b"));
+		
+		try(Transaction tx = map.beginBatch()){
+			map.put("c", 4);
+			tx.commit();
+			
+			map.remove("a");
+			tx.rollback();
+			
+			map.put("d", 5);
+		}
+		
+		assertEquals(2, map.size());
+		assertEquals(Integer.valueOf(1), map.get("a"));
+		assertEquals(Integer.valueOf(4), map.get("c"));
+		assertNull(map.get("d"));
+		
+		map.close();
+	}
+	
+	@Test
+	public void nested() {
+		DBMap<String, Integer> map = new DBMap<String, Integer>(INFO, "txnested", true);
+		
+		try(Transaction outer = map.beginBatch()){
+			map.transaction(inner -> {
+				assertFalse(inner.isOwner());
+				map.put("a", 1);
+			});
+			
+			outer.rollback();
+		}
+		
+		assertTrue(map.isEmpty());
+		map.close();
+	}
+	
+	@Test
+	public void pooledMapsShareTransaction() {
+		DBMap<String, Integer> first = new DBMap<String, Integer>(POOLED_INFO, "txpooledfirst", true);
+		DBMap<String, Integer> second = new DBMap<String, Integer>(POOLED_INFO, "txpooledsecond", true);
+		
+		try(Transaction tx = first.beginBatch()){
+			first.put("a", 1);
+			second.put("b", 2);
+		}
+		
+		assertTrue(first.isEmpty());
+		assertTrue(second.isEmpty());
+		
+		first.transaction(tx -> {
+			first.put("a", 1);
+			second.put("b", 2);
+		});
+		
+		assertEquals(Integer.valueOf(1), first.get("a"));
+		assertEquals(Integer.valueOf(2), second.get("b"));
+		
+		second.close();
+		first.close();
+	}
+	
+	@Test
+	public void list() {
+		DBList<String> list = new DBList<String>(INFO, "txlist", true);
+		list.add("a");
+		
+		try(Transaction tx = list.beginBatch()){
+			list.add(0, "b");
+			list.add("c");
+		}
+		assertEquals(Arrays.asList("a"), list);
+		
+		list.transaction(tx -> {
+			list.add(0, "b");
+			list.add("c");
+		});
+		assertEquals(Arrays.asList("b", "a", "c"), list);
+		
+		list.close();
+	}
+	
+	@Test
+	public void navigableMap() {
+		DBMap<Integer, String> map = new DBMap<Integer, String>(POOLED_INFO, "txnavigable", true);
+		DBNavigableMap<Integer, String> navigable = new DBNavigableMap<Integer, String>(map, Integer.class);
+		map.fetchSize(2);
+		for(int i=1; i <= 5; i++){
+			map.put(i, "value" + i);
+		}
+		
+		//die Abfragen der Sicht müssen die Verbindung der Transaktion verwenden
+		try(Transaction tx = map.beginBatch()){
+			navigable.headMap(3).clear();
+			assertEquals(3, navigable.size());
+			assertEquals(Integer.valueOf(3), navigable.firstKey());
+			
+			//auch die Iteratoren (über mehrere Seiten)
+			assertEquals(Arrays.asList(3, 4, 5), new ArrayList<Integer>(navigable.keySet()));
+			assertEquals(Arrays.asList(5, 4, 3), new ArrayList<Integer>(navigable.descendingKeySet()));
+			assertEquals(Arrays.asList("value4", "value5"), new ArrayList<String>(navigable.tailMap(4).values()));
+		}
+		assertEquals(5, navigable.size());
+		assertEquals(Integer.valueOf(1), navigable.firstKey());
+		
+		map.close();
+	}
+	
+	@Test
+	public void iterators() {
+		DBMap<String, Integer> map = new DBMap<String, Integer>(POOLED_INFO, "txiterators", true);
+		map.fetchSize(1);
+		map.put("x", 1);
+		
+		//die Iteratoren müssen die Verbindung der Transaktion verwenden
+		try(Transaction tx = map.beginBatch()){
+			map.put("y", 2);
+			assertEquals(new HashSet<String>(Arrays.asList("x", "y")), new HashSet<String>(map.keySet()));
+			assertEquals(2, new ArrayList<Integer>(map.values()).size());
+			
+			Iterator<Entry<String, Integer>> entries = map.entrySet().iterator();
+			while(entries.hasNext()){
+				if("x".equals(entries.next().getKey())) entries.remove();
+			}
+			assertEquals(1, map.size());
+			assertFalse(map.containsKey("x"));
+		}
+		assertEquals(1, map.size());
+		assertEquals(Integer.valueOf(1), map.get("x"));
+		
+		map.close();
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void writeBehind() {
+		WriteBehindDBMap<String, Integer> map = new WriteBehindDBMap<String, Integer>(INFO, "txwritebehind", true);
+		try{
+			map.beginBatch();
+		}finally{
+			map.close();
+		}
+	}
+}
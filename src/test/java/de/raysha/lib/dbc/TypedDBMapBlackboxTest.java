@@ -0,0 +1,232 @@
+package de.raysha.lib.dbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.raysha.lib.dbc.beans.ConnectionInfo;
+import de.raysha.lib.dbc.exception.BackendException;
+
+public class TypedDBMapBlackboxTest {
+	private final static String DB_PATH = "/tmp/dbc";
+	private final static ConnectionInfo INFO = new ConnectionInfo(
+			"org.h2.Driver",
+			"jdbc:h2:" + DB_PATH,
+			"sa",
+			"");
+	
+	@Before
+	public void before(){
+		//die (bestehende) Datenbank vorher entfernen
+		new File(DB_PATH + ".h2.db").delete();
+	}
+	
+	public static class Payload implements Serializable {
+		private static final long serialVersionUID = 1L;
+		
+		final String name;
+		
+		public Payload(String name) {
+			this.name = name;
+		}
+		
+		@Override
+		public int hashCode() {
+			return name.hashCode();
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Payload && ((Payload)obj).name.equals(name);
+		}
+	}
+	
+	@Test
+	public void behave() {
+		TypedDBMap<Long, String> typed = new TypedDBMap<Long, String>(INFO, "typedbehave", Long.class, String.class, true);
+		Map<Long, String> toTest = BehaveAuditor.initBehaveAuditor(
+				Map.class, new HashMap<Long, String>(), typed,
+				"keySet", "values", "entrySet", "toString", "equals", "hashCode");
+		
+		assertNull(toTest.put(1L, "one"));
+		assertEquals("one", toTest.put(1L, "uno"));
+		toTest.put(2L, null);
+		toTest.put(3L, "three");
+		
+		toTest.get(1L);
+		toTest.get(2L);
+		toTest.get(4L);
+		toTest.get("1");
+		toTest.containsKey(2L);
+		toTest.containsKey(4L);
+		toTest.containsValue(null);
+		toTest.containsValue("three");
+		toTest.containsValue("four");
+		toTest.size();
+		
+		toTest.remove(3L);
+		toTest.remove(4L);
+		toTest.size();
+		
+		toTest.clear();
+		toTest.isEmpty();
+		
+		typed.close();
+	}
+	
+	@Test
+	public void narrowSchema() throws Exception {
+		TypedDBMap<Long, String> map = new TypedDBMap<Long, String>(INFO, "typedschema", Long.class, String.class, true);
+		map.put(1L, "one");
+		
+		Connection connection = DriverManager.getConnection(INFO.getJdbcUrl(), INFO.getUser(), INFO.getPw());
+		try{
+			ResultSet columns = connection.getMetaData().getColumns(null, null, "TYPEDSCHEMA", null);
+			int count = 0;
+			while(columns.next()) count++;
+			columns.close();
+			
+			assertEquals(2, count);
+			
+			ResultSet row = connection.createStatement().executeQuery(
+					"SELECT KEY_LONG, VALUE_STRING FROM typedschema");
+			assertTrue(row.next());
+			assertEquals(1L, row.getLong(1));
+			assertEquals("one", row.getString(2));
+		}finally{
+			connection.close();
+		}
+		
+		map.close();
+	}
+	
+	@Test
+	public void primitiveAndObjectValues() {
+		TypedDBMap<String, Integer> ints = new TypedDBMap<String, Integer>(INFO, "typedints", String.class, Integer.class, true);
+		ints.put("zero", 0);
+		ints.put("null", null);
+		
+		assertEquals(Integer.valueOf(0), ints.get("zero"));
+		assertNull(ints.get("null"));
+		assertTrue(ints.containsKey("null"));
+		assertTrue(ints.containsValue(null));
+		ints.close();
+		
+		TypedDBMap<Integer, Payload> objects = new TypedDBMap<Integer, Payload>(INFO, "typedobjects", Integer.class, Payload.class, true);
+		objects.put(1, new Payload("a"));
+		
+		assertEquals(new Payload("a"), objects.get(1));
+		assertTrue(objects.containsValue(new Payload("a")));
+		objects.close();
+	}
+	
+	@Test
+	public void putAllAndIterate() {
+		TypedDBMap<Integer, Double> map = new TypedDBMap<Integer, Double>(INFO, "typediterate", Integer.class, Double.class, true);
+		map.setBatchSize(7);
+		
+		Map<Integer, Double> reference = new LinkedHashMap<Integer, Double>();
+		for(int i=0; i < 50; i++){
+			reference.put(i, i + 0.5);
+		}
+		map.putAll(reference);
+		
+		assertEquals(50, map.size());
+		assertEquals(reference.keySet(), map.keySet());
+		assertEquals(reference, new HashMap<Integer, Double>(map));
+		
+		Iterator<Entry<Integer, Double>> iter = map.entrySet().iterator();
+		while(iter.hasNext()){
+			Entry<Integer, Double> entry = iter.next();
+			if(entry.getKey() % 2 == 0) iter.remove();
+			else entry.setValue(-entry.getValue());
+		}
+		
+		assertEquals(25, map.size());
+		assertFalse(map.containsKey(0));
+		assertEquals(Double.valueOf(-1.5), map.get(1));
+		
+		map.close();
+	}
+	
+	@Test
+	public void iteratorRemove() {
+		TypedDBMap<Integer, Double> map = new TypedDBMap<Integer, Double>(INFO, "typediteratorremove", Integer.class, Double.class, true);
+		map.put(1, 1.5);
+		map.put(2, 2.5);
+		
+		Iterator<Integer> iter = map.keySet().iterator();
+		try{
+			iter.remove();
+			throw new AssertionError("The exception should be thrown!");
+		}catch(IllegalStateException e){}
+		
+		Integer removed = iter.next();
+		iter.remove();
+		map.put(removed, 0.5);
+		
+		//ein zweiter Aufruf darf den (wieder eingefügten) Eintrag nicht erneut löschen
+		try{
+			iter.remove();
+			throw new AssertionError("The exception should be thrown!");
+		}catch(IllegalStateException e){}
+		assertEquals(2, map.size());
+		assertEquals(Double.valueOf(0.5), map.get(removed));
+		
+		map.close();
+	}
+	
+	@Test
+	public void reopen() {
+		TypedDBMap<Long, String> map = new TypedDBMap<Long, String>(INFO, "typedreopen", Long.class, String.class, true);
+		map.put(1L, "one");
+		map.close();
+		
+		map = new TypedDBMap<Long, String>(INFO, "typedreopen", Long.class, String.class);
+		assertEquals("one", map.get(1L));
+		map.close();
+		
+		try{
+			new TypedDBMap<Long, Integer>(INFO, "typedreopen", Long.class, Integer.class);
+			throw new AssertionError("The exception should be thrown!");
+		}catch(BackendException e){}
+		
+		DBMap<Long, String> universal = new DBMap<Long, String>(INFO, "typeduniversal", true);
+		universal.close();
+		try{
+			new TypedDBMap<Long, String>(INFO, "typeduniversal", Long.class, String.class, true);
+			throw new AssertionError("The exception should be thrown!");
+		}catch(BackendException e){}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void serializedKeys() {
+		new TypedDBMap<Payload, String>(INFO, "typedkeys", Payload.class, String.class, true);
+	}
+	
+	@Test(expected = ClassCastException.class)
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void wrongValueType() {
+		TypedDBMap map = new TypedDBMap<Long, String>(INFO, "typedwrong", Long.class, String.class, true);
+		try{
+			map.put(1L, 1);
+		}finally{
+			map.close();
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package de.raysha.lib.dbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.raysha.lib.dbc.beans.ConnectionInfo;
+
+public class WriteBehindDBMapBlackboxTest {
+	private final static String DB_PATH = "/tmp/dbc";
+	private final static String TABLE_NAME = "WRITE_BEHIND_TEST";
+	private final static ConnectionInfo INFO = new ConnectionInfo(
+			"org.h2.Driver",
+			"jdbc:h2:" + DB_PATH,
+			"sa",
+			"");
+	
+	WriteBehindDBMap<String, String> toTest;
+	DBMap<String, String> reader;
+	
+	@Before
+	public void before(){
+		//die (bestehende) Datenbank vorher entfernen
+		new File(DB_PATH + ".h2.db").delete();
+		
+		toTest = new WriteBehindDBMap<String, String>(INFO, TABLE_NAME, true, false, 5, 10000);
+		reader = new DBMap<String, String>(INFO, TABLE_NAME);
+	}
+	
+	@After
+	public void after(){
+		toTest.close();
+	}
+	
+	@Test
+	public void readYourWrites(){
+		assertNull(toTest.put("1", "one"));
+		assertEquals("one", toTest.put("1", "ONE"));
+		toTest.fastPut("2", "two");
+		
+		assertEquals("ONE", toTest.get("1"));
+		assertEquals("two", toTest.get("2"));
+		assertTrue(toTest.containsKey("1"));
+		
+		//der Hintergrund-Thread wartet noch
+		assertFalse(reader.containsKey("1"));
+		
+		assertEquals("ONE", toTest.remove("1"));
+		assertNull(toTest.get("1"));
+		assertFalse(toTest.containsKey("1"));
+	}
+	
+	@Test
+	public void flush(){
+		toTest.put("1", "one");
+		toTest.put("2", "two");
+		toTest.put("2", null);
+		toTest.put("3", "three");
+		toTest.remove("3");
+		
+		toTest.flush();
+		
+		assertEquals("one", reader.get("1"));
+		assertTrue(reader.containsKey("2"));
+		assertNull(reader.get("2"));
+		assertFalse(reader.containsKey("3"));
+		assertTrue(reader.size() == 2);
+		assertTrue(toTest.size() == 2);
+	}
+	
+	@Test
+	public void backpressure(){
+		//die Kapazität liegt bei 5 Schlüsseln, der Hintergrund-Thread
+		//muss also zwischendurch schreiben, bevor es weiter gehen kann
+		for(int i=0; i < 100; i++){
+			toTest.fastPut(String.valueOf(i), "v" + i);
+		}
+		
+		assertTrue(toTest.size() == 100);
+		for(int i=0; i < 100; i++){
+			assertEquals("v" + i, reader.get(String.valueOf(i)));
+		}
+	}
+	
+	@Test
+	public void views(){
+		toTest.put("1", "one");
+		toTest.put("2", "two");
+		
+		int count = 0;
+		for(String key : toTest.keySet()){
+			assertEquals(toTest.get(key), reader.get(key));
+			count++;
+		}
+		assertTrue(count == 2);
+		
+		toTest.put("3", "three");
+		toTest.clear();
+		assertTrue(toTest.isEmpty());
+		assertTrue(reader.isEmpty());
+	}
+	
+	@Test
+	public void close(){
+		toTest.put("1", "one");
+		toTest.close();
+		
+		assertEquals("one", reader.get("1"));
+		try{
+			toTest.put("2", "two");
+			fail("It should be thrown an exception!");
+		}catch(IllegalStateException e){}
+	}
+}
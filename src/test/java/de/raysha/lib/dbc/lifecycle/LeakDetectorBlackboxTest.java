@@ -0,0 +1,91 @@
+package de.raysha.lib.dbc.lifecycle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.raysha.lib.dbc.DBMap;
+
+public class LeakDetectorBlackboxTest {
+	private final static String DB_PATH = "/tmp/dbc";
+	
+	JdbcConnectionPool dataSource;
+	List<Class<?>> leaked;
+	
+	@Before
+	public void before(){
+		//die (bestehende) Datenbank vorher entfernen
+		new File(DB_PATH + ".h2.db").delete();
+		dataSource = JdbcConnectionPool.create("jdbc:h2:" + DB_PATH, "sa", "");
+		
+		leaked = Collections.synchronizedList(new ArrayList<Class<?>>());
+		LeakDetector.setDebug(true);
+		LeakDetector.setListener(new LeakDetector.Listener() {
+			@Override
+			public void leaked(Class<?> type, Throwable creation) {
+				//die Stelle der Erzeugung muss enthalten sein
+				for(StackTraceElement element : creation.getStackTrace()){
+					if(element.getClassName().equals(LeakDetectorBlackboxTest.class.getName())){
+						leaked.add(type);
+						return;
+					}
+				}
+			}
+		});
+	}
+	
+	@After
+	public void after(){
+		LeakDetector.setDebug(false);
+		LeakDetector.setListener(null);
+		dataSource.dispose();
+	}
+	
+	private void createMap(boolean close){
+		DBMap<String, String> map = new DBMap<String, String>(dataSource, "leakmap", true);
+		map.put("key", "value");
+		
+		if(close) map.close();
+	}
+	
+	private void awaitCollection(int expectedLeaks) throws InterruptedException{
+		for(int i=0; i < 100 && (leaked.size() < expectedLeaks || dataSource.getActiveConnections() > 0); i++){
+			System.gc();
+			Thread.sleep(50);
+		}
+	}
+	
+	@Test
+	public void unclosedMapIsReported() throws Exception {
+		createMap(false);
+		assertEquals(1, dataSource.getActiveConnections());
+		
+		awaitCollection(1);
+		
+		assertEquals(Collections.<Class<?>>singletonList(DBMap.class), leaked);
+		//die Verbindung wurde dennoch zurückgegeben
+		assertEquals(0, dataSource.getActiveConnections());
+	}
+	
+	@Test
+	public void closedMapIsNotReported() throws Exception {
+		int registrations = LeakDetector.getRegistrationCount();
+		
+		createMap(true);
+		assertEquals(0, dataSource.getActiveConnections());
+		assertTrue(LeakDetector.getRegistrationCount() <= registrations);
+		
+		System.gc();
+		Thread.sleep(100);
+		assertTrue(leaked.isEmpty());
+	}
+}
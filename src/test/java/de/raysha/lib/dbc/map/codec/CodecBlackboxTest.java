@@ -0,0 +1,190 @@
+package de.raysha.lib.dbc.map.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import de.raysha.lib.dbc.ConvertHelper;
+import de.raysha.lib.dbc.DBMap;
+import de.raysha.lib.dbc.beans.ConnectionInfo;
+import de.raysha.lib.dbc.map.interpreter.InterpreterProvider;
+
+public class CodecBlackboxTest {
+	private static ConnectionInfo INFO = new ConnectionInfo(
+			"org.h2.Driver", 
+			"jdbc:h2:/tmp/dbc", 
+			"sa", 
+			"");
+	
+	public static class Point implements Serializable {
+		private static final long serialVersionUID = 3255264307637327402L;
+		
+		int x;
+		long y;
+		String name;
+		Integer boxed;
+		transient String ignored;
+		int[] values;
+		
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof Point)) return false;
+			
+			Point other = (Point)obj;
+			return x == other.x && y == other.y && 
+					(name == null ? other.name == null : name.equals(other.name)) &&
+					(boxed == null ? other.boxed == null : boxed.equals(other.boxed)) &&
+					Arrays.equals(values, other.values);
+		}
+		
+		@Override
+		public int hashCode() {
+			return x;
+		}
+	}
+	
+	public static class ColoredPoint extends Point {
+		private static final long serialVersionUID = -1958771475244315593L;
+		
+		private final char color;
+		
+		@SuppressWarnings("unused")
+		private ColoredPoint() {
+			this('-');
+		}
+		
+		public ColoredPoint(char color) {
+			this.color = color;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			return super.equals(obj) && color == ((ColoredPoint)obj).color;
+		}
+	}
+	
+	public static class ExternalPoint implements Externalizable {
+		int x;
+		String name;
+		
+		public ExternalPoint() {}
+		
+		@Override
+		public void writeExternal(ObjectOutput out) throws IOException {
+			out.writeInt(x);
+			out.writeUTF(name);
+		}
+		
+		@Override
+		public void readExternal(ObjectInput in) throws IOException {
+			x = in.readInt();
+			name = in.readUTF();
+		}
+	}
+	
+	@BeforeClass
+	public static void registerCodecs(){
+		InterpreterProvider.getInstance().registerCodec(Point.class, new RegistrationCodec()
+				.register(Point.class, 1)
+				.register(ColoredPoint.class, 2));
+		InterpreterProvider.getInstance().registerCodec(ExternalPoint.class, new ExternalizableCodec());
+	}
+	
+	private static Point point(int x, String name){
+		Point point = new Point();
+		point.x = x;
+		point.y = x * 1000L;
+		point.name = name;
+		point.boxed = x % 2 == 0 ? null : x;
+		point.ignored = "ignored";
+		point.values = new int[]{x, x + 1};
+		
+		return point;
+	}
+	
+	@Test
+	public void testRegistrationCodec() throws Exception{
+		Point point = point(3, "three");
+		
+		byte[] bytes = ConvertHelper.convertObjectToByteArray(point);
+		Point read = (Point)ConvertHelper.convertByteArrayToObject(bytes);
+		
+		assertEquals(point, read);
+		assertEquals(null, read.ignored);
+		
+		//ohne Klassenbeschreibung deutlich kleiner
+		byte[] javaBytes = convertWithJavaSerialization(point);
+		assertTrue(bytes.length * 2 < javaBytes.length);
+	}
+	
+	@Test
+	public void testRegisteredSubclass() throws Exception{
+		ColoredPoint point = new ColoredPoint('r');
+		point.x = 7;
+		point.name = null;
+		
+		Object read = ConvertHelper.convertByteArrayToObject(ConvertHelper.convertObjectToByteArray(point));
+		
+		assertEquals(ColoredPoint.class, read.getClass());
+		assertEquals(point, read);
+	}
+	
+	@Test
+	public void testExternalizableCodec() throws Exception{
+		ExternalPoint point = new ExternalPoint();
+		point.x = 42;
+		point.name = "external";
+		
+		ExternalPoint read = (ExternalPoint)ConvertHelper.convertByteArrayToObject(
+				ConvertHelper.convertObjectToByteArray(point));
+		
+		assertEquals(42, read.x);
+		assertEquals("external", read.name);
+	}
+	
+	@Test
+	public void testJavaSerializationIsCompatible() throws Exception{
+		//Daten ohne Codec-Kennung (z.B. aus bestehenden Tabellen) bleiben lesbar
+		byte[] javaBytes = convertWithJavaSerialization(Arrays.asList("a", "b"));
+		
+		assertEquals(Arrays.asList("a", "b"), ConvertHelper.convertByteArrayToObject(javaBytes));
+		assertTrue(Arrays.equals(javaBytes, ConvertHelper.convertObjectToByteArray(Arrays.asList("a", "b"))));
+	}
+	
+	@Test
+	public void testDBMap(){
+		Map<Point, Point> map = new DBMap<Point, Point>(INFO);
+		
+		for(int i=0; i < 10; i++){
+			map.put(point(i, "key" + i), point(i * 2, "value" + i));
+		}
+		
+		assertEquals(10, map.size());
+		for(int i=0; i < 10; i++){
+			assertEquals(point(i * 2, "value" + i), map.get(point(i, "key" + i)));
+		}
+		
+		map.put(point(1, "key1"), point(-1, null));
+		assertEquals(point(-1, null), map.get(point(1, "key1")));
+		assertEquals(10, map.size());
+	}
+	
+	private static byte[] convertWithJavaSerialization(Object o) throws IOException{
+		java.io.ByteArrayOutputStream bos = new java.io.ByteArrayOutputStream();
+		java.io.ObjectOutputStream oos = new java.io.ObjectOutputStream(bos);
+		oos.writeObject(o);
+		oos.flush();
+		
+		return bos.toByteArray();
+	}
+}
@@ -65,6 +65,29 @@ public class MetadataManagerBlackboxTest {
 		assertEquals("TEST_DATA", data.getMetadata());
 	}
 	
+	@Test
+	public void testUpdateVersion(){
+		final String TABLE_NAME = "TABLE_4";
+		toTest.insertMetadata(TABLE_NAME, "1.0");
+		toTest.updateVersion(TABLE_NAME, "2.0");
+		
+		assertEquals("2.0", toTest.getTableMetadata(TABLE_NAME).getVersion());
+	}
+	
+	@Test
+	public void testProperties(){
+		final String TABLE_NAME = "TABLE_5";
+		toTest.insertMetadata(TABLE_NAME, "1.0");
+		assertTrue(toTest.getProperties(TABLE_NAME).isEmpty());
+		
+		toTest.setProperty(TABLE_NAME, "first", "1");
+		toTest.setProperty(TABLE_NAME, "second", "a=b;c(d)");
+		toTest.setProperty(TABLE_NAME, "first", "2");
+		
+		assertEquals("2", toTest.getProperties(TABLE_NAME).getProperty("first"));
+		assertEquals("a=b;c(d)", toTest.getProperties(TABLE_NAME).getProperty("second"));
+	}
+	
 	@Test
 	public void testRemove(){
 		final String TABLE_NAME = "TABLE_3";
@@ -0,0 +1,145 @@
+package de.raysha.lib.dbc.meta;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Types;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.raysha.lib.dbc.DBMap;
+import de.raysha.lib.dbc.beans.ConnectionInfo;
+
+public class TypeDictionaryBlackboxTest {
+	private final static String DB_PATH = "/tmp/dbc";
+	private final static ConnectionInfo INFO = new ConnectionInfo(
+			"org.h2.Driver",
+			"jdbc:h2:" + DB_PATH,
+			"sa",
+			"");
+	
+	Connection connection;
+	MetadataManager metadataManager;
+	
+	@Before
+	public void before() throws Exception {
+		//die (bestehende) Datenbank vorher entfernen
+		new File(DB_PATH + ".h2.db").delete();
+		
+		Class.forName(INFO.getClassName());
+		connection = DriverManager.getConnection(INFO.getJdbcUrl(), INFO.getUser(), INFO.getPw());
+		metadataManager = new MetadataManager(connection);
+	}
+	
+	@After
+	public void after() throws Exception {
+		connection.close();
+	}
+	
+	//diese Typen werden von keinem anderen Test verwendet
+	static class Unknown {}
+	static class RolledBack {}
+	static class Committed {}
+	
+	@Test
+	public void register() throws Exception {
+		TypeDictionary toTest = new TypeDictionary(connection, metadataManager);
+		
+		short stringId = toTest.getId(String.class);
+		short integerId = toTest.getId(Integer.class);
+		assertTrue(stringId != TypeDictionary.NO_TYPE);
+		assertTrue(stringId != integerId);
+		assertEquals(stringId, toTest.getId(String.class));
+		assertEquals(stringId, toTest.getId(String.class.getName()));
+		
+		assertEquals(String.class, toTest.getType(stringId));
+		assertEquals(Integer.class.getName(), toTest.getTypeName(integerId));
+		assertNull(toTest.getType(TypeDictionary.NO_TYPE));
+		
+		//ein weiteres Verzeichnis derselben Datenbank kennt die Kennungen bereits
+		TypeDictionary other = new TypeDictionary(connection, metadataManager);
+		assertEquals(stringId, other.findId(String.class));
+		assertEquals(Integer.class, other.getType(integerId));
+		
+		assertEquals(TypeDictionary.TABLE_VERSION,
+				metadataManager.getTableMetadata(TypeDictionary.TABLE_NAME).getVersion());
+	}
+	
+	@Test
+	public void findDoesNotRegister() throws Exception {
+		TypeDictionary toTest = new TypeDictionary(connection, metadataManager);
+		
+		int count = countTypes();
+		assertEquals(TypeDictionary.NO_TYPE, toTest.findId(Unknown.class));
+		assertEquals(count, countTypes());
+		
+		short id = toTest.getId(Unknown.class);
+		assertEquals(id, toTest.findId(Unknown.class));
+		assertEquals(count + 1, countTypes());
+	}
+	
+	@Test
+	public void rollback() throws Exception {
+		TypeDictionary toTest = new TypeDictionary(connection, metadataManager);
+		
+		int count = countTypes();
+		connection.setAutoCommit(false);
+		short id = toTest.getId(RolledBack.class);
+		assertEquals(RolledBack.class, toTest.getType(id));
+		connection.rollback();
+		connection.setAutoCommit(true);
+		
+		//die Kennung wurde verworfen und darf nicht mehr im Speicher stehen
+		assertEquals(TypeDictionary.NO_TYPE, toTest.findId(RolledBack.class));
+		assertEquals(count, countTypes());
+		
+		short newId = toTest.getId(Committed.class);
+		assertEquals(id, newId);
+		assertEquals(Committed.class, toTest.getType(newId));
+	}
+	
+	@Test
+	public void mapStoresIds() throws Exception {
+		DBMap<String, Integer> map = new DBMap<String, Integer>(INFO, "typeidmap");
+		DBMap<String, Integer> other = new DBMap<String, Integer>(INFO, "typeidother");
+		map.put("a", 1);
+		other.put("b", 2);
+		
+		TypeDictionary dictionary = new TypeDictionary(connection, metadataManager);
+		for(String table : new String[]{"typeidmap", "typeidother"}){
+			ResultSet result = connection.createStatement().executeQuery(
+					"SELECT KEY_TYPE, VALUE_TYPE FROM " + table);
+			try{
+				assertEquals(Types.SMALLINT, result.getMetaData().getColumnType(1));
+				assertTrue(result.next());
+				assertEquals(dictionary.findId(String.class), result.getShort(1));
+				assertEquals(dictionary.findId(Integer.class), result.getShort(2));
+				assertFalse(result.next());
+			}finally{
+				result.close();
+			}
+		}
+		
+		map.close();
+		other.close();
+	}
+	
+	private int countTypes() throws Exception {
+		ResultSet result = connection.createStatement().executeQuery(
+				"SELECT COUNT(*) FROM " + TypeDictionary.TABLE_NAME);
+		try{
+			result.next();
+			return result.getInt(1);
+		}finally{
+			result.close();
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package de.raysha.lib.dbc.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.raysha.lib.dbc.DBMap;
+import de.raysha.lib.dbc.beans.ConnectionInfo;
+
+public class MapMetricsBlackboxTest {
+	private final static String DB_PATH = "/tmp/dbc";
+	private final static ConnectionInfo INFO = new ConnectionInfo(
+			"org.h2.Driver",
+			"jdbc:h2:" + DB_PATH,
+			"sa",
+			"");
+	
+	@Before
+	public void before(){
+		//die (bestehende) Datenbank vorher entfernen
+		new File(DB_PATH + ".h2.db").delete();
+	}
+	
+	public static class Payload implements Serializable {
+		private static final long serialVersionUID = 1L;
+		
+		final byte[] data = new byte[1000];
+	}
+	
+	@Test
+	public void histogram() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getValueAtPercentile(99));
+		
+		for(long i=1; i <= 1000; i++){
+			histogram.record(i * 1000);
+		}
+		
+		assertEquals(1000, histogram.getCount());
+		assertEquals(1000, histogram.getMin());
+		assertEquals(1000000, histogram.getMax());
+		assertEquals(500500000, histogram.getSum());
+		
+		assertWithinError(500000, histogram.getValueAtPercentile(50));
+		assertWithinError(990000, histogram.getValueAtPercentile(99));
+		assertEquals(1000000, histogram.getValueAtPercentile(100));
+		
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMin());
+	}
+	
+	private void assertWithinError(long expected, long actual){
+		assertTrue(actual + " should be near " + expected,
+				actual >= expected && actual <= expected + expected / LatencyHistogram.SUB_BUCKETS);
+	}
+	
+	@Test
+	public void operations() {
+		DBMap<String, Object> map = new DBMap<String, Object>(INFO, "metricsoperations", true);
+		assertNull(map.getMetrics());
+		
+		map.put("before", 1);
+		
+		MapMetrics metrics = map.enableMetrics();
+		assertSame(metrics, map.enableMetrics());
+		assertSame(metrics, map.getMetrics());
+		
+		for(int i=0; i < 10; i++){
+			map.put("key" + i, new Payload());
+			map.get("key" + i);
+		}
+		map.containsKey("key0");
+		map.remove("key0");
+		
+		OperationStatistics put = metrics.getStatistics(Operation.PUT);
+		assertEquals(10, put.getCount());
+		//vorherigen Wert suchen, anschließend schreiben
+		assertEquals(20, put.getStatementCount());
+		assertTrue(put.getBytesSerialized() >= 10 * 1000);
+		assertTrue(put.getMaxNanos() > 0);
+		assertTrue(put.getMedianNanos() <= put.getP99Nanos());
+		
+		assertEquals(11, metrics.getStatistics(Operation.GET).getCount());
+		assertEquals(1, metrics.getStatistics(Operation.CONTAINS_KEY).getStatementCount());
+		//das get() innerhalb des remove() zählt mit
+		OperationStatistics remove = metrics.getStatistics(Operation.REMOVE);
+		assertEquals(1, remove.getCount());
+		assertEquals(2, remove.getStatementCount());
+		
+		assertEquals(23, metrics.getCount());
+		assertFalse(metrics.getOperations().containsKey(Operation.CLEAR.name()));
+		
+		metrics.reset();
+		assertEquals(0, metrics.getCount());
+		
+		map.disableMetrics();
+		assertNull(map.getMetrics());
+		map.put("after", 2);
+		assertEquals(0, metrics.getCount());
+		
+		map.close();
+	}
+	
+	@Test
+	public void jmx() throws Exception {
+		DBMap<String, Integer> map = new DBMap<String, Integer>(INFO, "metricsjmx", true);
+		MapMetrics metrics = map.enableMetrics();
+		ObjectName name = metrics.registerMBean();
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		
+		map.put("a", 1);
+		map.size();
+		
+		assertEquals("metricsjmx", server.getAttribute(name, "TableName"));
+		assertEquals(2L, server.getAttribute(name, "Count"));
+		
+		TabularData operations = (TabularData)server.getAttribute(name, "Operations");
+		assertEquals(2, operations.size());
+		
+		map.close();
+		assertFalse(server.isRegistered(name));
+	}
+	
+	@Test
+	public void pulledSnapshotIsStable() {
+		DBMap<String, Integer> map = new DBMap<String, Integer>(INFO, "metricssnapshot", true);
+		MapMetrics metrics = map.enableMetrics();
+		
+		map.put("a", 1);
+		Map<String, OperationStatistics> snapshot = metrics.getOperations();
+		map.put("b", 2);
+		
+		assertEquals(1, snapshot.get(Operation.PUT.name()).getCount());
+		assertEquals(2, metrics.getStatistics(Operation.PUT).getCount());
+		
+		map.close();
+	}
+}
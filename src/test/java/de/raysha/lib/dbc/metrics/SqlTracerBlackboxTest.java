@@ -0,0 +1,269 @@
+package de.raysha.lib.dbc.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.raysha.lib.dbc.BlockDBList;
+import de.raysha.lib.dbc.DBList;
+import de.raysha.lib.dbc.DBMap;
+import de.raysha.lib.dbc.beans.ConnectionInfo;
+import de.raysha.lib.dbc.meta.MetadataManager;
+import de.raysha.lib.dbc.meta.TypeDictionary;
+
+public class SqlTracerBlackboxTest {
+	private final static String DB_PATH = "/tmp/dbc";
+	private final static ConnectionInfo INFO = new ConnectionInfo(
+			"org.h2.Driver",
+			"jdbc:h2:" + DB_PATH,
+			"sa",
+			"");
+	
+	private final List<LogRecord> records = new ArrayList<LogRecord>();
+	private Logger logger;
+	private Handler handler;
+	
+	@Before
+	public void before(){
+		//die (bestehende) Datenbank vorher entfernen
+		new File(DB_PATH + ".h2.db").delete();
+		
+		logger = Logger.getLogger(SqlTracerBlackboxTest.class.getName());
+		logger.setUseParentHandlers(false);
+		logger.setLevel(Level.FINE);
+		handler = new Handler() {
+			@Override
+			public void publish(LogRecord record) {
+				records.add(record);
+			}
+			
+			@Override
+			public void flush() {
+			}
+			
+			@Override
+			public void close() {
+			}
+		};
+		logger.addHandler(handler);
+	}
+	
+	@After
+	public void after(){
+		logger.removeHandler(handler);
+	}
+	
+	private List<String> messages(Level level){
+		List<String> messages = new ArrayList<String>();
+		for(LogRecord record : records){
+			if(record.getLevel() == level) messages.add(record.getMessage());
+		}
+		
+		return messages;
+	}
+	
+	private boolean contains(List<String> messages, String part){
+		for(String message : messages){
+			if(message.contains(part)) return true;
+		}
+		
+		return false;
+	}
+	
+	private TypeDictionary typeDictionary() throws Exception {
+		Connection connection = DriverManager.getConnection(INFO.getJdbcUrl(), INFO.getUser(), INFO.getPw());
+		try{
+			return new TypeDictionary(connection, new MetadataManager(connection));
+		}finally{
+			connection.close();
+		}
+	}
+	
+	@Test
+	public void trace() throws Exception {
+		DBMap<String, Integer> map = new DBMap<String, Integer>(INFO, "tracemap", true);
+		map.put("before", 0);
+		assertTrue(records.isEmpty());
+		
+		SqlTracer tracer = new SqlTracer(logger);
+		map.trace(tracer);
+		assertEquals(tracer, map.getTracer());
+		
+		map.put("key", 42);
+		assertEquals(Integer.valueOf(42), map.get("key"));
+		
+		List<String> messages = messages(Level.FINE);
+		assertFalse(messages.isEmpty());
+		assertTrue(contains(messages, "MERGE INTO tracemap"));
+		assertTrue(contains(messages, "SELECT"));
+		//die Typen werden als Kennung des (datenbankweiten) Typ-Verzeichnisses gebunden
+		TypeDictionary types = typeDictionary();
+		assertTrue(contains(messages, "parameters=[106079, key, " + types.findId(String.class) + 
+				", 42, 42, " + types.findId(Integer.class) + "] rows=1"));
+		assertTrue(messages(Level.WARNING).isEmpty());
+		
+		map.trace(null);
+		assertNull(map.getTracer());
+		records.clear();
+		
+		map.put("after", 1);
+		assertTrue(records.isEmpty());
+		
+		map.close();
+	}
+	
+	@Test
+	public void slowQuery() {
+		DBMap<String, Integer> map = new DBMap<String, Integer>(INFO, "traceslow", true);
+		map.trace(new SqlTracer(logger)
+				.slowQueryThreshold(1, TimeUnit.NANOSECONDS)
+				.sampleRate(0));
+		
+		map.put("key", 1);
+		
+		assertTrue(messages(Level.FINE).isEmpty());
+		List<String> slow = messages(Level.WARNING);
+		assertFalse(slow.isEmpty());
+		assertTrue(slow.get(0).startsWith("Slow query: "));
+		
+		map.close();
+	}
+	
+	@Test
+	public void sampling() {
+		DBMap<String, Integer> map = new DBMap<String, Integer>(INFO, "tracesampling", true);
+		map.trace(new SqlTracer(logger).sampleRate(0));
+		
+		for(int i=0; i < 10; i++){
+			map.put("key" + i, i);
+		}
+		
+		assertTrue(records.isEmpty());
+		map.close();
+	}
+	
+	@Test
+	public void withMetrics() {
+		DBMap<String, Integer> map = new DBMap<String, Integer>(INFO, "tracemetrics", true);
+		MapMetrics metrics = map.enableMetrics();
+		map.trace(new SqlTracer(logger));
+		
+		map.put("key", 1);
+		
+		assertEquals(2, metrics.getStatistics(Operation.PUT).getStatementCount());
+		assertEquals(2, records.size());
+		
+		map.disableMetrics();
+		records.clear();
+		map.get("key");
+		assertEquals(1, records.size());
+		
+		map.close();
+	}
+	
+	@Test
+	public void iterator() {
+		DBMap<String, Integer> map = new DBMap<String, Integer>(INFO, "traceiterator", true);
+		map.put("a", 1);
+		map.put("b", 2);
+		map.trace(new SqlTracer(logger));
+		
+		Iterator<String> iter = map.keySet().iterator();
+		iter.next();
+		iter.remove();
+		
+		assertTrue(contains(messages(Level.FINE), "DELETE"));
+		assertEquals(1, map.size());
+		
+		map.close();
+	}
+	
+	@Test
+	public void batch() throws Exception {
+		final List<ExecutedStatement> executed = new ArrayList<ExecutedStatement>();
+		Connection connection = JdbcInstrumentation.wrap(
+				DriverManager.getConnection(INFO.getJdbcUrl(), INFO.getUser(), INFO.getPw()),
+				new StatementListener() {
+					@Override
+					public void executed(ExecutedStatement statement) {
+						executed.add(statement);
+					}
+				});
+		try{
+			connection.createStatement().execute("CREATE TABLE tracebatch (a INT)");
+			PreparedStatement insert = connection.prepareStatement("INSERT INTO tracebatch VALUES (?)");
+			for(int i=1; i <= 3; i++){
+				insert.setInt(1, i);
+				insert.addBatch();
+			}
+			insert.executeBatch();
+			
+			ExecutedStatement batch = executed.get(executed.size() - 1);
+			assertEquals(3, batch.getBatchSize());
+			assertEquals(Arrays.<Object>asList(1), batch.getBatchParameters().get(0));
+			assertEquals(Arrays.<Object>asList(3), batch.getBatchParameters().get(2));
+			assertTrue(batch.toString().endsWith("parameters=[[1], [2], [3]] batch=3 rows=3"));
+			
+			//der nächste Batch beginnt leer
+			insert.setInt(1, 4);
+			insert.addBatch();
+			insert.executeBatch();
+			assertEquals(1, executed.get(executed.size() - 1).getBatchSize());
+		}finally{
+			connection.close();
+		}
+	}
+	
+	@Test
+	public void list() {
+		DBList<String> list = new DBList<String>(INFO, "tracelist", true);
+		list.add("a");
+		list.add("b");
+		
+		list.trace(new SqlTracer(logger));
+		
+		list.add(0, "c");
+		assertEquals("c", list.get(0));
+		assertTrue(contains(messages(Level.FINE), "UPDATE"));
+		
+		list.close();
+	}
+	
+	@Test
+	public void blockList() {
+		DBMap<Integer, String> map = new DBMap<Integer, String>(INFO, "traceblocklist", true);
+		BlockDBList<String> list = new BlockDBList<String>(map);
+		list.add("a");
+		list.add("b");
+		
+		map.trace(new SqlTracer(logger));
+		
+		//die Elemente des Blockes werden per UPDATE verschoben
+		list.add(0, "c");
+		assertEquals(1, list.indexOf("a"));
+		assertTrue(contains(messages(Level.FINE), "UPDATE traceblocklist"));
+		assertTrue(contains(messages(Level.FINE), "ORDER BY KEY_INT ASC"));
+		
+		list.close();
+		map.close();
+	}
+}